@@ -0,0 +1,100 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the parsing of the cluster status, the cib and the resource
+ * status.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CrmParsingBenchmark {
+    /** Multiplies the number of the resources. */
+    @Param({"1", "10", "100"})
+    public int scale;
+    /** Parser of the cib and the resource status. */
+    private CRMXML crmXML;
+    /** Cluster status, that keeps the parsed data. */
+    private ClusterStatus clusterStatus;
+    /** Two cluster infos, that differ, so that none is skipped. */
+    private final String[] clusterInfos = new String[2];
+    /** Cib query. */
+    private String cib;
+    /** Resource status. */
+    private String resourceStatus;
+    /** Index of the next cluster info. */
+    private int next = 0;
+
+    /** Prepares the parsers and the input. */
+    @Setup
+    public void setUp() {
+        final Host host = ParsingFixtures.getHost();
+        crmXML = new CRMXML(host, null);
+        clusterStatus = new ClusterStatus(host, crmXML);
+        for (int i = 0; i < clusterInfos.length; i++) {
+            clusterInfos[i] = ParsingFixtures.clusterInfo(scale, i);
+        }
+        cib = "<pcmk>\n" + ParsingFixtures.cib(scale, 0) + "</pcmk>\n";
+        resourceStatus = ParsingFixtures.resourceStatus(scale);
+    }
+
+    /** Parses the whole cluster info, as it comes from the helper. */
+    @Benchmark
+    public boolean parseStatus() {
+        next = 1 - next;
+        return clusterStatus.parseStatus(clusterInfos[next]);
+    }
+
+    /** Parses the cib. */
+    @Benchmark
+    public void parseCibQuery(final Blackhole blackhole) {
+        blackhole.consume(crmXML.parseCibQuery(cib));
+    }
+
+    /** Parses the resource status. */
+    @Benchmark
+    public void parseResStatus(final Blackhole blackhole) {
+        blackhole.consume(crmXML.parseResStatus(resourceStatus));
+    }
+}
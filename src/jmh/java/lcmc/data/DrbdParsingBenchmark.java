@@ -0,0 +1,111 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the parsing of the drbd config and the drbd events.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrbdParsingBenchmark {
+    /** Multiplies the number of the drbd resources. */
+    @Param({"1", "10", "100"})
+    public int scale;
+    /** Host, whose events are parsed. */
+    private Host host;
+    /** Parser of the config. */
+    private DrbdXML drbdXML;
+    /**
+     * Parser of the events, without config, so that the events don't need
+     * the drbd graph.
+     */
+    private DrbdXML eventsXML;
+    /** Config, as "drbdadm dump-xml" prints it. */
+    private String config;
+    /** Event lines. */
+    private String[] events;
+    /** Drbd 9 event lines. */
+    private String[] events2;
+
+    /** Prepares the parsers and the input. */
+    @Setup
+    public void setUp() {
+        host = ParsingFixtures.getHost();
+        final Map<Host, String> parameters = new HashMap<Host, String>();
+        parameters.put(host, ParsingFixtures.drbdParameters());
+        drbdXML = new DrbdXML(new Host[]{host}, parameters);
+        eventsXML = new DrbdXML(new Host[]{host}, parameters);
+        config = ParsingFixtures.drbdConfig(scale);
+        events = ParsingFixtures.drbdEvents(scale);
+        events2 = ParsingFixtures.drbdEvents2(scale);
+    }
+
+    /** Parses the drbd config. */
+    @Benchmark
+    public DrbdXML update() {
+        drbdXML.update(config);
+        return drbdXML;
+    }
+
+    /** Parses one event line for every device. */
+    @Benchmark
+    public boolean parseDrbdEvent() {
+        boolean changed = false;
+        for (final String event : events) {
+            changed |= eventsXML.parseDrbdEvent(host, null, event);
+        }
+        return changed;
+    }
+
+    /** Parses the drbd 9 event lines for every device. */
+    @Benchmark
+    public boolean parseDrbdEvent2() {
+        boolean changed = false;
+        for (final String event : events2) {
+            changed |= eventsXML.parseDrbdEvent(host, null, event);
+        }
+        return changed;
+    }
+}
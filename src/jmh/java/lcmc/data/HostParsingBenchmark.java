@@ -0,0 +1,86 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the parsing of the host hardware info and of the vm info.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HostParsingBenchmark {
+    /** Multiplies the number of the devices and domains. */
+    @Param({"1", "10", "100"})
+    public int scale;
+    /** Host, that keeps the parsed data. */
+    private Host host;
+    /** Parser of the vm info. */
+    private VMSXML vmsXML;
+    /** Hardware info. */
+    private String hostInfo;
+    /** Vm info. */
+    private String vmsInfo;
+
+    /** Prepares the parsers and the input. */
+    @Setup
+    public void setUp() {
+        host = ParsingFixtures.getHost();
+        vmsXML = new VMSXML(host);
+        hostInfo = ParsingFixtures.hostInfo(scale);
+        vmsInfo = ParsingFixtures.vmsInfo(scale, 1);
+    }
+
+    /** Parses the hardware info. */
+    @Benchmark
+    public Host parseHostInfo() {
+        host.parseHostInfo(hostInfo);
+        return host;
+    }
+
+    /** Parses the vm info with all domains. */
+    @Benchmark
+    public boolean updateVMS() {
+        /* otherwise the same info is skipped */
+        host.setVMInfoMD5(null);
+        return vmsXML.update(vmsInfo);
+    }
+}
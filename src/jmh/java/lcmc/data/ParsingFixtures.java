@@ -0,0 +1,450 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import lcmc.utilities.Tools;
+
+/**
+ * This class prepares the input for the parsing benchmarks. The domain
+ * configs come from the lcmc-test fixtures, the rest is generated in the
+ * format, that the gui helper prints. The scale multiplies the number of
+ * resources, devices and domains of the base size.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+final class ParsingFixtures {
+    /** Names of the cluster nodes. */
+    static final String[] NODES = {"node1", "node2"};
+    /** Number of the crm resources at scale 1. */
+    private static final int CRM_RESOURCES = 10;
+    /** Number of the drbd resources at scale 1. */
+    private static final int DRBD_RESOURCES = 4;
+    /** Number of the disks and interfaces at scale 1. */
+    private static final int HW_DEVICES = 4;
+    /** Domain config fixtures. */
+    private static final String[] DOMAIN_FIXTURES = {
+                                    "/lcmc-test/vm-test1/domain.xml2",
+                                    "/lcmc-test/vm-test1/domain.xml3",
+                                    "/lcmc-test/vm-test1/domain.xml3.1",
+                                    "/lcmc-test/vm-test1/domain.xml3.2"};
+    /** Host, that is shared by the benchmarks. */
+    private static Host host = null;
+
+    /** Private constructor, cannot be instantiated. */
+    private ParsingFixtures() {
+        /* no instance */
+    }
+
+    /**
+     * Returns a host in a cluster, that is not connected. The commands,
+     * that the parsers run in their constructors, fail right away.
+     */
+    static Host getHost() {
+        synchronized (ParsingFixtures.class) {
+            if (host == null) {
+                Tools.init();
+                Tools.setDebugLevel(-1);
+                host = new Host();
+                host.setHostname(NODES[0]);
+                final Cluster cluster = new Cluster();
+                cluster.setName("benchmark");
+                cluster.addHost(host);
+                host.setCluster(cluster);
+            }
+            return host;
+        }
+    }
+
+    /**
+     * Returns the cluster info as it comes from the helper, the update
+     * changes the cib, so that it is not skipped as unchanged.
+     */
+    static String clusterInfo(final int scale, final int update) {
+        return "res_status\nok\n"
+               + resourceStatus(scale)
+               + "\n>>>res_status\n"
+               + "cibadmin\nok\n"
+               + "<pcmk>\n"
+               + cib(scale, update)
+               + "</pcmk>\n"
+               + ">>>cibadmin\n";
+    }
+
+    /** Returns the cib with primitives, groups and constraints. */
+    static String cib(final int scale, final int update) {
+        final int count = CRM_RESOURCES * scale;
+        final StringBuilder cib = new StringBuilder(4000 * count);
+        cib.append("<cib epoch=\"10\" num_updates=\"");
+        cib.append(update);
+        cib.append("\" admin_epoch=\"0\" validate-with=\"pacemaker-1.2\" "
+                   + "crm_feature_set=\"3.0.6\" have-quorum=\"1\" dc-uuid=\"");
+        cib.append(NODES[0]);
+        cib.append("\">\n<configuration>\n<crm_config>\n"
+                   + "<cluster_property_set id=\"cib-bootstrap-options\">\n"
+                   + nvpair("cib-bootstrap-options", "stonith-enabled", "false")
+                   + nvpair("cib-bootstrap-options", "no-quorum-policy",
+                            "ignore")
+                   + "</cluster_property_set>\n</crm_config>\n<nodes>\n");
+        for (final String node : NODES) {
+            cib.append("<node id=\"" + node + "\" uname=\"" + node
+                       + "\" type=\"normal\"/>\n");
+        }
+        cib.append("</nodes>\n<resources>\n");
+        for (int i = 0; i < count; i++) {
+            if (i % 5 == 0) {
+                if (i > 0) {
+                    cib.append("</group>\n");
+                }
+                cib.append("<group id=\"grp_" + i + "\">\n");
+            }
+            final String id = "res_IPaddr2_" + i;
+            cib.append("<primitive class=\"ocf\" id=\"" + id
+                       + "\" provider=\"heartbeat\" type=\"IPaddr2\">\n"
+                       + "<instance_attributes id=\"" + id
+                       + "-instance_attributes\">\n"
+                       + nvpair(id + "-instance_attributes", "ip",
+                                "10.0." + (i / 250) + "." + (i % 250 + 1))
+                       + nvpair(id + "-instance_attributes", "cidr_netmask",
+                                "16")
+                       + "</instance_attributes>\n"
+                       + "<operations>\n"
+                       + "<op id=\"" + id + "-monitor-10s\" interval=\"10s\" "
+                       + "name=\"monitor\" timeout=\"20s\"/>\n"
+                       + "<op id=\"" + id + "-start-0\" interval=\"0\" "
+                       + "name=\"start\" timeout=\"20s\"/>\n"
+                       + "</operations>\n"
+                       + "<meta_attributes id=\"" + id
+                       + "-meta_attributes\">\n"
+                       + nvpair(id + "-meta_attributes", "target-role",
+                                "started")
+                       + "</meta_attributes>\n"
+                       + "</primitive>\n");
+        }
+        if (count > 0) {
+            cib.append("</group>\n");
+        }
+        cib.append("</resources>\n<constraints>\n");
+        for (int i = 0; i < count; i += 5) {
+            cib.append("<rsc_location id=\"loc_grp_" + i + "\" rsc=\"grp_"
+                       + i + "\" node=\"" + NODES[i / 5 % NODES.length]
+                       + "\" score=\"100\"/>\n");
+            if (i > 0) {
+                cib.append("<rsc_order id=\"ord_grp_" + i + "\" first=\"grp_"
+                           + (i - 5) + "\" then=\"grp_" + i
+                           + "\" score=\"INFINITY\"/>\n"
+                           + "<rsc_colocation id=\"col_grp_" + i
+                           + "\" rsc=\"grp_" + i + "\" with-rsc=\"grp_"
+                           + (i - 5) + "\" score=\"INFINITY\"/>\n");
+            }
+        }
+        cib.append("</constraints>\n</configuration>\n<status>\n");
+        for (final String node : NODES) {
+            cib.append("<node_state id=\"" + node + "\" uname=\"" + node
+                       + "\" ha=\"active\" in_ccm=\"true\" crmd=\"online\" "
+                       + "join=\"member\" expected=\"member\" "
+                       + "crm-debug-origin=\"do_update_resource\" "
+                       + "shutdown=\"0\">\n"
+                       + "<lrm id=\"" + node + "\">\n<lrm_resources>\n");
+            for (int i = 0; i < count; i++) {
+                final String id = "res_IPaddr2_" + i;
+                cib.append("<lrm_resource id=\"" + id + "\" type=\"IPaddr2\" "
+                           + "class=\"ocf\" provider=\"heartbeat\">\n"
+                           + lrmRscOp(id, "start", "0", i)
+                           + lrmRscOp(id, "monitor", "10000", i)
+                           + "</lrm_resource>\n");
+            }
+            cib.append("</lrm_resources>\n</lrm>\n"
+                       + "<transient_attributes id=\"" + node + "\">\n"
+                       + "<instance_attributes id=\"status-" + node + "\">\n"
+                       + nvpair("status-" + node, "probe_complete", "true")
+                       + "</instance_attributes>\n"
+                       + "</transient_attributes>\n"
+                       + "</node_state>\n");
+        }
+        cib.append("</status>\n</cib>\n");
+        return cib.toString();
+    }
+
+    /** Returns the status of the resources, as crm_mon shows it. */
+    static String resourceStatus(final int scale) {
+        final int count = CRM_RESOURCES * scale;
+        final StringBuilder status = new StringBuilder(200 * count);
+        status.append("<resource_status>\n");
+        for (int i = 0; i < count; i++) {
+            final String node = NODES[i / 5 % NODES.length];
+            status.append("  <resource id=\"res_IPaddr2_" + i + "\""
+                          + " running=\"running\" managed=\"managed\">\n"
+                          + "    <started>" + node + "</started>\n"
+                          + "    <scores>\n");
+            for (final String n : NODES) {
+                status.append("      <score host=\"" + n + "\" score=\""
+                              + (n.equals(node) ? "100" : "0") + "\"/>\n");
+            }
+            status.append("    </scores>\n  </resource>\n");
+        }
+        status.append("</resource_status>\n");
+        return status.toString();
+    }
+
+    /** Returns the output of the "drbdsetup xml-help" commands. */
+    static String drbdParameters() {
+        return "<command name=\"net\">\n"
+               + "\t<option name=\"protocol\" type=\"handler\">\n"
+               + "\t\t<handler>A</handler>\n"
+               + "\t\t<handler>B</handler>\n"
+               + "\t\t<handler>C</handler>\n"
+               + "\t</option>\n"
+               + "\t<option name=\"timeout\" type=\"numeric\">\n"
+               + "\t\t<min>1</min>\n"
+               + "\t\t<max>600</max>\n"
+               + "\t\t<default>60</default>\n"
+               + "\t\t<unit_prefix>1</unit_prefix>\n"
+               + "\t</option>\n"
+               + "\t<option name=\"allow-two-primaries\" type=\"boolean\">\n"
+               + "\t</option>\n"
+               + "\t<option name=\"after-sb-0pri\" type=\"handler\">\n"
+               + "\t\t<handler>disconnect</handler>\n"
+               + "\t\t<handler>discard-younger-primary</handler>\n"
+               + "\t</option>\n"
+               + "</command>\n"
+               + "<command name=\"disk\">\n"
+               + "\t<option name=\"on-io-error\" type=\"handler\">\n"
+               + "\t\t<handler>pass_on</handler>\n"
+               + "\t\t<handler>detach</handler>\n"
+               + "\t</option>\n"
+               + "\t<option name=\"resync-rate\" type=\"numeric\">\n"
+               + "\t\t<min>1</min>\n"
+               + "\t\t<max>4194304</max>\n"
+               + "\t\t<default>250</default>\n"
+               + "\t\t<unit>bytes/second</unit>\n"
+               + "\t\t<unit_prefix>k</unit_prefix>\n"
+               + "\t</option>\n"
+               + "</command>\n";
+    }
+
+    /** Returns the drbd config, as "drbdadm dump-xml" prints it. */
+    static String drbdConfig(final int scale) {
+        final int count = DRBD_RESOURCES * scale;
+        final StringBuilder config = new StringBuilder(1000 * count);
+        config.append("<config file=\"/etc/drbd.conf\">\n"
+                      + "<common>\n"
+                      + "<section name=\"disk\">\n"
+                      + "<option name=\"on-io-error\" value=\"detach\"/>\n"
+                      + "</section>\n"
+                      + "</common>\n");
+        for (int i = 0; i < count; i++) {
+            config.append("<resource name=\"r" + i + "\">\n");
+            for (int n = 0; n < NODES.length; n++) {
+                config.append("<host name=\"" + NODES[n] + "\">\n"
+                              + "<volume vnr=\"0\">\n"
+                              + "<device minor=\"" + i + "\">/dev/drbd" + i
+                              + "</device>\n"
+                              + "<disk>/dev/vg0/lv" + i + "</disk>\n"
+                              + "<meta-disk>internal</meta-disk>\n"
+                              + "</volume>\n"
+                              + "<address family=\"ipv4\" port=\""
+                              + (7788 + i) + "\">10.0.1." + (n + 1)
+                              + "</address>\n"
+                              + "</host>\n");
+            }
+            config.append("<section name=\"net\">\n"
+                          + "<option name=\"protocol\" value=\"C\"/>\n"
+                          + "<option name=\"allow-two-primaries\"/>\n"
+                          + "</section>\n"
+                          + "<section name=\"disk\">\n"
+                          + "<option name=\"resync-rate\" value=\"100M\"/>\n"
+                          + "</section>\n"
+                          + "</resource>\n");
+        }
+        config.append("</config>\n");
+        return config.toString();
+    }
+
+    /** Returns the lines of the "drbdsetup events" command. */
+    static String[] drbdEvents(final int scale) {
+        final int count = DRBD_RESOURCES * scale;
+        final String[] events = new String[count * 3];
+        for (int i = 0; i < count; i++) {
+            final String dev = i + ",r" + i + "[0]";
+            events[i * 3] = (i * 3) + " ST " + dev
+                            + " { cs:SyncSource ro:Primary/Secondary "
+                            + "ds:UpToDate/Inconsistent r----- }";
+            events[i * 3 + 1] = (i * 3 + 1) + " SP " + dev + " 16.9";
+            events[i * 3 + 2] = (i * 3 + 2) + " UH " + dev + " split-brain";
+        }
+        return events;
+    }
+
+    /**
+     * Returns the lines of the "drbdsetup events2 --timestamps --statistics"
+     * command, during the resync.
+     */
+    static String[] drbdEvents2(final int scale) {
+        final int count = DRBD_RESOURCES * scale;
+        final String[] events = new String[count * 3];
+        final String ts = "2012-08-14T12:00:00.000000+02:00 ";
+        for (int i = 0; i < count; i++) {
+            events[i * 3] = ts + "change resource name=r" + i
+                            + " role=Primary";
+            events[i * 3 + 1] = ts + "change device name=r" + i
+                                + " volume=0 minor=" + i + " disk=UpToDate";
+            events[i * 3 + 2] = ts + "change peer-device name=r" + i
+                                + " peer-node-id=1 conn-name=node2 volume=0"
+                                + " replication=SyncSource"
+                                + " peer-disk=Inconsistent done=16.90";
+        }
+        return events;
+    }
+
+    /**
+     * Returns the vm info with the domain configs from the lcmc-test
+     * fixtures.
+     */
+    static String vmsInfo(final int scale, final int update) {
+        final String[] configs = new String[DOMAIN_FIXTURES.length];
+        for (int i = 0; i < configs.length; i++) {
+            configs[i] = Tools.getFile(DOMAIN_FIXTURES[i]);
+            if (configs[i] == null) {
+                throw new IllegalStateException("missing fixture: "
+                                                + DOMAIN_FIXTURES[i]);
+            }
+        }
+        final int count = configs.length * scale;
+        final StringBuilder vms = new StringBuilder(3000 * count);
+        vms.append("<vms md5=\"" + update + "\">\n"
+                   + "<version>0.9.12</version>\n");
+        for (int i = 0; i < count; i++) {
+            final String name = "dmc" + i;
+            vms.append("<vm name=\"" + name + "\" autostart=\"False\">\n"
+                       + "<info>\n"
+                       + "Id:             " + (i + 1) + "\n"
+                       + "Name:           " + name + "\n"
+                       + "UUID:           uuid-" + i + "\n"
+                       + "OS Type:        hvm\n"
+                       + "State:          running\n"
+                       + "CPU(s):         1\n"
+                       + "Max memory:     524288 kB\n"
+                       + "Used memory:    524288 kB\n"
+                       + "Persistent:     yes\n"
+                       + "Autostart:      disable\n"
+                       + "</info>\n"
+                       + "<vncdisplay>:" + i + "</vncdisplay>\n"
+                       + "<config>\n"
+                       + configs[i % configs.length].replaceAll("@NAME@",
+                                                                name)
+                       + "</config>\n"
+                       + "</vm>\n");
+        }
+        vms.append("</vms>\n");
+        return vms.toString();
+    }
+
+    /** Returns the hardware info, as "hw-info" command prints it. */
+    static String hostInfo(final int scale) {
+        final int count = HW_DEVICES * scale;
+        final StringBuilder info = new StringBuilder(300 * count);
+        info.append("net-info\n"
+                    + "lo 127.0.0.1 no 255.0.0.0\n");
+        for (int i = 0; i < count; i++) {
+            info.append("eth" + i + " 10.0." + (i / 250) + "."
+                        + (i % 250 + 1) + " 52:54:00:00:"
+                        + String.format("%02x:%02x", i / 256, i % 256)
+                        + " 255.255.0.0");
+            if (i % 2 == 1) {
+                info.append(" bridge");
+            }
+            info.append('\n');
+        }
+        info.append("disk-info\n");
+        for (int i = 0; i < count; i++) {
+            info.append("/dev/sd" + (char) ('a' + i % 26) + (i / 26 + 1)
+                        + " rl:/dev/sd" + (char) ('a' + i % 26) + (i / 26 + 1)
+                        + " size:104857600 pv:vg0\n"
+                        + "/dev/vg0/lv" + i + " rl:/dev/dm-" + i
+                        + " size:1048576 lv:lv" + i + " vg:vg0\n"
+                        + "/dev/drbd" + i + " rl:/dev/drbd" + i
+                        + " size:1048576 mp:/mnt/" + i + " fs:ext4 used:5\n");
+        }
+        info.append("vg-info\n"
+                    + "vg0 " + (count * 100) + "\n"
+                    + "filesystems-info\n"
+                    + "ext3\n"
+                    + "ext4\n"
+                    + "xfs\n"
+                    + "crypto-info\n"
+                    + "sha1\n"
+                    + "md5\n"
+                    + "crc32c\n"
+                    + "qemu-keymaps-info\n"
+                    + "en-us\n"
+                    + "de\n"
+                    + "cpu-map-model-info\n"
+                    + "qemu64\n"
+                    + "cpu-map-vendor-info\n"
+                    + "Intel\n"
+                    + "mount-points-info\n"
+                    + "/mnt\n"
+                    + "installation-info\n"
+                    + "pm:1.1.7\n"
+                    + "cs:1.4.2\n"
+                    + "drbd:8.4.1\n"
+                    + "drbd-mod:8.4.1\n"
+                    + "drbd-loaded:1\n"
+                    + "hn:" + NODES[0] + "\n"
+                    + "version-info\n"
+                    + "Linux\n"
+                    + "x86_64\n"
+                    + "3.2.0-4-amd64\n"
+                    + "7.0\n"
+                    + "debian\n"
+                    + "debian\n"
+                    + "7\n");
+        return info.toString();
+    }
+
+    /** Returns the nvpair element. */
+    private static String nvpair(final String parentId,
+                                 final String name,
+                                 final String value) {
+        return "<nvpair id=\"" + parentId + "-" + name + "\" name=\"" + name
+               + "\" value=\"" + value + "\"/>\n";
+    }
+
+    /** Returns the lrm_rsc_op element. */
+    private static String lrmRscOp(final String id,
+                                   final String operation,
+                                   final String interval,
+                                   final int callId) {
+        return "<lrm_rsc_op id=\"" + id + "_last_" + operation + "\" "
+               + "operation_key=\"" + id + "_" + operation + "_" + interval
+               + "\" operation=\"" + operation + "\" "
+               + "crm-debug-origin=\"do_update_resource\" "
+               + "crm_feature_set=\"3.0.6\" "
+               + "transition-key=\"" + callId + ":0:0:bench\" "
+               + "transition-magic=\"0:0;" + callId + ":0:0:bench\" "
+               + "call-id=\"" + callId + "\" rc-code=\"0\" op-status=\"0\" "
+               + "interval=\"" + interval + "\" last-run=\"1350000000\" "
+               + "last-rc-change=\"1350000000\" exec-time=\"30\" "
+               + "queue-time=\"0\" op-digest=\"0123456789abcdef\"/>\n";
+    }
+}
@@ -0,0 +1,520 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import rdr.MemInStream;
+import rfb.CMsgHandler;
+import rfb.CMsgReaderV3;
+import rfb.Encodings;
+import rfb.Hextile;
+import rfb.ManagedPixelBuffer;
+import rfb.MsgTypes;
+import rfb.PixelFormat;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the decoding of the vnc framebuffer updates. A recording
+ * starts with the ServerInit message, that has the pixel format of the
+ * updates, the server messages follow. It is read from the "recording" file,
+ * or it is recorded from a synthetic desktop with the "encoding" and "bpp",
+ * e.g. -Djmh.args="RfbDecoder -p encoding=ZRLE -p bpp=32". The result is
+ * milliseconds per playback of the recording.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RfbDecoderBenchmark {
+    /** Width of the synthetic desktop. */
+    private static final int WIDTH = 1024;
+    /** Height of the synthetic desktop. */
+    private static final int HEIGHT = 768;
+    /** Height of the rectangles of the synthetic updates. */
+    private static final int RECT_HEIGHT = 192;
+    /** Encoding of the synthetic updates. */
+    @Param({"ZRLE", "hextile", "RRE", "raw"})
+    public String encoding;
+    /** Bits per pixel of the synthetic updates. */
+    @Param({"8", "16", "32"})
+    public int bpp;
+    /** Recording to play back instead of the synthetic one. */
+    @Param({""})
+    public String recording;
+    /** Server messages after the ServerInit. */
+    private byte[] messages;
+    /** The decoded desktop. */
+    private Desktop desktop;
+
+    /** Reads or records the messages and reads the ServerInit. */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final byte[] data;
+        if (recording.length() > 0) {
+            data = read(recording);
+        } else {
+            data = record(pixelFormat(bpp),
+                          Encodings.num(encoding),
+                          desktopImage());
+        }
+        final MemInStream is = new MemInStream(data, 0, data.length);
+        desktop = new Desktop();
+        new CMsgReaderV3(desktop, is).readServerInit();
+        messages = new byte[data.length - is.pos()];
+        System.arraycopy(data, is.pos(), messages, 0, messages.length);
+    }
+
+    /** Decodes all the messages. */
+    @Benchmark
+    public int decode() {
+        return play(desktop, messages);
+    }
+
+    /** Decodes the messages into the desktop. */
+    static int play(final Desktop desktop, final byte[] messages) {
+        final MemInStream is = new MemInStream(messages, 0, messages.length);
+        final CMsgReaderV3 reader = new CMsgReaderV3(desktop, is);
+        while (is.bytesAvailable()) {
+            reader.readMsg();
+        }
+        return desktop.buffer.data[desktop.buffer.area() - 1];
+    }
+
+    /** Returns the whole file. */
+    private static byte[] read(final String file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Returns a true colour format with bpp 8, 16 or 32. */
+    static PixelFormat pixelFormat(final int bpp) {
+        if (bpp == 8) {
+            return new PixelFormat();
+        } else if (bpp == 16) {
+            return new PixelFormat(16, 16, false, true, 31, 63, 31, 11, 5, 0);
+        }
+        return new PixelFormat(32, 24, false, true, 255, 255, 255, 16, 8, 0);
+    }
+
+    /**
+     * Returns the rgb values of a desktop with a background, windows with
+     * text like lines and a picture.
+     */
+    static int[] desktopImage() {
+        final int[] rgb = new int[WIDTH * HEIGHT];
+        final Random random = new Random(1);
+        java.util.Arrays.fill(rgb, 0x3a6ea5);
+        for (int w = 0; w < 6; w++) {
+            final int wx = random.nextInt(WIDTH - 300);
+            final int wy = random.nextInt(HEIGHT - 200);
+            final int ww = 200 + random.nextInt(WIDTH - wx - 200);
+            final int wh = 150 + random.nextInt(HEIGHT - wy - 150);
+            for (int y = wy; y < wy + wh; y++) {
+                for (int x = wx; x < wx + ww; x++) {
+                    final int p;
+                    if (y - wy < 20) {
+                        p = ((x - wx) * 255 / ww) << 8 | 0x80;
+                    } else if ((y - wy) % 16 < 10 && x - wx > 8
+                               && random.nextInt(10) < 3) {
+                        p = 0x202020;
+                    } else {
+                        p = 0xffffff;
+                    }
+                    rgb[y * WIDTH + x] = p;
+                }
+            }
+        }
+        for (int y = HEIGHT - 256; y < HEIGHT; y++) {
+            for (int x = WIDTH - 256; x < WIDTH; x++) {
+                rgb[y * WIDTH + x] = (x * 3 + random.nextInt(8)) % 256 << 16
+                                     | (y + random.nextInt(8)) % 256 << 8
+                                     | (x + y) % 256;
+            }
+        }
+        return rgb;
+    }
+
+    /** Returns the ServerInit and an update of the whole desktop. */
+    static byte[] record(final PixelFormat pf,
+                         final int enc,
+                         final int[] rgb) {
+        final int[] pixels = new int[rgb.length];
+        for (int i = 0; i < rgb.length; i++) {
+            pixels[i] = pixel(pf, rgb[i]);
+        }
+        final Recorder out = new Recorder(pf);
+        out.writeU16(WIDTH);
+        out.writeU16(HEIGHT);
+        final rdr.MemOutStream pfOut = new rdr.MemOutStream();
+        pf.write(pfOut);
+        out.write(pfOut.getbuf(), 0, pfOut.length());
+        out.writeU32(0);
+        out.write(MsgTypes.framebufferUpdate);
+        out.write(0);
+        out.writeU16(HEIGHT / RECT_HEIGHT);
+        for (int y = 0; y < HEIGHT; y += RECT_HEIGHT) {
+            out.writeU16(0);
+            out.writeU16(y);
+            out.writeU16(WIDTH);
+            out.writeU16(RECT_HEIGHT);
+            out.writeU32(enc);
+            switch (enc) {
+                case Encodings.ZRLE:
+                    out.writeZRLE(pixels, y, RECT_HEIGHT);
+                    break;
+                case Encodings.hextile:
+                    out.writeHextile(pixels, y, RECT_HEIGHT);
+                    break;
+                case Encodings.RRE:
+                    out.writeRRE(pixels, y, RECT_HEIGHT);
+                    break;
+                default:
+                    for (int i = y * WIDTH; i < (y + RECT_HEIGHT) * WIDTH;
+                         i++) {
+                        out.writePixel(pixels[i], pf.bpp / 8);
+                    }
+                    break;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /** Returns the pixel of the rgb value. */
+    private static int pixel(final PixelFormat pf, final int rgb) {
+        return (((rgb >> 16) & 0xff) * pf.redMax / 255) << pf.redShift
+               | (((rgb >> 8) & 0xff) * pf.greenMax / 255) << pf.greenShift
+               | ((rgb & 0xff) * pf.blueMax / 255) << pf.blueShift;
+    }
+
+    /** Decoded desktop. */
+    static final class Desktop extends CMsgHandler {
+        /** The pixels. */
+        final ManagedPixelBuffer buffer = new ManagedPixelBuffer();
+
+        @Override
+        public void setDesktopSize(final int w, final int h) {
+            super.setDesktopSize(w, h);
+            buffer.setSize(w, h);
+        }
+
+        @Override
+        public void setPixelFormat(final PixelFormat pf) {
+            super.setPixelFormat(pf);
+            buffer.setPF(pf);
+        }
+
+        @Override
+        public void serverInit() {
+        }
+
+        @Override
+        public void fillRect(final int x, final int y, final int w,
+                             final int h, final int pix) {
+            buffer.fillRect(x, y, w, h, pix);
+        }
+
+        @Override
+        public void imageRect(final int x, final int y, final int w,
+                              final int h, final int[] pix,
+                              final int offset) {
+            buffer.imageRect(x, y, w, h, pix, offset);
+        }
+
+        @Override
+        public void copyRect(final int x, final int y, final int w,
+                             final int h, final int srcX, final int srcY) {
+            buffer.copyRect(x, y, w, h, srcX, srcY);
+        }
+    }
+
+    /** Writes the messages like a server, the rectangles are full width. */
+    static final class Recorder extends ByteArrayOutputStream {
+        /** Pixel format of the updates. */
+        private final PixelFormat pf;
+        /** Deflater of the ZRLE rectangles, it is one stream. */
+        private final Deflater deflater = new Deflater();
+        /** Pixels of a tile. */
+        private final int[] tile = new int[64 * 64];
+
+        /** Prepares the recorder for the pixel format. */
+        Recorder(final PixelFormat pf) {
+            this.pf = pf;
+        }
+
+        /** Writes a 16 bit value. */
+        void writeU16(final int v) {
+            write(v >> 8);
+            write(v);
+        }
+
+        /** Writes a 32 bit value. */
+        void writeU32(final int v) {
+            writeU16(v >>> 16);
+            writeU16(v);
+        }
+
+        /** Writes a pixel of the size in the byte order of the format. */
+        void writePixel(final int pix, final int size) {
+            final int p = pix >>> (size == 3 ? pf.cpixelShift() : 0);
+            for (int i = 0; i < size; i++) {
+                write(p >> (pf.bigEndian ? (size - 1 - i) * 8 : i * 8));
+            }
+        }
+
+        /** Copies the tile from the rectangle and returns its colours. */
+        private int[] copyTile(final int[] pixels, final int tx, final int ty,
+                               final int tw, final int th) {
+            final java.util.Set<Integer> colours =
+                                        new java.util.HashSet<Integer>();
+            for (int j = 0; j < th; j++) {
+                for (int i = 0; i < tw; i++) {
+                    tile[j * tw + i] = pixels[(ty + j) * WIDTH + tx + i];
+                    if (colours.size() < 128) {
+                        colours.add(tile[j * tw + i]);
+                    }
+                }
+            }
+            final int[] palette = new int[colours.size()];
+            int i = 0;
+            for (final Integer c : colours) {
+                palette[i++] = c;
+            }
+            return palette;
+        }
+
+        /** Returns the index of the colour in the palette. */
+        private static int index(final int[] palette, final int pix) {
+            for (int i = 0; i < palette.length; i++) {
+                if (palette[i] == pix) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("no colour " + pix);
+        }
+
+        /** Writes the run length as ZRLE does. */
+        private static void writeRunLength(final ByteArrayOutputStream out,
+                                           final int len) {
+            int l = len - 1;
+            while (l >= 255) {
+                out.write(255);
+                l -= 255;
+            }
+            out.write(l);
+        }
+
+        /** Writes a ZRLE rectangle, it chooses the tile mode like a server. */
+        void writeZRLE(final int[] pixels, final int y, final int h) {
+            final Recorder raw = new Recorder(pf);
+            final int size = pf.cpixelSize();
+            for (int ty = y; ty < y + h; ty += 64) {
+                final int th = Math.min(y + h - ty, 64);
+                for (int tx = 0; tx < WIDTH; tx += 64) {
+                    final int tw = Math.min(WIDTH - tx, 64);
+                    final int[] palette = copyTile(pixels, tx, ty, tw, th);
+                    final int n = tw * th;
+                    if (palette.length == 1) {
+                        raw.write(1);
+                        raw.writePixel(palette[0], size);
+                    } else if (palette.length <= 16) {
+                        raw.write(palette.length);
+                        for (final int p : palette) {
+                            raw.writePixel(p, size);
+                        }
+                        final int bits = palette.length > 4 ? 4
+                                         : palette.length > 2 ? 2 : 1;
+                        for (int j = 0; j < th; j++) {
+                            int b = 0;
+                            int nbits = 0;
+                            for (int i = 0; i < tw; i++) {
+                                b = b << bits
+                                    | index(palette, tile[j * tw + i]);
+                                nbits += bits;
+                                if (nbits == 8) {
+                                    raw.write(b);
+                                    b = 0;
+                                    nbits = 0;
+                                }
+                            }
+                            if (nbits > 0) {
+                                raw.write(b << (8 - nbits));
+                            }
+                        }
+                    } else if (palette.length < 128) {
+                        raw.write(128 | palette.length);
+                        for (final int p : palette) {
+                            raw.writePixel(p, size);
+                        }
+                        for (int i = 0; i < n;) {
+                            int len = 1;
+                            while (i + len < n && tile[i + len] == tile[i]) {
+                                len++;
+                            }
+                            final int index = index(palette, tile[i]);
+                            if (len == 1) {
+                                raw.write(index);
+                            } else {
+                                raw.write(128 | index);
+                                writeRunLength(raw, len);
+                            }
+                            i += len;
+                        }
+                    } else {
+                        raw.write(0);
+                        for (int i = 0; i < n; i++) {
+                            raw.writePixel(tile[i], size);
+                        }
+                    }
+                }
+            }
+            deflater.setInput(raw.toByteArray());
+            final ByteArrayOutputStream zout = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            int len;
+            do {
+                len = deflater.deflate(buf, 0, buf.length,
+                                       Deflater.SYNC_FLUSH);
+                zout.write(buf, 0, len);
+            } while (len == buf.length);
+            writeU32(zout.size());
+            write(zout.toByteArray(), 0, zout.size());
+        }
+
+        /**
+         * Writes a hextile rectangle, the subrectangles are the runs of the
+         * foreground colours in the rows.
+         */
+        void writeHextile(final int[] pixels, final int y, final int h) {
+            final int size = pf.bpp / 8;
+            for (int ty = y; ty < y + h; ty += 16) {
+                final int th = Math.min(y + h - ty, 16);
+                for (int tx = 0; tx < WIDTH; tx += 16) {
+                    final int tw = Math.min(WIDTH - tx, 16);
+                    final int[] palette = copyTile(pixels, tx, ty, tw, th);
+                    final int bg = tile[0];
+                    final Recorder subrects = new Recorder(pf);
+                    int nSubrects = 0;
+                    for (int j = 0; j < th; j++) {
+                        for (int i = 0; i < tw;) {
+                            final int pix = tile[j * tw + i];
+                            int len = 1;
+                            while (i + len < tw
+                                   && tile[j * tw + i + len] == pix) {
+                                len++;
+                            }
+                            if (pix != bg) {
+                                subrects.writePixel(pix, size);
+                                subrects.write(i << 4 | j);
+                                subrects.write((len - 1) << 4);
+                                nSubrects++;
+                            }
+                            i += len;
+                        }
+                    }
+                    if (palette.length == 1) {
+                        write(Hextile.bgSpecified);
+                        writePixel(bg, size);
+                    } else if (nSubrects < 256
+                               && subrects.size() < tw * th * size) {
+                        write(Hextile.bgSpecified | Hextile.anySubrects
+                              | Hextile.subrectsColoured);
+                        writePixel(bg, size);
+                        write(nSubrects);
+                        write(subrects.toByteArray(), 0, subrects.size());
+                    } else {
+                        write(Hextile.raw);
+                        for (int i = 0; i < tw * th; i++) {
+                            writePixel(tile[i], size);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes a RRE rectangle, the subrectangles are the runs of the
+         * foreground colours in the rows.
+         */
+        void writeRRE(final int[] pixels, final int y, final int h) {
+            final int size = pf.bpp / 8;
+            final int bg = pixels[y * WIDTH];
+            final Recorder subrects = new Recorder(pf);
+            int nSubrects = 0;
+            for (int j = 0; j < h; j++) {
+                for (int i = 0; i < WIDTH;) {
+                    final int pix = pixels[(y + j) * WIDTH + i];
+                    int len = 1;
+                    while (i + len < WIDTH
+                           && pixels[(y + j) * WIDTH + i + len] == pix) {
+                        len++;
+                    }
+                    if (pix != bg) {
+                        subrects.writePixel(pix, size);
+                        subrects.writeU16(i);
+                        subrects.writeU16(j);
+                        subrects.writeU16(len);
+                        subrects.writeU16(1);
+                        nSubrects++;
+                    }
+                    i += len;
+                }
+            }
+            writeU32(nSubrects);
+            writePixel(bg, size);
+            write(subrects.toByteArray(), 0, subrects.size());
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ch.ethz.ssh2.channel.Channel;
+import ch.ethz.ssh2.channel.ChannelManager;
+import ch.ethz.ssh2.packets.PacketChannelOpenConfirmation;
+import ch.ethz.ssh2.packets.Packets;
+import ch.ethz.ssh2.packets.TypesReader;
+import ch.ethz.ssh2.transport.MessageHandler;
+import ch.ethz.ssh2.transport.TransportManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the session channel throughput with different local window
+ * sizes, if the round trip time to the server is long. The server is
+ * simulated in the process: it sends as much data as the window allows and
+ * every packet and every window adjustment is delivered after the one-way
+ * delay. The result is the time of one transfer.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SshChannelBenchmark {
+    /** Local window size, 0 is the default session window. */
+    @Param({"30000", "0", "2097152"})
+    public int window;
+    /** Round trip time in milliseconds. */
+    @Param({"50"})
+    public int rtt;
+    /** Size of the transfer in megabytes. */
+    @Param({"8"})
+    public int megabytes;
+    /** The simulated server. */
+    private SimulatedServer server;
+    /** The channel manager, that is measured. */
+    private ChannelManager channelManager;
+    /** Stdout of the session channel. */
+    private InputStream in;
+    /** Read buffer. */
+    private final byte[] buffer = new byte[64 * 1024];
+
+    /** Opens the session channel. */
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        server = new SimulatedServer(rtt / 2, getBytes());
+        channelManager = new ChannelManager(server);
+        final int windowSize =
+                   window == 0 ? Channel.DEFAULT_SESSION_WINDOW_SIZE : window;
+        channelManager.setChannelWindowSizes(windowSize, windowSize);
+        server.setChannelManager(channelManager);
+        final Channel channel = channelManager.openSessionChannel();
+        in = channel.getStdoutStream();
+        server.start();
+    }
+
+    /** Closes the channel. */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        server.stop();
+        channelManager.closeAllChannels();
+    }
+
+    /** Returns the size of the transfer in bytes. */
+    private long getBytes() {
+        return megabytes * 1024L * 1024L;
+    }
+
+    /** Receives the whole transfer. */
+    @Benchmark
+    public long transfer() throws IOException {
+        final long bytes = getBytes();
+        long received = 0;
+        while (received < bytes) {
+            final int len = in.read(buffer);
+            if (len < 0) {
+                server.checkFailure();
+                throw new IOException("unexpected end of stream");
+            }
+            received += len;
+        }
+        server.checkFailure();
+        return received;
+    }
+
+    /**
+     * The transport of the benchmark. It does not open any connection and
+     * answers the messages of the channel manager like a server would.
+     */
+    private static final class SimulatedServer extends TransportManager {
+        /** One-way delay in milliseconds. */
+        private final int delay;
+        /** Delivers the delayed packets. */
+        private final ScheduledExecutorService network =
+                                Executors.newSingleThreadScheduledExecutor();
+        /** Sends the data as the window allows. */
+        private final Thread sender;
+        /** The receiving channel manager. */
+        private volatile ChannelManager cm;
+        /** Id of the channel on the client side. */
+        private int recipientID;
+        /** Maximum packet size of the channel. */
+        private int maxPacketSize;
+        /** Remaining window of the channel. */
+        private long window = 0;
+        /** Bytes, that are still to be sent. */
+        private long remaining;
+        /** Whether the server was stopped. */
+        private boolean stopped = false;
+        /** The first failed delivery. */
+        private volatile IOException failure = null;
+
+        /** Creates new SimulatedServer object. */
+        SimulatedServer(final int delay, final long bytes) throws IOException {
+            super("localhost", 22);
+            this.delay = delay;
+            this.remaining = bytes;
+            sender = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        send();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            sender.setDaemon(true);
+        }
+
+        /** Sets the receiving channel manager. */
+        void setChannelManager(final ChannelManager cm) {
+            this.cm = cm;
+        }
+
+        /** Starts sending. */
+        void start() {
+            sender.start();
+        }
+
+        /** Stops sending and the delivery. */
+        void stop() {
+            synchronized (this) {
+                stopped = true;
+                notifyAll();
+            }
+            network.shutdownNow();
+        }
+
+        /**
+         * Records the failed delivery and closes the channels, so that the
+         * benchmark doesn't wait for the data, that never come.
+         */
+        private void fail(final IOException e) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            stop();
+            cm.closeAllChannels();
+        }
+
+        /** Throws the recorded failure, if there was one. */
+        void checkFailure() throws IOException {
+            final IOException e = failure;
+            if (e != null) {
+                throw new IOException("delivery failed", e);
+            }
+        }
+
+        /** Sends the data packets, as long as the window is open. */
+        private void send() throws InterruptedException {
+            while (true) {
+                final int len;
+                synchronized (this) {
+                    while (!stopped && remaining > 0 && window == 0) {
+                        wait();
+                    }
+                    if (stopped || remaining == 0) {
+                        return;
+                    }
+                    len = (int) Math.min(Math.min(window, maxPacketSize),
+                                         remaining);
+                    window -= len;
+                    remaining -= len;
+                }
+                final byte[] msg = new byte[9 + len];
+                msg[0] = (byte) Packets.SSH_MSG_CHANNEL_DATA;
+                putUINT32(msg, 1, recipientID);
+                putUINT32(msg, 5, len);
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            cm.msgChannelData(msg, msg.length);
+                        } catch (final IOException e) {
+                            fail(e);
+                        }
+                    }
+                });
+            }
+        }
+
+        /** Delivers the message after the delay. */
+        private void deliver(final Runnable r) {
+            network.schedule(r, delay, TimeUnit.MILLISECONDS);
+        }
+
+        /** Writes the int in the network byte order. */
+        private static void putUINT32(final byte[] msg,
+                                      final int off,
+                                      final int value) {
+            msg[off] = (byte) (value >> 24);
+            msg[off + 1] = (byte) (value >> 16);
+            msg[off + 2] = (byte) (value >> 8);
+            msg[off + 3] = (byte) value;
+        }
+
+        /** No handlers are needed. */
+        @Override
+        public void registerMessageHandler(final MessageHandler mh,
+                                           final int low,
+                                           final int high) {
+            /* nothing to register */
+        }
+
+        /** There is no packet overhead. */
+        @Override
+        public int getPacketOverheadEstimate() {
+            return 0;
+        }
+
+        /** Handles the message like a synchronous one. */
+        @Override
+        public void sendAsynchronousMessage(final byte[] msg)
+                                                        throws IOException {
+            sendMessage(msg);
+        }
+
+        /** Answers the open request and applies the window adjustments. */
+        @Override
+        public void sendMessage(final byte[] msg) throws IOException {
+            final TypesReader tr = new TypesReader(msg);
+            final int type = tr.readByte();
+            if (type == Packets.SSH_MSG_CHANNEL_OPEN) {
+                tr.readString();
+                final int packetSize;
+                synchronized (this) {
+                    recipientID = tr.readUINT32();
+                    window = tr.readUINT32() & 0xFFFFffffL;
+                    maxPacketSize = tr.readUINT32();
+                    packetSize = maxPacketSize;
+                }
+                cm.handleMessage(new PacketChannelOpenConfirmation(
+                                                    recipientID,
+                                                    0,
+                                                    0,
+                                                    packetSize).getPayload(),
+                                 17);
+            } else if (type == Packets.SSH_MSG_CHANNEL_WINDOW_ADJUST) {
+                tr.readUINT32();
+                final long change = tr.readUINT32() & 0xFFFFffffL;
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (SimulatedServer.this) {
+                            window += change;
+                            SimulatedServer.this.notifyAll();
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ch.ethz.ssh2.ChannelCondition;
+import ch.ethz.ssh2.Connection;
+import ch.ethz.ssh2.Session;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the short commands, as they are executed with a new session
+ * and pty for every command, and in the command shells. It needs a sshd,
+ * e.g. on the localhost, with a key without a passphrase:
+ * -Djmh.args="SshCommand -t 4 -jvmArgsAppend -Dlcmc.bench.host=localhost"
+ * Other properties are lcmc.bench.port, lcmc.bench.user and
+ * lcmc.bench.key. The result is commands per second.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SshCommandBenchmark {
+    /** The command, as SSH executes it. */
+    private static final String COMMAND = "bash -c 'export LC_ALL=C;echo ok'";
+    /** Timeout of the commands in milliseconds. */
+    private static final int TIMEOUT = 10000;
+    /** "session" is a new session for every command, "shell" the shells. */
+    @Param({"session", "shell"})
+    public String mode;
+    /** Number of the command shells. */
+    @Param({"3"})
+    public int shells;
+    /** Connection to the sshd. */
+    private Connection connection;
+    /** The command shells. */
+    private final List<CommandShell> commandShells =
+                                                new ArrayList<CommandShell>();
+    /** Index of the next shell. */
+    private int next = 0;
+
+    /** Connects to the sshd. */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final String user = System.getProperty("lcmc.bench.user",
+                                               System.getProperty("user.name"));
+        final String key = System.getProperty(
+                                   "lcmc.bench.key",
+                                   System.getProperty("user.home")
+                                   + "/.ssh/id_rsa");
+        connection = new Connection(
+                     System.getProperty("lcmc.bench.host", "localhost"),
+                     Integer.parseInt(System.getProperty("lcmc.bench.port",
+                                                         "22")));
+        connection.connect();
+        if (!connection.authenticateWithPublicKey(user, new File(key), null)) {
+            throw new IOException("authentication failed: " + user);
+        }
+        if ("shell".equals(mode)) {
+            for (int i = 0; i < shells; i++) {
+                commandShells.add(new CommandShell(connection,
+                                                   connection.openSession()));
+            }
+        }
+    }
+
+    /** Closes the shells and the connection. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (final CommandShell shell : commandShells) {
+            shell.close();
+        }
+        commandShells.clear();
+        connection.close();
+    }
+
+    /** Executes one command. */
+    @Benchmark
+    public String exec() throws IOException {
+        if ("shell".equals(mode)) {
+            final CommandShell shell;
+            synchronized (this) {
+                shell = commandShells.get(next);
+                next = (next + 1) % commandShells.size();
+            }
+            return shell.exec(COMMAND, TIMEOUT).getOutput();
+        }
+        final Session session = connection.openSession();
+        try {
+            session.requestPTY("dumb", 0, 0, 0, 0, null);
+            session.execCommand(COMMAND);
+            final InputStream stdout = session.getStdout();
+            final StringBuilder output = new StringBuilder();
+            final byte[] buff = new byte[8192];
+            while (true) {
+                if (stdout.available() == 0) {
+                    final int conditions = session.waitForCondition(
+                                                 ChannelCondition.STDOUT_DATA
+                                                 | ChannelCondition.EOF,
+                                                 TIMEOUT);
+                    if ((conditions & ChannelCondition.STDOUT_DATA) == 0) {
+                        break;
+                    }
+                }
+                final int len = stdout.read(buff);
+                if (len < 0) {
+                    break;
+                }
+                output.append(new String(buff, 0, len, "UTF-8"));
+            }
+            session.waitForCondition(ChannelCondition.EXIT_STATUS, TIMEOUT);
+            return output.toString();
+        } finally {
+            session.close();
+        }
+    }
+}
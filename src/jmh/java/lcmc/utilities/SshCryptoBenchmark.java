@@ -0,0 +1,154 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ch.ethz.ssh2.crypto.cipher.BlockCipher;
+import ch.ethz.ssh2.crypto.cipher.BlockCipherFactory;
+import ch.ethz.ssh2.crypto.cipher.NullCipher;
+import ch.ethz.ssh2.crypto.digest.MAC;
+import ch.ethz.ssh2.transport.TransportConnection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the ssh ciphers and MACs, as the transport sends the packets
+ * with them. The ciphers are measured without a MAC and the MACs without a
+ * cipher. The algorithms with the "/java" suffix use the pure Java
+ * implementations instead of the JCA. The result is packets of the size
+ * parameter per millisecond, e.g. with the size 32768 multiply it by 32
+ * to get MB/s.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SshCryptoBenchmark {
+    /** Suffix of the algorithms, that use the pure Java implementation. */
+    private static final String JAVA_SUFFIX = "/java";
+    /** Cipher or MAC algorithm. */
+    @Param({"aes128-gcm@openssh.com",
+            "aes256-gcm@openssh.com",
+            "aes128-ctr",
+            "aes128-ctr/java",
+            "aes256-ctr",
+            "aes256-ctr/java",
+            "aes128-cbc",
+            "aes128-cbc/java",
+            "blowfish-ctr",
+            "blowfish-ctr/java",
+            "3des-ctr",
+            "3des-ctr/java",
+            "hmac-sha1",
+            "hmac-sha1/java",
+            "hmac-md5",
+            "hmac-md5/java",
+            "hmac-sha2-256",
+            "hmac-sha2-512"})
+    public String algorithm;
+    /** Payload size of the packets. */
+    @Param({"32768"})
+    public int size;
+    /** Transport, that sends the packets. */
+    private TransportConnection transport;
+    /** Payload of the packets. */
+    private byte[] payload;
+
+    /** Creates the transport with the cipher or MAC. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final boolean useJce = !algorithm.endsWith(JAVA_SUFFIX);
+        final String algo = useJce ? algorithm
+                                   : algorithm.substring(
+                                         0,
+                                         algorithm.length()
+                                         - JAVA_SUFFIX.length());
+        final Random random = new Random(0);
+        BlockCipher cipher = new NullCipher(16);
+        MAC mac = null;
+        if (algo.startsWith("hmac-")) {
+            final byte[] key = new byte[MAC.getKeyLen(algo)];
+            random.nextBytes(key);
+            mac = new MAC(algo, key, useJce);
+        } else {
+            final byte[] key = new byte[BlockCipherFactory.getKeySize(algo)];
+            final byte[] iv = new byte[BlockCipherFactory.getIVSize(algo)];
+            random.nextBytes(key);
+            random.nextBytes(iv);
+            cipher = BlockCipherFactory.createCipher(algo,
+                                                     true,
+                                                     key,
+                                                     iv,
+                                                     useJce);
+        }
+        transport = new TransportConnection(
+                                        new InputStream() {
+                                            @Override
+                                            public int read() {
+                                                return -1;
+                                            }
+                                        },
+                                        new OutputStream() {
+                                            @Override
+                                            public void write(final int b) {
+                                            }
+
+                                            @Override
+                                            public void write(final byte[] b,
+                                                              final int off,
+                                                              final int len) {
+                                            }
+                                        },
+                                        new SecureRandom());
+        transport.changeSendCipher(cipher, mac);
+        payload = new byte[size];
+        random.nextBytes(payload);
+    }
+
+    /** Sends one packet. */
+    @Benchmark
+    public void send() throws IOException {
+        transport.sendMessage(payload);
+    }
+}
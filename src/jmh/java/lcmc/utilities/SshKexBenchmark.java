@@ -0,0 +1,123 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import ch.ethz.ssh2.Connection;
+import ch.ethz.ssh2.crypto.dh.DhExchange;
+import ch.ethz.ssh2.crypto.dh.EcdhExchange;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the ssh key exchange methods. "compute" is the work of the
+ * client in the key exchange, the group exchange is measured with the 2048
+ * bit group 14. "connect" is the latency of a new connection till the keys
+ * are exchanged, it needs a sshd, e.g. on the localhost:
+ * -Djmh.args="SshKex.connect -jvmArgsAppend -Dlcmc.bench.host=localhost"
+ * Another property is lcmc.bench.port. The result is milliseconds per
+ * key exchange.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SshKexBenchmark {
+    /** Timeout of the connect and of the key exchange in milliseconds. */
+    private static final int TIMEOUT = 10000;
+    /** Key exchange method. */
+    @Param({EcdhExchange.CURVE25519,
+            EcdhExchange.NISTP256,
+            "diffie-hellman-group14-sha1",
+            "diffie-hellman-group-exchange-sha1"})
+    public String kex;
+    /** Random generator for the keys. */
+    private final SecureRandom random = new SecureRandom();
+    /** Public key of the server. */
+    private byte[] serverKey;
+    /** Public value of the server for the diffie-hellman. */
+    private BigInteger serverValue;
+
+    /** Creates the server side public key or value. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (EcdhExchange.isAvailable(kex)) {
+            final EcdhExchange server = new EcdhExchange();
+            server.init(kex, random);
+            serverKey = server.getQ_C();
+        } else {
+            final DhExchange server = new DhExchange();
+            server.init(14, random);
+            serverValue = server.getE();
+        }
+    }
+
+    /** Computes the client key and the shared secret. */
+    @Benchmark
+    public BigInteger compute() {
+        if (serverKey != null) {
+            final EcdhExchange client = new EcdhExchange();
+            client.init(kex, random);
+            client.setQ_S(serverKey);
+            return client.getK();
+        }
+        final DhExchange client = new DhExchange();
+        client.init(14, random);
+        client.setF(serverValue);
+        return client.getK();
+    }
+
+    /** Connects to the sshd and waits for the key exchange. */
+    @Benchmark
+    public void connect() throws IOException {
+        final Connection connection = new Connection(
+                     System.getProperty("lcmc.bench.host", "localhost"),
+                     Integer.parseInt(System.getProperty("lcmc.bench.port",
+                                                         "22")));
+        try {
+            connection.setKexAlgorithms(new String[]{kex});
+            connection.connect(null, TIMEOUT, TIMEOUT);
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -165,6 +165,8 @@ import java.util.zip.*;
 	String host;
 	int port;
 	Socket sock;
+	// The ssh channel instead of the socket.
+	ch.ethz.ssh2.LocalStreamForwarder channel;
 	DataInputStream is;
 	OutputStream os;
 	OutputStreamWriter osw;
@@ -210,17 +212,25 @@ import java.util.zip.*;
 		host = h;
 		port = p;
 		
-        if (repeaterHost != null) {
-            sock = new Socket(repeaterHost, repeaterPort);
-            doRepeater(sock,host,port);
+        if (viewer.connector != null) {
+            channel = viewer.connector.connect();
+            is =
+                new DataInputStream(
+                    new BufferedInputStream(channel.getInputStream(), 16384));
+            os = channel.getOutputStream();
         } else {
-            sock = new Socket(host, port);
+            if (repeaterHost != null) {
+                sock = new Socket(repeaterHost, repeaterPort);
+                doRepeater(sock,host,port);
+            } else {
+                sock = new Socket(host, port);
+            }
+            is =
+                new DataInputStream(
+                    new BufferedInputStream(sock.getInputStream(), 16384));
+            os = sock.getOutputStream();
         }
-		is =
-			new DataInputStream(
-				new BufferedInputStream(sock.getInputStream(), 16384));
-		os = sock.getOutputStream();
-		osw = new OutputStreamWriter(sock.getOutputStream());
+		osw = new OutputStreamWriter(os);
 		inDirectory2 = false;
 		a = new ArrayList();
 		// sf@2004
@@ -251,7 +261,11 @@ import java.util.zip.*;
 
 	void close() {
 		try {
-			sock.close();
+			if (channel != null) {
+				channel.close();
+			} else {
+				sock.close();
+			}
 			if (rec != null) {
 				rec.close();
 				rec = null;
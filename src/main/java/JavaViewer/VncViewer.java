@@ -62,9 +62,20 @@ import javax.swing.*;
   public VncViewer(final String[] mainArgs,
                    boolean inAnApplet,
                    boolean inSeparateFrame) {
+      this(mainArgs, inAnApplet, inSeparateFrame, null);
+  }
+
+  //
+  // With a connector, the RFB streams are ssh channels instead of a socket.
+  //
+  public VncViewer(final String[] mainArgs,
+                   boolean inAnApplet,
+                   boolean inSeparateFrame,
+                   final lcmc.utilities.VncConnector connector) {
       this.mainArgs = mainArgs;
       this.inAnApplet = inAnApplet;
       this.inSeparateFrame = inSeparateFrame;
+      this.connector = connector;
   }
 
   //public static void main(String[] argv) {
@@ -78,6 +89,7 @@ import javax.swing.*;
   //}
 
   String[] mainArgs;
+  lcmc.utilities.VncConnector connector;
 
   RfbProto rfb;
   Thread rfbThread;
@@ -0,0 +1,25 @@
+package ch.ethz.ssh2;
+
+/**
+ * A <code>ChannelConditionListener</code> is notified when the conditions
+ * of a {@link Session} change, e.g., new stdout or stderr data arrived, EOF,
+ * the exit status or the channel was closed. It replaces the polling with
+ * {@link Session#waitForCondition(int, long)}.
+ *
+ * @see Session#setConditionListener(ChannelConditionListener)
+ *
+ * @author Rasto Levrinc
+ */
+
+public interface ChannelConditionListener
+{
+	/**
+	 * This method is called by the thread, that receives the messages of
+	 * the connection. It MUST NOT block and MUST NOT read from the streams of the
+	 * session, since reading may have to send a window adjust message. Hand
+	 * the work to another thread instead.
+	 *
+	 * @param conditions all current conditions, see {@link ChannelCondition}.
+	 */
+	public void conditionsChanged(int conditions);
+}
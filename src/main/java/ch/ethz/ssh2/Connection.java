@@ -11,6 +11,7 @@ import java.security.SecureRandom;
 import java.util.Vector;
 
 import ch.ethz.ssh2.auth.AuthenticationManager;
+import ch.ethz.ssh2.channel.Channel;
 import ch.ethz.ssh2.channel.ChannelManager;
 import ch.ethz.ssh2.crypto.CryptoWishList;
 import ch.ethz.ssh2.crypto.cipher.BlockCipherFactory;
@@ -81,11 +82,27 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 		return KexManager.getDefaultServerHostkeyAlgorithmList();
 	}
 
+	/**
+	 * Unless you know what you are doing, you will never need this.
+	 * 
+	 * @return The list of supported key exchange algorithms by this implementation.
+	 */
+	public static synchronized String[] getAvailableKexAlgorithms()
+	{
+		return KexManager.getDefaultKexAlgorithmList();
+	}
+
 	private AuthenticationManager am;
 
 	private boolean authenticated = false;
 	private ChannelManager cm;
 
+	private int sessionWindowSize = Channel.DEFAULT_SESSION_WINDOW_SIZE;
+
+	private int forwardedWindowSize = Channel.DEFAULT_FORWARDED_WINDOW_SIZE;
+
+	private int channelMaxPacketSize = Channel.DEFAULT_MAX_PACKET_SIZE;
+
 	private CryptoWishList cryptoWishList = new CryptoWishList();
 
 	private DHGexParameters dhgexpara = new DHGexParameters();
@@ -98,6 +115,8 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 
 	private boolean tcpNoDelay = false;
 
+	private boolean nonBlocking = false;
+
 	private ProxyData proxyData = null;
 
 	private Vector connectionMonitors = new Vector();
@@ -173,7 +192,7 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 			am = new AuthenticationManager(tm);
 
 		if (cm == null)
-			cm = new ChannelManager(tm);
+			cm = createChannelManager();
 
 		if (user == null)
 			throw new IllegalArgumentException("user argument is null");
@@ -254,7 +273,7 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 			am = new AuthenticationManager(tm);
 
 		if (cm == null)
-			cm = new ChannelManager(tm);
+			cm = createChannelManager();
 
 		if (user == null)
 			throw new IllegalArgumentException("user argument is null");
@@ -300,7 +319,7 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 			am = new AuthenticationManager(tm);
 
 		if (cm == null)
-			cm = new ChannelManager(tm);
+			cm = createChannelManager();
 
 		if (user == null)
 			throw new IllegalArgumentException("user argument is null");
@@ -351,7 +370,7 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 			am = new AuthenticationManager(tm);
 
 		if (cm == null)
-			cm = new ChannelManager(tm);
+			cm = createChannelManager();
 
 		if (user == null)
 			throw new IllegalArgumentException("user argument is null");
@@ -419,7 +438,7 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 			am = new AuthenticationManager(tm);
 
 		if (cm == null)
-			cm = new ChannelManager(tm);
+			cm = createChannelManager();
 
 		if (user == null)
 			throw new IllegalArgumentException("user argument is null");
@@ -645,7 +664,7 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 
 		final TimeoutState state = new TimeoutState();
 
-		tm = new TransportManager(hostname, port);
+		tm = new TransportManager(hostname, port, nonBlocking);
 
 		tm.setConnectionMonitors(connectionMonitors);
 
@@ -952,7 +971,7 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 			am = new AuthenticationManager(tm);
 
 		if (cm == null)
-			cm = new ChannelManager(tm);
+			cm = createChannelManager();
 
 		return am.getRemainingMethods(user);
 	}
@@ -1045,6 +1064,24 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 		return new Session(cm, getOrCreateSecureRND());
 	}
 
+	/**
+	 * Open a new {@link Session} for bulk transfers, e.g. scp. It uses the bigger
+	 * forwarded window size, see {@link #setChannelWindowSizes(int, int)}.
+	 * 
+	 * @return A {@link Session} object.
+	 * @throws IOException
+	 */
+	public synchronized Session openBulkSession() throws IOException
+	{
+		if (tm == null)
+			throw new IllegalStateException("Cannot open session, you need to establish a connection first.");
+
+		if (!authenticated)
+			throw new IllegalStateException("Cannot open session, connection is not authenticated.");
+
+		return new Session(cm, getOrCreateSecureRND(), true);
+	}
+
 	/**
 	 * Send an SSH_MSG_IGNORE packet. This method will generate a random data attribute
 	 * (length between 0 (invlusive) and 16 (exclusive) bytes, contents are random bytes).
@@ -1205,6 +1242,25 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 		cryptoWishList.s2c_mac_algos = macs;
 	}
 
+	/**
+	 * Define the set of allowed key exchange algorithms to be used for the
+	 * following key exchange operations.
+	 * <p>
+	 * Unless you know what you are doing, you will never need this.
+	 * 
+	 * @param algos An array of allowed key exchange algorithms, ordered
+	 *  after preference. You must specify at least one entry.
+	 */
+	public synchronized void setKexAlgorithms(String[] algos)
+	{
+		if ((algos == null) || (algos.length == 0))
+			throw new IllegalArgumentException();
+
+		algos = removeDuplicates(algos);
+		KexManager.checkKexAlgorithmList(algos);
+		cryptoWishList.kexAlgorithms = algos;
+	}
+
 	/**
 	 * Define the set of allowed server host key algorithms to be used for
 	 * the following key exchange operations.
@@ -1227,6 +1283,60 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 		cryptoWishList.serverHostKeyAlgorithms = algos;
 	}
 
+	/**
+	 * Set the local window sizes of the channels. A bigger window allows more data
+	 * in flight, which matters for bulk transfers over links with a long round trip
+	 * time. The receive buffers grow up to the window size only as needed.
+	 * <p>
+	 * Can be called at any time, it affects the channels that are opened afterwards.
+	 * The default values are {@link Channel#DEFAULT_SESSION_WINDOW_SIZE} and
+	 * {@link Channel#DEFAULT_FORWARDED_WINDOW_SIZE}.
+	 * 
+	 * @param sessionWindowSize window of the sessions.
+	 * @param forwardedWindowSize window of the port forwardings and of the bulk
+	 *        sessions, see {@link #openBulkSession()}.
+	 */
+	public synchronized void setChannelWindowSizes(int sessionWindowSize, int forwardedWindowSize)
+	{
+		if (sessionWindowSize <= 0 || forwardedWindowSize <= 0)
+			throw new IllegalArgumentException("Illegal window size");
+
+		this.sessionWindowSize = sessionWindowSize;
+		this.forwardedWindowSize = forwardedWindowSize;
+
+		if (cm != null)
+			cm.setChannelWindowSizes(sessionWindowSize, forwardedWindowSize);
+	}
+
+	/**
+	 * Set the maximum packet size, that the server may send on the channels.
+	 * <p>
+	 * Can be called at any time, it affects the channels that are opened afterwards.
+	 * The default value is {@link Channel#DEFAULT_MAX_PACKET_SIZE}, the maximum
+	 * is {@link Channel#MAX_PACKET_SIZE}.
+	 * 
+	 * @param maxPacketSize maximum packet size in bytes.
+	 */
+	public synchronized void setChannelMaxPacketSize(int maxPacketSize)
+	{
+		if (maxPacketSize <= 0 || maxPacketSize > Channel.MAX_PACKET_SIZE)
+			throw new IllegalArgumentException("Illegal maximum packet size (" + maxPacketSize + ")");
+
+		channelMaxPacketSize = maxPacketSize;
+
+		if (cm != null)
+			cm.setChannelMaxPacketSize(maxPacketSize);
+	}
+
+	private ChannelManager createChannelManager()
+	{
+		ChannelManager newCm = new ChannelManager(tm);
+
+		newCm.setChannelWindowSizes(sessionWindowSize, forwardedWindowSize);
+		newCm.setChannelMaxPacketSize(channelMaxPacketSize);
+		return newCm;
+	}
+
 	/**
 	 * Enable/disable TCP_NODELAY (disable/enable Nagle's algorithm) on the underlying socket.
 	 * <p>
@@ -1245,6 +1355,24 @@ import ch.ethz.ssh2.util.TimeoutService.TimeoutToken;
 			tm.setTcpNoDelay(enable);
 	}
 
+	/**
+	 * Use a non-blocking socket for the connection. A non-blocking connection does not
+	 * have its own receive thread, a few selector threads receive the messages of all
+	 * non-blocking connections and worker threads handle them only while there are
+	 * complete messages. This saves many threads, if there are many connections that
+	 * are mostly idle. It makes sense together with
+	 * {@link Session#setConditionListener(ChannelConditionListener)}.
+	 * <p>
+	 * It only makes sense to call this method before calling the {@link #connect() connect()}
+	 * method. The default value is <code>false</code>.
+	 * 
+	 * @param enable true for the non-blocking socket.
+	 */
+	public synchronized void setNonBlocking(boolean enable)
+	{
+		nonBlocking = enable;
+	}
+
 	/**
 	 * Used to tell the library that the connection shall be established through a proxy server.
 	 * It only makes sense to call this method before calling the {@link #connect() connect()}
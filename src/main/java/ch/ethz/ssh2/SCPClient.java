@@ -503,7 +503,7 @@ import ch.ethz.ssh2.util.StringEncoder;
 
 		try
 		{
-			sess = conn.openSession();
+			sess = conn.openBulkSession();
 			sess.execCommand(cmd);
 			sendBytes(sess, data, remoteFileName, mode);
 		}
@@ -568,7 +568,7 @@ import ch.ethz.ssh2.util.StringEncoder;
 
 		try
 		{
-			sess = conn.openSession();
+			sess = conn.openBulkSession();
 			sess.execCommand(cmd);
 			sendFiles(sess, localFiles, remoteFiles, mode);
 		}
@@ -644,7 +644,7 @@ import ch.ethz.ssh2.util.StringEncoder;
 
 		try
 		{
-			sess = conn.openSession();
+			sess = conn.openBulkSession();
 			sess.execCommand(cmd);
 			receiveFiles(sess, targets);
 		}
@@ -696,7 +696,7 @@ import ch.ethz.ssh2.util.StringEncoder;
 
 		try
 		{
-			sess = conn.openSession();
+			sess = conn.openBulkSession();
 			sess.execCommand(cmd);
 			receiveFiles(sess, remoteFiles, localTargetDirectory);
 		}
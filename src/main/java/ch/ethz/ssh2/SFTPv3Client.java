@@ -8,6 +8,8 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeMap;
 import java.util.Vector;
 
 import ch.ethz.ssh2.packets.TypesReader;
@@ -19,7 +21,9 @@ import ch.ethz.ssh2.sftp.Packet;
 /**
  * A <code>SFTPv3Client</code> represents a SFTP (protocol version 3)
  * client connection tunnelled over a SSH-2 connection. This is a very simple
- * (synchronous) implementation.
+ * (synchronous) implementation, only {@link #upload(SFTPv3FileHandle, long, InputStream, int)}
+ * and {@link #download(SFTPv3FileHandle, long, OutputStream, int)} keep more
+ * requests in flight.
  * <p>
  * Basically, most methods in this class map directly to one of
  * the packet types described in draft-ietf-secsh-filexfer-02.txt.
@@ -1358,6 +1362,232 @@ import ch.ethz.ssh2.sftp.Packet;
 		}
 	}
 
+	/**
+	 * Write all bytes from a stream to a file. Up to <code>maxRequests</code> write
+	 * requests of 32768 bytes are sent before their replies are read, so that the
+	 * throughput is not limited by the round trip time. The server may send the
+	 * replies in any order.
+	 * 
+	 * @param handle a SFTPv3FileHandle handle.
+	 * @param fileOffset offset (in bytes) in the file.
+	 * @param src the source stream, it is read till the end, but not closed.
+	 * @param maxRequests how many write requests may be in flight, &gt; 0.
+	 * @return the number of bytes written.
+	 * @throws IOException
+	 */
+	public long upload(SFTPv3FileHandle handle, long fileOffset, InputStream src, int maxRequests) throws IOException
+	{
+		checkHandleValidAndOpen(handle);
+
+		if (maxRequests <= 0)
+			throw new IllegalArgumentException("invalid maxRequests argument");
+
+		HashSet outstanding = new HashSet();
+		byte[] buff = new byte[32768];
+		long written = 0;
+		boolean eof = false;
+		IOException error = null;
+
+		while (true)
+		{
+			while ((eof == false) && (error == null) && (outstanding.size() < maxRequests))
+			{
+				int len = 0;
+
+				while (len < buff.length)
+				{
+					int count = src.read(buff, len, buff.length - len);
+					if (count < 0)
+					{
+						eof = true;
+						break;
+					}
+					len += count;
+				}
+
+				if (len == 0)
+					break;
+
+				int req_id = generateNextRequestID();
+
+				TypesWriter tw = new TypesWriter();
+				tw.writeString(handle.fileHandle, 0, handle.fileHandle.length);
+				tw.writeUINT64(fileOffset);
+				tw.writeString(buff, 0, len);
+
+				if (debug != null)
+				{
+					debug.println("Sending SSH_FXP_WRITE (pipelined)...");
+					debug.flush();
+				}
+
+				sendMessage(Packet.SSH_FXP_WRITE, req_id, tw.getBytes());
+
+				outstanding.add(new Integer(req_id));
+				fileOffset += len;
+				written += len;
+			}
+
+			if (outstanding.isEmpty())
+				break;
+
+			/* after an error the outstanding replies are still read, so that
+			 * the next request does not get them. */
+
+			byte[] resp = receiveMessage(34000);
+
+			TypesReader tr = new TypesReader(resp);
+
+			int t = tr.readByte();
+
+			int rep_id = tr.readUINT32();
+			if (outstanding.remove(new Integer(rep_id)) == false)
+				throw new IOException("The server sent an invalid id field.");
+
+			if (t != Packet.SSH_FXP_STATUS)
+			{
+				if (error == null)
+					error = new IOException("The SFTP server sent an unexpected packet type (" + t + ")");
+				continue;
+			}
+
+			int errorCode = tr.readUINT32();
+
+			if ((errorCode != ErrorCodes.SSH_FX_OK) && (error == null))
+				error = new SFTPException(tr.readString(), errorCode);
+		}
+
+		if (error != null)
+			throw error;
+
+		return written;
+	}
+
+	/**
+	 * Read a file from an offset till the end and write it to a stream. Up to
+	 * <code>maxRequests</code> read requests of 32768 bytes are sent before their
+	 * replies are read, so that the throughput is not limited by the round trip
+	 * time. The server may send the replies in any order, the data is written to
+	 * the stream in the right order.
+	 * 
+	 * @param handle a SFTPv3FileHandle handle
+	 * @param fileOffset offset (in bytes) in the file
+	 * @param dst the destination stream, it is not closed.
+	 * @param maxRequests how many read requests may be in flight, &gt; 0.
+	 * @return the number of bytes read.
+	 * @throws IOException
+	 */
+	public long download(SFTPv3FileHandle handle, long fileOffset, OutputStream dst, int maxRequests) throws IOException
+	{
+		checkHandleValidAndOpen(handle);
+
+		if (maxRequests <= 0)
+			throw new IllegalArgumentException("invalid maxRequests argument");
+
+		/* request id -> {offset, length} */
+		HashMap outstanding = new HashMap();
+		/* offset -> data, that came before the data in front of it */
+		TreeMap received = new TreeMap();
+		long requestOffset = fileOffset;
+		long writeOffset = fileOffset;
+		long total = 0;
+		boolean eof = false;
+		IOException error = null;
+
+		while (true)
+		{
+			while ((eof == false) && (error == null) && (outstanding.size() < maxRequests))
+			{
+				sendRead(handle, requestOffset, 32768, outstanding);
+				requestOffset += 32768;
+			}
+
+			if (outstanding.isEmpty())
+				break;
+
+			byte[] resp = receiveMessage(34000);
+
+			TypesReader tr = new TypesReader(resp);
+
+			int t = tr.readByte();
+
+			int rep_id = tr.readUINT32();
+			long[] req = (long[]) outstanding.remove(new Integer(rep_id));
+			if (req == null)
+				throw new IOException("The server sent an invalid id field.");
+
+			if (t == Packet.SSH_FXP_DATA)
+			{
+				int readLen = tr.readUINT32();
+
+				if ((readLen < 0) || (readLen > req[1]))
+					throw new IOException("The server sent an invalid length field.");
+
+				byte[] data = new byte[readLen];
+				tr.readBytes(data, 0, readLen);
+				if (readLen > 0)
+					received.put(new Long(req[0]), data);
+
+				/* a short read, the rest is requested again, if it is past the
+				 * end of the file, the server sends EOF. */
+				if ((readLen < req[1]) && (error == null))
+					sendRead(handle, req[0] + readLen, (int) req[1] - readLen, outstanding);
+			}
+			else if (t == Packet.SSH_FXP_STATUS)
+			{
+				int errorCode = tr.readUINT32();
+
+				if (errorCode == ErrorCodes.SSH_FX_EOF)
+					eof = true;
+				else if (error == null)
+					error = new SFTPException(tr.readString(), errorCode);
+			}
+			else if (error == null)
+			{
+				error = new IOException("The SFTP server sent an unexpected packet type (" + t + ")");
+			}
+
+			while ((error == null) && (received.isEmpty() == false))
+			{
+				Long offset = (Long) received.firstKey();
+				if (offset.longValue() != writeOffset)
+					break;
+				byte[] data = (byte[]) received.remove(offset);
+				dst.write(data);
+				writeOffset += data.length;
+				total += data.length;
+			}
+		}
+
+		if (error != null)
+			throw error;
+
+		if (received.isEmpty() == false)
+			throw new IOException("The server sent data after the end of the file.");
+
+		return total;
+	}
+
+	private void sendRead(SFTPv3FileHandle handle, long fileOffset, int len, HashMap outstanding) throws IOException
+	{
+		int req_id = generateNextRequestID();
+
+		TypesWriter tw = new TypesWriter();
+		tw.writeString(handle.fileHandle, 0, handle.fileHandle.length);
+		tw.writeUINT64(fileOffset);
+		tw.writeUINT32(len);
+
+		if (debug != null)
+		{
+			debug.println("Sending SSH_FXP_READ (pipelined)...");
+			debug.flush();
+		}
+
+		sendMessage(Packet.SSH_FXP_READ, req_id, tw.getBytes());
+
+		outstanding.put(new Integer(req_id), new long[] { fileOffset, len });
+	}
+
 	/**
 	 * Close a file.
 	 * 
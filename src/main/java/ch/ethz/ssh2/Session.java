@@ -34,9 +34,14 @@ import ch.ethz.ssh2.channel.X11ServerData;
 	final SecureRandom rnd;
 	
 	Session(ChannelManager cm, SecureRandom rnd) throws IOException
+	{
+		this(cm, rnd, false);
+	}
+
+	Session(ChannelManager cm, SecureRandom rnd, boolean bulk) throws IOException
 	{
 		this.cm = cm;
-		this.cn = cm.openSessionChannel();
+		this.cn = cm.openSessionChannel(bulk);
 		this.rnd = rnd;
 	}
 
@@ -390,6 +395,31 @@ import ch.ethz.ssh2.channel.X11ServerData;
 		return cm.waitForCondition(cn, timeout, condition_set);
 	}
 
+	/**
+	 * Returns the current conditions of the underlying SSH-2 channel without blocking.
+	 * 
+	 * @return a bitmask specifying all current conditions that are true, see
+	 *         {@link ChannelCondition}
+	 */
+	public int getConditions()
+	{
+		return cm.getConditions(cn);
+	}
+
+	/**
+	 * Sets the listener, that is notified every time the conditions of the
+	 * underlying SSH-2 channel change, instead of waiting with
+	 * {@link #waitForCondition(int, long)}. The listener is notified at once with
+	 * the current conditions. Please read the comments in
+	 * {@link ChannelConditionListener}, it is called by the receiver of the connection.
+	 * 
+	 * @param listener the listener or <code>null</code> to remove it.
+	 */
+	public void setConditionListener(ChannelConditionListener listener)
+	{
+		cm.setConditionListener(cn, listener);
+	}
+
 	/**
 	 * Get the exit code/status from the remote command - if available. Be
 	 * careful - not all server implementations return this value. It is
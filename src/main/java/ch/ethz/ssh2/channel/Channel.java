@@ -1,6 +1,9 @@
 
 package ch.ethz.ssh2.channel;
 
+import ch.ethz.ssh2.ChannelConditionListener;
+import ch.ethz.ssh2.transport.TransportConnection;
+
 /**
  * Channel.
  * 
@@ -40,7 +43,15 @@ public class Channel
 	static final int STATE_OPEN = 2;
 	static final int STATE_CLOSED = 4;
 
-	static final int CHANNEL_BUFFER_SIZE = 30000;
+	/* Window of session channels, e.g. exec commands. */
+	public static final int DEFAULT_SESSION_WINDOW_SIZE = 256 * 1024;
+
+	/* Window of forwarded and bulk channels, e.g. port forwarding and scp. */
+	public static final int DEFAULT_FORWARDED_WINDOW_SIZE = 2 * 1024 * 1024;
+
+	public static final int DEFAULT_MAX_PACKET_SIZE = 35000 - 1024; // leave enough slack
+
+	public static final int MAX_PACKET_SIZE = TransportConnection.MAX_PACKET_LENGTH - 1024;
 
 	/*
 	 * To achieve correctness, the following rules have to be respected when
@@ -117,13 +128,11 @@ public class Channel
 	int localMaxPacketSize = -1;
 	int remoteMaxPacketSize = -1;
 
-	final byte[] stdoutBuffer = new byte[CHANNEL_BUFFER_SIZE];
-	final byte[] stderrBuffer = new byte[CHANNEL_BUFFER_SIZE];
+	/* The local window is re-opened, when less than half of it remains. */
+	final int windowSize;
 
-	int stdoutReadpos = 0;
-	int stdoutWritepos = 0;
-	int stderrReadpos = 0;
-	int stderrWritepos = 0;
+	final RingBuffer stdoutBuffer;
+	final RingBuffer stderrBuffer;
 
 	boolean EOF = false;
 
@@ -131,6 +140,10 @@ public class Channel
 
 	String exit_signal;
 
+	/* Notified after the conditions changed, see ChannelManager */
+
+	ChannelConditionListener conditionListener;
+
 	// we keep the x11 cookie so that this channel can be closed when this
 	// specific x11 forwarding gets stopped
 
@@ -145,10 +158,24 @@ public class Channel
 
 	public Channel(ChannelManager cm)
 	{
+		this(cm, DEFAULT_SESSION_WINDOW_SIZE, DEFAULT_MAX_PACKET_SIZE);
+	}
+
+	public Channel(ChannelManager cm, int windowSize, int maxPacketSize)
+	{
+		if (windowSize <= 0)
+			throw new IllegalArgumentException("Illegal window size (" + windowSize + ")");
+
+		if (maxPacketSize <= 0 || maxPacketSize > MAX_PACKET_SIZE)
+			throw new IllegalArgumentException("Illegal maximum packet size (" + maxPacketSize + ")");
+
 		this.cm = cm;
 
-		this.localWindow = CHANNEL_BUFFER_SIZE;
-		this.localMaxPacketSize = 35000 - 1024; // leave enough slack
+		this.windowSize = windowSize;
+		this.localWindow = windowSize;
+		this.localMaxPacketSize = maxPacketSize;
+		this.stdoutBuffer = new RingBuffer(windowSize);
+		this.stderrBuffer = new RingBuffer(windowSize);
 
 		this.stdinStream = new ChannelOutputStream(this);
 		this.stdoutStream = new ChannelInputStream(this, false);
@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.Vector;
 
 import ch.ethz.ssh2.ChannelCondition;
+import ch.ethz.ssh2.ChannelConditionListener;
 import ch.ethz.ssh2.log.Logger;
 import ch.ethz.ssh2.packets.PacketChannelOpenConfirmation;
 import ch.ethz.ssh2.packets.PacketChannelOpenFailure;
@@ -51,6 +52,10 @@ import ch.ethz.ssh2.transport.TransportManager;
 
 	private boolean listenerThreadsAllowed = true;
 
+	private volatile int sessionWindowSize = Channel.DEFAULT_SESSION_WINDOW_SIZE;
+	private volatile int forwardedWindowSize = Channel.DEFAULT_FORWARDED_WINDOW_SIZE;
+	private volatile int maxPacketSize = Channel.DEFAULT_MAX_PACKET_SIZE;
+
 	public ChannelManager(TransportManager tm)
 	{
 		this.tm = tm;
@@ -302,6 +307,8 @@ import ch.ethz.ssh2.transport.TransportManager;
 			c.notifyAll();
 		}
 
+		notifyConditionListener(c);
+
 		synchronized (c.channelSendLock)
 		{
 			if (c.closeMessageSent == true)
@@ -532,10 +539,40 @@ import ch.ethz.ssh2.transport.TransportManager;
 		}
 	}
 
+	/**
+	 * Sets the local window sizes of the channels, that will be opened. The
+	 * forwarded window size is used for port forwarding and bulk sessions.
+	 */
+	public void setChannelWindowSizes(int sessionWindowSize, int forwardedWindowSize)
+	{
+		if (sessionWindowSize <= 0 || forwardedWindowSize <= 0)
+			throw new IllegalArgumentException("Illegal window size");
+
+		this.sessionWindowSize = sessionWindowSize;
+		this.forwardedWindowSize = forwardedWindowSize;
+	}
+
+	/**
+	 * Sets the maximum packet size, that the other side may send on the
+	 * channels, that will be opened.
+	 */
+	public void setChannelMaxPacketSize(int maxPacketSize)
+	{
+		if (maxPacketSize <= 0 || maxPacketSize > Channel.MAX_PACKET_SIZE)
+			throw new IllegalArgumentException("Illegal maximum packet size (" + maxPacketSize + ")");
+
+		this.maxPacketSize = maxPacketSize;
+	}
+
+	private Channel newChannel(boolean bulk)
+	{
+		return new Channel(this, bulk ? forwardedWindowSize : sessionWindowSize, maxPacketSize);
+	}
+
 	public Channel openDirectTCPIPChannel(String host_to_connect, int port_to_connect, String originator_IP_address,
 			int originator_port) throws IOException
 	{
-		Channel c = new Channel(this);
+		Channel c = newChannel(true);
 
 		synchronized (c)
 		{
@@ -555,7 +592,12 @@ import ch.ethz.ssh2.transport.TransportManager;
 
 	public Channel openSessionChannel() throws IOException
 	{
-		Channel c = new Channel(this);
+		return openSessionChannel(false);
+	}
+
+	public Channel openSessionChannel(boolean bulk) throws IOException
+	{
+		Channel c = newChannel(bulk);
 
 		synchronized (c)
 		{
@@ -777,11 +819,84 @@ import ch.ethz.ssh2.transport.TransportManager;
 
 			c.localWindow -= len;
 
-			System.arraycopy(msg, 13, c.stderrBuffer, c.stderrWritepos, len);
-			c.stderrWritepos += len;
+			c.stderrBuffer.write(msg, 13, len);
 
 			c.notifyAll();
 		}
+
+		notifyConditionListener(c);
+	}
+
+	/**
+	 * @return all current conditions of the channel, without waiting.
+	 */
+	public int getConditions(Channel c)
+	{
+		synchronized (c)
+		{
+			int current_cond = 0;
+
+			if (c.stdoutBuffer.available() > 0)
+				current_cond = current_cond | ChannelCondition.STDOUT_DATA;
+
+			if (c.stderrBuffer.available() > 0)
+				current_cond = current_cond | ChannelCondition.STDERR_DATA;
+
+			if (c.EOF)
+				current_cond = current_cond | ChannelCondition.EOF;
+
+			if (c.exit_status != null)
+				current_cond = current_cond | ChannelCondition.EXIT_STATUS;
+
+			if (c.exit_signal != null)
+				current_cond = current_cond | ChannelCondition.EXIT_SIGNAL;
+
+			if (c.state == Channel.STATE_CLOSED)
+				current_cond = current_cond | ChannelCondition.CLOSED | ChannelCondition.EOF;
+
+			return current_cond;
+		}
+	}
+
+	/**
+	 * Sets the listener, that is notified after the conditions of the channel
+	 * changed. It is notified at once with the current conditions.
+	 */
+	public void setConditionListener(Channel c, ChannelConditionListener listener)
+	{
+		synchronized (c)
+		{
+			c.conditionListener = listener;
+		}
+
+		notifyConditionListener(c);
+	}
+
+	/*
+	 * Must be called without holding the lock of the channel, the listener
+	 * may take other locks.
+	 */
+	private void notifyConditionListener(Channel c)
+	{
+		ChannelConditionListener listener;
+
+		synchronized (c)
+		{
+			listener = c.conditionListener;
+		}
+
+		if (listener == null)
+			return;
+
+		try
+		{
+			listener.conditionsChanged(getConditions(c));
+		}
+		catch (RuntimeException e)
+		{
+			if (log.isEnabled())
+				log.log(20, "Channel condition listener failed: " + e.getMessage());
+		}
 	}
 
 	/**
@@ -805,28 +920,10 @@ import ch.ethz.ssh2.transport.TransportManager;
 		{
 			while (true)
 			{
-				int current_cond = 0;
-
-				int stdoutAvail = c.stdoutWritepos - c.stdoutReadpos;
-				int stderrAvail = c.stderrWritepos - c.stderrReadpos;
-
-				if (stdoutAvail > 0)
-					current_cond = current_cond | ChannelCondition.STDOUT_DATA;
-
-				if (stderrAvail > 0)
-					current_cond = current_cond | ChannelCondition.STDERR_DATA;
-
-				if (c.EOF)
-					current_cond = current_cond | ChannelCondition.EOF;
-
-				if (c.getExitStatus() != null)
-					current_cond = current_cond | ChannelCondition.EXIT_STATUS;
-
-				if (c.getExitSignal() != null)
-					current_cond = current_cond | ChannelCondition.EXIT_SIGNAL;
+				int current_cond = getConditions(c);
 
-				if (c.state == Channel.STATE_CLOSED)
-					return current_cond | ChannelCondition.CLOSED | ChannelCondition.EOF;
+				if ((current_cond & ChannelCondition.CLOSED) != 0)
+					return current_cond;
 
 				if ((current_cond & condition_mask) != 0)
 					return current_cond;
@@ -869,9 +966,9 @@ import ch.ethz.ssh2.transport.TransportManager;
 			int avail;
 
 			if (extended)
-				avail = c.stderrWritepos - c.stderrReadpos;
+				avail = c.stderrBuffer.available();
 			else
-				avail = c.stdoutWritepos - c.stdoutReadpos;
+				avail = c.stdoutBuffer.available();
 
 			return ((avail > 0) ? avail : (c.EOF ? -1 : 0));
 		}
@@ -896,8 +993,8 @@ import ch.ethz.ssh2.transport.TransportManager;
 				 * channel is already closed.
 				 */
 
-				stdoutAvail = c.stdoutWritepos - c.stdoutReadpos;
-				stderrAvail = c.stderrWritepos - c.stderrReadpos;
+				stdoutAvail = c.stdoutBuffer.available();
+				stderrAvail = c.stderrBuffer.available();
 
 				if ((!extended) && (stdoutAvail != 0))
 					break;
@@ -922,42 +1019,19 @@ import ch.ethz.ssh2.transport.TransportManager;
 
 			/* OK, there is some data. Return it. */
 
-			if (!extended)
-			{
-				copylen = (stdoutAvail > len) ? len : stdoutAvail;
-				System.arraycopy(c.stdoutBuffer, c.stdoutReadpos, target, off, copylen);
-				c.stdoutReadpos += copylen;
-
-				if (c.stdoutReadpos != c.stdoutWritepos)
-
-					System.arraycopy(c.stdoutBuffer, c.stdoutReadpos, c.stdoutBuffer, 0, c.stdoutWritepos
-							- c.stdoutReadpos);
+			/* The ring buffers don't need compacting. */
 
-				c.stdoutWritepos -= c.stdoutReadpos;
-				c.stdoutReadpos = 0;
-			}
+			if (!extended)
+				copylen = c.stdoutBuffer.read(target, off, len);
 			else
-			{
-				copylen = (stderrAvail > len) ? len : stderrAvail;
-				System.arraycopy(c.stderrBuffer, c.stderrReadpos, target, off, copylen);
-				c.stderrReadpos += copylen;
-
-				if (c.stderrReadpos != c.stderrWritepos)
-
-					System.arraycopy(c.stderrBuffer, c.stderrReadpos, c.stderrBuffer, 0, c.stderrWritepos
-							- c.stderrReadpos);
-
-				c.stderrWritepos -= c.stderrReadpos;
-				c.stderrReadpos = 0;
-			}
+				copylen = c.stderrBuffer.read(target, off, len);
 
 			if (c.state != Channel.STATE_OPEN)
 				return copylen;
 
-			if (c.localWindow < ((Channel.CHANNEL_BUFFER_SIZE + 1) / 2))
+			if (c.localWindow < ((c.windowSize + 1) / 2))
 			{
-				int minFreeSpace = Math.min(Channel.CHANNEL_BUFFER_SIZE - c.stdoutWritepos, Channel.CHANNEL_BUFFER_SIZE
-						- c.stderrWritepos);
+				int minFreeSpace = Math.min(c.stdoutBuffer.free(), c.stderrBuffer.free());
 
 				increment = minFreeSpace - c.localWindow;
 				c.localWindow = minFreeSpace;
@@ -1033,11 +1107,12 @@ import ch.ethz.ssh2.transport.TransportManager;
 
 			c.localWindow -= len;
 
-			System.arraycopy(msg, 9, c.stdoutBuffer, c.stdoutWritepos, len);
-			c.stdoutWritepos += len;
+			c.stdoutBuffer.write(msg, 9, len);
 
 			c.notifyAll();
 		}
+
+		notifyConditionListener(c);
 	}
 
 	public void msgChannelWindowAdjust(byte[] msg, int msglen) throws IOException
@@ -1104,7 +1179,7 @@ import ch.ethz.ssh2.transport.TransportManager;
 			String remoteOriginatorAddress = tr.readString();
 			int remoteOriginatorPort = tr.readUINT32();
 
-			Channel c = new Channel(this);
+			Channel c = newChannel(true);
 
 			synchronized (c)
 			{
@@ -1155,7 +1230,7 @@ import ch.ethz.ssh2.transport.TransportManager;
 				return;
 			}
 
-			Channel c = new Channel(this);
+			Channel c = newChannel(true);
 
 			synchronized (c)
 			{
@@ -1223,6 +1298,8 @@ import ch.ethz.ssh2.transport.TransportManager;
 				c.notifyAll();
 			}
 
+			notifyConditionListener(c);
+
 			if (log.isEnabled())
 				log.log(50, "Got EXIT STATUS (channel " + id + ", status " + exit_status + ")");
 
@@ -1248,6 +1325,8 @@ import ch.ethz.ssh2.transport.TransportManager;
 				c.notifyAll();
 			}
 
+			notifyConditionListener(c);
+
 			if (log.isEnabled())
 				log.log(50, "Got EXIT SIGNAL (channel " + id + ", signal " + signame + ")");
 
@@ -1293,6 +1372,8 @@ import ch.ethz.ssh2.transport.TransportManager;
 			c.notifyAll();
 		}
 
+		notifyConditionListener(c);
+
 		if (log.isEnabled())
 			log.log(50, "Got SSH_MSG_CHANNEL_EOF (channel " + id + ")");
 	}
@@ -1321,6 +1402,8 @@ import ch.ethz.ssh2.transport.TransportManager;
 			c.notifyAll();
 		}
 
+		notifyConditionListener(c);
+
 		if (log.isEnabled())
 			log.log(50, "Got SSH_MSG_CHANNEL_CLOSE (channel " + id + ")");
 	}
@@ -1525,9 +1608,12 @@ import ch.ethz.ssh2.transport.TransportManager;
 				listenerThreadsAllowed = false;
 			}
 
+			Vector closed;
+
 			synchronized (channels)
 			{
 				shutdown = true;
+				closed = (Vector) channels.clone();
 
 				for (int i = 0; i < channels.size(); i++)
 				{
@@ -1550,8 +1636,12 @@ import ch.ethz.ssh2.transport.TransportManager;
 				channels.setSize(0);
 				channels.trimToSize();
 				channels.notifyAll(); /* Notify global response waiters */
-				return;
 			}
+
+			for (int i = 0; i < closed.size(); i++)
+				notifyConditionListener((Channel) closed.elementAt(i));
+
+			return;
 		}
 
 		switch (msg[0])
@@ -0,0 +1,101 @@
+package ch.ethz.ssh2.channel;
+
+/**
+ * RingBuffer. Receive buffer of a channel. It can hold as many bytes as the
+ * window of the channel, but the storage grows only as the data arrive, so
+ * that channels with big windows and consumers, that keep up, stay small.
+ *
+ * The object is not thread safe, it is guarded by the lock of the channel.
+ */
+final class RingBuffer
+{
+	private static final int INITIAL_SIZE = 32 * 1024;
+
+	private final int capacity;
+
+	private byte[] buffer;
+
+	private int readpos = 0;
+
+	private int count = 0;
+
+	RingBuffer(int capacity)
+	{
+		this.capacity = capacity;
+		this.buffer = new byte[Math.min(capacity, INITIAL_SIZE)];
+	}
+
+	/**
+	 * @return number of bytes that can be read.
+	 */
+	int available()
+	{
+		return count;
+	}
+
+	/**
+	 * @return number of bytes that can be written.
+	 */
+	int free()
+	{
+		return capacity - count;
+	}
+
+	/**
+	 * Appends the data, the caller must check that it is not more than
+	 * {@link #free()}.
+	 */
+	void write(byte[] src, int off, int len)
+	{
+		if (len > free())
+			throw new IllegalArgumentException("RingBuffer overflow (" + len + " > " + free() + ")");
+
+		if (count + len > buffer.length)
+			grow(count + len);
+
+		int writepos = (readpos + count) % buffer.length;
+		int first = Math.min(len, buffer.length - writepos);
+
+		System.arraycopy(src, off, buffer, writepos, first);
+		System.arraycopy(src, off + first, buffer, 0, len - first);
+		count += len;
+	}
+
+	/**
+	 * Reads up to len bytes.
+	 *
+	 * @return number of bytes read.
+	 */
+	int read(byte[] dst, int off, int len)
+	{
+		int n = Math.min(len, count);
+		int first = Math.min(n, buffer.length - readpos);
+
+		System.arraycopy(buffer, readpos, dst, off, first);
+		System.arraycopy(buffer, 0, dst, off + first, n - first);
+		count -= n;
+
+		if (count == 0)
+			readpos = 0;
+		else
+			readpos = (readpos + n) % buffer.length;
+
+		return n;
+	}
+
+	private void grow(int needed)
+	{
+		long size = buffer.length;
+
+		while (size < needed)
+			size *= 2;
+
+		byte[] newBuffer = new byte[(int) Math.min(size, capacity)];
+		int first = Math.min(count, buffer.length - readpos);
+
+		System.arraycopy(buffer, readpos, newBuffer, 0, first);
+		System.arraycopy(buffer, 0, newBuffer, first, count - first);
+		buffer = newBuffer;
+		readpos = 0;
+	}
+}
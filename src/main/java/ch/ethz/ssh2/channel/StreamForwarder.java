@@ -19,7 +19,7 @@ public class StreamForwarder extends Thread
 {
 	OutputStream os;
 	InputStream is;
-	byte[] buffer = new byte[Channel.CHANNEL_BUFFER_SIZE];
+	byte[] buffer = new byte[Channel.DEFAULT_MAX_PACKET_SIZE];
 	Channel c;
 	StreamForwarder sibling;
 	Socket s;
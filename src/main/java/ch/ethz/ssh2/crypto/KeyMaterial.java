@@ -25,6 +25,9 @@ public class KeyMaterial
 	{
 		byte[] res = new byte[keyLength];
 
+		if (keyLength == 0)
+			return res;
+
 		int dglen = sh.getDigestLength();
 		int numRounds = (keyLength + dglen - 1) / dglen;
 
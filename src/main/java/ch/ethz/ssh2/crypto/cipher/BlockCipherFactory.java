@@ -4,7 +4,9 @@ package ch.ethz.ssh2.crypto.cipher;
 import java.util.Vector;
 
 /**
- * BlockCipherFactory.
+ * BlockCipherFactory. The ciphers are created with the JCA, if it provides
+ * them, otherwise the pure Java ciphers are used. AES-GCM is only offered,
+ * if the JCA provides it.
  * 
  * @author Christian Plattner
  * @version 2.50, 03/15/10
@@ -17,13 +19,15 @@ import java.util.Vector;
 		int blocksize;
 		int keysize;
 		String cipherClass;
+		String jceName;
 
-		public CipherEntry(String type, int blockSize, int keySize, String cipherClass)
+		public CipherEntry(String type, int blockSize, int keySize, String cipherClass, String jceName)
 		{
 			this.type = type;
 			this.blocksize = blockSize;
 			this.keysize = keySize;
 			this.cipherClass = cipherClass;
+			this.jceName = jceName;
 		}
 	}
 
@@ -33,18 +37,24 @@ import java.util.Vector;
 	{
 		/* Higher Priority First */
 
-		ciphers.addElement(new CipherEntry("aes256-ctr", 16, 32, "ch.ethz.ssh2.crypto.cipher.AES"));
-		ciphers.addElement(new CipherEntry("aes192-ctr", 16, 24, "ch.ethz.ssh2.crypto.cipher.AES"));
-		ciphers.addElement(new CipherEntry("aes128-ctr", 16, 16, "ch.ethz.ssh2.crypto.cipher.AES"));
-		ciphers.addElement(new CipherEntry("blowfish-ctr", 8, 16, "ch.ethz.ssh2.crypto.cipher.BlowFish"));
+		if (GCMMode.isAvailable())
+		{
+			ciphers.addElement(new CipherEntry("aes256-gcm@openssh.com", 16, 32, null, "AES"));
+			ciphers.addElement(new CipherEntry("aes128-gcm@openssh.com", 16, 16, null, "AES"));
+		}
+
+		ciphers.addElement(new CipherEntry("aes256-ctr", 16, 32, "ch.ethz.ssh2.crypto.cipher.AES", "AES"));
+		ciphers.addElement(new CipherEntry("aes192-ctr", 16, 24, "ch.ethz.ssh2.crypto.cipher.AES", "AES"));
+		ciphers.addElement(new CipherEntry("aes128-ctr", 16, 16, "ch.ethz.ssh2.crypto.cipher.AES", "AES"));
+		ciphers.addElement(new CipherEntry("blowfish-ctr", 8, 16, "ch.ethz.ssh2.crypto.cipher.BlowFish", "Blowfish"));
 
-		ciphers.addElement(new CipherEntry("aes256-cbc", 16, 32, "ch.ethz.ssh2.crypto.cipher.AES"));
-		ciphers.addElement(new CipherEntry("aes192-cbc", 16, 24, "ch.ethz.ssh2.crypto.cipher.AES"));
-		ciphers.addElement(new CipherEntry("aes128-cbc", 16, 16, "ch.ethz.ssh2.crypto.cipher.AES"));
-		ciphers.addElement(new CipherEntry("blowfish-cbc", 8, 16, "ch.ethz.ssh2.crypto.cipher.BlowFish"));
+		ciphers.addElement(new CipherEntry("aes256-cbc", 16, 32, "ch.ethz.ssh2.crypto.cipher.AES", "AES"));
+		ciphers.addElement(new CipherEntry("aes192-cbc", 16, 24, "ch.ethz.ssh2.crypto.cipher.AES", "AES"));
+		ciphers.addElement(new CipherEntry("aes128-cbc", 16, 16, "ch.ethz.ssh2.crypto.cipher.AES", "AES"));
+		ciphers.addElement(new CipherEntry("blowfish-cbc", 8, 16, "ch.ethz.ssh2.crypto.cipher.BlowFish", "Blowfish"));
 		
-		ciphers.addElement(new CipherEntry("3des-ctr", 8, 24, "ch.ethz.ssh2.crypto.cipher.DESede"));
-		ciphers.addElement(new CipherEntry("3des-cbc", 8, 24, "ch.ethz.ssh2.crypto.cipher.DESede"));
+		ciphers.addElement(new CipherEntry("3des-ctr", 8, 24, "ch.ethz.ssh2.crypto.cipher.DESede", "DESede"));
+		ciphers.addElement(new CipherEntry("3des-cbc", 8, 24, "ch.ethz.ssh2.crypto.cipher.DESede", "DESede"));
 	}
 
 	public static String[] getDefaultCipherList()
@@ -65,10 +75,31 @@ import java.util.Vector;
 	}
 
 	public static BlockCipher createCipher(String type, boolean encrypt, byte[] key, byte[] iv)
+	{
+		return createCipher(type, encrypt, key, iv, true);
+	}
+
+	/**
+	 * Creates the cipher, with <code>useJce</code> false the pure Java cipher
+	 * is created, e.g. to compare them.
+	 */
+	public static BlockCipher createCipher(String type, boolean encrypt, byte[] key, byte[] iv, boolean useJce)
 	{
 		try
 		{
 			CipherEntry ce = getEntry(type);
+
+			if (isAEAD(type))
+				return new GCMMode(key, iv, encrypt);
+
+			if (useJce)
+			{
+				String mode = type.endsWith("-cbc") ? "CBC" : "CTR";
+				JceCipher jc = JceCipher.getInstance(ce.jceName, mode, encrypt, key, iv);
+				if (jc != null)
+					return jc;
+			}
+
 			Class cc = Class.forName(ce.cipherClass);
 			BlockCipher bc = (BlockCipher) cc.newInstance();
 
@@ -112,4 +143,20 @@ import java.util.Vector;
 		CipherEntry ce = getEntry(type);
 		return ce.keysize;
 	}
+
+	public static int getIVSize(String type)
+	{
+		if (isAEAD(type))
+			return GCMMode.IV_LENGTH;
+		return getBlockSize(type);
+	}
+
+	/**
+	 * Returns whether the cipher authenticates the packets itself, so that no
+	 * MAC is used.
+	 */
+	public static boolean isAEAD(String type)
+	{
+		return type.endsWith("-gcm@openssh.com");
+	}
 }
@@ -93,6 +93,30 @@ public class CipherInputStream
 		pos = 0;
 	}
 
+	/*
+	 * Reads whole blocks and decrypts them in place with a JCA cipher.
+	 */
+	private void getBlocks(JceCipher jc, byte[] dst, int off, int len) throws IOException
+	{
+		int n = 0;
+		while (n < len)
+		{
+			int cnt = internal_read(dst, off + n, len - n);
+			if (cnt < 0)
+				throw new IOException("Cannot read full block, EOF reached.");
+			n += cnt;
+		}
+
+		try
+		{
+			jc.transformBlocks(dst, off, dst, off, len);
+		}
+		catch (Exception e)
+		{
+			throw new IOException("Error while decrypting block.");
+		}
+	}
+
 	public int read(byte[] dst) throws IOException
 	{
 		return read(dst, 0, dst.length);
@@ -104,6 +128,16 @@ public class CipherInputStream
 
 		while (len > 0)
 		{
+			if (pos >= blockSize && len >= blockSize && currentCipher instanceof JceCipher)
+			{
+				int blocks = len - (len % blockSize);
+				getBlocks((JceCipher) currentCipher, dst, off, blocks);
+				off += blocks;
+				len -= blocks;
+				count += blocks;
+				continue;
+			}
+
 			if (pos >= blockSize)
 				getBlock();
 
@@ -127,6 +161,21 @@ public class CipherInputStream
 		return buffer[pos++] & 0xff;
 	}
 
+	/**
+	 * @return number of the received bytes, that can be read without
+	 *         blocking, decrypted or not.
+	 */
+	public int available() throws IOException
+	{
+		int buffered = (input_buffer_size > input_buffer_pos) ? input_buffer_size - input_buffer_pos : 0;
+		return (blockSize - pos) + buffered + bi.available();
+	}
+
+	public int getBlockSize()
+	{
+		return blockSize;
+	}
+
 	public int readPlain(byte[] b, int off, int len) throws IOException
 	{
 		if (pos != blockSize)
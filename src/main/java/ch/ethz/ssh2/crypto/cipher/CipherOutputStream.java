@@ -102,10 +102,57 @@ public class CipherOutputStream
 		pos = 0;
 	}
 
+	/*
+	 * Encrypts whole blocks with a JCA cipher directly into the output buffer.
+	 */
+	private void writeBlocks(JceCipher jc, byte[] src, int off, int len) throws IOException
+	{
+		while (len > 0)
+		{
+			int space = BUFF_SIZE - out_buffer_pos;
+			int copy = Math.min(len, space - (space % blockSize));
+
+			if (copy == 0)
+			{
+				bo.write(out_buffer, 0, out_buffer_pos);
+				out_buffer_pos = 0;
+				continue;
+			}
+
+			try
+			{
+				jc.transformBlocks(src, off, out_buffer, out_buffer_pos, copy);
+			}
+			catch (Exception e)
+			{
+				throw (IOException) new IOException("Error while encrypting blocks.").initCause(e);
+			}
+
+			off += copy;
+			out_buffer_pos += copy;
+			len -= copy;
+
+			if (out_buffer_pos >= BUFF_SIZE)
+			{
+				bo.write(out_buffer, 0, BUFF_SIZE);
+				out_buffer_pos = 0;
+			}
+		}
+	}
+
 	public void write(byte[] src, int off, int len) throws IOException
 	{
 		while (len > 0)
 		{
+			if (pos == 0 && len >= blockSize && currentCipher instanceof JceCipher)
+			{
+				int blocks = len - (len % blockSize);
+				writeBlocks((JceCipher) currentCipher, src, off, blocks);
+				off += blocks;
+				len -= blocks;
+				continue;
+			}
+
 			int avail = blockSize - pos;
 			int copy = Math.min(avail, len);
 
@@ -0,0 +1,143 @@
+package ch.ethz.ssh2.crypto.cipher;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.security.GeneralSecurityException;
+import java.security.spec.AlgorithmParameterSpec;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * This is AES-GCM as described in RFC 5647, with the changes of the
+ * aes128-gcm@openssh.com and aes256-gcm@openssh.com ciphers: the packet
+ * length is not encrypted, it is the additional authenticated data, and the
+ * tag replaces the MAC. The nonce is the 12 bytes IV from the key exchange,
+ * whose last 8 bytes are incremented after every packet.
+ * <p>
+ * Only whole packets can be transformed, the transport connection handles
+ * this cipher specially. GCM is provided by the JCA since Java 7, it is
+ * accessed through reflection, so that it is only offered, if it is
+ * available.
+ *
+ * @author Rasto Levrinc
+ */
+@SuppressWarnings({"unchecked"}) public class GCMMode implements BlockCipher
+{
+	public static final int TAG_LENGTH = 16;
+
+	public static final int IV_LENGTH = 12;
+
+	static Constructor parameterSpec;
+	static Method updateAAD;
+
+	static
+	{
+		try
+		{
+			Class spec = Class.forName("javax.crypto.spec.GCMParameterSpec");
+			parameterSpec = spec.getConstructor(new Class[] { Integer.TYPE, byte[].class });
+			updateAAD = Cipher.class.getMethod("updateAAD", new Class[] { byte[].class, Integer.TYPE, Integer.TYPE });
+			Cipher.getInstance("AES/GCM/NoPadding");
+		}
+		catch (Exception e)
+		{
+			parameterSpec = null;
+			updateAAD = null;
+		}
+	}
+
+	Cipher cipher;
+	SecretKeySpec key;
+	byte[] iv = new byte[IV_LENGTH];
+	boolean doEncrypt;
+
+	public static boolean isAvailable()
+	{
+		return updateAAD != null;
+	}
+
+	public GCMMode(byte[] key, byte[] iv, boolean doEncrypt) throws IllegalArgumentException
+	{
+		if (!isAvailable())
+			throw new IllegalArgumentException("AES-GCM is not available");
+
+		if (iv.length != IV_LENGTH)
+			throw new IllegalArgumentException("IV must be " + IV_LENGTH + " bytes long! (currently " + iv.length
+					+ ")");
+
+		try
+		{
+			this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		this.key = new SecretKeySpec(key, "AES");
+		this.doEncrypt = doEncrypt;
+		System.arraycopy(iv, 0, this.iv, 0, IV_LENGTH);
+	}
+
+	public void init(boolean forEncryption, byte[] key)
+	{
+	}
+
+	public int getBlockSize()
+	{
+		return 16;
+	}
+
+	public void transformBlock(byte[] src, int srcoff, byte[] dst, int dstoff)
+	{
+		throw new IllegalStateException("AES-GCM transforms only whole packets.");
+	}
+
+	/**
+	 * Encrypts the packet and appends the tag or decrypts it and checks the
+	 * tag. The aad is the packet length. dst must not overlap src.
+	 *
+	 * @return number of bytes written to dst.
+	 * @throws IOException if the tag does not match.
+	 */
+	public int transformPacket(byte[] aad, int aadoff, int aadlen, byte[] src, int srcoff, int len, byte[] dst,
+			int dstoff) throws IOException
+	{
+		int n;
+
+		try
+		{
+			AlgorithmParameterSpec spec = (AlgorithmParameterSpec) parameterSpec.newInstance(new Object[] {
+					Integer.valueOf(TAG_LENGTH * 8), iv });
+			cipher.init(doEncrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, key, spec);
+			updateAAD.invoke(cipher, new Object[] { aad, Integer.valueOf(aadoff), Integer.valueOf(aadlen) });
+			n = cipher.doFinal(src, srcoff, len, dst, dstoff);
+		}
+		catch (InvocationTargetException e)
+		{
+			throw (IOException) new IOException("AES-GCM failed.").initCause(e.getCause());
+		}
+		catch (GeneralSecurityException e)
+		{
+			if (doEncrypt)
+				throw (IOException) new IOException("AES-GCM failed.").initCause(e);
+			throw (IOException) new IOException("Remote sent corrupt MAC.").initCause(e);
+		}
+		catch (Exception e)
+		{
+			throw (IOException) new IOException("AES-GCM failed.").initCause(e);
+		}
+
+		/* invocation counter */
+		for (int i = IV_LENGTH - 1; i >= IV_LENGTH - 8; i--)
+		{
+			iv[i]++;
+			if (iv[i] != 0)
+				break;
+		}
+
+		return n;
+	}
+}
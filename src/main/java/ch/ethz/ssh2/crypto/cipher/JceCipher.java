@@ -0,0 +1,81 @@
+package ch.ethz.ssh2.crypto.cipher;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * JceCipher is a CBC or CTR mode cipher that is provided by the JCA
+ * (javax.crypto.Cipher). Since the JCA implementations are usually much
+ * faster than the pure Java ciphers, especially if they can use the AES
+ * instructions of the CPU, the cipher streams transform as many blocks at
+ * once as possible with transformBlocks().
+ *
+ * @author Rasto Levrinc
+ */
+public class JceCipher implements BlockCipher
+{
+	Cipher cipher;
+	int blockSize;
+
+	JceCipher(Cipher cipher)
+	{
+		this.cipher = cipher;
+		this.blockSize = cipher.getBlockSize();
+	}
+
+	/**
+	 * Creates the cipher, e.g. for "AES" and "CTR".
+	 *
+	 * @return the cipher or <code>null</code> if the JCA does not provide it.
+	 */
+	public static JceCipher getInstance(String algorithm, String mode, boolean encrypt, byte[] key, byte[] iv)
+	{
+		try
+		{
+			Cipher c = Cipher.getInstance(algorithm + "/" + mode + "/NoPadding");
+			c.init(encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, new SecretKeySpec(key, algorithm),
+					new IvParameterSpec(iv));
+			if (c.getBlockSize() != iv.length)
+				return null;
+			return new JceCipher(c);
+		}
+		catch (GeneralSecurityException e)
+		{
+			return null;
+		}
+	}
+
+	public void init(boolean forEncryption, byte[] key)
+	{
+	}
+
+	public int getBlockSize()
+	{
+		return blockSize;
+	}
+
+	public void transformBlock(byte[] src, int srcoff, byte[] dst, int dstoff)
+	{
+		transformBlocks(src, srcoff, dst, dstoff, blockSize);
+	}
+
+	/**
+	 * Transforms <code>len</code> bytes, which must be a multiple of the block
+	 * size. src and dst may be the same buffer.
+	 */
+	public void transformBlocks(byte[] src, int srcoff, byte[] dst, int dstoff, int len)
+	{
+		try
+		{
+			if (cipher.update(src, srcoff, len, dst, dstoff) != len)
+				throw new IllegalStateException("Cipher did not transform all blocks.");
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+}
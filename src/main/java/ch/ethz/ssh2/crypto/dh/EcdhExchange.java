@@ -0,0 +1,273 @@
+package ch.ethz.ssh2.crypto.dh;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.EllipticCurve;
+import java.security.spec.X509EncodedKeySpec;
+
+import javax.crypto.KeyAgreement;
+
+import ch.ethz.ssh2.crypto.digest.HashForSSH2Types;
+import ch.ethz.ssh2.log.Logger;
+import ch.ethz.ssh2.util.StringEncoder;
+
+/**
+ * EcdhExchange does the curve25519-sha256 (RFC 8731) and the
+ * ecdh-sha2-nistp256 (RFC 5656) key exchange. Both are done by the JCA,
+ * X25519 is there since Java 11, the NIST curves since Java 7. A method is
+ * only offered, if the JCA provides it.
+ *
+ * @author Rasto Levrinc
+ */
+public class EcdhExchange
+{
+	private static final Logger log = Logger.getLogger(EcdhExchange.class);
+
+	public static final String CURVE25519 = "curve25519-sha256";
+	public static final String CURVE25519_LIBSSH = "curve25519-sha256@libssh.org";
+	public static final String NISTP256 = "ecdh-sha2-nistp256";
+
+	static final boolean x25519Available;
+	static final boolean nistp256Available;
+
+	static
+	{
+		x25519Available = checkAvailable("X25519", null);
+		nistp256Available = checkAvailable("EC", new ECGenParameterSpec("secp256r1"));
+	}
+
+	boolean x25519;
+
+	KeyPair keyPair;
+
+	/* Client public */
+
+	byte[] q_c;
+
+	/* Server public */
+
+	byte[] q_s;
+
+	/* Shared secret */
+
+	BigInteger k;
+
+	private static boolean checkAvailable(String algorithm, ECGenParameterSpec spec)
+	{
+		try
+		{
+			KeyPairGenerator kpg = KeyPairGenerator.getInstance(algorithm);
+			if (spec != null)
+				kpg.initialize(spec);
+			kpg.generateKeyPair();
+			KeyAgreement.getInstance(spec != null ? "ECDH" : algorithm);
+			return true;
+		}
+		catch (GeneralSecurityException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @return whether the kex method is done by this class and available.
+	 */
+	public static boolean isAvailable(String kexAlgorithm)
+	{
+		if (CURVE25519.equals(kexAlgorithm) || CURVE25519_LIBSSH.equals(kexAlgorithm))
+			return x25519Available;
+
+		if (NISTP256.equals(kexAlgorithm))
+			return nistp256Available;
+
+		return false;
+	}
+
+	public EcdhExchange()
+	{
+	}
+
+	public void init(String kexAlgorithm, SecureRandom rnd)
+	{
+		if (!isAvailable(kexAlgorithm))
+			throw new IllegalArgumentException("Unknown kex method " + kexAlgorithm);
+
+		k = null;
+		x25519 = !NISTP256.equals(kexAlgorithm);
+
+		try
+		{
+			if (x25519)
+			{
+				KeyPairGenerator kpg = KeyPairGenerator.getInstance("X25519");
+				kpg.initialize(255, rnd);
+				keyPair = kpg.generateKeyPair();
+
+				/* The raw key is at the end of the X.509 encoding */
+
+				byte[] encoded = keyPair.getPublic().getEncoded();
+				q_c = new byte[32];
+				System.arraycopy(encoded, encoded.length - 32, q_c, 0, 32);
+			}
+			else
+			{
+				KeyPairGenerator kpg = KeyPairGenerator.getInstance("EC");
+				kpg.initialize(new ECGenParameterSpec("secp256r1"), rnd);
+				keyPair = kpg.generateKeyPair();
+				q_c = encodePoint(((ECPublicKey) keyPair.getPublic()).getW());
+			}
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new IllegalArgumentException("Cannot create key pair: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return Returns the encoded client public key.
+	 * @throws IllegalStateException
+	 */
+	public byte[] getQ_C()
+	{
+		if (q_c == null)
+			throw new IllegalStateException("EcdhExchange not initialized!");
+
+		return q_c;
+	}
+
+	/**
+	 * @return Returns the shared secret k.
+	 * @throws IllegalStateException
+	 */
+	public BigInteger getK()
+	{
+		if (k == null)
+			throw new IllegalStateException("Shared secret not yet known, need q_s first!");
+
+		return k;
+	}
+
+	/**
+	 * @param q_s the encoded server public key
+	 */
+	public void setQ_S(byte[] q_s)
+	{
+		if (q_c == null)
+			throw new IllegalStateException("EcdhExchange not initialized!");
+
+		PublicKey serverKey;
+
+		try
+		{
+			if (x25519)
+			{
+				if (q_s.length != 32)
+					throw new IllegalArgumentException("Invalid q_s specified!");
+
+				byte[] encoded = keyPair.getPublic().getEncoded();
+				System.arraycopy(q_s, 0, encoded, encoded.length - 32, 32);
+				serverKey = KeyFactory.getInstance("X25519").generatePublic(new X509EncodedKeySpec(encoded));
+			}
+			else
+			{
+				ECParameterSpec params = ((ECPublicKey) keyPair.getPublic()).getParams();
+				ECPoint w = decodePoint(q_s, params.getCurve());
+				serverKey = KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(w, params));
+			}
+
+			KeyAgreement ka = KeyAgreement.getInstance(x25519 ? "X25519" : "ECDH");
+			ka.init(keyPair.getPrivate());
+			ka.doPhase(serverKey, true);
+
+			/* Fails for an all zero X25519 result */
+
+			byte[] secret = ka.generateSecret();
+
+			this.q_s = q_s;
+			this.k = new BigInteger(1, secret);
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new IllegalArgumentException("Invalid q_s specified: " + e.getMessage());
+		}
+	}
+
+	public byte[] calculateH(byte[] clientversion, byte[] serverversion, byte[] clientKexPayload,
+			byte[] serverKexPayload, byte[] hostKey)
+	{
+		HashForSSH2Types hash = new HashForSSH2Types("SHA256");
+
+		if (log.isEnabled())
+		{
+			log.log(90, "Client: '" + StringEncoder.GetString(clientversion) + "'");
+			log.log(90, "Server: '" + StringEncoder.GetString(serverversion) + "'");
+		}
+
+		hash.updateByteString(clientversion);
+		hash.updateByteString(serverversion);
+		hash.updateByteString(clientKexPayload);
+		hash.updateByteString(serverKexPayload);
+		hash.updateByteString(hostKey);
+		hash.updateByteString(q_c);
+		hash.updateByteString(q_s);
+		hash.updateBigInt(k);
+
+		return hash.getDigest();
+	}
+
+	/* Uncompressed point encoding of SEC1 */
+
+	private static byte[] encodePoint(ECPoint w)
+	{
+		byte[] res = new byte[65];
+		res[0] = 0x04;
+		copyUnsigned(w.getAffineX(), res, 1);
+		copyUnsigned(w.getAffineY(), res, 33);
+		return res;
+	}
+
+	private static void copyUnsigned(BigInteger v, byte[] dst, int off)
+	{
+		byte[] b = v.toByteArray();
+		int len = Math.min(b.length, 32);
+		System.arraycopy(b, b.length - len, dst, off + 32 - len, len);
+	}
+
+	private static ECPoint decodePoint(byte[] q, EllipticCurve curve)
+	{
+		if (q.length != 65 || q[0] != 0x04)
+			throw new IllegalArgumentException("Invalid q_s specified!");
+
+		byte[] tmp = new byte[32];
+		System.arraycopy(q, 1, tmp, 0, 32);
+		BigInteger x = new BigInteger(1, tmp);
+		System.arraycopy(q, 33, tmp, 0, 32);
+		BigInteger y = new BigInteger(1, tmp);
+
+		/* The point must be on the curve: y^2 = x^3 + ax + b */
+
+		BigInteger p = ((ECFieldFp) curve.getField()).getP();
+
+		if (x.compareTo(p) >= 0 || y.compareTo(p) >= 0)
+			throw new IllegalArgumentException("Invalid q_s specified!");
+
+		BigInteger lhs = y.multiply(y).mod(p);
+		BigInteger rhs = x.multiply(x).add(curve.getA()).multiply(x).add(curve.getB()).mod(p);
+
+		if (!lhs.equals(rhs))
+			throw new IllegalArgumentException("Invalid q_s specified, not on the curve!");
+
+		return new ECPoint(x, y);
+	}
+}
@@ -0,0 +1,71 @@
+package ch.ethz.ssh2.crypto.digest;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * JceDigest is a Digest that is provided by the JCA
+ * (java.security.MessageDigest), e.g. SHA-256 for the newer key exchange
+ * methods.
+ * 
+ * @author Rasto Levrinc
+ */
+public final class JceDigest implements Digest
+{
+	MessageDigest md;
+
+	public JceDigest(String algorithm)
+	{
+		try
+		{
+			md = MessageDigest.getInstance(algorithm);
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+		}
+	}
+
+	public int getDigestLength()
+	{
+		return md.getDigestLength();
+	}
+
+	public void update(byte b)
+	{
+		md.update(b);
+	}
+
+	public void update(byte[] b)
+	{
+		md.update(b);
+	}
+
+	public void update(byte[] b, int off, int len)
+	{
+		md.update(b, off, len);
+	}
+
+	public void reset()
+	{
+		md.reset();
+	}
+
+	public void digest(byte[] out)
+	{
+		digest(out, 0);
+	}
+
+	public void digest(byte[] out, int off)
+	{
+		try
+		{
+			md.digest(out, off, md.getDigestLength());
+		}
+		catch (DigestException e)
+		{
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+}
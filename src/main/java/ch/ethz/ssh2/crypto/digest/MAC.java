@@ -1,21 +1,36 @@
-
 package ch.ethz.ssh2.crypto.digest;
 
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 /**
- * MAC.
- * 
+ * MAC. The JCA (javax.crypto.Mac) is used, if it provides the algorithm,
+ * otherwise the pure Java HMAC. hmac-sha2-256 and hmac-sha2-512 are only
+ * offered, if the JCA provides them.
+ *
  * @author Christian Plattner
  * @version 2.50, 03/15/10
  */
 public final class MAC
 {
+	private static final boolean sha2Available = isJceAvailable("HmacSHA256") && isJceAvailable("HmacSHA512");
+
 	Digest mac;
+	Mac jceMac;
+	byte[] jceBuffer;
+	final byte[] seqBuffer = new byte[4];
 	int size;
 
 	public final static String[] getMacList()
 	{
 		/* Higher Priority First */
 
+		if (sha2Available)
+			return new String[] { "hmac-sha2-256", "hmac-sha2-512", "hmac-sha1-96", "hmac-sha1", "hmac-md5-96",
+					"hmac-md5" };
+
 		return new String[] { "hmac-sha1-96", "hmac-sha1", "hmac-md5-96", "hmac-md5" };
 	}
 
@@ -35,50 +50,146 @@ public final class MAC
 			return 16;
 		if (type.equals("hmac-md5-96"))
 			return 16;
+		if (type.equals("hmac-sha2-256") && sha2Available)
+			return 32;
+		if (type.equals("hmac-sha2-512") && sha2Available)
+			return 64;
 		throw new IllegalArgumentException("Unkown algorithm " + type);
 	}
 
+	private static boolean isJceAvailable(String algorithm)
+	{
+		try
+		{
+			Mac.getInstance(algorithm);
+			return true;
+		}
+		catch (GeneralSecurityException e)
+		{
+			return false;
+		}
+	}
+
 	public MAC(String type, byte[] key)
 	{
+		this(type, key, true);
+	}
+
+	/**
+	 * Creates the MAC, with <code>useJce</code> false the pure Java HMAC is
+	 * used, e.g. to compare them.
+	 */
+	public MAC(String type, byte[] key, boolean useJce)
+	{
+		String jceName;
+
 		if (type.equals("hmac-sha1"))
 		{
-			mac = new HMAC(new SHA1(), key, 20);
+			jceName = "HmacSHA1";
+			size = 20;
 		}
 		else if (type.equals("hmac-sha1-96"))
 		{
-			mac = new HMAC(new SHA1(), key, 12);
+			jceName = "HmacSHA1";
+			size = 12;
 		}
 		else if (type.equals("hmac-md5"))
 		{
-			mac = new HMAC(new MD5(), key, 16);
+			jceName = "HmacMD5";
+			size = 16;
 		}
 		else if (type.equals("hmac-md5-96"))
 		{
-			mac = new HMAC(new MD5(), key, 12);
+			jceName = "HmacMD5";
+			size = 12;
+		}
+		else if (type.equals("hmac-sha2-256"))
+		{
+			jceName = "HmacSHA256";
+			size = 32;
+		}
+		else if (type.equals("hmac-sha2-512"))
+		{
+			jceName = "HmacSHA512";
+			size = 64;
 		}
 		else
 			throw new IllegalArgumentException("Unkown algorithm " + type);
 
-		size = mac.getDigestLength();
+		if (useJce)
+		{
+			try
+			{
+				jceMac = Mac.getInstance(jceName);
+				jceMac.init(new SecretKeySpec(key, jceName));
+				if (jceMac.getMacLength() != size)
+					jceBuffer = new byte[jceMac.getMacLength()];
+				return;
+			}
+			catch (GeneralSecurityException e)
+			{
+				jceMac = null;
+			}
+		}
+
+		if (jceName.equals("HmacSHA1"))
+			mac = new HMAC(new SHA1(), key, size);
+		else if (jceName.equals("HmacMD5"))
+			mac = new HMAC(new MD5(), key, size);
+		else
+			throw new IllegalArgumentException("Cannot instantiate " + type);
 	}
 
 	public final void initMac(int seq)
 	{
+		seqBuffer[0] = (byte) (seq >> 24);
+		seqBuffer[1] = (byte) (seq >> 16);
+		seqBuffer[2] = (byte) (seq >> 8);
+		seqBuffer[3] = (byte) (seq);
+
+		if (jceMac != null)
+		{
+			jceMac.reset();
+			jceMac.update(seqBuffer, 0, 4);
+			return;
+		}
+
 		mac.reset();
-		mac.update((byte) (seq >> 24));
-		mac.update((byte) (seq >> 16));
-		mac.update((byte) (seq >> 8));
-		mac.update((byte) (seq));
+		mac.update(seqBuffer, 0, 4);
 	}
 
 	public final void update(byte[] packetdata, int off, int len)
 	{
-		mac.update(packetdata, off, len);
+		if (jceMac != null)
+			jceMac.update(packetdata, off, len);
+		else
+			mac.update(packetdata, off, len);
 	}
 
 	public final void getMac(byte[] out, int off)
 	{
-		mac.digest(out, off);
+		if (jceMac == null)
+		{
+			mac.digest(out, off);
+			return;
+		}
+
+		try
+		{
+			if (jceBuffer == null)
+			{
+				jceMac.doFinal(out, off);
+			}
+			else
+			{
+				jceMac.doFinal(jceBuffer, 0);
+				System.arraycopy(jceBuffer, 0, out, off, size);
+			}
+		}
+		catch (GeneralSecurityException e)
+		{
+			throw new IllegalStateException(e.getMessage());
+		}
 	}
 
 	public final int size()
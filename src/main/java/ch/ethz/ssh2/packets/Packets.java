@@ -28,6 +28,9 @@ public class Packets
 	public static final int SSH_MSG_KEX_DH_GEX_INIT = 32;
 	public static final int SSH_MSG_KEX_DH_GEX_REPLY = 33;
 
+	public static final int SSH_MSG_KEX_ECDH_INIT = 30;
+	public static final int SSH_MSG_KEX_ECDH_REPLY = 31;
+
 	public static final int SSH_MSG_USERAUTH_REQUEST = 50;
 	public static final int SSH_MSG_USERAUTH_FAILURE = 51;
 	public static final int SSH_MSG_USERAUTH_SUCCESS = 52;
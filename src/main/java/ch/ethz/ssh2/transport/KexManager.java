@@ -13,6 +13,7 @@ import ch.ethz.ssh2.crypto.cipher.BlockCipher;
 import ch.ethz.ssh2.crypto.cipher.BlockCipherFactory;
 import ch.ethz.ssh2.crypto.dh.DhExchange;
 import ch.ethz.ssh2.crypto.dh.DhGroupExchange;
+import ch.ethz.ssh2.crypto.dh.EcdhExchange;
 import ch.ethz.ssh2.crypto.digest.MAC;
 import ch.ethz.ssh2.log.Logger;
 import ch.ethz.ssh2.packets.PacketKexDHInit;
@@ -22,6 +23,8 @@ import ch.ethz.ssh2.packets.PacketKexDhGexInit;
 import ch.ethz.ssh2.packets.PacketKexDhGexReply;
 import ch.ethz.ssh2.packets.PacketKexDhGexRequest;
 import ch.ethz.ssh2.packets.PacketKexDhGexRequestOld;
+import ch.ethz.ssh2.packets.PacketKexECDHInit;
+import ch.ethz.ssh2.packets.PacketKexECDHReply;
 import ch.ethz.ssh2.packets.PacketKexInit;
 import ch.ethz.ssh2.packets.PacketNewKeys;
 import ch.ethz.ssh2.packets.Packets;
@@ -251,16 +254,24 @@ public class KexManager
 	{
 		try
 		{
-			int mac_cs_key_len = MAC.getKeyLen(kxs.np.mac_algo_client_to_server);
+			/* AEAD ciphers need no MAC key */
+
+			int mac_cs_key_len = BlockCipherFactory.isAEAD(kxs.np.enc_algo_client_to_server) ? 0 : MAC
+					.getKeyLen(kxs.np.mac_algo_client_to_server);
 			int enc_cs_key_len = BlockCipherFactory.getKeySize(kxs.np.enc_algo_client_to_server);
-			int enc_cs_block_len = BlockCipherFactory.getBlockSize(kxs.np.enc_algo_client_to_server);
+			int enc_cs_iv_len = BlockCipherFactory.getIVSize(kxs.np.enc_algo_client_to_server);
 
-			int mac_sc_key_len = MAC.getKeyLen(kxs.np.mac_algo_server_to_client);
+			int mac_sc_key_len = BlockCipherFactory.isAEAD(kxs.np.enc_algo_server_to_client) ? 0 : MAC
+					.getKeyLen(kxs.np.mac_algo_server_to_client);
 			int enc_sc_key_len = BlockCipherFactory.getKeySize(kxs.np.enc_algo_server_to_client);
-			int enc_sc_block_len = BlockCipherFactory.getBlockSize(kxs.np.enc_algo_server_to_client);
+			int enc_sc_iv_len = BlockCipherFactory.getIVSize(kxs.np.enc_algo_server_to_client);
+
+			/* The hash of the kex method */
 
-			km = KeyMaterial.create("SHA1", kxs.H, kxs.K, sessionId, enc_cs_key_len, enc_cs_block_len, mac_cs_key_len,
-					enc_sc_key_len, enc_sc_block_len, mac_sc_key_len);
+			String hashType = (kxs.ecdhx != null) ? "SHA256" : "SHA1";
+
+			km = KeyMaterial.create(hashType, kxs.H, kxs.K, sessionId, enc_cs_key_len, enc_cs_iv_len, mac_cs_key_len,
+					enc_sc_key_len, enc_sc_iv_len, mac_sc_key_len);
 		}
 		catch (IllegalArgumentException e)
 		{
@@ -289,7 +300,10 @@ public class KexManager
 			cbc = BlockCipherFactory.createCipher(kxs.np.enc_algo_client_to_server, true, km.enc_key_client_to_server,
 					km.initial_iv_client_to_server);
 
-			mac = new MAC(kxs.np.mac_algo_client_to_server, km.integrity_key_client_to_server);
+			if (BlockCipherFactory.isAEAD(kxs.np.enc_algo_client_to_server))
+				mac = null;
+			else
+				mac = new MAC(kxs.np.mac_algo_client_to_server, km.integrity_key_client_to_server);
 
 		}
 		catch (IllegalArgumentException e1)
@@ -317,14 +331,36 @@ public class KexManager
 
 	public static final String[] getDefaultKexAlgorithmList()
 	{
-		return new String[] { "diffie-hellman-group-exchange-sha1", "diffie-hellman-group14-sha1",
+		/* Higher Priority First, the elliptic curves only if the JCA has them */
+
+		String[] ecdh = new String[] { EcdhExchange.CURVE25519, EcdhExchange.CURVE25519_LIBSSH, EcdhExchange.NISTP256 };
+		String[] dh = new String[] { "diffie-hellman-group-exchange-sha1", "diffie-hellman-group14-sha1",
 				"diffie-hellman-group1-sha1" };
+
+		String[] tmp = new String[ecdh.length + dh.length];
+		int count = 0;
+
+		for (int i = 0; i < ecdh.length; i++)
+		{
+			if (EcdhExchange.isAvailable(ecdh[i]))
+				tmp[count++] = ecdh[i];
+		}
+
+		System.arraycopy(dh, 0, tmp, count, dh.length);
+		count += dh.length;
+
+		String[] list = new String[count];
+		System.arraycopy(tmp, 0, list, 0, count);
+		return list;
 	}
 
 	public static final void checkKexAlgorithmList(String[] algos)
 	{
 		for (int i = 0; i < algos.length; i++)
 		{
+			if (EcdhExchange.isAvailable(algos[i]))
+				continue;
+
 			if ("diffie-hellman-group-exchange-sha1".equals(algos[i]))
 				continue;
 
@@ -454,6 +490,17 @@ public class KexManager
 				return;
 			}
 
+			if (EcdhExchange.isAvailable(kxs.np.kex_algo))
+			{
+				kxs.ecdhx = new EcdhExchange();
+				kxs.ecdhx.init(kxs.np.kex_algo, rnd);
+
+				PacketKexECDHInit kp = new PacketKexECDHInit(kxs.ecdhx.getQ_C());
+				tm.sendKexMessage(kp.getPayload());
+				kxs.state = 1;
+				return;
+			}
+
 			throw new IllegalStateException("Unkown KEX method!");
 		}
 
@@ -470,7 +517,10 @@ public class KexManager
 				cbc = BlockCipherFactory.createCipher(kxs.np.enc_algo_server_to_client, false,
 						km.enc_key_server_to_client, km.initial_iv_server_to_client);
 
-				mac = new MAC(kxs.np.mac_algo_server_to_client, km.integrity_key_server_to_client);
+				if (BlockCipherFactory.isAEAD(kxs.np.enc_algo_server_to_client))
+					mac = null;
+				else
+					mac = new MAC(kxs.np.mac_algo_server_to_client, km.integrity_key_server_to_client);
 
 			}
 			catch (IllegalArgumentException e1)
@@ -624,6 +674,56 @@ public class KexManager
 			}
 		}
 
+		if (kxs.ecdhx != null)
+		{
+			if (kxs.state == 1)
+			{
+				PacketKexECDHReply ecdhr = new PacketKexECDHReply(msg, 0, msglen);
+
+				kxs.hostkey = ecdhr.getHostKey();
+
+				if (verifier != null)
+				{
+					boolean vres = false;
+
+					try
+					{
+						vres = verifier.verifyServerHostKey(hostname, port, kxs.np.server_host_key_algo, kxs.hostkey);
+					}
+					catch (Exception e)
+					{
+						throw (IOException) new IOException(
+								"The server hostkey was not accepted by the verifier callback.").initCause(e);
+					}
+
+					if (vres == false)
+						throw new IOException("The server hostkey was not accepted by the verifier callback");
+				}
+
+				try
+				{
+					kxs.ecdhx.setQ_S(ecdhr.getQ_S());
+					kxs.H = kxs.ecdhx.calculateH(csh.getClientString(), csh.getServerString(),
+							kxs.localKEX.getPayload(), kxs.remoteKEX.getPayload(), ecdhr.getHostKey());
+				}
+				catch (IllegalArgumentException e)
+				{
+					throw (IOException) new IOException("KEX error.").initCause(e);
+				}
+
+				boolean res = verifySignature(ecdhr.getSignature(), kxs.hostkey);
+
+				if (res == false)
+					throw new IOException("Hostkey signature sent by remote is wrong!");
+
+				kxs.K = kxs.ecdhx.getK();
+
+				finishKex();
+				kxs.state = -1;
+				return;
+			}
+		}
+
 		throw new IllegalStateException("Unkown KEX method! (" + kxs.np.kex_algo + ")");
 	}
 }
@@ -4,6 +4,7 @@ package ch.ethz.ssh2.transport;
 import ch.ethz.ssh2.DHGexParameters;
 import ch.ethz.ssh2.crypto.dh.DhExchange;
 import ch.ethz.ssh2.crypto.dh.DhGroupExchange;
+import ch.ethz.ssh2.crypto.dh.EcdhExchange;
 import java.math.BigInteger;
 import ch.ethz.ssh2.packets.PacketKexInit;
 
@@ -27,5 +28,6 @@ public class KexState
 	
 	public DhExchange dhx;
 	public DhGroupExchange dhgx;
+	public EcdhExchange ecdhx;
 	public DHGexParameters dhgexParameters;
 }
@@ -0,0 +1,72 @@
+package ch.ethz.ssh2.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * NonBlockingOutputStream writes to a non-blocking channel. The writes block
+ * like the writes to a socket, if the socket buffer is full the writer waits
+ * until the channel is writable again. The selector for this is only opened,
+ * if that ever happens.
+ *
+ * @author Rasto Levrinc
+ */
+class NonBlockingOutputStream extends OutputStream
+{
+	final SocketChannel channel;
+
+	Selector writeSelector = null;
+
+	final byte[] single = new byte[1];
+
+	NonBlockingOutputStream(SocketChannel channel)
+	{
+		this.channel = channel;
+	}
+
+	public void write(int b) throws IOException
+	{
+		single[0] = (byte) b;
+		write(single, 0, 1);
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+
+		while (bb.hasRemaining())
+		{
+			if (channel.write(bb) == 0)
+				waitWritable();
+		}
+	}
+
+	private void waitWritable() throws IOException
+	{
+		if (writeSelector == null)
+		{
+			writeSelector = Selector.open();
+			channel.register(writeSelector, SelectionKey.OP_WRITE);
+		}
+
+		/* Wake up now and then, if the channel was closed meanwhile */
+
+		while (writeSelector.select(1000) == 0)
+		{
+			if (channel.isOpen() == false)
+				throw new IOException("The connection is closed.");
+		}
+
+		writeSelector.selectedKeys().clear();
+	}
+
+	public void close() throws IOException
+	{
+		if (writeSelector != null)
+			writeSelector.close();
+	}
+}
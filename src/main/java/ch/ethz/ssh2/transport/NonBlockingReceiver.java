@@ -0,0 +1,311 @@
+package ch.ethz.ssh2.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import ch.ethz.ssh2.log.Logger;
+
+/**
+ * NonBlockingReceiver replaces the receive thread of a non-blocking
+ * connection. The selector thread appends the received data to the buffer,
+ * a worker thread processes the packets, as long as complete packets are
+ * buffered, so that reading from the buffer never blocks.
+ *
+ * @author Rasto Levrinc
+ */
+class NonBlockingReceiver implements Runnable
+{
+	private static final Logger log = Logger.getLogger(NonBlockingReceiver.class);
+
+	/* Reading is paused above this, it must hold at least one packet */
+
+	static final int MAX_BUFFERED = 2 * TransportConnection.MAX_PACKET_LENGTH;
+
+	static final int INITIAL_BUFFER_SIZE = 4096;
+
+	/* The message buffer is needed only while processing, one per worker */
+
+	private static final ThreadLocal messageBuffer = new ThreadLocal()
+	{
+		protected Object initialValue()
+		{
+			return new byte[TransportConnection.MAX_PACKET_LENGTH];
+		}
+	};
+
+	final TransportManager tm;
+
+	final SocketChannel channel;
+
+	final TransportSelector transportSelector;
+
+	TransportSelector.SelectorThread selectorThread;
+
+	SelectionKey key;
+
+	/* Everything below is protected by "this" */
+
+	byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+	int bufferStart = 0;
+
+	int bufferEnd = 0;
+
+	long receivedCount = 0;
+
+	boolean processing = false;
+
+	boolean paused = false;
+
+	boolean eof = false;
+
+	IOException readError = null;
+
+	boolean shutdown = false;
+
+	final InputStream input = new InputStream()
+	{
+		public int read() throws IOException
+		{
+			synchronized (NonBlockingReceiver.this)
+			{
+				if (bufferStart == bufferEnd)
+					return -1;
+				return buffer[bufferStart++] & 0xff;
+			}
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			synchronized (NonBlockingReceiver.this)
+			{
+				/* Only complete packets are read, running out means EOF */
+
+				if (bufferStart == bufferEnd)
+					return -1;
+
+				int copy = Math.min(len, bufferEnd - bufferStart);
+				System.arraycopy(buffer, bufferStart, b, off, copy);
+				bufferStart += copy;
+				return copy;
+			}
+		}
+
+		public int available()
+		{
+			synchronized (NonBlockingReceiver.this)
+			{
+				return bufferEnd - bufferStart;
+			}
+		}
+	};
+
+	NonBlockingReceiver(TransportManager tm, SocketChannel channel, TransportSelector transportSelector)
+	{
+		this.tm = tm;
+		this.channel = channel;
+		this.transportSelector = transportSelector;
+	}
+
+	InputStream getInputStream()
+	{
+		return input;
+	}
+
+	void start()
+	{
+		transportSelector.register(this);
+	}
+
+	/**
+	 * Called by the selector thread, if the channel is readable.
+	 */
+	void readFrom(SelectionKey key, ByteBuffer readBuffer)
+	{
+		while (true)
+		{
+			int n;
+
+			readBuffer.clear();
+
+			try
+			{
+				n = channel.read(readBuffer);
+			}
+			catch (IOException e)
+			{
+				key.cancel();
+				channelClosed(e);
+				return;
+			}
+
+			if (n == 0)
+				return;
+
+			if (n < 0)
+			{
+				key.cancel();
+				channelClosed(null);
+				return;
+			}
+
+			synchronized (this)
+			{
+				append(readBuffer.array(), n);
+
+				if ((bufferEnd - bufferStart) > MAX_BUFFERED)
+				{
+					/* The packets are not processed fast enough */
+					paused = true;
+					key.interestOps(0);
+				}
+
+				schedule();
+
+				if (paused)
+					return;
+			}
+		}
+	}
+
+	private void append(byte[] data, int len)
+	{
+		if (bufferEnd + len > buffer.length)
+		{
+			int used = bufferEnd - bufferStart;
+			byte[] target = buffer;
+
+			if (used + len > buffer.length)
+			{
+				int size = buffer.length * 2;
+				while (size < used + len)
+					size = size * 2;
+				target = new byte[size];
+			}
+
+			System.arraycopy(buffer, bufferStart, target, 0, used);
+			buffer = target;
+			bufferStart = 0;
+			bufferEnd = used;
+		}
+
+		System.arraycopy(data, 0, buffer, bufferEnd, len);
+		bufferEnd += len;
+		receivedCount += len;
+	}
+
+	/* Must be called with the lock */
+
+	private void schedule()
+	{
+		if (processing)
+			return;
+
+		processing = true;
+		transportSelector.execute(this);
+	}
+
+	synchronized void channelClosed(IOException cause)
+	{
+		eof = true;
+		readError = cause;
+		schedule();
+	}
+
+	/**
+	 * Called, when the connection is closed locally, the handlers are informed
+	 * by the worker.
+	 */
+	synchronized void shutdown()
+	{
+		shutdown = true;
+		schedule();
+	}
+
+	/* After processing, free the memory of big buffers and resume reading */
+
+	private synchronized void processed()
+	{
+		if (bufferStart == bufferEnd)
+		{
+			if (buffer.length > INITIAL_BUFFER_SIZE)
+				buffer = new byte[INITIAL_BUFFER_SIZE];
+			bufferStart = 0;
+			bufferEnd = 0;
+		}
+
+		if (paused && ((bufferEnd - bufferStart) <= MAX_BUFFERED / 2))
+		{
+			paused = false;
+			selectorThread.setReading(this, true);
+		}
+	}
+
+	public void run()
+	{
+		tm.receiveThread = Thread.currentThread();
+
+		try
+		{
+			byte[] msg = (byte[]) messageBuffer.get();
+
+			while (true)
+			{
+				long seen;
+
+				synchronized (this)
+				{
+					if (shutdown)
+						break;
+
+					seen = receivedCount;
+				}
+
+				if (tm.tc.getBytesNeededForNextMessage() == 0)
+				{
+					tm.receiveMessage(msg);
+					processed();
+					continue;
+				}
+
+				synchronized (this)
+				{
+					if (receivedCount != seen)
+						continue;
+
+					if (eof)
+					{
+						if (readError != null)
+							throw readError;
+						throw new IOException("The connection was closed by the remote side.");
+					}
+
+					if (shutdown == false)
+					{
+						/* Waiting for more data, the selector thread schedules us again */
+						processing = false;
+						tm.receiveThread = null;
+						return;
+					}
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			tm.close(e, false);
+
+			if (log.isEnabled())
+				log.log(10, "Receiver: error while receiving: " + e.getMessage());
+		}
+
+		if (log.isEnabled())
+			log.log(50, "Receiver: connection is closed");
+
+		/* "processing" stays set, the worker never runs again */
+
+		tm.shutdownHandlers();
+	}
+}
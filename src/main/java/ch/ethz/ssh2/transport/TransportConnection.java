@@ -9,6 +9,7 @@ import java.security.SecureRandom;
 import ch.ethz.ssh2.crypto.cipher.BlockCipher;
 import ch.ethz.ssh2.crypto.cipher.CipherInputStream;
 import ch.ethz.ssh2.crypto.cipher.CipherOutputStream;
+import ch.ethz.ssh2.crypto.cipher.GCMMode;
 import ch.ethz.ssh2.crypto.cipher.NullCipher;
 import ch.ethz.ssh2.crypto.digest.MAC;
 import ch.ethz.ssh2.log.Logger;
@@ -24,6 +25,12 @@ public class TransportConnection
 {
 	private static final Logger log = Logger.getLogger(TransportConnection.class);
 
+	/**
+	 * Maximum length of received packets. Big enough for channels with the
+	 * maximum packet size of 256 KB, like OpenSSH allows.
+	 */
+	public static final int MAX_PACKET_LENGTH = 256 * 1024 + 1024;
+
 	int send_seq_number = 0;
 
 	int recv_seq_number = 0;
@@ -50,6 +57,24 @@ public class TransportConnection
 
 	int recv_padd_blocksize = 8;
 
+	/* AES-GCM replaces both, the packets are transformed at once */
+
+	GCMMode send_gcm;
+
+	byte[] send_gcm_plain = new byte[0];
+
+	byte[] send_gcm_buffer = new byte[0];
+
+	GCMMode recv_gcm;
+
+	byte[] recv_gcm_buffer = new byte[0];
+
+	byte[] recv_gcm_plain = new byte[0];
+
+	int recv_gcm_packet_length;
+
+	boolean recv_gcm_length_present = false;
+
 	/* won't change */
 
 	final byte[] send_padding_buffer = new byte[256];
@@ -75,6 +100,16 @@ public class TransportConnection
 
 	public void changeRecvCipher(BlockCipher bc, MAC mac)
 	{
+		if (bc instanceof GCMMode)
+		{
+			/* The packet length is not encrypted, GCM is done in receiveMessage() */
+			recv_gcm = (GCMMode) bc;
+			bc = new NullCipher(bc.getBlockSize());
+			mac = null;
+		}
+		else
+			recv_gcm = null;
+
 		cis.changeCipher(bc);
 		recv_mac = mac;
 		recv_mac_buffer = (mac != null) ? new byte[mac.size()] : null;
@@ -93,6 +128,16 @@ public class TransportConnection
 			/* Once we start encrypting, there is no way back */
 		}
 
+		if (bc instanceof GCMMode)
+		{
+			/* The packet length is not encrypted, GCM is done in sendMessage() */
+			send_gcm = (GCMMode) bc;
+			bc = new NullCipher(bc.getBlockSize());
+			mac = null;
+		}
+		else
+			send_gcm = null;
+
 		cos.changeCipher(bc);
 		send_mac = mac;
 		send_mac_buffer = (mac != null) ? new byte[mac.size()] : null;
@@ -114,6 +159,8 @@ public class TransportConnection
 	public int getPacketOverheadEstimate()
 	{
 		// return an estimate for the paket overhead (for send operations)
+		if (send_gcm != null)
+			return 5 + 4 + (send_padd_blocksize - 1) + GCMMode.TAG_LENGTH;
 		return 5 + 4 + (send_padd_blocksize - 1) + send_mac_buffer.length;
 	}
 
@@ -126,7 +173,8 @@ public class TransportConnection
 
 		int packet_len = 5 + len + padd; /* Minimum allowed padding is 4 */
 
-		int slack = packet_len % send_padd_blocksize;
+		/* With GCM the packet length is not part of the padded blocks */
+		int slack = (send_gcm != null) ? (packet_len - 4) % send_padd_blocksize : packet_len % send_padd_blocksize;
 
 		if (slack != 0)
 		{
@@ -174,6 +222,12 @@ public class TransportConnection
 		send_packet_header_buffer[3] = (byte) ((packet_len - 4));
 		send_packet_header_buffer[4] = (byte) padd_len;
 
+		if (send_gcm != null)
+		{
+			sendGCMPacket(message, off, len, packet_len - 4, padd_len);
+			return;
+		}
+
 		cos.write(send_packet_header_buffer, 0, 5);
 		cos.write(message, off, len);
 		cos.write(send_padding_buffer, 0, padd_len);
@@ -199,11 +253,135 @@ public class TransportConnection
 		send_seq_number++;
 	}
 
+	private void sendGCMPacket(byte[] message, int off, int len, int packet_length, int padd_len)
+			throws IOException
+	{
+		if (send_gcm_plain.length < packet_length)
+		{
+			send_gcm_plain = new byte[packet_length];
+			send_gcm_buffer = new byte[4 + packet_length + GCMMode.TAG_LENGTH];
+		}
+
+		send_gcm_plain[0] = send_packet_header_buffer[4];
+		System.arraycopy(message, off, send_gcm_plain, 1, len);
+		System.arraycopy(send_padding_buffer, 0, send_gcm_plain, 1 + len, padd_len);
+		System.arraycopy(send_packet_header_buffer, 0, send_gcm_buffer, 0, 4);
+
+		int n = send_gcm.transformPacket(send_packet_header_buffer, 0, 4, send_gcm_plain, 0, packet_length,
+				send_gcm_buffer, 4);
+
+		cos.writePlain(send_gcm_buffer, 0, 4 + n);
+		cos.flush();
+
+		if (log.isEnabled())
+		{
+			log.log(90, "Sent " + Packets.getMessageName(message[off] & 0xff) + " " + len + " bytes payload");
+		}
+
+		send_seq_number++;
+	}
+
+	/*
+	 * Reads and decrypts the whole GCM packet, so that the padding length
+	 * in the first byte can be placed in recv_packet_header_buffer[4].
+	 */
+	private void receiveGCMPacket() throws IOException
+	{
+		if (recv_gcm_length_present == false)
+			cis.readPlain(recv_packet_header_buffer, 0, 4);
+		recv_gcm_length_present = false;
+
+		int packet_length = ((recv_packet_header_buffer[0] & 0xff) << 24)
+				| ((recv_packet_header_buffer[1] & 0xff) << 16) | ((recv_packet_header_buffer[2] & 0xff) << 8)
+				| ((recv_packet_header_buffer[3] & 0xff));
+
+		if (packet_length > MAX_PACKET_LENGTH || packet_length < 16 || (packet_length % recv_padd_blocksize) != 0)
+			throw new IOException("Illegal packet size! (" + packet_length + ")");
+
+		if (recv_gcm_plain.length < packet_length)
+		{
+			recv_gcm_plain = new byte[packet_length];
+			recv_gcm_buffer = new byte[packet_length + GCMMode.TAG_LENGTH];
+		}
+
+		cis.readPlain(recv_gcm_buffer, 0, packet_length + GCMMode.TAG_LENGTH);
+		recv_gcm.transformPacket(recv_packet_header_buffer, 0, 4, recv_gcm_buffer, 0, packet_length
+				+ GCMMode.TAG_LENGTH, recv_gcm_plain, 0);
+
+		recv_packet_header_buffer[4] = recv_gcm_plain[0];
+		recv_gcm_packet_length = packet_length;
+	}
+
+	/**
+	 * For the non-blocking transport: reads the header of the next packet, as
+	 * soon as it was received, but never more than was received.
+	 * 
+	 * @return number of bytes, that must still be received, before the next
+	 *         message can be received without blocking. 0 if it can be received.
+	 * @throws IOException
+	 */
+	public int getBytesNeededForNextMessage() throws IOException
+	{
+		int avail = cis.available();
+
+		if (recv_gcm != null)
+		{
+			/* peekNextMessageLength() has read the whole packet */
+
+			if (recv_packet_header_present)
+				return 0;
+
+			if (recv_gcm_length_present == false)
+			{
+				if (avail < 4)
+					return 4 - avail;
+
+				cis.readPlain(recv_packet_header_buffer, 0, 4);
+				recv_gcm_length_present = true;
+				avail -= 4;
+			}
+
+			int packet_length = ((recv_packet_header_buffer[0] & 0xff) << 24)
+					| ((recv_packet_header_buffer[1] & 0xff) << 16) | ((recv_packet_header_buffer[2] & 0xff) << 8)
+					| ((recv_packet_header_buffer[3] & 0xff));
+
+			if (packet_length > MAX_PACKET_LENGTH || packet_length < 16)
+				throw new IOException("Illegal packet size! (" + packet_length + ")");
+
+			int need = packet_length + GCMMode.TAG_LENGTH - avail;
+			return (need > 0) ? need : 0;
+		}
+
+		if (recv_packet_header_present == false)
+		{
+			/* The header can be decrypted, once the first block is there */
+
+			if (avail < cis.getBlockSize())
+				return cis.getBlockSize() - avail;
+
+			peekNextMessageLength();
+		}
+
+		int packet_length = ((recv_packet_header_buffer[0] & 0xff) << 24)
+				| ((recv_packet_header_buffer[1] & 0xff) << 16) | ((recv_packet_header_buffer[2] & 0xff) << 8)
+				| ((recv_packet_header_buffer[3] & 0xff));
+
+		/* The rest of the packet after the 5 bytes header and the MAC */
+
+		int rest = packet_length - 1 + ((recv_mac != null) ? recv_mac_buffer.length : 0);
+
+		int need = rest - cis.available();
+		return (need > 0) ? need : 0;
+	}
+
 	public int peekNextMessageLength() throws IOException
 	{
 		if (recv_packet_header_present == false)
 		{
-			cis.read(recv_packet_header_buffer, 0, 5);
+			if (recv_gcm != null)
+				receiveGCMPacket();
+			else
+				cis.read(recv_packet_header_buffer, 0, 5);
 			recv_packet_header_present = true;
 		}
 
@@ -213,7 +391,7 @@ public class TransportConnection
 
 		int padding_length = recv_packet_header_buffer[4] & 0xff;
 
-		if (packet_length > 35000 || packet_length < 12)
+		if (packet_length > MAX_PACKET_LENGTH || packet_length < 12)
 			throw new IOException("Illegal packet size! (" + packet_length + ")");
 
 		int payload_length = packet_length - padding_length - 1;
@@ -228,7 +406,10 @@ public class TransportConnection
 	{
 		if (recv_packet_header_present == false)
 		{
-			cis.read(recv_packet_header_buffer, 0, 5);
+			if (recv_gcm != null)
+				receiveGCMPacket();
+			else
+				cis.read(recv_packet_header_buffer, 0, 5);
 		}
 		else
 			recv_packet_header_present = false;
@@ -239,7 +420,7 @@ public class TransportConnection
 
 		int padding_length = recv_packet_header_buffer[4] & 0xff;
 
-		if (packet_length > 35000 || packet_length < 12)
+		if (packet_length > MAX_PACKET_LENGTH || packet_length < 12)
 			throw new IOException("Illegal packet size! (" + packet_length + ")");
 
 		int payload_length = packet_length - padding_length - 1;
@@ -250,8 +431,15 @@ public class TransportConnection
 		if (payload_length >= len)
 			throw new IOException("Receive buffer too small (" + len + ", need " + payload_length + ")");
 
-		cis.read(buffer, off, payload_length);
-		cis.read(recv_padding_buffer, 0, padding_length);
+		if (recv_gcm != null)
+		{
+			System.arraycopy(recv_gcm_plain, 1, buffer, off, payload_length);
+		}
+		else
+		{
+			cis.read(buffer, off, payload_length);
+			cis.read(recv_padding_buffer, 0, padding_length);
+		}
 
 		if (recv_mac != null)
 		{
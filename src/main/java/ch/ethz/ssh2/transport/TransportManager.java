@@ -8,6 +8,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 import java.security.SecureRandom;
 import java.util.Vector;
 
@@ -125,7 +126,13 @@ import ch.ethz.ssh2.util.Tokenizer;
 
 	String hostname;
 	int port;
-	final Socket sock = new Socket();
+	final Socket sock;
+
+	/* The non-blocking mode replaces the receive thread, see TransportSelector */
+
+	final boolean nonBlocking;
+	NonBlockingReceiver receiver;
+	NonBlockingOutputStream nonBlockingOutput;
 
 	Object connectionSemaphore = new Object();
 
@@ -139,7 +146,7 @@ import ch.ethz.ssh2.util.Tokenizer;
 
 	Vector messageHandlers = new Vector();
 
-	Thread receiveThread;
+	volatile Thread receiveThread;
 
 	Vector connectionMonitors = new Vector();
 	boolean monitorsWereInformed = false;
@@ -206,9 +213,21 @@ import ch.ethz.ssh2.util.Tokenizer;
 	}
 
 	public TransportManager(String host, int port) throws IOException
+	{
+		this(host, port, false);
+	}
+
+	/**
+	 * @param nonBlocking if true, the connection does not need its own receive
+	 *            thread, a few threads receive the messages of all non-blocking
+	 *            connections.
+	 */
+	public TransportManager(String host, int port, boolean nonBlocking) throws IOException
 	{
 		this.hostname = host;
 		this.port = port;
+		this.nonBlocking = nonBlocking;
+		this.sock = nonBlocking ? SocketChannel.open().socket() : new Socket();
 	}
 
 	public int getPacketOverheadEstimate()
@@ -294,10 +313,26 @@ import ch.ethz.ssh2.util.Tokenizer;
 
 				connectionClosed = true;
 				reasonClosedCause = cause; /* may be null */
+
+				if (nonBlockingOutput != null)
+				{
+					try
+					{
+						nonBlockingOutput.close();
+					}
+					catch (IOException ignore)
+					{
+					}
+				}
 			}
 			connectionSemaphore.notifyAll();
 		}
 
+		/* The receive thread learns it from the socket, the receiver from us */
+
+		if (receiver != null)
+			receiver.shutdown();
+
 		/* No check if we need to inform the monitors */
 
 		Vector monitors = null;
@@ -456,6 +491,25 @@ import ch.ethz.ssh2.util.Tokenizer;
 
 		ClientServerHello csh = new ClientServerHello(sock.getInputStream(), sock.getOutputStream());
 
+		if (nonBlocking)
+		{
+			/* Only now, the socket streams cannot be used in the non-blocking mode */
+
+			SocketChannel channel = sock.getChannel();
+			channel.configureBlocking(false);
+
+			nonBlockingOutput = new NonBlockingOutputStream(channel);
+			receiver = new NonBlockingReceiver(this, channel, TransportSelector.getInstance());
+
+			tc = new TransportConnection(receiver.getInputStream(), nonBlockingOutput, rnd);
+
+			km = new KexManager(this, csh, cwl, hostname, port, verifier, rnd);
+			km.initiateKEX(cwl, dhgex);
+
+			receiver.start();
+			return;
+		}
+
 		tc = new TransportConnection(sock.getInputStream(), sock.getOutputStream(), rnd);
 
 		km = new KexManager(this, csh, cwl, hostname, port, verifier, rnd);
@@ -480,30 +534,7 @@ import ch.ethz.ssh2.util.Tokenizer;
 				if (log.isEnabled())
 					log.log(50, "Receive thread: back from receiveLoop");
 
-				/* Tell all handlers that it is time to say goodbye */
-
-				if (km != null)
-				{
-					try
-					{
-						km.handleMessage(null, 0);
-					}
-					catch (IOException e)
-					{
-					}
-				}
-
-				for (int i = 0; i < messageHandlers.size(); i++)
-				{
-					HandlerEntry he = (HandlerEntry) messageHandlers.elementAt(i);
-					try
-					{
-						he.mh.handleMessage(null, 0);
-					}
-					catch (Exception ignore)
-					{
-					}
-				}
+				shutdownHandlers();
 			}
 		});
 
@@ -511,6 +542,34 @@ import ch.ethz.ssh2.util.Tokenizer;
 		receiveThread.start();
 	}
 
+	void shutdownHandlers()
+	{
+		/* Tell all handlers that it is time to say goodbye */
+
+		if (km != null)
+		{
+			try
+			{
+				km.handleMessage(null, 0);
+			}
+			catch (IOException e)
+			{
+			}
+		}
+
+		for (int i = 0; i < messageHandlers.size(); i++)
+		{
+			HandlerEntry he = (HandlerEntry) messageHandlers.elementAt(i);
+			try
+			{
+				he.mh.handleMessage(null, 0);
+			}
+			catch (Exception ignore)
+			{
+			}
+		}
+	}
+
 	public void registerMessageHandler(MessageHandler mh, int low, int high)
 	{
 		HandlerEntry he = new HandlerEntry();
@@ -665,114 +724,120 @@ import ch.ethz.ssh2.util.Tokenizer;
 
 	public void receiveLoop() throws IOException
 	{
-		byte[] msg = new byte[35000];
+		byte[] msg = new byte[TransportConnection.MAX_PACKET_LENGTH];
 
 		while (true)
-		{
-			int msglen = tc.receiveMessage(msg, 0, msg.length);
-
-			int type = msg[0] & 0xff;
-
-			if (type == Packets.SSH_MSG_IGNORE)
-				continue;
-
-			if (type == Packets.SSH_MSG_DEBUG)
-			{
-				if (log.isEnabled())
-				{
-					TypesReader tr = new TypesReader(msg, 0, msglen);
-					tr.readByte();
-					tr.readBoolean();
-					StringBuffer debugMessageBuffer = new StringBuffer();
-					debugMessageBuffer.append(tr.readString("UTF-8"));
-
-					for (int i = 0; i < debugMessageBuffer.length(); i++)
-					{
-						char c = debugMessageBuffer.charAt(i);
+			receiveMessage(msg);
+	}
 
-						if ((c >= 32) && (c <= 126))
-							continue;
-						debugMessageBuffer.setCharAt(i, '\uFFFD');
-					}
+	/**
+	 * Receives and handles one message.
+	 */
+	void receiveMessage(byte[] msg) throws IOException
+	{
+		int msglen = tc.receiveMessage(msg, 0, msg.length);
 
-					log.log(50, "DEBUG Message from remote: '" + debugMessageBuffer.toString() + "'");
-				}
-				continue;
-			}
+		int type = msg[0] & 0xff;
 
-			if (type == Packets.SSH_MSG_UNIMPLEMENTED)
-			{
-				throw new IOException("Peer sent UNIMPLEMENTED message, that should not happen.");
-			}
+		if (type == Packets.SSH_MSG_IGNORE)
+			return;
 
-			if (type == Packets.SSH_MSG_DISCONNECT)
+		if (type == Packets.SSH_MSG_DEBUG)
+		{
+			if (log.isEnabled())
 			{
 				TypesReader tr = new TypesReader(msg, 0, msglen);
 				tr.readByte();
-				int reason_code = tr.readUINT32();
-				StringBuffer reasonBuffer = new StringBuffer();
-				reasonBuffer.append(tr.readString("UTF-8"));
-
-				/*
-				 * Do not get fooled by servers that send abnormal long error
-				 * messages
-				 */
+				tr.readBoolean();
+				StringBuffer debugMessageBuffer = new StringBuffer();
+				debugMessageBuffer.append(tr.readString("UTF-8"));
 
-				if (reasonBuffer.length() > 255)
+				for (int i = 0; i < debugMessageBuffer.length(); i++)
 				{
-					reasonBuffer.setLength(255);
-					reasonBuffer.setCharAt(254, '.');
-					reasonBuffer.setCharAt(253, '.');
-					reasonBuffer.setCharAt(252, '.');
-				}
-
-				/*
-				 * Also, check that the server did not send characters that may
-				 * screw up the receiver -> restrict to reasonable US-ASCII
-				 * subset -> "printable characters" (ASCII 32 - 126). Replace
-				 * all others with 0xFFFD (UNICODE replacement character).
-				 */
-
-				for (int i = 0; i < reasonBuffer.length(); i++)
-				{
-					char c = reasonBuffer.charAt(i);
+					char c = debugMessageBuffer.charAt(i);
 
 					if ((c >= 32) && (c <= 126))
 						continue;
-					reasonBuffer.setCharAt(i, '\uFFFD');
+					debugMessageBuffer.setCharAt(i, '\uFFFD');
 				}
 
-				throw new IOException("Peer sent DISCONNECT message (reason code " + reason_code + "): "
-						+ reasonBuffer.toString());
+				log.log(50, "DEBUG Message from remote: '" + debugMessageBuffer.toString() + "'");
 			}
+			return;
+		}
+
+		if (type == Packets.SSH_MSG_UNIMPLEMENTED)
+		{
+			throw new IOException("Peer sent UNIMPLEMENTED message, that should not happen.");
+		}
+
+		if (type == Packets.SSH_MSG_DISCONNECT)
+		{
+			TypesReader tr = new TypesReader(msg, 0, msglen);
+			tr.readByte();
+			int reason_code = tr.readUINT32();
+			StringBuffer reasonBuffer = new StringBuffer();
+			reasonBuffer.append(tr.readString("UTF-8"));
 
 			/*
-			 * Is it a KEX Packet?
+			 * Do not get fooled by servers that send abnormal long error
+			 * messages
 			 */
 
-			if ((type == Packets.SSH_MSG_KEXINIT) || (type == Packets.SSH_MSG_NEWKEYS)
-					|| ((type >= 30) && (type <= 49)))
+			if (reasonBuffer.length() > 255)
 			{
-				km.handleMessage(msg, msglen);
-				continue;
+				reasonBuffer.setLength(255);
+				reasonBuffer.setCharAt(254, '.');
+				reasonBuffer.setCharAt(253, '.');
+				reasonBuffer.setCharAt(252, '.');
 			}
 
-			MessageHandler mh = null;
+			/*
+			 * Also, check that the server did not send characters that may
+			 * screw up the receiver -> restrict to reasonable US-ASCII
+			 * subset -> "printable characters" (ASCII 32 - 126). Replace
+			 * all others with 0xFFFD (UNICODE replacement character).
+			 */
 
-			for (int i = 0; i < messageHandlers.size(); i++)
+			for (int i = 0; i < reasonBuffer.length(); i++)
 			{
-				HandlerEntry he = (HandlerEntry) messageHandlers.elementAt(i);
-				if ((he.low <= type) && (type <= he.high))
-				{
-					mh = he.mh;
-					break;
-				}
+				char c = reasonBuffer.charAt(i);
+
+				if ((c >= 32) && (c <= 126))
+					continue;
+				reasonBuffer.setCharAt(i, '\uFFFD');
 			}
 
-			if (mh == null)
-				throw new IOException("Unexpected SSH message (type " + type + ")");
+			throw new IOException("Peer sent DISCONNECT message (reason code " + reason_code + "): "
+					+ reasonBuffer.toString());
+		}
+
+		/*
+		 * Is it a KEX Packet?
+		 */
+
+		if ((type == Packets.SSH_MSG_KEXINIT) || (type == Packets.SSH_MSG_NEWKEYS)
+				|| ((type >= 30) && (type <= 49)))
+		{
+			km.handleMessage(msg, msglen);
+			return;
+		}
+
+		MessageHandler mh = null;
 
-			mh.handleMessage(msg, msglen);
+		for (int i = 0; i < messageHandlers.size(); i++)
+		{
+			HandlerEntry he = (HandlerEntry) messageHandlers.elementAt(i);
+			if ((he.low <= type) && (type <= he.high))
+			{
+				mh = he.mh;
+				break;
+			}
 		}
+
+		if (mh == null)
+			throw new IOException("Unexpected SSH message (type " + type + ")");
+
+		mh.handleMessage(msg, msglen);
 	}
 }
@@ -0,0 +1,216 @@
+package ch.ethz.ssh2.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import ch.ethz.ssh2.log.Logger;
+
+/**
+ * TransportSelector drives the non-blocking connections. A few selector
+ * threads read from the sockets of all connections, the received packets are
+ * processed by a pool of worker threads, but only while a connection has
+ * complete packets. So an idle connection needs no thread at all.
+ *
+ * @author Rasto Levrinc
+ */
+@SuppressWarnings({"unchecked"}) class TransportSelector
+{
+	private static final Logger log = Logger.getLogger(TransportSelector.class);
+
+	private static TransportSelector instance = null;
+
+	final SelectorThread[] selectorThreads;
+
+	int nextSelectorThread = 0;
+
+	final ExecutorService workers;
+
+	class SelectorThread extends Thread
+	{
+		final Selector selector;
+
+		final Vector pendingTasks = new Vector();
+
+		/* Shared by all connections of this selector, the data is copied */
+
+		final ByteBuffer readBuffer = ByteBuffer.allocate(32 * 1024);
+
+		SelectorThread(int number) throws IOException
+		{
+			super("ganymed-selector-" + number);
+			selector = Selector.open();
+			setDaemon(true);
+		}
+
+		/**
+		 * The keys may only be changed in this thread, otherwise the
+		 * caller would block during select().
+		 */
+		void invokeLater(Runnable task)
+		{
+			synchronized (pendingTasks)
+			{
+				pendingTasks.addElement(task);
+			}
+			selector.wakeup();
+		}
+
+		void register(final NonBlockingReceiver receiver)
+		{
+			invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						receiver.key = receiver.channel.register(selector, SelectionKey.OP_READ, receiver);
+					}
+					catch (ClosedChannelException e)
+					{
+						receiver.channelClosed(e);
+					}
+				}
+			});
+		}
+
+		void setReading(final NonBlockingReceiver receiver, final boolean reading)
+		{
+			invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					SelectionKey key = receiver.key;
+
+					if ((key != null) && key.isValid())
+						key.interestOps(reading ? SelectionKey.OP_READ : 0);
+				}
+			});
+		}
+
+		private void runPendingTasks()
+		{
+			while (true)
+			{
+				Runnable task;
+
+				synchronized (pendingTasks)
+				{
+					if (pendingTasks.size() == 0)
+						return;
+					task = (Runnable) pendingTasks.remove(0);
+				}
+
+				try
+				{
+					task.run();
+				}
+				catch (CancelledKeyException ignore)
+				{
+				}
+			}
+		}
+
+		public void run()
+		{
+			while (true)
+			{
+				try
+				{
+					selector.select();
+
+					runPendingTasks();
+
+					Iterator it = selector.selectedKeys().iterator();
+
+					while (it.hasNext())
+					{
+						SelectionKey key = (SelectionKey) it.next();
+						it.remove();
+
+						try
+						{
+							if (key.isValid() && key.isReadable())
+								((NonBlockingReceiver) key.attachment()).readFrom(key, readBuffer);
+						}
+						catch (CancelledKeyException ignore)
+						{
+						}
+					}
+				}
+				catch (IOException e)
+				{
+					if (log.isEnabled())
+						log.log(10, "Selector thread: select failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the selector of all non-blocking connections, it is created with
+	 *         the first connection.
+	 * @throws IOException
+	 */
+	public static synchronized TransportSelector getInstance() throws IOException
+	{
+		if (instance == null)
+			instance = new TransportSelector(Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+		return instance;
+	}
+
+	TransportSelector(int threads) throws IOException
+	{
+		selectorThreads = new SelectorThread[threads];
+
+		for (int i = 0; i < threads; i++)
+		{
+			selectorThreads[i] = new SelectorThread(i);
+			selectorThreads[i].start();
+		}
+
+		workers = Executors.newCachedThreadPool(new ThreadFactory()
+		{
+			int number = 0;
+
+			public synchronized Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "ganymed-receiver-" + (number++));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Starts to read from the channel of the receiver, the connections are
+	 * distributed round robin to the selector threads.
+	 */
+	void register(NonBlockingReceiver receiver)
+	{
+		SelectorThread st;
+
+		synchronized (this)
+		{
+			st = selectorThreads[nextSelectorThread];
+			nextSelectorThread = (nextSelectorThread + 1) % selectorThreads.length;
+		}
+
+		receiver.selectorThread = st;
+		st.register(receiver);
+	}
+
+	void execute(Runnable task)
+	{
+		workers.execute(task);
+	}
+}
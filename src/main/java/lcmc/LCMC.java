@@ -33,6 +33,8 @@ import lcmc.gui.ProgressIndicatorPanel;
 import lcmc.data.ConfigData;
 import lcmc.data.HostOptions;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.RoboTest;
 import lcmc.configs.AppDefaults;
 
@@ -144,6 +146,16 @@ public final class LCMC extends JPanel {
     private static final String ONE_HOST_CLUSTER_OP = "one-host-cluster";
     /** The --no-passphrase. */
     private static final String NO_PASSPHRASE = "no-passphrase";
+    /** The --cib-diff option. */
+    private static final String CIB_DIFF_OP = "cib-diff";
+    /** The --cib-dom option. */
+    private static final String CIB_DOM_OP = "cib-dom";
+    /** The --no-ra-cache option. */
+    private static final String NO_RA_CACHE_OP = "no-ra-cache";
+    /** The --stack-traces option. */
+    private static final String STACK_TRACES_OP = "stack-traces";
+    /** The --daemon option. */
+    private static final String DAEMON_OP = "daemon";
 
     /**
      * Private constructor.
@@ -246,7 +258,7 @@ public final class LCMC extends JPanel {
 
     /** Cleanup before closing. */
     public static void cleanupBeforeClosing() {
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 // TODO: don't try to reconnect when exiting
@@ -261,7 +273,6 @@ public final class LCMC extends JPanel {
                 System.exit(5);
             }
         });
-        t.start();
         Tools.getGUIData().getMainFrame().setVisible(false);
         final String saveFile = Tools.getConfigData().getSaveFile();
         Tools.save(saveFile, false);
@@ -373,7 +384,7 @@ public final class LCMC extends JPanel {
         options.addOption(null,
                           VNC_PORT_OFFSET_OP,
                           true,
-                          "offset for port forwarding");
+                          "ignored, vnc is connected through ssh channels");
         options.addOption(null,
                           SLOW_OP,
                           false,
@@ -444,6 +455,27 @@ public final class LCMC extends JPanel {
                           NO_PASSPHRASE,
                           false,
                           "try no passphrase first");
+        options.addOption(null,
+                          CIB_DIFF_OP,
+                          false,
+                          "get only cib changes after the first cib query");
+        options.addOption(null,
+                          CIB_DOM_OP,
+                          false,
+                          "parse the cib query into the DOM tree");
+        options.addOption(null,
+                          NO_RA_CACHE_OP,
+                          false,
+                          "don't cache resource agent meta-data on disk");
+        options.addOption(null,
+                          STACK_TRACES_OP,
+                          false,
+                          "capture stack traces for delayed GUI errors");
+        options.addOption(null,
+                          DAEMON_OP,
+                          true,
+                          "run without the GUI and serve the status of the"
+                          + " saved clusters as JSON on the local <arg> port");
         final CommandLineParser parser = new PosixParser();
         String autoArgs = null;
         try {
@@ -498,6 +530,22 @@ public final class LCMC extends JPanel {
             Tools.getConfigData().setOneHostCluster(
                                            cmd.hasOption(ONE_HOST_CLUSTER_OP));
             Tools.getConfigData().setNoPassphrase(cmd.hasOption(NO_PASSPHRASE));
+            Tools.getConfigData().setCibDiff(cmd.hasOption(CIB_DIFF_OP));
+            Tools.getConfigData().setCibDom(cmd.hasOption(CIB_DOM_OP));
+            Tools.getConfigData().setRACache(!cmd.hasOption(NO_RA_CACHE_OP));
+            Tools.getConfigData().setStackTraces(
+                                               cmd.hasOption(STACK_TRACES_OP));
+            if (cmd.hasOption(DAEMON_OP)) {
+                final String daemonPort = cmd.getOptionValue(DAEMON_OP);
+                if (daemonPort == null || !Tools.isNumber(daemonPort)) {
+                    throw new ParseException(
+                                  "cannot parse daemon port: " + daemonPort);
+                }
+                Tools.getConfigData().setDaemonPort(
+                                                Integer.parseInt(daemonPort));
+                /* there is nobody to enter the passphrase */
+                Tools.getConfigData().setNoPassphrase(true);
+            }
             final String pwd = System.getProperty("user.home");
             final String scaleOp = cmd.getOptionValue(SCALE_OP, "100");
             try {
@@ -557,12 +605,11 @@ public final class LCMC extends JPanel {
                  * robot tests. */
                 RoboTest.restoreMouse();
             }
-            final String vncPortOffsetString =
-                                        cmd.getOptionValue(VNC_PORT_OFFSET_OP);
-            if (vncPortOffsetString != null
-                && Tools.isNumber(vncPortOffsetString)) {
-                Tools.getConfigData().setVncPortOffset(
-                                        Integer.parseInt(vncPortOffsetString));
+            if (cmd.hasOption(VNC_PORT_OFFSET_OP)) {
+                /* there are no local ports, vnc uses direct-tcpip channels */
+                Tools.appWarning("--" + VNC_PORT_OFFSET_OP
+                                 + " is ignored, vnc is connected through"
+                                 + " ssh channels");
             }
             Tools.getConfigData().setAnimFPS(fps);
             if (cmd.hasOption(CLUSTER_OP) || cmd.hasOption(HOST_OP)) {
@@ -683,6 +730,11 @@ public final class LCMC extends JPanel {
     /** The main function for starting the application. */
     public static void main(final String[] args) {
         Tools.init();
+        final String autoArgs = initApp(args);
+        if (Tools.getConfigData().isDaemon()) {
+            new StatusDaemon(Tools.getConfigData().getDaemonPort()).start();
+            return;
+        }
         final JFrame mainFrame = new JFrame(
                Tools.getString("DrbdMC.Title") + " " + Tools.getRelease());
         final List<Image> il = new ArrayList<Image>();
@@ -694,7 +746,6 @@ public final class LCMC extends JPanel {
             il.add(Tools.createImageIcon(Tools.getDefault(iconS)).getImage());
         }
         mainFrame.setIconImages(il);
-        final String autoArgs = initApp(args);
         mainFrame.setGlassPane(getMainGlassPane());
         mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         mainFrame.addWindowListener(new ExitListener());
@@ -0,0 +1,199 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc;
+
+import lcmc.data.Cluster;
+import lcmc.data.ClusterMonitor;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
+import lcmc.utilities.Tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class runs LCMC without the gui. It connects to the clusters from the
+ * saved config, runs their status with ClusterMonitor objects and serves
+ * the status of all clusters as JSON over HTTP on the local interface, e.g.
+ * "curl http://localhost:port/status".
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class StatusDaemon {
+    /** The path, where the status is served. */
+    private static final String STATUS_PATH = "/status";
+    /** How long to wait for the request in milliseconds. */
+    private static final int READ_TIMEOUT = 10000;
+    /** Encoding of the response. */
+    private static final String ENCODING = "UTF-8";
+    /** Port on the local interface. */
+    private final int port;
+    /** Monitors of the clusters. */
+    private final List<ClusterMonitor> monitors =
+                                             new ArrayList<ClusterMonitor>();
+
+    /** Prepares a new <code>StatusDaemon</code> object. */
+    public StatusDaemon(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Loads the clusters from the saved config, starts their status and
+     * serves it, till the daemon is killed.
+     */
+    public void start() {
+        final String saveFile = Tools.getConfigData().getSaveFile();
+        String xml = Tools.loadFile(saveFile, false);
+        if (xml == null) {
+            xml = Tools.loadFile(Tools.getConfigData().getSaveFileOld(), false);
+        }
+        if (xml == null) {
+            System.out.println("ERROR: could not load: " + saveFile);
+            System.exit(3);
+        }
+        Tools.loadXML(xml);
+        final Set<Cluster> clusters =
+                        Tools.getConfigData().getClusters().getClusterSet();
+        if (clusters != null) {
+            for (final Cluster cluster : clusters) {
+                if (cluster.getHosts().isEmpty()) {
+                    continue;
+                }
+                final ClusterMonitor monitor = new ClusterMonitor(cluster);
+                monitors.add(monitor);
+                monitor.start();
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (final ClusterMonitor monitor : monitors) {
+                    monitor.stop();
+                }
+            }
+        }));
+        ServerSocket serverSocket = null;
+        try {
+            serverSocket = new ServerSocket(port,
+                                            0,
+                                            InetAddress.getByName(null));
+        } catch (final IOException e) {
+            System.out.println("ERROR: could not listen on port " + port
+                               + ": " + e.getMessage());
+            System.exit(3);
+        }
+        Tools.info("status daemon listening on port " + port);
+        while (true) {
+            try {
+                final Socket socket = serverSocket.accept();
+                TaskExecutor.execute(Pool.IO, new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (final IOException e) {
+                Tools.appWarning("status daemon: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Returns the status of all clusters as JSON. */
+    String getStatus() {
+        final StringBuilder json = new StringBuilder(4096);
+        json.append("{\"clusters\":[");
+        boolean first = true;
+        for (final ClusterMonitor monitor : monitors) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            monitor.appendJSON(json);
+        }
+        json.append("]}\n");
+        return json.toString();
+    }
+
+    /**
+     * Answers one HTTP request. Only "GET /status" is served, the headers
+     * are ignored.
+     */
+    private void serve(final Socket socket) {
+        try {
+            socket.setSoTimeout(READ_TIMEOUT);
+            final BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), ENCODING));
+            final String request = in.readLine();
+            String line = request;
+            while (line != null && !"".equals(line)) {
+                line = in.readLine();
+            }
+            String[] req = new String[0];
+            if (request != null) {
+                req = request.split(" ");
+            }
+            final OutputStream out = socket.getOutputStream();
+            if (req.length < 2 || !"GET".equals(req[0])) {
+                writeResponse(out, "405 Method Not Allowed", "");
+            } else if (STATUS_PATH.equals(req[1]) || "/".equals(req[1])) {
+                writeResponse(out, "200 OK", getStatus());
+            } else {
+                writeResponse(out, "404 Not Found", "");
+            }
+            out.flush();
+        } catch (final IOException e) {
+            Tools.debug(this, "status request failed: " + e.getMessage(), 1);
+        } finally {
+            try {
+                socket.close();
+            } catch (final IOException e) {
+                Tools.debug(this, "could not close: " + e.getMessage(), 1);
+            }
+        }
+    }
+
+    /** Writes the HTTP response. */
+    private void writeResponse(final OutputStream out,
+                               final String status,
+                               final String body)
+    throws IOException {
+        final byte[] content = body.getBytes(ENCODING);
+        final StringBuilder header = new StringBuilder(128);
+        header.append("HTTP/1.0 ").append(status).append("\r\n");
+        header.append("Content-Type: application/json; charset=")
+              .append(ENCODING).append("\r\n");
+        header.append("Content-Length: ").append(content.length)
+              .append("\r\n");
+        header.append("Connection: close\r\n\r\n");
+        out.write(header.toString().getBytes(ENCODING));
+        out.write(content);
+    }
+}
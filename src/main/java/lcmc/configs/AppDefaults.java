@@ -105,6 +105,8 @@ public final class AppDefaults extends java.util.ListResourceBundle {
         {"Browser.InfoPanelMinimalWidth",        440},
         {"Browser.LabelFieldHeight",             25},
         {"Browser.FieldHeight",                  30},
+        {"GUI.RefreshRate",                      20}, /* per second */
+        {"Browser.MaxInfoPanels",                30},
 
         {"Dialog.DrbdConfig.Resource.LabelWidth", 150},
         {"Dialog.DrbdConfig.Resource.FieldWidth", 150},
@@ -122,6 +124,9 @@ public final class AppDefaults extends java.util.ListResourceBundle {
         {"MainMenu.DrbdGuiFiles.Old",       System.getProperty("user.home")
                                                 + "/"
                                                 + "drbd-gui.drbdg"},
+        {"CRMXML.MetaDataCacheDir",         System.getProperty("user.home")
+                                                + "/"
+                                                + ".lcmc/ra-cache"},
 
         /*
          * Colors
@@ -412,8 +417,15 @@ public final class AppDefaults extends java.util.ListResourceBundle {
         {"SSH.Port",                 "22"},
         {"SSH.ConnectTimeout",       30000}, /* milliseconds, 0 no timeout */
         {"SSH.KexTimeout",           0}, /* milliseconds, 0 no timeout */
+        {"SSH.SessionWindowSize",    262144},  /* bytes */
+        {"SSH.ForwardedWindowSize",  2097152}, /* bytes, scp and tunnels */
+        {"SSH.MaxPacketSize",        33976},   /* bytes */
         {"SSH.Command.Timeout.Long", 0},     /* milliseconds, 0 no timeout */
         {"SSH.Command.Timeout",      180000}, /* milliseconds */
+        {"SSH.CommandShells",        3}, /* per host, 0 not to use them */
+        {"SSH.Sftp.MinSize",         32768}, /* bytes, 0 not to use sftp */
+        {"SSH.Sftp.Requests",        16},    /* in flight */
+        {"SSH.NonBlocking",          0}, /* 1 to share the receive threads */
         {"ProgressBar.Sleep",        100},   /* milliseconds */
         {"ProgressBar.Delay",        50},    /* milliseconds */
 
@@ -168,13 +168,12 @@ public final class DistResource extends java.util.ListResourceBundle {
         {"installGuiHelper", "installGuiHelper"}, // is treated specially by ssh class.
 
         {"GetHostAllInfo", SUDO + "@GUI-HELPER@ all"},
-        {"HostHWInfoDaemon", SUDO + "@GUI-HELPER@ hw-info-daemon"},
+        {"HostStatusStream",
+         SUDO + "@GUI-HELPER@ status-stream framed hw drbd ping"},
         {"GetHostHWInfo", SUDO + "@GUI-HELPER@ hw-info"},
         {"GetHostHWInfoLazy", "nice -n 19 " + SUDO + "@GUI-HELPER@ hw-info-lazy"},
         {"GetNetInfo",  SUDO + "@GUI-HELPER@ get-net-info"},
 
-        {"PingCommand", "while true; do echo; sleep 5; done"},
-
         /* heartbeat crm commands */
         {"CRM.cleanupResource", SUDO + "/usr/sbin/crm_resource -C -r @ID@ -H @HOST@"},
 
@@ -221,12 +220,24 @@ public final class DistResource extends java.util.ListResourceBundle {
         {"Heartbeat.getOCFParameters",
          SUDO + "@GUI-HELPER@ get-resource-agents;"},
 
+        {"Heartbeat.getOCFChecksums",
+         SUDO + "@GUI-HELPER@ get-resource-agents checksums;"},
+
+        {"Heartbeat.getOCFParametersList",
+         SUDO + "@GUI-HELPER@ get-resource-agents list @AGENTS@;"},
+
         /* vmxpath env is needed so that vmware meta-data does not hang */
         {"Heartbeat.getClusterMetadata",
          SUDO + "@GUI-HELPER@ get-cluster-metadata"},
 
         {"Heartbeat.getClStatus",
-         SUDO + "@GUI-HELPER@ get-cluster-events"},
+         SUDO + "@GUI-HELPER@ get-cluster-events framed"},
+
+        {"Heartbeat.getClStatusDiff",
+         SUDO + "@GUI-HELPER@ get-cluster-events diff framed"},
+
+        {"Heartbeat.getClusterInfo",
+         SUDO + "@GUI-HELPER@ get-cluster-info"},
 
         {"Heartbeat.startHeartbeat",
          SUDO + "/etc/init.d/heartbeat start"},
@@ -354,9 +365,6 @@ public final class DistResource extends java.util.ListResourceBundle {
         {"DRBD.verify",
          "echo|" + SUDO + "/sbin/drbdadm @DRYRUN@ verify @RES-VOL@"},
 
-        {"DRBD.getDrbdStatus",
-         SUDO + "@GUI-HELPER@ get-drbd-events"},
-
         {"DRBD.proxyUp",
          SUDO + "/sbin/drbdadm @DRYRUN@ proxy-up @RES-VOL@"},
 
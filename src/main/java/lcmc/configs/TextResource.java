@@ -1669,6 +1669,9 @@ public final class TextResource extends java.util.ListResourceBundle {
         {"ClusterBrowser.ClusterStatusFailed",
          "Pacemaker status not available"},
 
+        {"ClusterBrowser.FullCibQueryFailed",
+         "Could not get the CIB, the cluster status may be out of date"},
+
         {"ServicesInfo.AddConstraintPlaceholderAnd",
           "Add Constraint Placeholder (AND)"},
 
@@ -2594,6 +2597,9 @@ public final class TextResource extends java.util.ListResourceBundle {
         {"PcmkMultiSelectionInfo.Selection",
          "<h3>Selection:</h3>"},
 
+        {"PcmkMultiSelectionInfo.BatchFailed",
+         "changing of the selected items failed"},
+
         {"PcmkMultiSelectionInfo.StopSelectedResources",
          "Stop Selected Services"},
 
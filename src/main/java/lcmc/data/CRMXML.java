@@ -23,6 +23,8 @@
 package lcmc.data;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ConvertCmdCallback;
 import lcmc.utilities.SSH;
 import lcmc.utilities.CRM;
@@ -211,7 +213,7 @@ public final class CRMXML extends XML {
     /** Time parameter type. */
     private static final String PARAM_TYPE_TIME = "time";
     /** Fail count prefix. */
-    private static final String FAIL_COUNT_PREFIX = "fail-count-";
+    static final String FAIL_COUNT_PREFIX = "fail-count-";
     /** Attribute roles. */
     private static final String[] ATTRIBUTE_ROLES = {null,
                                                      "Stopped",
@@ -283,7 +285,7 @@ public final class CRMXML extends XML {
     /** Name of the multiple-timeout meta attribute. */
     private static final String MULTIPLE_ACTIVE_META_ATTR = "multiple-active";
     /** Name of the target-role meta attribute. */
-    private static final String TARGET_ROLE_META_ATTR = "target-role";
+    static final String TARGET_ROLE_META_ATTR = "target-role";
     /** Name of the is-managed meta attribute. */
     private static final String IS_MANAGED_META_ATTR = "is-managed";
     /** Name of the allow-migrate meta attribute. */
@@ -902,9 +904,20 @@ public final class CRMXML extends XML {
         initOCFMetaDataQuick();
         initOCFMetaDataConfigured();
         Tools.debug(this, "cluster loaded", 0);
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             public void run() {
-                initOCFMetaDataAll();
+                /* the checksums and the cache may be slow, the connect
+                 * doesn't wait for them */
+                final ResourceAgentCache raCache = initOCFMetaDataCached();
+                if (raCache == null) {
+                    initOCFMetaDataAll();
+                } else {
+                    initOCFMetaDataChanged(raCache);
+                }
+                if (ssi == null) {
+                    /* without the gui, e.g. in benchmarks */
+                    return;
+                }
                 final String hn = host.getName();
                 final String text =
                                 Tools.getString("CRMXML.GetRAMetaData.Done");
@@ -921,7 +934,6 @@ public final class CRMXML extends XML {
                 Tools.debug(this, "RAs loaded", 0);
             }
         });
-        t.start();
     }
 
     /** Initialize resource agents WITHOUT their meta data. */
@@ -1027,6 +1039,33 @@ public final class CRMXML extends XML {
         linbitDrbdPresent = linbitDrbdPresent0;
     }
 
+    /**
+     * Initialize resource agents with their meta data from the disk cache,
+     * the ones that did not change on the host. Returns null, if the cache
+     * is disabled or the helper cannot print the checksums.
+     */
+    private ResourceAgentCache initOCFMetaDataCached() {
+        if (!Tools.getConfigData().isRACache()) {
+            return null;
+        }
+        final SSH.SSHOutput ret = Tools.execCommand(
+                            host,
+                            host.getDistCommand("Heartbeat.getOCFChecksums",
+                                                (ConvertCmdCallback) null),
+                            null,  /* ExecCallback */
+                            false, /* outputVisible */
+                            60000);
+        if (ret.getExitCode() != 0 || ret.getOutput() == null) {
+            return null;
+        }
+        final ResourceAgentCache raCache = new ResourceAgentCache(host);
+        raCache.load(ret.getOutput());
+        raCache.parseMetaData(this);
+        Tools.debug(this, "RAs changed: "
+                          + raCache.getChangedAgents().size(), 1);
+        return raCache;
+    }
+
     /**
      * Initialize resource agents with their meta data, the configured ones.
      * For faster start up.
@@ -1034,17 +1073,49 @@ public final class CRMXML extends XML {
     private void initOCFMetaDataConfigured() {
         initOCFMetaData(
                     host.getDistCommand("Heartbeat.getOCFParametersConfigured",
-                                        (ConvertCmdCallback) null));
+                                        (ConvertCmdCallback) null),
+                    null);
     }
 
     /** Initialize resource agents with their meta data. */
     private void initOCFMetaDataAll() {
         initOCFMetaData(host.getDistCommand("Heartbeat.getOCFParameters",
-                                            (ConvertCmdCallback) null));
+                                            (ConvertCmdCallback) null),
+                        null);
     }
 
-    /** Initialize resource agents with their meta data. */
-    private void initOCFMetaData(final String command) {
+    /**
+     * Initialize resource agents, that are not in the cache, with their meta
+     * data and save them in the cache.
+     */
+    private void initOCFMetaDataChanged(final ResourceAgentCache raCache) {
+        final StringBuilder agents = new StringBuilder(100);
+        for (final String key : raCache.getChangedAgents()) {
+            if (key.indexOf('\'') >= 0) {
+                continue;
+            }
+            agents.append(" '");
+            agents.append(key);
+            agents.append('\'');
+        }
+        if (agents.length() > 0) {
+            final Map<String, String> replaceHash =
+                                            new HashMap<String, String>();
+            replaceHash.put("@AGENTS@", agents.toString());
+            initOCFMetaData(
+                    host.getDistCommand("Heartbeat.getOCFParametersList",
+                                        replaceHash),
+                    raCache);
+        }
+        raCache.save();
+    }
+
+    /**
+     * Initialize resource agents with their meta data. The agents, that
+     * start with a "key:" line, are put in the cache, if it is not null.
+     */
+    private void initOCFMetaData(final String command,
+                                 final ResourceAgentCache raCache) {
         final SSH.SSHOutput ret = Tools.execCommand(host,
                                                     command,
                                                     null,  /* ExecCallback */
@@ -1062,7 +1133,9 @@ public final class CRMXML extends XML {
         final Pattern mp = Pattern.compile("^master:\\s*(.*?)\\s*$");
         final Pattern bp = Pattern.compile("<resource-agent.*\\s+name=\"(.*?)\".*");
         final Pattern ep = Pattern.compile("</resource-agent>");
+        final Pattern kp = Pattern.compile("^key:\\s*(.*?)\\s*$");
         final StringBuilder xml = new StringBuilder("");
+        String key = null;
         String provider = null;
         String serviceName = null;
         boolean masterSlave = false; /* is probably m/s ...*/
@@ -1072,6 +1145,11 @@ public final class CRMXML extends XML {
              ...
             </resource-agent>
             */
+            final Matcher km = kp.matcher(lines[i]);
+            if (km.matches()) {
+                key = km.group(1);
+                continue;
+            }
             final Matcher pm = pp.matcher(lines[i]);
             if (pm.matches()) {
                 provider = pm.group(1);
@@ -1099,6 +1177,14 @@ public final class CRMXML extends XML {
                                   provider,
                                   xml.toString(),
                                   masterSlave);
+                    if (raCache != null && key != null && !"".equals(key)) {
+                        raCache.put(key,
+                                    serviceName,
+                                    provider,
+                                    xml.toString(),
+                                    masterSlave);
+                    }
+                    key = null;
                     serviceName = null;
                     xml.delete(0, xml.length());
                 }
@@ -2865,14 +2951,29 @@ public final class CRMXML extends XML {
         }
     }
 
-    /** Returns CibQuery object with information from the cib node. */
+    /**
+     * Returns CibQuery object with information from the cib node. The query
+     * is streamed, unless the DOM parser was selected.
+     */
     CibQuery parseCibQuery(final String query) {
+        if (!Tools.getConfigData().isCibDom()) {
+            final CibQuery cibQuery =
+                                new CibQueryParser(this, host).parse(query);
+            if (cibQuery != null) {
+                return cibQuery;
+            }
+        }
         final Document document = getXMLDocument(query);
-        final CibQuery cibQueryData = new CibQuery();
         if (document == null) {
             Tools.appWarning("cib error: " + query);
-            return cibQueryData;
+            return new CibQuery();
         }
+        return parseCibQuery(document);
+    }
+
+    /** Returns CibQuery object with information from the cib document. */
+    CibQuery parseCibQuery(final Document document) {
+        final CibQuery cibQueryData = new CibQuery();
         /* get root <pacemaker> */
         final Node pcmkNode = getChildNode(document, "pcmk");
         if (pcmkNode == null) {
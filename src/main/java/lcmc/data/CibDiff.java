@@ -0,0 +1,323 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import lcmc.utilities.Tools;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * This class applies the cib patchsets, that crm_diff produces on the host,
+ * to the cib document, that was kept from the last full cib query.
+ * Both, the old "diff-removed/diff-added" and the "format 2" patchsets are
+ * supported.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+final class CibDiff extends XML {
+    /** Version attributes of the cib node. */
+    private static final String[] VERSION_ATTRS = {"admin_epoch",
+                                                   "epoch",
+                                                   "num_updates"};
+    /** Marker of removed or added subtrees in the old patchsets. */
+    private static final String DIFF_MARKER = "__crm_diff_marker__";
+
+    /**
+     * Applies the <cibdiff> patchset and the <fenced> nodes from the diff
+     * document to the <pcmk> document. Returns false if the cib in the
+     * document does not have the source version of the patchset or does not
+     * have the target version after the patchset was applied. The document
+     * must be thrown away and the full cib query done in this case.
+     */
+    boolean apply(final Document document, final Document diffDocument) {
+        final Node pcmkNode = getChildNode(document, "pcmk");
+        final Node diffPcmkNode = getChildNode(diffDocument, "pcmk");
+        if (pcmkNode == null || diffPcmkNode == null) {
+            return false;
+        }
+        final Node cibNode = getChildNode(pcmkNode, "cib");
+        final Node cibDiffNode = getChildNode(diffPcmkNode, "cibdiff");
+        if (cibNode == null || cibDiffNode == null) {
+            return false;
+        }
+        final String source = getAttribute(cibDiffNode, "source");
+        final String target = getAttribute(cibDiffNode, "target");
+        if (source == null || !source.equals(getVersion(cibNode))) {
+            Tools.debug(this, "cib diff source: " + source
+                              + ", cib: " + getVersion(cibNode), 1);
+            return false;
+        }
+        final Node diffNode = getChildNode(cibDiffNode, "diff");
+        if (diffNode == null) {
+            return false;
+        }
+        boolean ret;
+        if ("2".equals(getAttribute(diffNode, "format"))) {
+            ret = applyV2(document, diffNode);
+        } else {
+            ret = applyV1(pcmkNode, cibNode, diffNode);
+        }
+        final Node newCibNode = getChildNode(pcmkNode, "cib");
+        if (!ret
+            || newCibNode == null
+            || !target.equals(getVersion(newCibNode))) {
+            Tools.debug(this, "cib diff target: " + target, 1);
+            return false;
+        }
+        /* fenced nodes are not part of the cib */
+        final Node fencedNode = getChildNode(pcmkNode, "fenced");
+        if (fencedNode != null) {
+            pcmkNode.removeChild(fencedNode);
+        }
+        final Node newFencedNode = getChildNode(diffPcmkNode, "fenced");
+        if (newFencedNode != null) {
+            pcmkNode.insertBefore(document.importNode(newFencedNode, true),
+                                  pcmkNode.getFirstChild());
+        }
+        return true;
+    }
+
+    /** Returns "admin_epoch.epoch.num_updates" version of the cib node. */
+    private String getVersion(final Node cibNode) {
+        final StringBuilder version = new StringBuilder(20);
+        for (final String attr : VERSION_ATTRS) {
+            if (version.length() > 0) {
+                version.append('.');
+            }
+            final String value = getAttribute(cibNode, attr);
+            if (value == null) {
+                version.append('0');
+            } else {
+                version.append(value);
+            }
+        }
+        return version.toString();
+    }
+
+    /**
+     * Applies the diff-removed and diff-added sections, like pacemaker before
+     * 1.1.12 did.
+     */
+    private boolean applyV1(final Node pcmkNode,
+                            final Node cibNode,
+                            final Node diffNode) {
+        final Node removedNode = getChildNode(diffNode, "diff-removed");
+        if (removedNode != null) {
+            for (final Node removed : getElements(removedNode)) {
+                if (!"cib".equals(removed.getNodeName())) {
+                    return false;
+                }
+                subtract(cibNode, removed);
+            }
+        }
+        final Node addedNode = getChildNode(diffNode, "diff-added");
+        if (addedNode != null) {
+            for (final Node added : getElements(addedNode)) {
+                if (!"cib".equals(added.getNodeName())) {
+                    return false;
+                }
+                add(pcmkNode, getChildNode(pcmkNode, "cib"), added);
+            }
+        }
+        return true;
+    }
+
+    /** Removes the attributes and subtrees that are in the removed node. */
+    private void subtract(final Node target, final Node removed) {
+        if (isMarked(removed)) {
+            target.getParentNode().removeChild(target);
+            return;
+        }
+        final NamedNodeMap attrs = removed.getAttributes();
+        for (int i = 0; i < attrs.getLength(); i++) {
+            final String name = attrs.item(i).getNodeName();
+            if (!"id".equals(name) && !DIFF_MARKER.equals(name)) {
+                ((Element) target).removeAttribute(name);
+            }
+        }
+        for (final Node removedChild : getElements(removed)) {
+            final Node targetChild = findEntity(target, removedChild);
+            if (targetChild != null) {
+                subtract(targetChild, removedChild);
+            }
+        }
+    }
+
+    /** Adds the attributes and subtrees that are in the added node. */
+    private void add(final Node parent, final Node target, final Node added) {
+        final boolean top = isMarked(added);
+        Node t = target;
+        if (top || t == null) {
+            if (t != null) {
+                parent.removeChild(t);
+            }
+            final Node newNode =
+                          parent.getOwnerDocument().importNode(added, top);
+            removeMarkers(newNode);
+            parent.appendChild(newNode);
+            if (top) {
+                return;
+            }
+            t = newNode;
+        }
+        final NamedNodeMap attrs = added.getAttributes();
+        for (int i = 0; i < attrs.getLength(); i++) {
+            final Node attr = attrs.item(i);
+            if (!DIFF_MARKER.equals(attr.getNodeName())) {
+                ((Element) t).setAttribute(attr.getNodeName(),
+                                           attr.getNodeValue());
+            }
+        }
+        for (final Node addedChild : getElements(added)) {
+            add(t, findEntity(t, addedChild), addedChild);
+        }
+    }
+
+    /** Returns whether the node is the top of the removed or added subtree. */
+    private boolean isMarked(final Node node) {
+        return getAttribute(node, DIFF_MARKER) != null;
+    }
+
+    /** Removes diff markers from the imported subtree. */
+    private void removeMarkers(final Node node) {
+        ((Element) node).removeAttribute(DIFF_MARKER);
+        for (final Node child : getElements(node)) {
+            removeMarkers(child);
+        }
+    }
+
+    /** Returns child element with the same name and id. */
+    private Node findEntity(final Node parent, final Node node) {
+        final String id = getAttribute(node, "id");
+        for (final Node child : getElements(parent)) {
+            if (child.getNodeName().equals(node.getNodeName())
+                && (id == null || id.equals(getAttribute(child, "id")))) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /** Applies the xpath based changes of the format 2 patchsets. */
+    private boolean applyV2(final Document document, final Node diffNode) {
+        final XPath xpath = XPathFactory.newInstance().newXPath();
+        for (final Node changeNode : getElements(diffNode)) {
+            if (!"change".equals(changeNode.getNodeName())) {
+                continue;
+            }
+            final String op = getAttribute(changeNode, "operation");
+            final String path = getAttribute(changeNode, "path");
+            if (op == null || path == null) {
+                return false;
+            }
+            Node node;
+            try {
+                node = (Node) xpath.evaluate("/pcmk" + path,
+                                             document,
+                                             XPathConstants.NODE);
+            } catch (XPathExpressionException e) {
+                Tools.appWarning("cib diff: could not evaluate: " + path);
+                return false;
+            }
+            if (node == null) {
+                Tools.debug(this, "cib diff: not found: " + path, 1);
+                return false;
+            }
+            if ("delete".equals(op)) {
+                node.getParentNode().removeChild(node);
+            } else if ("modify".equals(op)) {
+                final Node listNode = getChildNode(changeNode, "change-list");
+                if (listNode == null) {
+                    continue;
+                }
+                for (final Node attrNode : getElements(listNode)) {
+                    final String name = getAttribute(attrNode, "name");
+                    final String attrOp = getAttribute(attrNode, "operation");
+                    if ("set".equals(attrOp)) {
+                        ((Element) node).setAttribute(
+                                           name,
+                                           getAttribute(attrNode, "value"));
+                    } else if ("unset".equals(attrOp)) {
+                        ((Element) node).removeAttribute(name);
+                    }
+                }
+            } else if ("create".equals(op)) {
+                final List<Node> created = getElements(changeNode);
+                if (created.isEmpty()) {
+                    return false;
+                }
+                final Node newNode = document.importNode(created.get(0),
+                                                         true);
+                insertAt(node, newNode, getAttribute(changeNode, "position"));
+            } else if ("move".equals(op)) {
+                final Node parent = node.getParentNode();
+                parent.removeChild(node);
+                insertAt(parent, node, getAttribute(changeNode, "position"));
+            } else {
+                Tools.appWarning("cib diff: unknown operation: " + op);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Inserts the node at the position between the element nodes. */
+    private void insertAt(final Node parent,
+                          final Node node,
+                          final String position) {
+        if (position != null && Tools.isNumber(position)) {
+            final List<Node> children = getElements(parent);
+            final int pos = Integer.parseInt(position);
+            if (pos < children.size()) {
+                parent.insertBefore(node, children.get(pos));
+                return;
+            }
+        }
+        parent.appendChild(node);
+    }
+
+    /** Returns child nodes that are elements. */
+    private List<Node> getElements(final Node node) {
+        final List<Node> elements = new ArrayList<Node>();
+        final NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            final Node child = children.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                elements.add(child);
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,1353 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import lcmc.utilities.Tools;
+import lcmc.data.CRMXML.ColocationData;
+import lcmc.data.CRMXML.OrderData;
+import lcmc.data.CRMXML.RscSet;
+import lcmc.data.CRMXML.RscSetConnectionData;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.collections15.map.MultiKeyMap;
+
+/**
+ * This class parses the output of the cib query in one pass with the StAX
+ * reader and fills the CibQuery object directly, without building the DOM
+ * tree first. It gives the same results as CRMXML.parseCibQuery(Document),
+ * the configuration section must be before the status section though, as it
+ * always is in the cib. The object can be used only once.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+final class CibQueryParser {
+    /** Factory for the stream readers. */
+    private static final XMLInputFactory XML_INPUT_FACTORY =
+                                                    createXMLInputFactory();
+    /** Pattern for the clone instances. */
+    private static final Pattern CLONE_INSTANCE_PATTERN =
+                                              Pattern.compile("(.*):(\\d+)$");
+    /** Name of the group that holds resources without group. */
+    private static final String NONE_GROUP = "none";
+    /** Kinds of the nvpairs containers. */
+    private enum Sink { CRM_CONFIG, RSC_DEFAULTS, OP_DEFAULTS, NODE,
+                        TRANSIENT, INSTANCE, META, CHECK_LEVEL };
+    /** Kinds of the resources. */
+    private enum Kind { PRIMITIVE, GROUP, CLONE };
+
+    /** CRMXML object for resource agents. */
+    private final CRMXML crmXML;
+    /** Whether the nvpairs are in the <attributes>, only til 2.1.4. */
+    private final boolean attributesWrapped;
+    /** Names of the elements from the root to the current element. */
+    private final List<String> path = new ArrayList<String>();
+    /** Names of the child elements, that were already seen, per level. */
+    private final List<Set<String>> seenChildren = new ArrayList<Set<String>>();
+
+    /** Current section: fenced, rsc_defaults, ..., status. */
+    private String section = null;
+    /** Depth of the current section element. */
+    private int sectionDepth = -1;
+    /** Depth of the subtree, that is skipped, or -1. */
+    private int skipDepth = -1;
+    /** Whether the configuration section was parsed. */
+    private boolean configurationDone = false;
+    /** Text of the element, that is being collected, or null. */
+    private StringBuilder text = null;
+
+    /** Current nvpairs container or null. */
+    private Sink sink = null;
+    /** Depth of the current nvpairs container. */
+    private int sinkContainerDepth = -1;
+    /** Depth of the nvpairs in the current container, or -1 if not known. */
+    private int sinkNvpairDepth = -1;
+    /** Resource that the current nvpairs belong to. */
+    private ResFrame sinkFrame = null;
+    /** Node that the current nvpairs belong to. */
+    private String sinkUname = null;
+
+    /** Resources, that are being parsed. */
+    private final List<ResFrame> resFrames = new ArrayList<ResFrame>();
+    /** Resource with the current operations or null. */
+    private ResFrame opsFrame = null;
+    /** Depth of the current operations element. */
+    private int opsDepth = -1;
+    /** Operation ids of the current operations. */
+    private Map<String, String> opIds = null;
+    /** Name of the current monitor operation or null. */
+    private String monitorOp = null;
+    /** Depth of the current monitor operation. */
+    private int monitorOpDepth = -1;
+
+    /** Uname of the current cluster node. */
+    private String nodeUname = null;
+    /** Depth of the current <transient_attributes> or <lrm> element. */
+    private int nodeStateChildDepth = -1;
+    /** Depth of the current <lrm_resources> element. */
+    private int lrmResourcesDepth = -1;
+    /** class, provider, type and id of the lrm resources on the node. */
+    private List<String[]> lrmResources = null;
+
+    /** Resource sets of the current constraint or null. */
+    private List<RscSet> rscSets = null;
+    /** Colocation id of the current resource sets. */
+    private String rscSetsColId = null;
+    /** Order id of the current resource sets. */
+    private String rscSetsOrdId = null;
+    /** Previous resource set. */
+    private RscSet prevRscSet = null;
+    /** Number of resource sets in the constraint. */
+    private int rscSetCount = 0;
+    /** Position of the order resource set connection. */
+    private int ordPos = 0;
+    /** Position of the colocation resource set connection. */
+    private int colPos = 0;
+    /** Resource ids of the current resource set or null. */
+    private List<String> rscSetRscIds = null;
+    /** Attributes of the current resource set. */
+    private String[] rscSetAttrs = null;
+
+    /** Whether the <rsc_location> is being parsed. */
+    private boolean inLocation = false;
+    /** Resource of the current location. */
+    private String locRsc = null;
+    /** Id of the current location. */
+    private String locId = null;
+    /** Host scores of the resource of the current location. */
+    private Map<String, HostLocation> locHostScoreMap = null;
+    /** Depth of the first <rule> in the current location or -1. */
+    private int ruleDepth = -1;
+    /** Score of the current rule. */
+    private String ruleScore = null;
+    /** Boolean-op of the current rule. */
+    private String ruleBooleanOp = null;
+
+    /** Designated Co-ordinator uuid. */
+    private String dcUuid = null;
+    /** Designated Co-ordinator. */
+    private String dc = null;
+    /** Fenced nodes. */
+    private final Set<String> fencedNodes = new HashSet<String>();
+    /** Whether the pcmk root is there. */
+    private boolean hasPcmk = false;
+    /** Whether the cib is there. */
+    private boolean hasCib = false;
+    /** Whether the configuration is there. */
+    private boolean hasConfiguration = false;
+    /** Whether the crm config is there. */
+    private boolean hasCrmConfig = false;
+    /** Whether the resources are there. */
+    private boolean hasResources = false;
+    /** Cluster properties, null if there is no cluster_property_set. */
+    private Map<String, String> crmConfMap = null;
+    /** Resource defaults id. */
+    private String rscDefaultsId = null;
+    /** Resource defaults. */
+    private final Map<String, String> rscDefaultsParams =
+                                                new HashMap<String, String>();
+    /** Resource defaults nvpair ids. */
+    private final Map<String, String> rscDefaultsParamsNvpairIds =
+                                                new HashMap<String, String>();
+    /** Operation defaults. */
+    private final Map<String, String> opDefaultsParams =
+                                                new HashMap<String, String>();
+    /** Node parameters. */
+    private final MultiKeyMap<String, String> nodeParametersMap =
+                                            new MultiKeyMap<String, String>();
+    /** Whether the nodes are online. */
+    private final Map<String, String> nodeOnline =
+                                                new HashMap<String, String>();
+    /** Node ids. */
+    private final Map<String, String> nodeID = new HashMap<String, String>();
+    /** Resource parameters. */
+    private final Map<String, Map<String, String>> parametersMap =
+                                    new HashMap<String, Map<String, String>>();
+    /** Resource parameters nvpair ids. */
+    private final Map<String, Map<String, String>> parametersNvpairsIdsMap =
+                                    new HashMap<String, Map<String, String>>();
+    /** Resource agents. */
+    private final Map<String, ResourceAgent> resourceTypeMap =
+                                      new HashMap<String, ResourceAgent>();
+    /** Orphaned resources. */
+    private final Set<String> orphanedList = new HashSet<String>();
+    /** host -> inLRMList list. */
+    private final Map<String, Set<String>> inLRMList =
+                                        new HashMap<String, Set<String>>();
+    /** Instance attributes ids. */
+    private final Map<String, String> resourceInstanceAttrIdMap =
+                                      new HashMap<String, String>();
+    /** Operations. */
+    private final MultiKeyMap<String, String> operationsMap =
+                                            new MultiKeyMap<String, String>();
+    /** Meta attributes ids. */
+    private final Map<String, String> metaAttrsIdMap =
+                                                new HashMap<String, String>();
+    /** Operations ids. */
+    private final Map<String, String> operationsIdMap =
+                                                new HashMap<String, String>();
+    /** Operation ids per resource. */
+    private final Map<String, Map<String, String>> resOpIdsMap =
+                                    new HashMap<String, Map<String, String>>();
+    /** Groups and clones to resources, clone before its group. */
+    private final Map<String, List<String>> groupsToResourcesMap =
+                                     new LinkedHashMap<String, List<String>>();
+    /** Clone to resource. */
+    private final Map<String, String> cloneToResourceMap =
+                                                 new HashMap<String, String>();
+    /** Master/slave resources. */
+    private final List<String> masterList = new ArrayList<String>();
+    /** Fail counts. */
+    private final MultiKeyMap<String, String> failedMap =
+                                            new MultiKeyMap<String, String>();
+    /** Failed clone instances. */
+    private final MultiKeyMap<String, Set<String>> failedClonesMap =
+                                        new MultiKeyMap<String, Set<String>>();
+    /** Ping counts. */
+    private final Map<String, String> pingCountMap =
+                                                new HashMap<String, String>();
+    /** Operations id-refs. */
+    private final Map<String, String> operationsIdRefs =
+                                                new HashMap<String, String>();
+    /** Operations id to crm id. */
+    private final Map<String, String> operationsIdtoCRMId =
+                                                new HashMap<String, String>();
+    /** Meta attributes id-refs. */
+    private final Map<String, String> metaAttrsIdRefs =
+                                                new HashMap<String, String>();
+    /** Meta attributes id to crm id. */
+    private final Map<String, String> metaAttrsIdToCRMId =
+                                                new HashMap<String, String>();
+    /** Colocations. */
+    private final Map<String, ColocationData> colocationIdMap =
+                                   new LinkedHashMap<String, ColocationData>();
+    /** Colocations per resource. */
+    private final Map<String, List<ColocationData>> colocationRscMap =
+                                   new HashMap<String, List<ColocationData>>();
+    /** Orders. */
+    private final Map<String, OrderData> orderIdMap =
+                                        new LinkedHashMap<String, OrderData>();
+    /** Order resource sets. */
+    private final Map<String, List<RscSet>> orderIdRscSetsMap =
+                                           new HashMap<String, List<RscSet>>();
+    /** Colocation resource sets. */
+    private final Map<String, List<RscSet>> colocationIdRscSetsMap =
+                                           new HashMap<String, List<RscSet>>();
+    /** Resource set connections. */
+    private final List<RscSetConnectionData> rscSetConnections =
+                                         new ArrayList<RscSetConnectionData>();
+    /** Orders per first resource. */
+    private final Map<String, List<OrderData>> orderRscMap =
+                                        new HashMap<String, List<OrderData>>();
+    /** Locations. */
+    private final Map<String, Map<String, HostLocation>> locationMap =
+                              new HashMap<String, Map<String, HostLocation>>();
+    /** Ping locations. */
+    private final Map<String, HostLocation> pingLocationMap =
+                                           new HashMap<String, HostLocation>();
+    /** Location ids per resource. */
+    private final Map<String, List<String>> locationsIdMap =
+                                           new HashMap<String, List<String>>();
+    /** Resource and host to location id. */
+    private final MultiKeyMap<String, String> resHostToLocIdMap =
+                                             new MultiKeyMap<String, String>();
+    /** Resource to ping location id. */
+    private final Map<String, String> resPingToLocIdMap =
+                                               new HashMap<String, String>();
+    /** Pending nodes. */
+    private final Set<String> nodePending = new HashSet<String>();
+
+    /** Prepares a new CibQueryParser object. */
+    CibQueryParser(final CRMXML crmXML, final Host host) {
+        this.crmXML = crmXML;
+        attributesWrapped = Tools.versionBeforePacemaker(host);
+    }
+
+    /** Returns the factory for the stream readers. */
+    private static XMLInputFactory createXMLInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Parses the cib query and returns CibQuery object. Returns null, if the
+     * query can not be parsed in one pass and the DOM parser must be used.
+     */
+    CibQuery parse(final String query) {
+        if (query == null
+            || "".equals(query.trim())
+            || "no resources defined!".equals(query.trim())) {
+            Tools.appWarning("cib error: " + query);
+            return new CibQuery();
+        }
+        try {
+            return parse(new StringReader(query));
+        } catch (XMLStreamException e) {
+            Tools.appWarning("could not parse: " + e.getMessage());
+            Tools.appWarning("cib error: " + query);
+            return new CibQuery();
+        }
+    }
+
+    /**
+     * Parses the cib query from the reader, as the characters come, and
+     * returns CibQuery object. Returns null, if the query can not be parsed
+     * in one pass and the DOM parser must be used.
+     */
+    CibQuery parse(final Reader in) throws XMLStreamException {
+        final XMLStreamReader reader =
+                                 XML_INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            seenChildren.add(new HashSet<String>());
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final String name = reader.getLocalName();
+                    final boolean first =
+                      seenChildren.get(seenChildren.size() - 1).add(name);
+                    path.add(name);
+                    seenChildren.add(new HashSet<String>());
+                    text = null;
+                    if (skipDepth < 0
+                        && !startElement(reader, name, path.size(), first)) {
+                        return null;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    final int depth = path.size();
+                    if (skipDepth < 0) {
+                        endElement(path.get(depth - 1), depth);
+                    } else if (skipDepth == depth) {
+                        skipDepth = -1;
+                    }
+                    text = null;
+                    path.remove(depth - 1);
+                    seenChildren.remove(depth);
+                } else if (text != null
+                           && (event == XMLStreamConstants.CHARACTERS
+                               || event == XMLStreamConstants.CDATA
+                               || event == XMLStreamConstants.SPACE)) {
+                    text.append(reader.getText());
+                }
+            }
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                Tools.appWarning("could not close: " + e.getMessage());
+            }
+        }
+        return getCibQuery();
+    }
+
+    /**
+     * Handles the start of the element. Returns false if the DOM parser must
+     * be used.
+     */
+    private boolean startElement(final XMLStreamReader r,
+                                 final String name,
+                                 final int depth,
+                                 final boolean first) {
+        if (depth == 1) {
+            hasPcmk = "pcmk".equals(name);
+            return true;
+        }
+        if (!hasPcmk) {
+            return true;
+        }
+        if (depth == 2) {
+            if ("fenced".equals(name) && first) {
+                setSection(name, depth);
+            } else if ("cib".equals(name) && first) {
+                hasCib = true;
+                dcUuid = attr(r, "dc-uuid");
+            }
+            return true;
+        }
+        if (!hasCib || !"cib".equals(path.get(1))) {
+            if ("fenced".equals(section)
+                && depth == sectionDepth + 1
+                && "node".equals(name)) {
+                text = new StringBuilder();
+            }
+            return true;
+        }
+        if (depth == 3) {
+            if ("configuration".equals(name) && first) {
+                hasConfiguration = true;
+            } else if ("status".equals(name) && first) {
+                if (!configurationDone) {
+                    /* status before configuration, not in one pass */
+                    return false;
+                }
+                setSection(name, depth);
+            }
+            return true;
+        }
+        if (depth == 4 && "configuration".equals(path.get(2))) {
+            if (first) {
+                if ("crm_config".equals(name)) {
+                    hasCrmConfig = true;
+                } else if ("resources".equals(name)) {
+                    hasResources = true;
+                    groupsToResourcesMap.put(NONE_GROUP,
+                                             new ArrayList<String>());
+                }
+                setSection(name, depth);
+            }
+            return true;
+        }
+        if (section == null) {
+            return true;
+        }
+        if (sink != null && depth > sinkContainerDepth) {
+            if ("nvpair".equals(name) && depth == sinkNvpairDepth) {
+                nvpair(r);
+            } else if ("attributes".equals(name)
+                       && first
+                       && sinkNvpairDepth < 0
+                       && depth == sinkContainerDepth + 1) {
+                sinkNvpairDepth = depth + 1;
+            }
+            return true;
+        }
+        if ("rsc_defaults".equals(section)) {
+            if ("meta_attributes".equals(name)
+                && first
+                && depth == sectionDepth + 1) {
+                rscDefaultsId = attr(r, "id");
+                openSink(Sink.RSC_DEFAULTS, depth);
+            }
+        } else if ("op_defaults".equals(section)) {
+            if ("meta_attributes".equals(name)
+                && first
+                && depth == sectionDepth + 1) {
+                openSink(Sink.OP_DEFAULTS, depth);
+            }
+        } else if ("crm_config".equals(section)) {
+            if ("cluster_property_set".equals(name)
+                && first
+                && depth == sectionDepth + 1) {
+                crmConfMap = new HashMap<String, String>();
+                openSink(Sink.CRM_CONFIG, depth);
+            }
+        } else if ("nodes".equals(section)) {
+            startNodesElement(r, name, depth, first);
+        } else if ("resources".equals(section)) {
+            startResourcesElement(r, name, depth, first);
+        } else if ("constraints".equals(section)) {
+            startConstraintsElement(r, name, depth, first);
+        } else if ("status".equals(section)) {
+            startStatusElement(r, name, depth, first);
+        }
+        return true;
+    }
+
+    /** Handles the end of the element. */
+    private void endElement(final String name, final int depth) {
+        if (text != null
+            && "fenced".equals(section)
+            && depth == sectionDepth + 1) {
+            fencedNodes.add(text.toString().toLowerCase(Locale.US));
+        }
+        if (sink != null && depth == sinkContainerDepth) {
+            sink = null;
+            sinkFrame = null;
+            sinkUname = null;
+        }
+        if (depth == 3 && "configuration".equals(name)) {
+            configurationDone = true;
+        }
+        if (section == null) {
+            return;
+        }
+        if (depth == sectionDepth) {
+            if ("crm_config".equals(section) && crmConfMap == null) {
+                Tools.appWarning("there is no cluster_property_set node");
+            }
+            section = null;
+            sectionDepth = -1;
+            return;
+        }
+        if ("resources".equals(section)) {
+            endResourcesElement(depth);
+        } else if ("constraints".equals(section)) {
+            endConstraintsElement(name, depth);
+        } else if ("status".equals(section)) {
+            endStatusElement(depth);
+        }
+    }
+
+    /** Sets the current section. */
+    private void setSection(final String name, final int depth) {
+        section = name;
+        sectionDepth = depth;
+    }
+
+    /** Starts the nvpairs container. */
+    private void openSink(final Sink newSink, final int depth) {
+        sink = newSink;
+        sinkContainerDepth = depth;
+        if (attributesWrapped && newSink != Sink.CHECK_LEVEL) {
+            /* <attributtes> only til 2.1.4 */
+            sinkNvpairDepth = -1;
+        } else {
+            sinkNvpairDepth = depth + 1;
+        }
+    }
+
+    /** Handles the nvpair in the current container. */
+    private void nvpair(final XMLStreamReader r) {
+        final String nvpairId = attr(r, "id");
+        String name = attr(r, "name");
+        String value = attr(r, "value");
+        switch (sink) {
+            case CRM_CONFIG:
+                crmConfMap.put(name, value);
+                break;
+            case RSC_DEFAULTS:
+                if (CRMXML.TARGET_ROLE_META_ATTR.equals(name)) {
+                    value = value.toLowerCase(Locale.US);
+                }
+                rscDefaultsParams.put(name, value);
+                rscDefaultsParamsNvpairIds.put(name, nvpairId);
+                break;
+            case OP_DEFAULTS:
+                opDefaultsParams.put(name, value);
+                break;
+            case NODE:
+                nodeParametersMap.put(sinkUname.toLowerCase(Locale.US),
+                                      name,
+                                      value);
+                break;
+            case TRANSIENT:
+                transientAttribute(name, value);
+                break;
+            case INSTANCE:
+                if (sinkFrame.stonith && "priority".equals(name)) {
+                    /* so it does not clash with meta attr priority */
+                    name = CRMXML.STONITH_PRIORITY_INSTANCE_ATTR;
+                }
+                sinkFrame.params.put(name, value);
+                sinkFrame.nvpairIds.put(name, nvpairId);
+                break;
+            case META:
+                if (CRMXML.TARGET_ROLE_META_ATTR.equals(name)) {
+                    value = value.toLowerCase(Locale.US);
+                }
+                if (sinkFrame.kind == Kind.GROUP && "ordered".equals(name)) {
+                    name = CRMXML.GROUP_ORDERED_META_ATTR;
+                }
+                sinkFrame.params.put(name, value);
+                sinkFrame.nvpairIds.put(name, nvpairId);
+                break;
+            case CHECK_LEVEL:
+                if (CRMXML.PAR_CHECK_LEVEL.equals(name)) {
+                    operationsMap.put(opsFrame.crmId,
+                                      monitorOp,
+                                      CRMXML.PAR_CHECK_LEVEL,
+                                      value);
+                } else {
+                    Tools.appWarning("unexpected instance attribute: "
+                                     + name + " " + value);
+                }
+                /* only the first one */
+                sink = null;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Handles the transient attribute of the current node. */
+    private void transientAttribute(final String name, final String value) {
+        if ("pingd".equals(name)) {
+            pingCountMap.put(sinkUname, value);
+        } else if (name.indexOf(CRMXML.FAIL_COUNT_PREFIX) == 0) {
+            final String resId =
+                          name.substring(CRMXML.FAIL_COUNT_PREFIX.length());
+            final String unameLowerCase = sinkUname.toLowerCase(Locale.US);
+            failedMap.put(unameLowerCase, resId, value);
+            final Matcher m = CLONE_INSTANCE_PATTERN.matcher(resId);
+            if (m.matches()) {
+                final String crmId = m.group(1);
+                Set<String> clones = failedClonesMap.get(unameLowerCase,
+                                                         crmId);
+                if (clones == null) {
+                    clones = new LinkedHashSet<String>();
+                    failedClonesMap.put(unameLowerCase, crmId, clones);
+                }
+                clones.add(m.group(2));
+                failedMap.put(unameLowerCase, crmId, value);
+            }
+        }
+    }
+
+    /** Handles the element in the <nodes> section. */
+    private void startNodesElement(final XMLStreamReader r,
+                                   final String name,
+                                   final int depth,
+                                   final boolean first) {
+        if ("node".equals(name) && depth == sectionDepth + 1) {
+            final String id = attr(r, "id");
+            final String uname = attr(r, "uname");
+            if (!nodeID.containsKey(uname)) {
+                nodeID.put(uname, id);
+            }
+            if (dcUuid != null && dcUuid.equals(id)) {
+                dc = uname;
+            }
+            if (!nodeOnline.containsKey(uname.toLowerCase(Locale.US))) {
+                nodeOnline.put(uname.toLowerCase(Locale.US), "no");
+            }
+            nodeUname = uname;
+        } else if ("instance_attributes".equals(name)
+                   && first
+                   && depth == sectionDepth + 2
+                   && "node".equals(path.get(depth - 2))) {
+            openSink(Sink.NODE, depth);
+            sinkUname = nodeUname;
+        }
+    }
+
+    /** Handles the element in the <resources> section. */
+    private void startResourcesElement(final XMLStreamReader r,
+                                       final String name,
+                                       final int depth,
+                                       final boolean first) {
+        ResFrame parent = null;
+        if (!resFrames.isEmpty()) {
+            final ResFrame top = resFrames.get(resFrames.size() - 1);
+            if (top.depth == depth - 1) {
+                parent = top;
+            }
+        }
+        if (depth == sectionDepth + 1) {
+            if ("primitive".equals(name)) {
+                startPrimitive(r, depth, groupsToResourcesMap.get(NONE_GROUP));
+            } else if ("group".equals(name)) {
+                startGroup(r, depth, null);
+            } else if ("master".equals(name)
+                       || "master_slave".equals(name)
+                       || "clone".equals(name)) {
+                final String cloneId = attr(r, "id");
+                List<String> resList = groupsToResourcesMap.get(cloneId);
+                if (resList == null) {
+                    resList = new ArrayList<String>();
+                    groupsToResourcesMap.put(cloneId, resList);
+                }
+                final ResFrame frame = new ResFrame(Kind.CLONE,
+                                                    name,
+                                                    cloneId,
+                                                    depth,
+                                                    resList,
+                                                    false);
+                pushResFrame(frame);
+            }
+        } else if (parent != null) {
+            if ("primitive".equals(name) && parent.kind != Kind.PRIMITIVE) {
+                startPrimitive(r, depth, parent.resList);
+            } else if ("group".equals(name) && parent.kind == Kind.CLONE) {
+                startGroup(r, depth, parent.resList);
+            } else if ("instance_attributes".equals(name)
+                       && first
+                       && parent.kind != Kind.GROUP) {
+                resourceInstanceAttrIdMap.put(parent.crmId, attr(r, "id"));
+                openSink(Sink.INSTANCE, depth);
+                sinkFrame = parent;
+            } else if ("operations".equals(name)
+                       && first
+                       && parent.kind != Kind.GROUP) {
+                startOperations(r, parent, depth);
+            } else if ("meta_attributes".equals(name) && first) {
+                final String metaAttrsIdRef = attr(r, "id-ref");
+                if (metaAttrsIdRef == null) {
+                    final String metaAttrsId = attr(r, "id");
+                    metaAttrsIdMap.put(parent.crmId, metaAttrsId);
+                    metaAttrsIdToCRMId.put(metaAttrsId, parent.crmId);
+                    openSink(Sink.META, depth);
+                    sinkFrame = parent;
+                } else {
+                    metaAttrsIdRefs.put(parent.crmId, metaAttrsIdRef);
+                }
+            }
+        } else if (opsFrame != null
+                   && depth == opsDepth + 1
+                   && "op".equals(name)) {
+            startOp(r, depth);
+        } else if (monitorOp != null
+                   && depth == monitorOpDepth + 1
+                   && "instance_attributes".equals(name)
+                   && first) {
+            openSink(Sink.CHECK_LEVEL, depth);
+        }
+    }
+
+    /** Handles the end of the element in the <resources> section. */
+    private void endResourcesElement(final int depth) {
+        if (depth == monitorOpDepth) {
+            monitorOp = null;
+            monitorOpDepth = -1;
+        } else if (depth == opsDepth) {
+            opsFrame = null;
+            opsDepth = -1;
+            opIds = null;
+        } else if (!resFrames.isEmpty()) {
+            final ResFrame frame = resFrames.get(resFrames.size() - 1);
+            if (frame.depth == depth) {
+                resFrames.remove(resFrames.size() - 1);
+                if (frame.kind == Kind.CLONE && !frame.resList.isEmpty()) {
+                    cloneToResourceMap.put(frame.crmId,
+                                           frame.resList.get(0));
+                    if ("master".equals(frame.nodeName)
+                        || "master_slave".equals(frame.nodeName)) {
+                        masterList.add(frame.crmId);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Handles the <primitive> element. */
+    private void startPrimitive(final XMLStreamReader r,
+                                final int depth,
+                                final List<String> groupResList) {
+        final String templateId = attr(r, "template");
+        final String crmId = attr(r, "id");
+        if (templateId != null) {
+            Tools.info("templates not implemented, ignoring: "
+                       + crmId
+                       + "/"
+                       + templateId);
+            skipDepth = depth;
+            return;
+        }
+        final String raClass = attr(r, "class");
+        String provider = attr(r, "provider");
+        if (provider == null) {
+            provider = ResourceAgent.HEARTBEAT_PROVIDER;
+        }
+        final String type = attr(r, "type");
+        resourceTypeMap.put(crmId,
+                            crmXML.getResourceAgent(type, provider, raClass));
+        groupResList.add(crmId);
+        pushResFrame(new ResFrame(Kind.PRIMITIVE,
+                                   "primitive",
+                                   crmId,
+                                   depth,
+                                   null,
+                                   ResourceAgent.STONITH_CLASS.equals(
+                                                                  raClass)));
+    }
+
+    /** Handles the <group> element. */
+    private void startGroup(final XMLStreamReader r,
+                            final int depth,
+                            final List<String> resList) {
+        final String groupId = attr(r, "id");
+        if (resList != null) {
+            resList.add(groupId);
+        }
+        List<String> groupResList = groupsToResourcesMap.get(groupId);
+        if (groupResList == null) {
+            groupResList = new ArrayList<String>();
+            groupsToResourcesMap.put(groupId, groupResList);
+        }
+        pushResFrame(new ResFrame(Kind.GROUP,
+                                   "group",
+                                   groupId,
+                                   depth,
+                                   groupResList,
+                                   false));
+    }
+
+    /** Starts the resource and adds its parameters. */
+    private void pushResFrame(final ResFrame frame) {
+        parametersMap.put(frame.crmId, frame.params);
+        parametersNvpairsIdsMap.put(frame.crmId, frame.nvpairIds);
+        resFrames.add(frame);
+    }
+
+    /** Handles the <operations> element. */
+    private void startOperations(final XMLStreamReader r,
+                                 final ResFrame parent,
+                                 final int depth) {
+        final String operationsIdRef = attr(r, "id-ref");
+        if (operationsIdRef == null) {
+            final String operationsId = attr(r, "id");
+            operationsIdMap.put(parent.crmId, operationsId);
+            operationsIdtoCRMId.put(operationsId, parent.crmId);
+            opIds = new HashMap<String, String>();
+            resOpIdsMap.put(parent.crmId, opIds);
+            opsFrame = parent;
+            opsDepth = depth;
+        } else {
+            operationsIdRefs.put(parent.crmId, operationsIdRef);
+        }
+    }
+
+    /** Handles the <op> element. */
+    private void startOp(final XMLStreamReader r, final int depth) {
+        final String crmId = opsFrame.crmId;
+        final String opId = attr(r, "id");
+        final String name = attr(r, "name");
+        operationsMap.put(crmId, name, "interval", attr(r, "interval"));
+        operationsMap.put(crmId, name, "timeout", attr(r, "timeout"));
+        operationsMap.put(crmId, name, "start-delay", attr(r, "start-delay"));
+        opIds.put(name, opId);
+        if ("monitor".equals(name)) {
+            /* OCF_CHECK_LEVEL from the instance attributes, if any */
+            operationsMap.put(crmId, name, CRMXML.PAR_CHECK_LEVEL, "");
+            monitorOp = name;
+            monitorOpDepth = depth;
+        }
+    }
+
+    /** Handles the element in the <constraints> section. */
+    private void startConstraintsElement(final XMLStreamReader r,
+                                         final String name,
+                                         final int depth,
+                                         final boolean first) {
+        if (depth == sectionDepth + 1) {
+            if ("rsc_colocation".equals(name)) {
+                startColocation(r);
+            } else if ("rsc_order".equals(name)) {
+                startOrder(r);
+            } else if ("rsc_location".equals(name)) {
+                startLocation(r);
+            }
+        } else if (rscSets != null) {
+            if ("resource_set".equals(name) && depth == sectionDepth + 2) {
+                rscSetRscIds = new ArrayList<String>();
+                rscSetAttrs = new String[]{attr(r, "id"),
+                                           attr(r, "sequential"),
+                                           attr(r, CRMXML.REQUIRE_ALL_ATTR),
+                                           attr(r, "action"),
+                                           attr(r, "role")};
+            } else if ("resource_ref".equals(name)
+                       && rscSetRscIds != null
+                       && depth == sectionDepth + 3) {
+                rscSetRscIds.add(attr(r, "id"));
+            }
+        } else if (inLocation) {
+            if ("rule".equals(name) && first && depth == sectionDepth + 2) {
+                ruleDepth = depth;
+                ruleScore = attr(r, CRMXML.SCORE_STRING);
+                ruleBooleanOp = attr(r, "boolean-op");
+            } else if ("expression".equals(name)
+                       && first
+                       && depth == ruleDepth + 1) {
+                locationExpression(r);
+            }
+        }
+    }
+
+    /** Handles the end of the element in the <constraints> section. */
+    private void endConstraintsElement(final String name, final int depth) {
+        if (depth == sectionDepth + 1) {
+            if (rscSets != null) {
+                endRscSets();
+            }
+            inLocation = false;
+            locRsc = null;
+            locId = null;
+            locHostScoreMap = null;
+            ruleDepth = -1;
+        } else if (rscSetRscIds != null
+                   && depth == sectionDepth + 2
+                   && "resource_set".equals(name)) {
+            endRscSet();
+        } else if (depth == ruleDepth) {
+            /* only the first rule */
+            ruleDepth = -1;
+        }
+    }
+
+    /** Handles the <rsc_colocation> element. */
+    private void startColocation(final XMLStreamReader r) {
+        final String colId = attr(r, "id");
+        String rscString         = "rsc";
+        String rscRoleString     = "rsc-role";
+        String withRscString     = "with-rsc";
+        String withRscRoleString = "with-rsc-role";
+        if (attributesWrapped) {
+            rscString         = "from";
+            rscRoleString     = "from_role";
+            withRscString     = "to";
+            withRscRoleString = "to_role";
+        }
+        final String rsc = attr(r, rscString);
+        final String withRsc = attr(r, withRscString);
+        if (rsc == null || withRsc == null) {
+            startRscSets(colId, null);
+            colocationIdRscSetsMap.put(colId, rscSets);
+        }
+        final ColocationData colocationData =
+                                new ColocationData(colId,
+                                                   rsc,
+                                                   withRsc,
+                                                   attr(r, rscRoleString),
+                                                   attr(r, withRscRoleString),
+                                                   attr(r,
+                                                        CRMXML.SCORE_STRING));
+        colocationIdMap.put(colId, colocationData);
+        List<ColocationData> withs = colocationRscMap.get(rsc);
+        if (withs == null) {
+            withs = new ArrayList<ColocationData>();
+        }
+        withs.add(colocationData);
+        colocationRscMap.put(rsc, withs);
+    }
+
+    /** Handles the <rsc_order> element. */
+    private void startOrder(final XMLStreamReader r) {
+        String firstString       = "first";
+        String thenString        = "then";
+        String firstActionString = "first-action";
+        String thenActionString  = "then-action";
+        if (attributesWrapped) {
+            firstString       = "to";
+            thenString        = "from";
+            firstActionString = "to_action";
+            thenActionString  = "action";
+        }
+        String rscFirst = attr(r, firstString);
+        String rscThen = attr(r, thenString);
+        final String ordId = attr(r, "id");
+        if (rscFirst == null || rscThen == null) {
+            startRscSets(null, ordId);
+            orderIdRscSetsMap.put(ordId, rscSets);
+        }
+        String firstAction = attr(r, firstActionString);
+        String thenAction = attr(r, thenActionString);
+        final String type = attr(r, "type");
+        if (type != null && "before".equals(type)) {
+            /* exchange resoruces */
+            final String rsc = rscFirst;
+            rscFirst = rscThen;
+            rscThen = rsc;
+            final String act = firstAction;
+            firstAction = thenAction;
+            thenAction = act;
+        }
+        final OrderData orderData = new OrderData(ordId,
+                                                  rscFirst,
+                                                  rscThen,
+                                                  attr(r,
+                                                       CRMXML.SCORE_STRING),
+                                                  attr(r, "symmetrical"),
+                                                  firstAction,
+                                                  thenAction);
+        orderIdMap.put(ordId, orderData);
+        List<OrderData> thens = orderRscMap.get(rscFirst);
+        if (thens == null) {
+            thens = new ArrayList<OrderData>();
+        }
+        thens.add(orderData);
+        orderRscMap.put(rscFirst, thens);
+    }
+
+    /** Starts the resource sets of the constraint. */
+    private void startRscSets(final String colId, final String ordId) {
+        rscSets = new ArrayList<RscSet>();
+        rscSetsColId = colId;
+        rscSetsOrdId = ordId;
+        prevRscSet = null;
+        rscSetCount = 0;
+        ordPos = 0;
+        colPos = 0;
+    }
+
+    /** Handles the end of the <resource_set> element. */
+    private void endRscSet() {
+        final RscSet rscSet = new RscSet(rscSetAttrs[0],
+                                         rscSetRscIds,
+                                         rscSetAttrs[1],
+                                         rscSetAttrs[2],
+                                         rscSetAttrs[3],
+                                         rscSetAttrs[4]);
+        rscSetRscIds = null;
+        rscSetAttrs = null;
+        rscSets.add(rscSet);
+        if (prevRscSet != null) {
+            if (rscSetsColId == null) {
+                /* order */
+                rscSetConnections.add(0,
+                                      new RscSetConnectionData(prevRscSet,
+                                                               rscSet,
+                                                               rscSetsOrdId,
+                                                               ordPos,
+                                                               false));
+                ordPos++;
+            } else {
+                /* colocation */
+                rscSetConnections.add(new RscSetConnectionData(rscSet,
+                                                               prevRscSet,
+                                                               rscSetsColId,
+                                                               colPos,
+                                                               true));
+                colPos++;
+            }
+        }
+        prevRscSet = rscSet;
+        rscSetCount++;
+    }
+
+    /** Handles the end of the constraint with resource sets. */
+    private void endRscSets() {
+        if (rscSetCount == 1) {
+            /* just one, dangling */
+            if (rscSetsColId == null) {
+                /* order */
+                rscSetConnections.add(new RscSetConnectionData(prevRscSet,
+                                                               null,
+                                                               rscSetsOrdId,
+                                                               ordPos,
+                                                               false));
+            } else {
+                /* colocation */
+                rscSetConnections.add(new RscSetConnectionData(prevRscSet,
+                                                               null,
+                                                               rscSetsColId,
+                                                               colPos,
+                                                               true));
+            }
+        }
+        rscSets = null;
+        prevRscSet = null;
+    }
+
+    /** Handles the <rsc_location> element. */
+    private void startLocation(final XMLStreamReader r) {
+        inLocation = true;
+        locId = attr(r, "id");
+        final String node  = attr(r, "node");
+        locRsc = attr(r, "rsc");
+        final String score = attr(r, CRMXML.SCORE_STRING);
+        final String role = null; // TODO
+
+        List<String> locs = locationsIdMap.get(locRsc);
+        if (locs == null) {
+            locs = new ArrayList<String>();
+            locationsIdMap.put(locRsc, locs);
+        }
+        locHostScoreMap = locationMap.get(locRsc);
+        if (locHostScoreMap == null) {
+            locHostScoreMap = new HashMap<String, HostLocation>();
+            locationMap.put(locRsc, locHostScoreMap);
+        }
+        if (node != null) {
+            resHostToLocIdMap.put(locRsc, node.toLowerCase(Locale.US), locId);
+        }
+        if (score != null) {
+            locHostScoreMap.put(node.toLowerCase(Locale.US),
+                                new HostLocation(score, "eq", null, role));
+        }
+        locs.add(locId);
+    }
+
+    /** Handles the first <expression> of the first location <rule>. */
+    private void locationExpression(final XMLStreamReader r) {
+        final String attr = attr(r, "attribute");
+        final String op = attr(r, "operation");
+        final String value = attr(r, "value");
+        // TODO: I know only "and", ignoring everything we
+        // don't know.
+        if ((ruleBooleanOp == null || "and".equals(ruleBooleanOp))
+            && "#uname".equals(attr)
+            && value != null) {
+            locHostScoreMap.put(value.toLowerCase(Locale.US),
+                                new HostLocation(ruleScore, op, null, null));
+            resHostToLocIdMap.put(locRsc, value.toLowerCase(Locale.US), locId);
+        } else if ((ruleBooleanOp == null || "and".equals(ruleBooleanOp))
+                   && "pingd".equals(attr)) {
+            pingLocationMap.put(locRsc,
+                                new HostLocation(ruleScore, op, value, null));
+            resPingToLocIdMap.put(locRsc, locId);
+        } else {
+            Tools.appWarning("could not parse rsc_location: " + locId);
+        }
+    }
+
+    /** Handles the element in the <status> section. */
+    private void startStatusElement(final XMLStreamReader r,
+                                    final String name,
+                                    final int depth,
+                                    final boolean first) {
+        if (depth == sectionDepth + 1) {
+            if ("node_state".equals(name)) {
+                startNodeState(r);
+            }
+        } else if (nodeUname == null) {
+            return;
+        } else if (depth == sectionDepth + 2) {
+            if ("transient_attributes".equals(name)
+                || "lrm".equals(name)) {
+                nodeStateChildDepth = depth;
+            }
+        } else if (depth != nodeStateChildDepth + 1) {
+            if (depth == lrmResourcesDepth + 1
+                && "lrm_resource".equals(name)) {
+                lrmResources.add(new String[]{attr(r, "class"),
+                                              attr(r, "provider"),
+                                              attr(r, "type"),
+                                              attr(r, "id")});
+            }
+        } else if ("transient_attributes".equals(path.get(depth - 2))) {
+            if ("instance_attributes".equals(name) && first) {
+                openSink(Sink.TRANSIENT, depth);
+                sinkUname = nodeUname;
+            }
+        } else if ("lrm_resources".equals(name) && first) {
+            lrmResourcesDepth = depth;
+        }
+    }
+
+    /** Handles the end of the element in the <status> section. */
+    private void endStatusElement(final int depth) {
+        if (depth == sectionDepth + 1 && nodeUname != null) {
+            /* after all transient attributes of the node, like the DOM
+             * parser, so that the failed clones are in the same order */
+            parseLRM(nodeUname.toLowerCase(Locale.US));
+            nodeUname = null;
+            lrmResources = null;
+        } else if (depth == nodeStateChildDepth) {
+            nodeStateChildDepth = -1;
+        } else if (depth == lrmResourcesDepth) {
+            lrmResourcesDepth = -1;
+        }
+    }
+
+    /** Handles the <node_state> element. */
+    private void startNodeState(final XMLStreamReader r) {
+        final String uname = attr(r, "uname");
+        final String id = attr(r, "id");
+        if (!id.equals(nodeID.get(uname))) {
+            Tools.appWarning("skipping " + uname + " " + id);
+        }
+        final String join = attr(r, "join");
+        final String inCCM = attr(r, "in_ccm");
+        final String crmd = attr(r, "crmd");
+        if ("member".equals(join)
+            && "true".equals(inCCM)
+            && !"offline".equals(crmd)) {
+            nodeOnline.put(uname.toLowerCase(Locale.US), "yes");
+        } else {
+            nodeOnline.put(uname.toLowerCase(Locale.US), "no");
+        }
+        if ("pending".equals(join)) {
+            nodePending.add(uname.toLowerCase(Locale.US));
+        }
+        nodeUname = uname;
+        lrmResources = new ArrayList<String[]>();
+    }
+
+    /** Adds the lrm resources of the node, like CRMXML.parseLRM. */
+    private void parseLRM(final String unameLowerCase) {
+        final List<String> resList = groupsToResourcesMap.get(NONE_GROUP);
+        for (final String[] lrmResource : lrmResources) {
+            final String resId = lrmResource[3];
+            final Matcher m = CLONE_INSTANCE_PATTERN.matcher(resId);
+            String crmId;
+            if (m.matches()) {
+                crmId = m.group(1);
+                Set<String> clones = failedClonesMap.get(unameLowerCase,
+                                                         crmId);
+                if (clones == null) {
+                    clones = new LinkedHashSet<String>();
+                    failedClonesMap.put(unameLowerCase, crmId, clones);
+                }
+                clones.add(m.group(2));
+            } else {
+                crmId = resId;
+            }
+            if (!resourceTypeMap.containsKey(crmId) && resList != null) {
+                String provider = lrmResource[1];
+                if (provider == null) {
+                    provider = ResourceAgent.HEARTBEAT_PROVIDER;
+                }
+                resourceTypeMap.put(crmId,
+                                    crmXML.getResourceAgent(lrmResource[2],
+                                                            provider,
+                                                            lrmResource[0]));
+                resList.add(crmId);
+                parametersMap.put(crmId, new HashMap<String, String>());
+                orphanedList.add(crmId);
+            }
+            /* it is in LRM */
+            Set<String> inLRMOnHost = inLRMList.get(unameLowerCase);
+            if (inLRMOnHost == null) {
+                inLRMOnHost = new HashSet<String>();
+                inLRMList.put(unameLowerCase, inLRMOnHost);
+            }
+            inLRMOnHost.add(crmId);
+        }
+    }
+
+    /** Returns attribute value or null. */
+    private String attr(final XMLStreamReader r, final String name) {
+        return r.getAttributeValue(null, name);
+    }
+
+    /** Returns CibQuery object with the parsed data. */
+    private CibQuery getCibQuery() {
+        final CibQuery cibQueryData = new CibQuery();
+        if (!hasPcmk) {
+            Tools.appWarning("there is no pcmk node");
+            return cibQueryData;
+        }
+        if (!hasCib) {
+            Tools.appWarning("there is no cib node");
+            return cibQueryData;
+        }
+        if (!hasConfiguration) {
+            Tools.appWarning("there is no configuration node");
+            return cibQueryData;
+        }
+        if (!hasCrmConfig) {
+            Tools.appWarning("there is no crm_config node");
+            return cibQueryData;
+        }
+        if (crmConfMap != null) {
+            cibQueryData.setCrmConfig(crmConfMap);
+        }
+        if (!hasResources) {
+            Tools.appWarning("there is no resources node");
+            return cibQueryData;
+        }
+
+        /* operationsRefs crm id -> crm id */
+        final Map<String, String> operationsRefs =
+                                                 new HashMap<String, String>();
+        for (final String crmId : operationsIdRefs.keySet()) {
+            final String idRef = operationsIdRefs.get(crmId);
+            operationsRefs.put(crmId, operationsIdtoCRMId.get(idRef));
+        }
+
+        /* mettaAttrsRefs crm id -> crm id */
+        final Map<String, String> metaAttrsRefs = new HashMap<String, String>();
+        for (final String crmId : metaAttrsIdRefs.keySet()) {
+            final String idRef = metaAttrsIdRefs.get(crmId);
+            metaAttrsRefs.put(crmId, metaAttrsIdToCRMId.get(idRef));
+        }
+
+        cibQueryData.setDC(dc);
+        cibQueryData.setNodeParameters(nodeParametersMap);
+        cibQueryData.setParameters(parametersMap);
+        cibQueryData.setParametersNvpairsIds(parametersNvpairsIdsMap);
+        cibQueryData.setResourceType(resourceTypeMap);
+        cibQueryData.setInLRM(inLRMList);
+        cibQueryData.setOrphaned(orphanedList);
+        cibQueryData.setResourceInstanceAttrId(resourceInstanceAttrIdMap);
+
+        cibQueryData.setColocationRsc(colocationRscMap);
+        cibQueryData.setColocationId(colocationIdMap);
+
+        cibQueryData.setOrderId(orderIdMap);
+        cibQueryData.setOrderIdRscSets(orderIdRscSetsMap);
+        cibQueryData.setColocationIdRscSets(colocationIdRscSetsMap);
+        cibQueryData.setRscSetConnections(rscSetConnections);
+        cibQueryData.setOrderRsc(orderRscMap);
+
+        cibQueryData.setLocation(locationMap);
+        cibQueryData.setPingLocation(pingLocationMap);
+        cibQueryData.setLocationsId(locationsIdMap);
+        cibQueryData.setResHostToLocId(resHostToLocIdMap);
+        cibQueryData.setResPingToLocId(resPingToLocIdMap);
+        cibQueryData.setOperations(operationsMap);
+        cibQueryData.setOperationsId(operationsIdMap);
+        cibQueryData.setOperationsRefs(operationsRefs);
+        cibQueryData.setMetaAttrsId(metaAttrsIdMap);
+        cibQueryData.setMetaAttrsRefs(metaAttrsRefs);
+        cibQueryData.setResOpIds(resOpIdsMap);
+        cibQueryData.setNodeOnline(nodeOnline);
+        cibQueryData.setNodePending(nodePending);
+        cibQueryData.setGroupsToResources(groupsToResourcesMap);
+        cibQueryData.setCloneToResource(cloneToResourceMap);
+        cibQueryData.setMasterList(masterList);
+        cibQueryData.setFailed(failedMap);
+        cibQueryData.setFailedClones(failedClonesMap);
+        cibQueryData.setPingCount(pingCountMap);
+        cibQueryData.setRscDefaultsId(rscDefaultsId);
+        cibQueryData.setRscDefaultsParams(rscDefaultsParams);
+        cibQueryData.setRscDefaultsParamsNvpairIds(rscDefaultsParamsNvpairIds);
+        cibQueryData.setOpDefaultsParams(opDefaultsParams);
+        cibQueryData.setFencedNodes(fencedNodes);
+        return cibQueryData;
+    }
+
+    /** Primitive, group or clone, that is being parsed. */
+    private static final class ResFrame {
+        /** Kind of the resource. */
+        private final Kind kind;
+        /** Name of the element. */
+        private final String nodeName;
+        /** Crm id. */
+        private final String crmId;
+        /** Depth of the element. */
+        private final int depth;
+        /** Resources in the group or clone. */
+        private final List<String> resList;
+        /** Whether it is a stonith resource. */
+        private final boolean stonith;
+        /** Parameters. */
+        private final Map<String, String> params =
+                                                new HashMap<String, String>();
+        /** Parameters nvpair ids. */
+        private final Map<String, String> nvpairIds =
+                                                new HashMap<String, String>();
+
+        /** Creates new ResFrame object. */
+        ResFrame(final Kind kind,
+                 final String nodeName,
+                 final String crmId,
+                 final int depth,
+                 final List<String> resList,
+                 final boolean stonith) {
+            this.kind = kind;
+            this.nodeName = nodeName;
+            this.crmId = crmId;
+            this.depth = depth;
+            this.resList = resList;
+            this.stonith = stonith;
+        }
+    }
+}
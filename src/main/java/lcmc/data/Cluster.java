@@ -104,7 +104,6 @@ public final class Cluster {
         final ClusterBrowser cb = clusterBrowser;
         if (cb != null) {
             clusterBrowser.stopServerStatus();
-            clusterBrowser.stopDrbdStatus();
             clusterBrowser.stopClStatus();
         }
     }
@@ -0,0 +1,586 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import lcmc.data.resources.BlockDevice;
+import lcmc.utilities.ExecCallback;
+import lcmc.utilities.FrameDecoder;
+import lcmc.utilities.NewOutputCallback;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.Tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.collections15.keyvalue.MultiKey;
+
+/**
+ * This class runs the status of one cluster without the cluster browser,
+ * for the status daemon. It runs the same status streams as the gui, one
+ * server status per host and one cluster status per cluster, and parses
+ * them with the same ClusterStatus, DrbdXML and VMSXML objects, but there
+ * are no graphs, infos or widgets, that would be updated.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class ClusterMonitor {
+    /** Cluster status output, if the cluster status failed. */
+    private static final String CLUSTER_STATUS_ERROR = "error";
+    /** How long to wait till the next connect, if no host is connected. */
+    private static final int CONNECT_DELAY = 30000;
+    /** How long to wait till the server status is started again. */
+    private static final int SERVER_STATUS_DELAY = 10000;
+    /** How long to wait till the cluster status is started again. */
+    private static final int CL_STATUS_DELAY = 5000;
+    /** The cluster. */
+    private final Cluster cluster;
+    /** Cluster status, null till the first host is connected. */
+    private volatile ClusterStatus clusterStatus = null;
+    /** Drbd config and events, null till the first host is connected. */
+    private volatile DrbdXML drbdXML = null;
+    /** Drbd parameters from every host. */
+    private final Map<Host, String> drbdParameters =
+                                                  new HashMap<Host, String>();
+    /** VMs on every host. */
+    private final Map<Host, VMSXML> vmsXML =
+                                       new ConcurrentHashMap<Host, VMSXML>();
+    /** Cluster status lock. */
+    private final Lock mClStatusLock = new ReentrantLock();
+    /** Whether the monitor was stopped. */
+    private volatile boolean stopped = false;
+
+    /** Prepares a new <code>ClusterMonitor</code> object. */
+    public ClusterMonitor(final Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    /** Connects the hosts and starts the status in the background. */
+    public void start() {
+        TaskExecutor.startLoop(cluster.getName() + "-cluster-status",
+                               new Runnable() {
+            @Override
+            public void run() {
+                startStatus();
+            }
+        });
+    }
+
+    /** Stops the status and disconnects the hosts. */
+    public void stop() {
+        stopped = true;
+        for (final Host host : cluster.getHostsArray()) {
+            host.disconnect();
+        }
+    }
+
+    /** Returns the cluster. */
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * Waits till a host is connected and starts the server status on every
+     * host and the cluster status, that runs in this thread.
+     */
+    private void startStatus() {
+        Host firstHost = null;
+        while (!stopped) {
+            if (!cluster.connect(null, false, 1)) {
+                Tools.appWarning(cluster.getName() + ": connection canceled");
+                return;
+            }
+            for (final Host host : cluster.getHostsArray()) {
+                host.waitOnLoading();
+                if (firstHost == null && host.isConnected()) {
+                    firstHost = host;
+                }
+            }
+            if (firstHost != null) {
+                break;
+            }
+            Tools.sleep(CONNECT_DELAY);
+        }
+        if (firstHost == null) {
+            return;
+        }
+        Tools.info(cluster.getName() + ": status started");
+        clusterStatus = new ClusterStatus(firstHost,
+                                          new CRMXML(firstHost, null));
+        clusterStatus.setFullCibQueryListener(
+                                new ClusterStatus.FullCibQueryListener() {
+            @Override
+            public void fullCibQuery(final String status) {
+                mClStatusLock.lock();
+                try {
+                    clusterStatus.parseStatus(status);
+                } finally {
+                    mClStatusLock.unlock();
+                }
+            }
+
+            @Override
+            public void fullCibQueryFailed() {
+                Tools.info(cluster.getName()
+                           + ": could not get the cib, the status is stale");
+            }
+        });
+        drbdXML = new DrbdXML(cluster.getHostsArray(), drbdParameters);
+        for (final Host host : cluster.getHostsArray()) {
+            TaskExecutor.startLoop(host.getName() + "-server-status",
+                                   new Runnable() {
+                @Override
+                public void run() {
+                    startServerStatus(host);
+                }
+            });
+        }
+        startClStatus();
+    }
+
+    /** Runs the server status on the host, till the monitor is stopped. */
+    private void startServerStatus(final Host host) {
+        while (!stopped) {
+            if (host.isConnected()) {
+                host.setIsLoading();
+                host.startStatusStream(getHwOutputCallback(host),
+                                       getDrbdStatusExecCallback(host),
+                                       getDrbdStatusOutputCallback(host));
+            } else {
+                host.setDrbdStatus(false);
+                cluster.connect(null, false, 1);
+            }
+            if (stopped) {
+                break;
+            }
+            Tools.sleep(SERVER_STATUS_DELAY);
+        }
+    }
+
+    /** Returns the callback, that parses the hw, vm and drbd info. */
+    private NewOutputCallback getHwOutputCallback(final Host host) {
+        return new NewOutputCallback() {
+            private final FrameDecoder frameDecoder = new FrameDecoder();
+            @Override
+            public void output(final String output) {
+                for (final FrameDecoder.Frame frame
+                                           : frameDecoder.decode(output)) {
+                    final String type = frame.getType();
+                    if ("hw".equals(type)) {
+                        if (host.isNewInfo(type, frame.getTimestamp())) {
+                            host.parseHostInfo(frame.getPayload());
+                        }
+                    } else if ("vm".equals(type)) {
+                        host.vmStatusLock();
+                        if (host.isNewInfo(type, frame.getTimestamp())) {
+                            /* partial updates are merged */
+                            final VMSXML newVMSXML = new VMSXML(host);
+                            if (newVMSXML.update(frame.getPayload(),
+                                                 vmsXML.get(host))) {
+                                vmsXML.put(host, newVMSXML);
+                            }
+                        }
+                        host.vmStatusUnlock();
+                    } else if ("drbd".equals(type)) {
+                        updateDrbdConfig(host, frame);
+                    }
+                }
+                host.setLoadingDone();
+            }
+        };
+    }
+
+    /** Returns the callback, that is called, when the drbd status ends. */
+    private ExecCallback getDrbdStatusExecCallback(final Host host) {
+        return new ExecCallback() {
+            @Override
+            public void done(final String ans) {
+                host.setDrbdStatus(true);
+            }
+
+            @Override
+            public void doneError(final String ans, final int exitCode) {
+                Tools.debug(this, "drbd status failed: "
+                                  + host.getName()
+                                  + " exit code: "
+                                  + exitCode,
+                            1);
+                if (exitCode != 143 && exitCode != 100) {
+                    host.setDrbdStatus(false);
+                }
+            }
+        };
+    }
+
+    /** Returns the callback, that parses the drbd config and events. */
+    private NewOutputCallback getDrbdStatusOutputCallback(final Host host) {
+        return new NewOutputCallback() {
+            private final FrameDecoder frameDecoder = new FrameDecoder();
+            @Override
+            public void output(final String output) {
+                if ("--nm--".equals(output.trim())) {
+                    host.setDrbdStatus(false);
+                    return;
+                }
+                if (!host.isDrbdStatus()) {
+                    host.setDrbdStatus(true);
+                }
+                for (final FrameDecoder.Frame frame
+                                           : frameDecoder.decode(output)) {
+                    final String type = frame.getType();
+                    if ("drbd".equals(type)) {
+                        updateDrbdConfig(host, frame);
+                    } else if ("event".equals(type)
+                               && host.isNewInfo(type, frame.getTimestamp())) {
+                        drbdXML.parseDrbdEvent(host,
+                                               null,
+                                               frame.getPayload());
+                    }
+                }
+            }
+        };
+    }
+
+    /** Parses the drbd config, if it is newer than the last one. */
+    private void updateDrbdConfig(final Host host,
+                                  final FrameDecoder.Frame frame) {
+        host.drbdStatusLock();
+        if (host.isNewInfo(frame.getType(), frame.getTimestamp())) {
+            final DrbdXML newDrbdXML = new DrbdXML(cluster.getHostsArray(),
+                                                   drbdParameters);
+            newDrbdXML.update(frame.getPayload());
+            drbdXML = newDrbdXML;
+        }
+        host.drbdStatusUnlock();
+    }
+
+    /** Runs the cluster status on the dc host, till the monitor is stopped. */
+    private void startClStatus() {
+        while (!stopped) {
+            final Host host = getDCHost();
+            if (host == null) {
+                Tools.sleep(CL_STATUS_DELAY);
+                continue;
+            }
+            host.execClStatusCommand(
+                 new ExecCallback() {
+                     @Override
+                     public void done(final String ans) {
+                         /* nothing to do */
+                     }
+
+                     @Override
+                     public void doneError(final String ans,
+                                           final int exitCode) {
+                         Tools.debug(this, "cluster status failed: "
+                                           + host.getName()
+                                           + ", ec: "
+                                           + exitCode, 2);
+                         mClStatusLock.lock();
+                         try {
+                             clusterStatus.setOnlineNode(host.getName(), "no");
+                             clusterStatus.setDC(null);
+                         } finally {
+                             mClStatusLock.unlock();
+                         }
+                     }
+                 },
+                 new NewOutputCallback() {
+                     private final FrameDecoder frameDecoder =
+                                                            new FrameDecoder();
+                     @Override
+                     public void output(final String output) {
+                         processClusterOutput(host, frameDecoder, output);
+                     }
+                 });
+            host.waitOnClStatus();
+            if (stopped) {
+                break;
+            }
+            Tools.sleep(CL_STATUS_DELAY);
+        }
+    }
+
+    /** Parses the cluster status output. */
+    private void processClusterOutput(final Host host,
+                                      final FrameDecoder frameDecoder,
+                                      final String output) {
+        mClStatusLock.lock();
+        try {
+            if (output == null || "".equals(output)) {
+                clusterStatus.setOnlineNode(host.getName(), "no");
+                return;
+            }
+            for (final FrameDecoder.Frame frame
+                                            : frameDecoder.decode(output)) {
+                if (!FrameDecoder.CLUSTER_TYPE.equals(frame.getType())) {
+                    continue;
+                }
+                final String status = frame.getPayload();
+                if (CLUSTER_STATUS_ERROR.equals(status.trim())) {
+                    clusterStatus.setOnlineNode(host.getName(), "no");
+                } else if (status.indexOf("is stopped") < 0
+                           && clusterStatus.parseStatus(status)) {
+                    Tools.debug(this,
+                                "update cluster status: " + host.getName(),
+                                1);
+                }
+            }
+        } finally {
+            mClStatusLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the dc host, or the next connected host, where the cluster is
+     * running, if the dc is not known. Returns null if there is no such host.
+     */
+    private Host getDCHost() {
+        final ClusterStatus cl = clusterStatus;
+        final String dc = cl.getDC();
+        Host dcHost = null;
+        for (final Host host : cluster.getHostsArray()) {
+            if (!host.isConnected()
+                || (!host.isHeartbeatRunning()
+                    && !host.isCsRunning()
+                    && !host.isAisRunning())) {
+                continue;
+            }
+            if (host.getName().equals(dc)) {
+                return host;
+            }
+            if (dcHost == null) {
+                dcHost = host;
+            }
+        }
+        return dcHost;
+    }
+
+    /**
+     * Appends the status of the cluster as a JSON object: the hosts, the
+     * pacemaker resources, the drbd volumes and the VMs.
+     */
+    public void appendJSON(final StringBuilder json) {
+        json.append("{\"name\":");
+        appendJSONString(json, cluster.getName());
+        final ClusterStatus cl = clusterStatus;
+        json.append(",\"dc\":");
+        mClStatusLock.lock();
+        try {
+            appendJSONString(json, cl == null ? null : cl.getDC());
+            json.append(",\"hosts\":[");
+            boolean first = true;
+            for (final Host host : cluster.getHostsArray()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"name\":");
+                appendJSONString(json, host.getName());
+                json.append(",\"connected\":").append(host.isConnected());
+                json.append(",\"online\":");
+                appendJSONString(json,
+                                 cl == null ? null
+                                            : cl.isOnlineNode(host.getName()));
+                json.append(",\"drbd-status\":")
+                    .append(host.isDrbdStatus());
+                json.append('}');
+            }
+            json.append("],\"resources\":[");
+            if (cl != null) {
+                appendResources(json, cl);
+            }
+        } finally {
+            mClStatusLock.unlock();
+        }
+        json.append("],\"drbd\":[");
+        final DrbdXML dxml = drbdXML;
+        if (dxml != null) {
+            appendDrbdVolumes(json, dxml);
+        }
+        json.append("],\"vms\":[");
+        appendVMs(json);
+        json.append("]}");
+    }
+
+    /** Appends the pacemaker resources and where they are running. */
+    private void appendResources(final StringBuilder json,
+                                 final ClusterStatus cl) {
+        boolean first = true;
+        for (final String id : new TreeSet<String>(cl.getAllPrimitives())) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"id\":");
+            appendJSONString(json, id);
+            json.append(",\"managed\":").append(cl.isManaged(id, false));
+            json.append(",\"running-on\":");
+            appendJSONArray(json, cl.getRunningOnNodes(id, false));
+            json.append(",\"master-on\":");
+            appendJSONArray(json, cl.getMasterOnNodes(id, false));
+            json.append('}');
+        }
+    }
+
+    /** Appends the drbd volumes and their states on every host. */
+    private void appendDrbdVolumes(final StringBuilder json,
+                                   final DrbdXML dxml) {
+        boolean first = true;
+        for (final Object k : dxml.getResourceDeviceMap().keySet()) {
+            final String resName = (String) ((MultiKey) k).getKey(0);
+            final String volumeNr = (String) ((MultiKey) k).getKey(1);
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"resource\":");
+            appendJSONString(json, resName);
+            json.append(",\"volume\":");
+            appendJSONString(json, volumeNr);
+            json.append(",\"device\":");
+            appendJSONString(json, dxml.getDrbdDevice(resName, volumeNr));
+            json.append(",\"hosts\":[");
+            final Map<String, String> hostDiskMap =
+                                    dxml.getHostDiskMap(resName, volumeNr);
+            boolean firstHost = true;
+            for (final Host host : cluster.getHostsArray()) {
+                if (hostDiskMap == null) {
+                    break;
+                }
+                final String disk = hostDiskMap.get(host.getName());
+                if (disk == null) {
+                    continue;
+                }
+                if (!firstHost) {
+                    json.append(',');
+                }
+                firstHost = false;
+                json.append("{\"name\":");
+                appendJSONString(json, host.getName());
+                json.append(",\"disk\":");
+                appendJSONString(json, disk);
+                final BlockDevice bd = host.getBlockDevice(disk);
+                if (bd != null && host.isDrbdStatus()) {
+                    json.append(",\"connection-state\":");
+                    appendJSONString(json, bd.getConnectionState());
+                    json.append(",\"role\":");
+                    appendJSONString(json, bd.getNodeState());
+                    json.append(",\"disk-state\":");
+                    appendJSONString(json, bd.getDiskState());
+                    json.append(",\"synced\":");
+                    appendJSONString(json, bd.getSyncedProgress());
+                    json.append(",\"split-brain\":")
+                        .append(bd.isSplitBrain());
+                }
+                json.append('}');
+            }
+            json.append("]}");
+        }
+    }
+
+    /** Appends the VMs on every host. */
+    private void appendVMs(final StringBuilder json) {
+        boolean first = true;
+        for (final Host host : cluster.getHostsArray()) {
+            final VMSXML vxml = vmsXML.get(host);
+            if (vxml == null) {
+                continue;
+            }
+            for (final String domain : vxml.getDomainNames()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"name\":");
+                appendJSONString(json, domain);
+                json.append(",\"host\":");
+                appendJSONString(json, host.getName());
+                json.append(",\"running\":").append(vxml.isRunning(domain));
+                json.append(",\"suspended\":")
+                    .append(vxml.isSuspended(domain));
+                json.append('}');
+            }
+        }
+    }
+
+    /** Appends the list as a JSON array, that is empty, if there is none. */
+    private static void appendJSONArray(final StringBuilder json,
+                                        final List<String> values) {
+        if (values == null) {
+            json.append("[]");
+            return;
+        }
+        json.append('[');
+        final List<String> copy = new ArrayList<String>(values);
+        for (int i = 0; i < copy.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendJSONString(json, copy.get(i));
+        }
+        json.append(']');
+    }
+
+    /** Appends the string as a JSON string, or null. */
+    private static void appendJSONString(final StringBuilder json,
+                                         final String s) {
+        if (s == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -26,6 +26,8 @@ package lcmc.data;
 import lcmc.utilities.Tools;
 import lcmc.utilities.ConvertCmdCallback;
 import lcmc.utilities.SSH;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.data.CRMXML.ResStatus;
 
 import java.util.Map;
@@ -35,7 +37,9 @@ import java.util.Set;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.commons.collections15.map.MultiKeyMap;
+import org.w3c.dom.Document;
 
 /**
  * This class parses pacemaker/heartbeat status, stores information
@@ -61,6 +65,17 @@ public final class ClusterStatus {
     private String oldCib = null;
     /** Old advanced mode. */
     private boolean oldAdvancedMode = false;
+    /**
+     * Document from the last full cib query, that the cib diffs are applied
+     * to. It is kept only in the cib diff mode.
+     */
+    private Document cibDocument = null;
+    /** Applies the cib diffs to the cib document. */
+    private final CibDiff cibDiff = new CibDiff();
+    /** Whether the full cib query is running after a failed cib diff. */
+    private final AtomicBoolean fullCibQueryRunning = new AtomicBoolean(false);
+    /** Gets the full cib query, after a cib diff failed. */
+    private volatile FullCibQueryListener fullCibQueryListener = null;
     /** Host. */
     private final Host host;
 
@@ -91,6 +106,24 @@ public final class ClusterStatus {
         }
     }
 
+    /**
+     * Listener that gets the status with the full cib, after a cib diff could
+     * not be applied. It is called from a thread of the IO pool and must
+     * lock the cluster status like the caller of parseStatus.
+     */
+    public interface FullCibQueryListener {
+        /** The full cib query, that should be passed to parseStatus. */
+        void fullCibQuery(String status);
+        /** The full cib query failed, the cib is stale. */
+        void fullCibQueryFailed();
+    }
+
+    /** Sets the listener of the full cib query after a failed cib diff. */
+    public void setFullCibQueryListener(
+                                    final FullCibQueryListener listener) {
+        fullCibQueryListener = listener;
+    }
+
     /** Returns value of global config parameter. */
     public String getGlobalParam(final String param) {
         return cibQueryMap.getCrmConfig().get(param);
@@ -192,6 +225,11 @@ public final class ClusterStatus {
         }
     }
 
+    /** Returns ids of all primitive resources. */
+    Set<String> getAllPrimitives() {
+        return cibQueryMap.getResourceType().keySet();
+    }
+
     /** Returns all clone resources. */
     String[] getAllClones() {
         final Map<String, String> cloneToResource =
@@ -619,6 +657,19 @@ public final class ClusterStatus {
                     parseCibQuery(cib);
                     return true;
                 }
+            } else if ("cibdiff".equals(cmd)) {
+                final String diff =
+                       Tools.join("\n", data.toArray(new String[data.size()]));
+                Tools.debug(this, "cib diff update: " + host.getName(), 1);
+                oldCib = null;
+                oldAdvancedMode = Tools.getConfigData().isAdvancedMode();
+                if (!parseCibDiff(diff)) {
+                    Tools.debug(this, "cib diff failed, full query: "
+                                      + host.getName(), 1);
+                    startFullCibQuery();
+                    return false;
+                }
+                return true;
             }
         } else {
             Tools.appError("unknown command: " + command);
@@ -687,7 +738,82 @@ public final class ClusterStatus {
 
     /** Parses output from cibadmin command. */
     private void parseCibQuery(final String query) {
-        cibQueryMap = crmXML.parseCibQuery(query);
+        if (!Tools.getConfigData().isCibDiff()) {
+            cibQueryMap = crmXML.parseCibQuery(query);
+            return;
+        }
+        final Document document = crmXML.getXMLDocument(query);
+        cibDocument = document;
+        if (document == null) {
+            Tools.appWarning("cib error: " + query);
+            cibQueryMap = new CibQuery();
+            return;
+        }
+        cibQueryMap = crmXML.parseCibQuery(document);
+    }
+
+    /**
+     * Applies the cib diff to the document from the last cib query. Returns
+     * false if it could not be applied. The diff saves the transfer and the
+     * XML parsing of the whole cib, but the CibQuery is still built from the
+     * whole document, because the status section refers to the resources
+     * and the nodes from the configuration.
+     */
+    private boolean parseCibDiff(final String diff) {
+        final Document document = cibDocument;
+        cibDocument = null;
+        if (document == null) {
+            return false;
+        }
+        final Document diffDocument = crmXML.getXMLDocument(diff);
+        if (diffDocument == null || !cibDiff.apply(document, diffDocument)) {
+            return false;
+        }
+        cibDocument = document;
+        cibQueryMap = crmXML.parseCibQuery(document);
+        return true;
+    }
+
+    /**
+     * Gets the full cib in the IO pool, if the cib diff could not be applied,
+     * so that the cluster events are not stalled. The listener parses it.
+     * Until then the next cib diffs fail too, but start no other query.
+     */
+    private void startFullCibQuery() {
+        if (!fullCibQueryRunning.compareAndSet(false, true)) {
+            return;
+        }
+        TaskExecutor.execute(Pool.IO, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final String command =
+                           host.getDistCommand("Heartbeat.getClusterInfo",
+                                               (ConvertCmdCallback) null);
+                    final SSH.SSHOutput ret = Tools.execCommand(
+                                                host,
+                                                command,
+                                                null,  /* ExecCallback */
+                                                false, /* outputVisible */
+                                                SSH.DEFAULT_COMMAND_TIMEOUT);
+                    final FullCibQueryListener listener =
+                                                        fullCibQueryListener;
+                    if (ret.getExitCode() != 0 || ret.getOutput() == null) {
+                        Tools.appWarning("could not get the cib from "
+                                         + host.getName()
+                                         + ", exit code: "
+                                         + ret.getExitCode());
+                        if (listener != null) {
+                            listener.fullCibQueryFailed();
+                        }
+                    } else if (listener != null) {
+                        listener.fullCibQuery(ret.getOutput());
+                    }
+                } finally {
+                    fullCibQueryRunning.set(false);
+                }
+            }
+        });
     }
 
     /** Sets data from ptest. */
@@ -137,8 +137,6 @@ public final class ConfigData {
     public static final String PM_MASTER_SLAVE_SET_NAME = "Master/Slave Set";
     /** Name of the group pacemaker object. */
     public static final String PM_GROUP_NAME = "Group";
-    /** Remote port offset when making ssh tunnel for vnc. */
-    private int vncPortOffset = 0;
     /** Whether tight vnc viewer should be used. */
     private boolean tightvnc = false;
     /** Whether ultra vnc viewer should be used. */
@@ -167,6 +165,16 @@ public final class ConfigData {
     private int scale = 100;
     /** Whether no passphrase should be tried first. */
     private boolean noPassphrase = false;
+    /** Whether only cib diffs should be sent after the first cib query. */
+    private boolean cibDiff = false;
+    /** Whether the cib query should be parsed into the DOM tree. */
+    private boolean cibDom = false;
+    /** Whether the resource agent meta-data should be cached on disk. */
+    private boolean raCache = true;
+    /** Whether stack traces should be captured for delayed GUI errors. */
+    private boolean stackTraces = false;
+    /** Port of the status daemon, 0 if the gui should be started. */
+    private int daemonPort = 0;
 
     /**
      * Prepares a new <code>ConfigData</code> object and creates new hosts
@@ -491,16 +499,6 @@ public final class ConfigData {
         return autoOptions.get("global", option);
     }
 
-    /** Returns remote port offset when making ssh tunnel for vnc. */
-    public int getVncPortOffset() {
-        return vncPortOffset;
-    }
-
-    /** Sets remote port offset when making ssh tunnel for vnc. */
-    public void setVncPortOffset(final int vncPortOffset) {
-        this.vncPortOffset = vncPortOffset;
-    }
-
     /** Sets whether tight vnc viewer should be used. */
     public void setTightvnc(final boolean tightvnc) {
         this.tightvnc = tightvnc;
@@ -675,4 +673,59 @@ public final class ConfigData {
     public boolean isNoPassphrase() {
         return noPassphrase;
     }
+
+    /** Set whether only cib diffs should be sent after the first query. */
+    public void setCibDiff(final boolean cibDiff) {
+        this.cibDiff = cibDiff;
+    }
+
+    /** Return whether only cib diffs should be sent after the first query. */
+    public boolean isCibDiff() {
+        return cibDiff;
+    }
+
+    /** Set whether the cib query should be parsed into the DOM tree. */
+    public void setCibDom(final boolean cibDom) {
+        this.cibDom = cibDom;
+    }
+
+    /** Return whether the cib query should be parsed into the DOM tree. */
+    public boolean isCibDom() {
+        return cibDom;
+    }
+
+    /** Set whether the resource agent meta-data should be cached on disk. */
+    public void setRACache(final boolean raCache) {
+        this.raCache = raCache;
+    }
+
+    /** Return whether the resource agent meta-data should be cached. */
+    public boolean isRACache() {
+        return raCache;
+    }
+
+    /** Set whether stack traces should be captured for delayed errors. */
+    public void setStackTraces(final boolean stackTraces) {
+        this.stackTraces = stackTraces;
+    }
+
+    /** Return whether stack traces should be captured for delayed errors. */
+    public boolean isStackTraces() {
+        return stackTraces;
+    }
+
+    /** Set port of the status daemon, 0 if the gui should be started. */
+    public void setDaemonPort(final int daemonPort) {
+        this.daemonPort = daemonPort;
+    }
+
+    /** Return port of the status daemon, 0 if the gui should be started. */
+    public int getDaemonPort() {
+        return daemonPort;
+    }
+
+    /** Return whether it runs as a status daemon without the gui. */
+    public boolean isDaemon() {
+        return daemonPort > 0;
+    }
 }
@@ -0,0 +1,481 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.Node;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.regex.Matcher;
+
+import java.math.BigInteger;
+
+/**
+ * This class parses the drbd parameters from the drbdsetup xml help and
+ * keeps their types, defaults, units and choices. It does not change after
+ * it is created, so that the same object is shared by all DrbdXML objects,
+ * that were created from the same xml help, on the same hosts. Only the
+ * drbd config is then parsed for every drbd event.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+final class DrbdParameters extends XML {
+    /** How many parameter sets are cached. */
+    private static final int CACHE_SIZE = 8;
+    /** Parsed parameters by the xml help and the hosts. */
+    private static final Map<List<Object>, DrbdParameters> CACHE =
+        new LinkedHashMap<List<Object>, DrbdParameters>(CACHE_SIZE, 0.75f,
+                                                        true) {
+            /** Serial version uid. */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                         final Map.Entry<List<Object>, DrbdParameters> e) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    /** Beginning of the command in the xml help. */
+    private static final Pattern COMMAND_BEGIN_PATTERN =
+                                  Pattern.compile("^<command name=\"(.*?)\".*");
+    /** End of the command in the xml help. */
+    private static final Pattern COMMAND_END_PATTERN =
+                                               Pattern.compile("^</command>$");
+    /** Map from parameter name to the default value. */
+    private final Map<String, String> paramDefaultMap =
+                                               new HashMap<String, String>();
+    /** Map from parameter name to its type. */
+    private final Map<String, String> paramTypeMap =
+                                                new HashMap<String, String>();
+    /** Map from parameter name to its section. */
+    private final Map<String, String> paramSectionMap =
+                                            new LinkedHashMap<String, String>();
+    /** Map from section to this section's parameters. */
+    private final Map<String, List<String>> sectionParamsMap =
+                                      new LinkedHashMap<String, List<String>>();
+    /** Map from perameter name to its unit name (long). */
+    private final Map<String, String> paramUnitLongMap =
+                                           new LinkedHashMap<String, String>();
+    /** Map from perameter name to its unit name. */
+    private final Map<String, String> paramDefaultUnitMap =
+                                           new LinkedHashMap<String, String>();
+    /** Map from perameter name to its long description. */
+    private final Map<String, String> paramLongDescMap =
+                                                new HashMap<String, String>();
+    /** Map from perameter name to its minimum value. */
+    private final Map<String, BigInteger> paramMinMap =
+                                    new LinkedHashMap<String, BigInteger>();
+    /** Map from perameter name to its maximum value. */
+    private final Map<String, BigInteger> paramMaxMap =
+                                        new LinkedHashMap<String, BigInteger>();
+    /** Map from perameter name to its items if there is a choice list. */
+    private final Map<String, List<Object>> paramItemsMap =
+                                    new LinkedHashMap<String, List<Object>>();
+    /** List of all parameters. */
+    private final List<String> parametersList = new ArrayList<String>();
+    /** List of all gloval parameters. */
+    private final List<String> globalParametersList = new ArrayList<String>();
+    /** List of all required parameters. */
+    private final List<String> requiredParametersList =
+                                                    new ArrayList<String>();
+
+    /**
+     * Prepares a new <code>DrbdParameters</code> object. Only the hosts, that
+     * have the xml help in the list of outputs, are parsed.
+     */
+    private DrbdParameters(final Host[] hosts, final List<String> outputs) {
+        super();
+        addSpecialParameter("resource", "name", true);
+        for (int i = 0; i < outputs.size(); i++) {
+            parseDrbdParameters(hosts[i], outputs.get(i), hosts);
+        }
+    }
+
+    /**
+     * Returns parameters parsed from the xml help of the hosts. The xml help
+     * of the hosts, that don't have it yet, is obtained from the host and
+     * put in the drbdParameters map. If the xml help cannot be obtained,
+     * only the hosts before this host are parsed and the parameters are not
+     * cached.
+     */
+    static DrbdParameters get(final Host[] hosts,
+                              final Map<Host, String> drbdParameters) {
+        final List<String> outputs = new ArrayList<String>();
+        final List<Object> key = new ArrayList<Object>();
+        boolean complete = true;
+        for (final Host host : hosts) {
+            String output = drbdParameters.get(host);
+            if (output == null) {
+                output = DrbdXML.updateDrbdParameters(host);
+                drbdParameters.put(host, output);
+                if (output == null) {
+                    complete = false;
+                    break;
+                }
+            }
+            outputs.add(output);
+            key.add(output);
+            key.add(host.getName());
+            key.add(host.getArch());
+            if (!"".equals(host.getArch())) {
+                key.add(host.getHeartbeatLibPath());
+            }
+            key.add(new HashSet<String>(host.getCryptoModules()));
+        }
+        for (final Host host : hosts) {
+            key.add(host.getName());
+        }
+        if (complete) {
+            synchronized (CACHE) {
+                final DrbdParameters cached = CACHE.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+        final DrbdParameters parameters = new DrbdParameters(hosts, outputs);
+        if (complete) {
+            synchronized (CACHE) {
+                CACHE.put(key, parameters);
+            }
+        }
+        return parameters;
+    }
+
+    /** Parses the xml help of one host. */
+    private void parseDrbdParameters(final Host host,
+                                     final String output,
+                                     final Host[] hosts) {
+        final String[] lines = output.split("\\r?\\n");
+        final StringBuilder xml = new StringBuilder();
+        String section = null;
+
+        for (final String line : lines) {
+            final Matcher m = COMMAND_BEGIN_PATTERN.matcher(line);
+            if (m.matches()) {
+                section = m.group(1);
+            }
+            if (section != null) {
+                xml.append(line);
+                xml.append('\n');
+                final Matcher m2 = COMMAND_END_PATTERN.matcher(line);
+                if (m2.matches()) {
+                    parseSection(section, xml.toString(), host, hosts);
+                    section = null;
+                    xml.delete(0, xml.length());
+                }
+            }
+        }
+        if (!parametersList.contains(DrbdXML.PROTOCOL_PARAM)) {
+            /* prior 8.4 */
+            addParameter("resource",
+                         DrbdXML.PROTOCOL_PARAM,
+                         DrbdXML.PROTOCOL_C,
+                         DrbdXML.PROTOCOLS,
+                         true);
+        }
+    }
+
+    /** Returns all drbd parameters. */
+    List<String> getParameters() {
+        return Collections.unmodifiableList(parametersList);
+    }
+
+    /** Returns parameters for the global section. */
+    List<String> getGlobalParams() {
+        return Collections.unmodifiableList(globalParametersList);
+    }
+
+    /** Returns whether the parameter is required. */
+    boolean isRequired(final String param) {
+        return requiredParametersList.contains(param);
+    }
+
+    /** Returns the long name of the unit of the specified parameter. */
+    String getUnitLong(final String param) {
+        return paramUnitLongMap.get(param);
+    }
+
+    /** Returns the default unit of the specified parameter. */
+    String getDefaultUnit(final String param) {
+        return paramDefaultUnitMap.get(param);
+    }
+
+    /** Returns whether the parameter has the default unit. */
+    boolean hasDefaultUnit(final String param) {
+        return paramDefaultUnitMap.containsKey(param);
+    }
+
+    /** Returns the long description of the parameter. */
+    String getLongDesc(final String param) {
+        return paramLongDescMap.get(param);
+    }
+
+    /** Returns the type of the parameter. */
+    String getType(final String param) {
+        return paramTypeMap.get(param);
+    }
+
+    /** Returns the default value of the parameter. */
+    String getDefault(final String param) {
+        return paramDefaultMap.get(param);
+    }
+
+    /** Returns the section of the parameter. */
+    String getSection(final String param) {
+        return paramSectionMap.get(param);
+    }
+
+    /** Returns the minimum value of the parameter. */
+    BigInteger getMin(final String param) {
+        return paramMinMap.get(param);
+    }
+
+    /** Returns the maximum value of the parameter. */
+    BigInteger getMax(final String param) {
+        return paramMaxMap.get(param);
+    }
+
+    /** Returns the choices of the parameter or null. */
+    List<Object> getItems(final String param) {
+        final List<Object> items = paramItemsMap.get(param);
+        if (items == null) {
+            return null;
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    /** Returns whether the section or the section with options exists. */
+    boolean hasSection(final String section) {
+        return sectionParamsMap.containsKey(section);
+    }
+
+    /** Returns all sections. */
+    String[] getSections() {
+        return sectionParamsMap.keySet().toArray(
+                                        new String[sectionParamsMap.size()]);
+    }
+
+    /** Returns parameters of the section or null. */
+    List<String> getSectionParams(final String section) {
+        final List<String> params = sectionParamsMap.get(section);
+        if (params == null) {
+            return null;
+        }
+        return Collections.unmodifiableList(params);
+    }
+
+    /**
+     * Adds parameter to the specified section. This parameter will be not
+     * used in the generated config.
+     */
+    private void addSpecialParameter(final String section,
+                                     final String param,
+                                     final boolean required) {
+        if (!parametersList.contains(param)) {
+            parametersList.add(param);
+            if (required) {
+                requiredParametersList.add(param);
+            }
+
+            paramTypeMap.put(param, "string");
+            paramSectionMap.put(param, section);
+        }
+    }
+
+    /** Add paremeter with choice combo box. */
+    private void addParameter(final String section,
+                              final String param,
+                              final String defaultValue,
+                              final Object[] items,
+                              final boolean required) {
+        addParameter(section, param, defaultValue, required);
+        final List<Object> l = new ArrayList<Object>();
+        for (int i = 0; i < items.length; i++) {
+            if (!l.contains(items[i])) {
+                l.add(items[i]);
+            }
+        }
+        paramItemsMap.put(param, l);
+        paramTypeMap.put(param, "handler");
+    }
+
+    /** Adds parameter to the specified section. */
+    private void addParameter(final String section,
+                              final String param,
+                              final boolean required) {
+        addSpecialParameter(section, param, required);
+        sectionParamsMap.put(section, new ArrayList<String>());
+        sectionParamsMap.get(section).add(param);
+    }
+
+    /** Adds parameter with a default value to the specified section. */
+    private void addParameter(final String section,
+                              final String param,
+                              final String defaultValue,
+                              final boolean required) {
+        addParameter(section, param, required);
+        paramDefaultMap.put(param, defaultValue);
+    }
+
+    /** Parses command xml for parameters and fills up the hashes. */
+    private void parseSection(final String section,
+                              final String xml,
+                              final Host host,
+                              final Host[] hosts) {
+        final Document document = getXMLDocument(xml);
+
+        /* get root <command> */
+        final Node commandNode = getChildNode(document, "command");
+        if (commandNode == null) {
+            return;
+        }
+        final NodeList options = commandNode.getChildNodes();
+        for (int i = 0; i < options.getLength(); i++) {
+            final Node optionNode = options.item(i);
+
+            /* <option> */
+            if (optionNode.getNodeName().equals("option")) {
+                final String name = getAttribute(optionNode, "name");
+                final String type = getAttribute(optionNode, "type");
+                if ("flag".equals(type)) {
+                    /* ignore flags */
+                    continue;
+                }
+                if ("handler".equals(type)) {
+                    final List<Object> items = new ArrayList<Object>();
+                    items.add("");
+                    paramItemsMap.put(name, items);
+                    paramDefaultMap.put(name,
+                                        DrbdXML.HARDCODED_DEFAULTS.get(name));
+                } else if ("boolean".equals(type)) {
+                    final List<Object> l = new ArrayList<Object>();
+                    l.add(DrbdXML.CONFIG_YES);
+                    l.add(DrbdXML.CONFIG_NO);
+                    paramItemsMap.put(name, l);
+                    paramDefaultMap.put(name, DrbdXML.CONFIG_NO);
+                }
+                if ("fence-peer".equals(name)) {
+                    final List<Object> l = new ArrayList<Object>();
+                    l.add("");
+                    if (!"".equals(host.getArch())) {
+                        l.add(host.getHeartbeatLibPath()
+                              + "/drbd-peer-outdater -t 5");
+                    }
+                    l.add("/usr/lib/drbd/crm-fence-peer.sh");
+                    paramItemsMap.put(name, l);
+                } else if ("after-resync-target".equals(name)) {
+                    final List<Object> l = new ArrayList<Object>();
+                    l.add("");
+                    l.add("/usr/lib/drbd/crm-unfence-peer.sh");
+                    paramItemsMap.put(name, l);
+                } else if ("split-brain".equals(name)) {
+                    final List<Object> l = new ArrayList<Object>();
+                    l.add("");
+                    l.add("/usr/lib/drbd/notify-split-brain.sh root");
+                    paramItemsMap.put(name, l);
+                } else if ("become-primary-on".equals(name)) {
+                    final List<Object> l = new ArrayList<Object>();
+                    l.add("");
+                    l.add("both");
+                    for (final Host h : hosts) {
+                        l.add(h.getName());
+                    }
+                    paramItemsMap.put(name, l);
+                } else if ("verify-alg".equals(name)
+                           || "csums-alg".equals(name)
+                           || "data-integrity-alg".equals(name)
+                           || "cram-hmac-alg".equals(name)) {
+                    final List<Object> l = new ArrayList<Object>();
+                    l.add("");
+                    for (final String cr : host.getCryptoModules()) {
+                        l.add(cr);
+                    }
+                    paramItemsMap.put(name, l);
+                }
+                final NodeList optionInfos = optionNode.getChildNodes();
+                for (int j = 0; j < optionInfos.getLength(); j++) {
+                    final Node optionInfo = optionInfos.item(j);
+                    final String tag = optionInfo.getNodeName();
+                    /* <min>, <max>, <handler>, <default> */
+                    if ("min".equals(tag)) {
+                        paramMinMap.put(name,
+                                        new BigInteger(getText(optionInfo)));
+                    } else if ("max".equals(tag)) {
+                        paramMaxMap.put(name,
+                                        new BigInteger(getText(optionInfo)));
+                    } else if ("handler".equals(tag)) {
+                        paramItemsMap.get(name).add(getText(optionInfo));
+                    } else if ("default".equals(tag)) {
+                        paramDefaultMap.put(name, getText(optionInfo));
+                    } else if ("unit".equals(tag)) {
+                        paramUnitLongMap.put(name, getText(optionInfo));
+                    } else if ("unit_prefix".equals(tag)) {
+                        if (!"after".equals(name)
+                            && !"resync-after".equals(name)) {
+                            String option = getText(optionInfo);
+                            if (!"s".equals(option)) {
+                                /* "s" is an exception */
+                                option = option.toUpperCase(Locale.US);
+                            }
+                            if ("1".equals(option)) {
+                                option = "";
+                            }
+                            paramDefaultUnitMap.put(name, option);
+                        }
+                    } else if ("desc".equals(tag)) {
+                        paramLongDescMap.put(name, getText(optionInfo));
+                    }
+                }
+                paramTypeMap.put(name, type);
+                if (!DrbdXML.GLOBAL_SECTION.equals(section)
+                    && !parametersList.contains(name)) {
+                    parametersList.add(name);
+                }
+                if (!"resource".equals(section)
+                    && !globalParametersList.contains(name)
+                    && !("syncer".equals(section) && "after".equals(name))
+                    && !"resync-after".equals(name)) {
+                    globalParametersList.add(name);
+                }
+
+                paramSectionMap.put(name, section);
+                if (!sectionParamsMap.containsKey(section)) {
+                    sectionParamsMap.put(section, new ArrayList<String>());
+                }
+                if (!sectionParamsMap.get(section).contains(name)) {
+                    sectionParamsMap.get(section).add(name);
+                }
+            }
+        }
+    }
+}
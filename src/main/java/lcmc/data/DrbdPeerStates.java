@@ -0,0 +1,144 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.collections15.map.MultiKeyMap;
+import org.apache.commons.collections15.map.LinkedMap;
+import org.apache.commons.collections15.keyvalue.MultiKey;
+
+/**
+ * This class keeps the states of the drbd 9 connections and peer devices
+ * of one host, as they come from the drbdsetup events2. Since drbd 9 a
+ * resource can have more peers, this class makes one connection state out of
+ * them for every volume, the way it is shown for the block device.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class DrbdPeerStates {
+    /** Connected drbd connection state. */
+    private static final String CONNECTED = "Connected";
+    /** Replication state, when the peers are connected and not syncing. */
+    private static final String ESTABLISHED = "Established";
+    /** Replication state, when the peers are not connected. */
+    private static final String OFF = "Off";
+    /** Connection states by resource and connection name. */
+    private final MultiKeyMap<String, String> connectionStates =
+                          MultiKeyMap.decorate(
+                                 new LinkedMap<MultiKey<String>, String>());
+    /** Replication states by resource, volume and connection name. */
+    private final MultiKeyMap<String, String> replicationStates =
+                          MultiKeyMap.decorate(
+                                 new LinkedMap<MultiKey<String>, String>());
+
+    /** Sets the state of the connection. */
+    synchronized void setConnectionState(final String resName,
+                                         final String connName,
+                                         final String state) {
+        connectionStates.put(resName, connName, state);
+    }
+
+    /** Sets the replication state of the peer device. */
+    synchronized void setReplicationState(final String resName,
+                                          final String volumeNr,
+                                          final String connName,
+                                          final String state) {
+        replicationStates.put(resName, volumeNr, connName, state);
+    }
+
+    /** Removes the connection and its peer devices. */
+    synchronized void removeConnection(final String resName,
+                                       final String connName) {
+        connectionStates.remove(new MultiKey<String>(resName, connName));
+        for (final MultiKey<String> key : getKeys(replicationStates)) {
+            if (resName.equals(key.getKey(0))
+                && connName.equals(key.getKey(2))) {
+                replicationStates.remove(key);
+            }
+        }
+    }
+
+    /** Removes the peer device. */
+    synchronized void removePeerDevice(final String resName,
+                                       final String volumeNr,
+                                       final String connName) {
+        replicationStates.remove(
+                          new MultiKey<String>(resName, volumeNr, connName));
+    }
+
+    /** Removes all connections and peer devices of the resource. */
+    synchronized void removeResource(final String resName) {
+        for (final MultiKey<String> key : getKeys(connectionStates)) {
+            if (resName.equals(key.getKey(0))) {
+                connectionStates.remove(key);
+            }
+        }
+        for (final MultiKey<String> key : getKeys(replicationStates)) {
+            if (resName.equals(key.getKey(0))) {
+                replicationStates.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the connection state of the volume, as it was before drbd 9.
+     * A peer device, that is syncing, is shown first, then a connection,
+     * that is not connected. Returns null if there are no connections.
+     */
+    synchronized String getConnectionState(final String resName,
+                                           final String volumeNr) {
+        for (final MultiKey<String> key : getKeys(replicationStates)) {
+            if (resName.equals(key.getKey(0))
+                && volumeNr.equals(key.getKey(1))) {
+                final String state = replicationStates.get(key);
+                if (!ESTABLISHED.equals(state) && !OFF.equals(state)) {
+                    return state;
+                }
+            }
+        }
+        String connected = null;
+        for (final MultiKey<String> key : getKeys(connectionStates)) {
+            if (resName.equals(key.getKey(0))) {
+                final String state = connectionStates.get(key);
+                if (!CONNECTED.equals(state)) {
+                    return state;
+                }
+                connected = state;
+            }
+        }
+        return connected;
+    }
+
+    /** Returns copy of the keys, so that the map can be changed. */
+    @SuppressWarnings("unchecked")
+    private static List<MultiKey<String>> getKeys(
+                                         final MultiKeyMap<String, String> m) {
+        final List<MultiKey<String>> keys = new ArrayList<MultiKey<String>>();
+        for (final Object k : m.keySet()) {
+            keys.add((MultiKey<String>) k);
+        }
+        return keys;
+    }
+}
@@ -30,6 +30,7 @@ import lcmc.utilities.Tools;
 import lcmc.utilities.ConvertCmdCallback;
 import lcmc.utilities.SSH;
 import lcmc.gui.resources.StringInfo;
+import lcmc.data.resources.BlockDevice;
 import lcmc.Exceptions;
 
 import org.w3c.dom.Document;
@@ -41,14 +42,11 @@ import java.util.HashMap;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Locale;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
-import java.math.BigInteger;
 import org.apache.commons.collections15.map.MultiKeyMap;
 import org.apache.commons.collections15.map.LinkedMap;
 import org.apache.commons.collections15.keyvalue.MultiKey;
@@ -67,52 +65,14 @@ public final class DrbdXML extends XML {
     // TODO: should that not be per host?
     /** Drbd config filename. */
     private String configFile = "unknown";
-    /** Map from parameter name to the default value. */
-    private final Map<String, String> paramDefaultMap =
-                                               new HashMap<String, String>();
-    /** Map from parameter name to its type. */
-    private final Map<String, String> paramTypeMap =
-                                                new HashMap<String, String>();
-    /** Map from parameter name to its section. */
-    private final Map<String, String> paramSectionMap =
-                                            new LinkedHashMap<String, String>();
-    /** Map from section to this section's parameters. */
-    private final Map<String, List<String>> sectionParamsMap =
-                                      new LinkedHashMap<String, List<String>>();
-    /** Map from perameter name to its unit name (long). */
-    private final Map<String, String> paramUnitLongMap =
-                                           new LinkedHashMap<String, String>();
-
-    /** Map from perameter name to its unit name. */
-    private final Map<String, String> paramDefaultUnitMap =
-                                           new LinkedHashMap<String, String>();
-
-    /** Map from perameter name to its long description. */
-    private final Map<String, String> paramLongDescMap =
-                                                new HashMap<String, String>();
-
-    /** Map from perameter name to its minimum value. */
-    private final Map<String, BigInteger> paramMinMap =
-                                    new LinkedHashMap<String, BigInteger>();
-
-    /** Map from perameter name to its maximum value. */
-    private final Map<String, BigInteger> paramMaxMap =
-                                        new LinkedHashMap<String, BigInteger>();
-
+    /**
+     * Drbd parameters from the xml help, they are shared by the DrbdXML
+     * objects with the same xml help.
+     */
+    private volatile DrbdParameters parameters;
     /** Map from perameter name to its correct value. */
     private final Map<String, Boolean> paramCorrectValueMap =
                                                 new HashMap<String, Boolean>();
-
-    /** Map from perameter name to its items if there is a choice list. */
-    private final Map<String, List<Object>> paramItemsMap =
-                                    new LinkedHashMap<String, List<Object>>();
-    /** List of all parameters. */
-    private final List<String> parametersList = new ArrayList<String>();
-    /** List of all gloval parameters. */
-    private final List<String> globalParametersList = new ArrayList<String>();
-    /** List of all required parameters. */
-    private final List<String> requiredParametersList =
-                                                    new ArrayList<String>();
     /** Map from resource option to the value. */
     private final Map<String, Map<String, String>> optionsMap =
                                     new HashMap<String, Map<String, String>>();
@@ -161,7 +121,7 @@ public final class DrbdXML extends XML {
     /** DRBD protocol A. */
     private static final String PROTOCOL_A = "A / Asynchronous";
     /** DRBD protocol C, that is a default. */
-    private static final String PROTOCOL_C = "C / Synchronous";
+    static final String PROTOCOL_C = "C / Synchronous";
     /** Protocol parameter. */
     public static final String PROTOCOL_PARAM = "protocol";
     /** Ping timeout parameter. */
@@ -198,6 +158,25 @@ public final class DrbdXML extends XML {
         PARAM_ACCESS_TYPE.put("rate", ConfigData.AccessType.OP);
     }
 
+    /**
+     * Drbd state event, since drbd 8.3 there is ro: instead of st:.
+     * 1 ST 0,r0[0] { cs:Connected ro:Secondary/Secondary
+     *                ds:UpToDate/UpToDate r--- }
+     */
+    private static final Pattern EVENT_STATE_PATTERN = Pattern.compile(
+                "^(\\d+)\\s+ST\\s+(\\S+)\\s+\\{\\s+cs:(\\S+)\\s+"
+                + "(?:st|ro):(\\S+)/(\\S+)\\s+ds:(\\S+)/(\\S+)\\s+(\\S+).*?");
+    /** Drbd sync progress event: 19 SP 0 16.9. */
+    private static final Pattern EVENT_SYNC_PATTERN =
+                Pattern.compile("^(\\d+)\\s+SP\\s+(\\S+)\\s(\\d+\\.\\d+).*");
+    /** Drbd user helper event: 19 UH 1 split-brain. */
+    private static final Pattern EVENT_HELPER_PATTERN =
+                Pattern.compile("^(\\d+)\\s+UH\\s+(\\S+)\\s([a-z-]+).*");
+    /** Device in the event since drbd 8.4: minor,resource[volume]. */
+    private static final Pattern EVENT_DEVICE_PATTERN =
+                Pattern.compile("^(\\d+),(\\S+)\\[(\\d+)\\]$");
+    /** Separates the fields in the drbd 9 events. */
+    private static final Pattern EVENTS2_SEPARATOR = Pattern.compile("\\s+");
     /** Yes / true drbd config value. */
     public static final String CONFIG_YES = "yes";
     /** No / false drbd config value. */
@@ -221,28 +200,18 @@ public final class DrbdXML extends XML {
         HARDCODED_DEFAULTS.put("on-congestion", "block");
     }
 
-    /** Prepares a new <code>DrbdXML</code> object. */
+    /**
+     * Prepares a new <code>DrbdXML</code> object. The drbd parameters are
+     * parsed only once for the same xml help and hosts, the xml help, that
+     * is not in the drbdParameters map yet, is obtained from the hosts.
+     */
     public DrbdXML(final Host[] hosts, final Map<Host, String> drbdParameters) {
         super();
-        addSpecialParameter("resource", "name", true);
-        for (final Host host : hosts) {
-            String output = null;
-            if (drbdParameters.get(host) == null) {
-                output = updateDrbdParameters(host);
-                drbdParameters.put(host, output);
-                if (output == null) {
-                    return;
-                }
-            } else {
-                output = drbdParameters.get(host);
-            }
-            /* TODO: move this part somewhere else, it should be called
-               once per invocation or interactively. (drbd-get-xml) */
-            parseDrbdParameters(host, output, hosts);
-        }
+        parameters = DrbdParameters.get(hosts, drbdParameters);
     }
 
-    public String updateDrbdParameters(final Host host) {
+    /** Returns the drbdsetup xml help from the host or null. */
+    public static String updateDrbdParameters(final Host host) {
         final String command = host.getDistCommand("Drbd.getParameters",
                                                    (ConvertCmdCallback) null);
 
@@ -258,39 +227,13 @@ public final class DrbdXML extends XML {
         return ret.getOutput();
     }
 
-    public void parseDrbdParameters(final Host host,
-                                    final String output,
-                                    final Host[] hosts) {
-        final String[] lines = output.split("\\r?\\n");
-        final Pattern bp = Pattern.compile("^<command name=\"(.*?)\".*");
-        final Pattern ep = Pattern.compile("^</command>$");
-        final StringBuilder xml = new StringBuilder();
-        String section = null;
-
-        for (final String line : lines) {
-            final Matcher m = bp.matcher(line);
-            if (m.matches()) {
-                section = m.group(1);
-            }
-            if (section != null) {
-                xml.append(line);
-                xml.append('\n');
-                final Matcher m2 = ep.matcher(line);
-                if (m2.matches()) {
-                    parseSection(section, xml.toString(), host, hosts);
-                    section = null;
-                    xml.delete(0, xml.length());
-                }
-            }
-        }
-        if (!parametersList.contains(PROTOCOL_PARAM)) {
-            /* prior 8.4 */
-            addParameter("resource",
-                         PROTOCOL_PARAM,
-                         PROTOCOL_C,
-                         PROTOCOLS,
-                         true);
-        }
+    /**
+     * Sets the drbd parameters after the xml help changed on some hosts,
+     * e.g. after the drbd upgrade.
+     */
+    public void setDrbdParameters(final Host[] hosts,
+                                  final Map<Host, String> drbdParameters) {
+        parameters = DrbdParameters.get(hosts, drbdParameters);
     }
 
     /** Returns the filename of the drbd config file. */
@@ -331,7 +274,7 @@ public final class DrbdXML extends XML {
 
     /** Returns all drbd parameters. */
     public List<String> getParameters() {
-        return parametersList;
+        return parameters.getParameters();
     }
 
     /** Gets short description for the parameter. */
@@ -339,31 +282,32 @@ public final class DrbdXML extends XML {
         final StringBuilder name =
                                 new StringBuilder(param.replaceAll("\\-", " "));
         name.replace(0, 1, name.substring(0, 1).toUpperCase());
-        if (paramUnitLongMap.containsKey(param)) {
-            name.append(" (" + paramUnitLongMap.get(param) + ")");
+        final String unitLong = parameters.getUnitLong(param);
+        if (unitLong != null) {
+            name.append(" (" + unitLong + ")");
         }
         return name.toString();
     }
 
     /** Gets long description for the parameter. */
     public String getParamLongDesc(final String param) {
-        return paramLongDescMap.get(param);
+        return parameters.getLongDesc(param);
     }
 
     /** Returns the long name of the unit of the specified parameter. */
     public String getUnitLong(final String param) {
-        return paramUnitLongMap.get(param);
+        return parameters.getUnitLong(param);
     }
 
     /** Returns the default unit of the specified parameter. */
     public String getDefaultUnit(final String param) {
-        return paramDefaultUnitMap.get(param);
+        return parameters.getDefaultUnit(param);
     }
 
     /** Returns whether the parameter has a unit prefix. */
     public boolean hasUnitPrefix(final String param) {
-        final String unit = paramUnitLongMap.get(param);
-        return paramDefaultUnitMap.containsKey(param)
+        final String unit = parameters.getUnitLong(param);
+        return parameters.hasDefaultUnit(param)
                && (unit == null
                    || "bytes".equals(unit)
                    || "bytes/second".equals(unit));
@@ -378,12 +322,12 @@ public final class DrbdXML extends XML {
      * .
      */
     public String getParamType(final String param) {
-        return paramTypeMap.get(param);
+        return parameters.getType(param);
     }
 
     /** Gets default for the parameter. */
     public String getParamDefault(final String param) {
-        final String defaultValue = paramDefaultMap.get(param);
+        final String defaultValue = parameters.getDefault(param);
 
         if (defaultValue == null) {
             return "";
@@ -408,14 +352,14 @@ public final class DrbdXML extends XML {
 
     /** Returns section in which this param is in. */
     public String getSection(final String param) {
-        return paramSectionMap.get(param);
+        return parameters.getSection(param);
     }
 
     /**
      * Checks parameter according to its type. Returns false if value is wrong.
      */
     public boolean checkParam(final String param, final String rawValue) {
-        final String type = paramTypeMap.get(param);
+        final String type = parameters.getType(param);
         boolean correctValue = true;
 
         String value = rawValue;
@@ -461,20 +405,20 @@ public final class DrbdXML extends XML {
                 } else {
                     v = Tools.convertToKilobytes(rawValue);
                 }
-                if (paramMaxMap.get(param) != null
-                    && v > paramMaxMap.get(param).longValue()) {
+                if (parameters.getMax(param) != null
+                    && v > parameters.getMax(param).longValue()) {
                     correctValue = false;
-                } else if (paramMinMap.get(param) != null
-                           && v < paramMinMap.get(param).longValue()) {
+                } else if (parameters.getMin(param) != null
+                           && v < parameters.getMin(param).longValue()) {
                     correctValue = false;
                 }
             } else if (!"s".equalsIgnoreCase(unit)) {
                 final long v = Tools.convertUnits(rawValue);
-                if (paramMaxMap.get(param) != null
-                    && v > paramMaxMap.get(param).longValue()) {
+                if (parameters.getMax(param) != null
+                    && v > parameters.getMax(param).longValue()) {
                     correctValue = false;
-                } else if (paramMinMap.get(param) != null
-                           && v < paramMinMap.get(param).longValue()) {
+                } else if (parameters.getMin(param) != null
+                           && v < parameters.getMin(param).longValue()) {
                     correctValue = false;
                 }
             }
@@ -487,7 +431,7 @@ public final class DrbdXML extends XML {
 
     /** Returns whether parameter expects integer value. */
     public boolean isInteger(final String param) {
-        final String type = paramTypeMap.get(param);
+        final String type = parameters.getType(param);
         return "numeric".equals(type);
     }
 
@@ -498,7 +442,7 @@ public final class DrbdXML extends XML {
 
     /** Returns whether parameter expects string value. */
     public boolean isStringType(final String param) {
-        final String type = paramTypeMap.get(param);
+        final String type = parameters.getType(param);
         return "string".equals(type);
     }
 
@@ -507,78 +451,14 @@ public final class DrbdXML extends XML {
         return paramCorrectValueMap.get(param).booleanValue();
     }
 
-    /**
-     * Adds parameter to the specified section. This parameter will be not
-     * used in the generated config.
-     */
-    private void addSpecialParameter(final String section,
-                                     final String param,
-                                     final boolean required) {
-        if (!parametersList.contains(param)) {
-            parametersList.add(param);
-            if (required) {
-                requiredParametersList.add(param);
-            }
-
-            paramTypeMap.put(param, "string");
-            paramSectionMap.put(param, section);
-        }
-    }
-
-    /** Add paremeter with choice combo box. */
-    private void addParameter(final String section,
-                              final String param,
-                              final String defaultValue,
-                              final Object[] items,
-                              final boolean required) {
-        addParameter(section, param, defaultValue, required);
-        final List<Object> l = new ArrayList<Object>();
-        for (int i = 0; i < items.length; i++) {
-            if (!l.contains(items[i])) {
-                l.add(items[i]);
-            }
-        }
-        paramItemsMap.put(param, l);
-        paramTypeMap.put(param, "handler");
-    }
-
-    /** Adds parameter to the specified section. */
-    private void addParameter(final String section,
-                              final String param,
-                              final boolean required) {
-        addSpecialParameter(section, param, required);
-        sectionParamsMap.put(section, new ArrayList<String>());
-        sectionParamsMap.get(section).add(param);
-    }
-
-    /** Adds parameter with a default value to the specified section. */
-    private void addParameter(final String section,
-                              final String param,
-                              final String defaultValue,
-                              final boolean required) {
-        addParameter(section, param, required);
-        paramDefaultMap.put(param, defaultValue);
-    }
-
-    /** Adds parameter with the specified type. */
-    private void addParameter(final String section,
-                              final String param,
-                              final String defaultValue,
-                              final boolean required,
-                              final String type) {
-        addParameter(section, param, defaultValue, required);
-        paramTypeMap.put(param, type);
-    }
-
     /** Returns array with all the sections. */
     public String[] getSections() {
-        return sectionParamsMap.keySet().toArray(
-                                        new String[sectionParamsMap.size()]);
+        return parameters.getSections();
     }
 
     /** Returns parameters for the specified section. */
     public String[] getSectionParams(final String section) {
-        final List<String> params = sectionParamsMap.get(section);
+        final List<String> params = parameters.getSectionParams(section);
         if (params == null) {
             return new String[0];
         }
@@ -587,12 +467,12 @@ public final class DrbdXML extends XML {
 
     /** Returns parameters for the global section. */
     public List<String> getGlobalParams() {
-        return globalParametersList;
+        return parameters.getGlobalParams();
     }
 
     /** Returns possible choices. */
     public Object[] getPossibleChoices(final String param) {
-        final List<Object> items = paramItemsMap.get(param);
+        final List<Object> items = parameters.getItems(param);
         if (items == null) {
             return null;
         } else {
@@ -602,7 +482,7 @@ public final class DrbdXML extends XML {
 
     /** Returns whether parameter is required. */
     public boolean isRequired(final String param) {
-        return requiredParametersList.contains(param);
+        return parameters.isRequired(param);
     }
 
     /** Returns whether parameter is advanced. */
@@ -647,137 +527,6 @@ public final class DrbdXML extends XML {
     }
 
 
-    /** Parses command xml for parameters and fills up the hashes. */
-    private void parseSection(final String section,
-                              final String xml,
-                              final Host host,
-                              final Host[] hosts) {
-        final Document document = getXMLDocument(xml);
-
-        /* get root <command> */
-        final Node commandNode = getChildNode(document, "command");
-        if (commandNode == null) {
-            return;
-        }
-        final NodeList options = commandNode.getChildNodes();
-        for (int i = 0; i < options.getLength(); i++) {
-            final Node optionNode = options.item(i);
-
-            /* <option> */
-            if (optionNode.getNodeName().equals("option")) {
-                final String name = getAttribute(optionNode, "name");
-                final String type = getAttribute(optionNode, "type");
-                if ("flag".equals(type)) {
-                    /* ignore flags */
-                    continue;
-                }
-                if ("handler".equals(type)) {
-                    final List<Object> items = new ArrayList<Object>();
-                    items.add("");
-                    paramItemsMap.put(name, items);
-                    paramDefaultMap.put(name, HARDCODED_DEFAULTS.get(name));
-                } else if ("boolean".equals(type)) {
-                    final List<Object> l = new ArrayList<Object>();
-                    l.add(CONFIG_YES);
-                    l.add(CONFIG_NO);
-                    paramItemsMap.put(name, l);
-                    paramDefaultMap.put(name, CONFIG_NO);
-                }
-                if ("fence-peer".equals(name)) {
-                    final List<Object> l = new ArrayList<Object>();
-                    l.add("");
-                    if (!"".equals(host.getArch())) {
-                        l.add(host.getHeartbeatLibPath()
-                              + "/drbd-peer-outdater -t 5");
-                    }
-                    l.add("/usr/lib/drbd/crm-fence-peer.sh");
-                    paramItemsMap.put(name, l);
-                } else if ("after-resync-target".equals(name)) {
-                    final List<Object> l = new ArrayList<Object>();
-                    l.add("");
-                    l.add("/usr/lib/drbd/crm-unfence-peer.sh");
-                    paramItemsMap.put(name, l);
-                } else if ("split-brain".equals(name)) {
-                    final List<Object> l = new ArrayList<Object>();
-                    l.add("");
-                    l.add("/usr/lib/drbd/notify-split-brain.sh root");
-                    paramItemsMap.put(name, l);
-                } else if ("become-primary-on".equals(name)) {
-                    final List<Object> l = new ArrayList<Object>();
-                    l.add("");
-                    l.add("both");
-                    for (final Host h : hosts) {
-                        l.add(h.getName());
-                    }
-                    paramItemsMap.put(name, l);
-                } else if ("verify-alg".equals(name)
-                           || "csums-alg".equals(name)
-                           || "data-integrity-alg".equals(name)
-                           || "cram-hmac-alg".equals(name)) {
-                    final List<Object> l = new ArrayList<Object>();
-                    l.add("");
-                    for (final String cr : host.getCryptoModules()) {
-                        l.add(cr);
-                    }
-                    paramItemsMap.put(name, l);
-                }
-                final NodeList optionInfos = optionNode.getChildNodes();
-                for (int j = 0; j < optionInfos.getLength(); j++) {
-                    final Node optionInfo = optionInfos.item(j);
-                    final String tag = optionInfo.getNodeName();
-                    /* <min>, <max>, <handler>, <default> */
-                    if ("min".equals(tag)) {
-                        paramMinMap.put(name,
-                                        new BigInteger(getText(optionInfo)));
-                    } else if ("max".equals(tag)) {
-                        paramMaxMap.put(name,
-                                        new BigInteger(getText(optionInfo)));
-                    } else if ("handler".equals(tag)) {
-                        paramItemsMap.get(name).add(getText(optionInfo));
-                    } else if ("default".equals(tag)) {
-                        paramDefaultMap.put(name, getText(optionInfo));
-                    } else if ("unit".equals(tag)) {
-                        paramUnitLongMap.put(name, getText(optionInfo));
-                    } else if ("unit_prefix".equals(tag)) {
-                        if (!"after".equals(name)
-                            && !"resync-after".equals(name)) {
-                            String option = getText(optionInfo);
-                            if (!"s".equals(option)) {
-                                /* "s" is an exception */
-                                option = option.toUpperCase(Locale.US);
-                            }
-                            if ("1".equals(option)) {
-                                option = "";
-                            }
-                            paramDefaultUnitMap.put(name, option);
-                        }
-                    } else if ("desc".equals(tag)) {
-                        paramLongDescMap.put(name, getText(optionInfo));
-                    }
-                }
-                paramTypeMap.put(name, type);
-                if (!GLOBAL_SECTION.equals(section)
-                    && !parametersList.contains(name)) {
-                    parametersList.add(name);
-                }
-                if (!"resource".equals(section)
-                    && !globalParametersList.contains(name)
-                    && !("syncer".equals(section) && "after".equals(name))
-                    && !"resync-after".equals(name)) {
-                    globalParametersList.add(name);
-                }
-
-                paramSectionMap.put(name, section);
-                if (!sectionParamsMap.containsKey(section)) {
-                    sectionParamsMap.put(section, new ArrayList<String>());
-                }
-                if (!sectionParamsMap.get(section).contains(name)) {
-                    sectionParamsMap.get(section).add(name);
-                }
-            }
-        }
-    }
-
     /** Parses section node and creates map with option name value pairs. */
     private void parseConfigSectionNode(
                                     final Node sectionNode,
@@ -1130,8 +879,8 @@ public final class DrbdXML extends XML {
                     parseConfigSectionNode(n, nameValueMap);
                     optionsMap.put(resName + "." + secName, nameValueMap);
                 }
-                if (!sectionParamsMap.containsKey(secName)
-                    && !sectionParamsMap.containsKey(secName + "-options")) {
+                if (!parameters.hasSection(secName)
+                    && !parameters.hasSection(secName + "-options")) {
                     Tools.appWarning("DRBD: unknown section: " + secName);
                     if (!unknownSections) {
                         /* unknown section, so it's not removed. */
@@ -1260,12 +1009,11 @@ public final class DrbdXML extends XML {
         return resourceDeviceMap;
     }
 
-    /** Gets block device object from device number. Can return null. */
-    private BlockDevInfo getBlockDevInfo(final String devNr,
-                                         final String hostName,
-                                         final DrbdGraph drbdGraph) {
-        BlockDevInfo bdi = null;
-        final String device = "/dev/drbd" + devNr;
+    /**
+     * Returns the disk of the drbd device on the host, as it is in the
+     * config. Can return null.
+     */
+    private String getDisk(final String device, final String hostName) {
         final String resName = deviceResourceMap.get(device);
         String volumeNr = deviceVolumeMap.get(device);
         if (volumeNr == null) {
@@ -1275,13 +1023,54 @@ public final class DrbdXML extends XML {
             final Map<String, String> hostDiskMap =
                                     resourceHostDiskMap.get(resName, volumeNr);
             if (hostDiskMap != null) {
-                final String disk = hostDiskMap.get(hostName);
-                if (disk != null) {
-                    bdi = drbdGraph.findBlockDevInfo(hostName, disk);
-                }
+                return hostDiskMap.get(hostName);
             }
         }
-        return bdi;
+        return null;
+    }
+
+    /**
+     * Gets block device object from the drbd device. It is the one from the
+     * block device info in the graph or, if there is no graph, the one from
+     * the host. Can return null.
+     */
+    private BlockDevice getBlockDeviceByDevice(final String device,
+                                               final Host host,
+                                               final DrbdGraph drbdGraph) {
+        final String disk = getDisk(device, host.getName());
+        if (disk == null) {
+            return null;
+        }
+        if (drbdGraph == null) {
+            return host.getBlockDevice(disk);
+        }
+        final BlockDevInfo bdi = drbdGraph.findBlockDevInfo(host.getName(),
+                                                            disk);
+        if (bdi == null) {
+            return null;
+        }
+        return bdi.getBlockDevice();
+    }
+
+    /**
+     * Updates the block device info of the drbd device, after its block
+     * device changed. Does nothing if there is no graph.
+     */
+    private void updateBlockDevInfo(final String device,
+                                    final Host host,
+                                    final DrbdGraph drbdGraph) {
+        if (drbdGraph == null) {
+            return;
+        }
+        final String disk = getDisk(device, host.getName());
+        if (disk == null) {
+            return;
+        }
+        final BlockDevInfo bdi = drbdGraph.findBlockDevInfo(host.getName(),
+                                                            disk);
+        if (bdi != null) {
+            bdi.updateInfo();
+        }
     }
 
     /** Returns whether the drbd is loaded. */
@@ -1297,12 +1086,13 @@ public final class DrbdXML extends XML {
      * Parses events from drbd kernel module obtained via drbdsetup .. events
      * command and stores the values in the BlockDevice object.
      */
-    public boolean parseDrbdEvent(final String hostName,
+    public boolean parseDrbdEvent(final Host host,
                                   final DrbdGraph drbdGraph,
                                   final String rawOutput) {
-        if (rawOutput == null || hostName == null) {
+        if (rawOutput == null || host == null) {
             return false;
         }
+        final String hostName = host.getName();
 
         final String output = rawOutput.trim();
         if ("".equals(output)) {
@@ -1319,17 +1109,13 @@ public final class DrbdXML extends XML {
         } else {
             hostDrbdLoadedMap.put(hostName, true);
         }
-        /* since drbd 8.3 there is ro: instead of st: */
-        /* since drbd 8.4 there is ro: instead of st: */
-        Pattern p =
-            Pattern.compile(
-                "^(\\d+)\\s+ST\\s+(\\S+)\\s+\\{\\s+cs:(\\S+)\\s+"
-                + "(?:st|ro):(\\S+)/(\\S+)\\s+ds:(\\S+)/(\\S+)\\s+(\\S+).*?");
-        Matcher m = p.matcher(output);
-        final Pattern pDev = Pattern.compile("^(\\d+),(\\S+)\\[(\\d+)\\]$");
+        if (output.indexOf('=') >= 0) {
+            return parseDrbdEvent2(host, drbdGraph, output);
+        }
+        Matcher m = EVENT_STATE_PATTERN.matcher(output);
         if (m.matches()) {
             /* String counter      = m.group(1); // not used */
-            final String devNrString  = m.group(2);
+            final String devNr = getEventDevNr(m.group(2));
             final String cs           = m.group(3);
             final String ro1          = m.group(4);
             final String ro2          = m.group(5);
@@ -1337,100 +1123,256 @@ public final class DrbdXML extends XML {
             final String ds2          = m.group(7);
             final String flags        = m.group(8);
 
-            final Matcher mDev = pDev.matcher(devNrString);
-            String devNr = devNrString;
-            String res = ""; // TODO: unused */
-            String volumeNr = "0";
-            if (mDev.matches()) { /* since 8.4 */
-                devNr = mDev.group(1);
-                res = mDev.group(2);
-                volumeNr = mDev.group(3);
-            }
             /* get blockdevice object from device */
-            final BlockDevInfo bdi =
-                                  getBlockDevInfo(devNr, hostName, drbdGraph);
-            if (bdi != null) {
-                if (bdi.getBlockDevice().isDifferent(cs, ro1, ds1, flags)) {
-                    bdi.getBlockDevice().setConnectionState(cs);
-                    bdi.getBlockDevice().setNodeState(ro1);
-                    bdi.getBlockDevice().setDiskState(ds1);
-                    bdi.getBlockDevice().setDrbdFlags(flags);
-                    bdi.updateInfo();
-                    return true;
-                } else {
-                    return false;
-                }
+            final String device = "/dev/drbd" + devNr;
+            final BlockDevice bd =
+                              getBlockDeviceByDevice(device, host, drbdGraph);
+            if (bd != null && setDrbdState(bd, cs, ro1, ds1, flags)) {
+                updateBlockDevInfo(device, host, drbdGraph);
+                return true;
             }
             return false;
         }
-        /* 19 SP 0 16.9 */
-        p = Pattern.compile("^(\\d+)\\s+SP\\s+(\\S+)\\s(\\d+\\.\\d+).*");
-        m = p.matcher(output);
+        m = EVENT_SYNC_PATTERN.matcher(output);
         if (m.matches()) {
             /* String counter      = m.group(1); // not used */
-            final String devNrString = m.group(2);
+            final String devNr = getEventDevNr(m.group(2));
             final String synced = m.group(3);
 
-            final Matcher mDev = pDev.matcher(devNrString);
-            String devNr = devNrString;
-            String res = ""; // TODO: unused */
-            String volumeNr = "0";
-            if (mDev.matches()) { /* since 8.4 */
-                devNr = mDev.group(1);
-                res = mDev.group(2);
-                volumeNr = mDev.group(3);
-            }
-            final BlockDevInfo bdi =
-                                   getBlockDevInfo(devNr, hostName, drbdGraph);
-            if (bdi != null && bdi.getBlockDevice().isDrbd()) {
-                if (Tools.areEqual(bdi.getBlockDevice().getSyncedProgress(),
-                                   synced)) {
-                    return false;
-                } else {
-                    bdi.getBlockDevice().setSyncedProgress(synced);
-                    bdi.updateInfo();
-                    return true;
-                }
+            final String device = "/dev/drbd" + devNr;
+            final BlockDevice bd =
+                              getBlockDeviceByDevice(device, host, drbdGraph);
+            if (setSyncedProgress(bd, synced)) {
+                updateBlockDevInfo(device, host, drbdGraph);
+                return true;
             }
             return false;
         }
-        /* 19 UH 1 split-brain */
-        p = Pattern.compile("^(\\d+)\\s+UH\\s+(\\S+)\\s([a-z-]+).*");
-        m = p.matcher(output);
+        m = EVENT_HELPER_PATTERN.matcher(output);
         if (m.matches()) {
             /* String counter      = m.group(1); // not used */
-            final String devNrString = m.group(2);
+            final String devNr = getEventDevNr(m.group(2));
             final String what = m.group(3);
-            final Matcher mDev = pDev.matcher(devNrString);
-            String devNr = devNrString;
-            String res = ""; // TODO: unused */
-            String volumeNr = "0";
-            if (mDev.matches()) { /* since 8.4 */
-                devNr = mDev.group(1);
-                res = mDev.group(2);
-                volumeNr = mDev.group(3);
-            }
             Tools.debug(this, "drbd event: " + devNr + " - " + what);
             if ("split-brain".equals(what)) {
-                final BlockDevInfo bdi = getBlockDevInfo(devNr,
-                                                       hostName,
-                                                       drbdGraph);
-
-                if (bdi != null && bdi.getBlockDevice().isDrbd()) {
-                    if (bdi.getBlockDevice().isSplitBrain()) {
-                        return false;
-                    } else {
-                        bdi.getBlockDevice().setSplitBrain(true);
-                        bdi.updateInfo();
-                        return true;
-                    }
+                final String device = "/dev/drbd" + devNr;
+                final BlockDevice bd =
+                              getBlockDeviceByDevice(device, host, drbdGraph);
+                if (setSplitBrain(bd)) {
+                    updateBlockDevInfo(device, host, drbdGraph);
+                    return true;
                 }
+                return false;
             }
             return false;
         }
         return false;
     }
 
+    /**
+     * Returns the device number from the device in the event, that is
+     * minor,resource[volume] since drbd 8.4 and minor before.
+     */
+    private String getEventDevNr(final String devNrString) {
+        final Matcher mDev = EVENT_DEVICE_PATTERN.matcher(devNrString);
+        if (mDev.matches()) { /* since 8.4 */
+            return mDev.group(1);
+        }
+        return devNrString;
+    }
+
+    /**
+     * Parses the drbd 9 "drbdsetup events2 --timestamps --statistics" line,
+     * e.g.:
+     * 2012-08-14T12:00:00.000000+02:00 change peer-device name=r0
+     *                          peer-node-id=1 conn-name=b volume=0 done=15.20
+     * Every line has only the values, that changed, so they are set on top
+     * of the current state of the block devices. The states of the
+     * connections and the peer devices are kept in the host, because there
+     * can be more of them for one block device.
+     */
+    private boolean parseDrbdEvent2(final Host host,
+                                    final DrbdGraph drbdGraph,
+                                    final String output) {
+        final String[] tokens = EVENTS2_SEPARATOR.split(output);
+        int i = 0;
+        if (tokens.length > 0 && tokens[0].indexOf('T') > 0) {
+            /* timestamp */
+            i++;
+        }
+        if (tokens.length < i + 3) {
+            return false;
+        }
+        final String action = tokens[i];
+        final String object = tokens[i + 1];
+        String resName = null;
+        String volumeNr = null;
+        String connName = null;
+        String role = null;
+        String disk = null;
+        String connection = null;
+        String replication = null;
+        String done = null;
+        String helper = null;
+        for (int j = i + 2; j < tokens.length; j++) {
+            final String token = tokens[j];
+            final int eq = token.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            final String key = token.substring(0, eq);
+            final String value = token.substring(eq + 1);
+            if ("name".equals(key)) {
+                resName = value;
+            } else if ("volume".equals(key)) {
+                volumeNr = value;
+            } else if ("conn-name".equals(key)) {
+                connName = value;
+            } else if ("role".equals(key)) {
+                role = value;
+            } else if ("disk".equals(key)) {
+                disk = value;
+            } else if ("connection".equals(key)) {
+                connection = value;
+            } else if ("replication".equals(key)) {
+                replication = value;
+            } else if ("done".equals(key)) {
+                done = value;
+            } else if ("helper".equals(key)) {
+                helper = value;
+            }
+        }
+        if (resName == null) {
+            return false;
+        }
+        final DrbdPeerStates peerStates = host.getDrbdPeerStates();
+        final boolean destroy = "destroy".equals(action);
+        if ("connection".equals(object) && connName != null) {
+            if (destroy) {
+                peerStates.removeConnection(resName, connName);
+            } else if (connection != null) {
+                peerStates.setConnectionState(resName, connName, connection);
+            }
+        } else if ("peer-device".equals(object)
+                   && connName != null
+                   && volumeNr != null) {
+            if (destroy) {
+                peerStates.removePeerDevice(resName, volumeNr, connName);
+            } else if (replication != null) {
+                peerStates.setReplicationState(resName,
+                                               volumeNr,
+                                               connName,
+                                               replication);
+            }
+        } else if ("resource".equals(object) && destroy) {
+            peerStates.removeResource(resName);
+        }
+        if (destroy) {
+            return false;
+        }
+        boolean changed = false;
+        for (final String volume : getEvents2Volumes(resName, volumeNr)) {
+            final String device = resourceDeviceMap.get(resName, volume);
+            if (device == null) {
+                continue;
+            }
+            final BlockDevice bd =
+                              getBlockDeviceByDevice(device, host, drbdGraph);
+            if (bd == null) {
+                continue;
+            }
+            if ("helper".equals(object)) {
+                if ("split-brain".equals(helper) && setSplitBrain(bd)) {
+                    updateBlockDevInfo(device, host, drbdGraph);
+                    changed = true;
+                }
+                continue;
+            }
+            String cs = peerStates.getConnectionState(resName, volume);
+            if (cs == null) {
+                cs = bd.getConnectionState();
+            }
+            String ro = bd.getNodeState();
+            String ds = bd.getDiskState();
+            boolean bdChanged = false;
+            if ("resource".equals(object) && role != null) {
+                ro = role;
+            } else if ("device".equals(object) && disk != null) {
+                ds = disk;
+            } else if ("peer-device".equals(object) && done != null) {
+                bdChanged = setSyncedProgress(bd, done);
+            }
+            bdChanged |= setDrbdState(bd, cs, ro, ds, bd.getDrbdFlags());
+            if (bdChanged) {
+                updateBlockDevInfo(device, host, drbdGraph);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the volume in a list or all volumes of the resource, if the
+     * volume is null.
+     */
+    private List<String> getEvents2Volumes(final String resName,
+                                           final String volumeNr) {
+        final List<String> volumes = new ArrayList<String>();
+        if (volumeNr != null) {
+            volumes.add(volumeNr);
+            return volumes;
+        }
+        for (final Object k : resourceDeviceMap.keySet()) {
+            if (resName.equals(((MultiKey) k).getKey(0))) {
+                volumes.add((String) ((MultiKey) k).getKey(1));
+            }
+        }
+        return volumes;
+    }
+
+    /** Sets the drbd state of the block device, returns whether it changed. */
+    private boolean setDrbdState(final BlockDevice bd,
+                                 final String cs,
+                                 final String ro,
+                                 final String ds,
+                                 final String flags) {
+        if (bd.isDifferent(cs, ro, ds, flags)) {
+            bd.setConnectionState(cs);
+            bd.setNodeState(ro);
+            bd.setDiskState(ds);
+            bd.setDrbdFlags(flags);
+            return true;
+        }
+        return false;
+    }
+
+    /** Sets the sync progress, returns whether it changed. */
+    private boolean setSyncedProgress(final BlockDevice bd,
+                                      final String synced) {
+        if (bd != null && bd.isDrbd()) {
+            if (Tools.areEqual(bd.getSyncedProgress(), synced)) {
+                return false;
+            } else {
+                bd.setSyncedProgress(synced);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Sets the split brain, returns whether it changed. */
+    private boolean setSplitBrain(final BlockDevice bd) {
+        if (bd != null && bd.isDrbd()) {
+            if (bd.isSplitBrain()) {
+                return false;
+            } else {
+                bd.setSplitBrain(true);
+                return true;
+            }
+        }
+        return false;
+    }
+
     /** Removes the resource from resources, so that it does not reappear. */
     public void removeResource(final String res) {
         resourceList.remove(res);
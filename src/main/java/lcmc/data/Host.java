@@ -23,8 +23,11 @@
 package lcmc.data;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
 import lcmc.utilities.SSH;
 import lcmc.utilities.SSH.ExecCommandThread;
+import lcmc.utilities.MultiplexedOutput;
+import lcmc.utilities.FrameDecoder;
 import lcmc.utilities.ExecCallback;
 import lcmc.utilities.ConvertCmdCallback;
 import lcmc.utilities.ConnectionCallback;
@@ -157,13 +160,12 @@ public final class Host {
     private Color defaultColor;
     /** Color of this host in graphs. */
     private Color savedColor;
-    /** Thread where connection status command is running. */
-    private ExecCommandThread connectionStatusThread = null;
-    /** Thread where drbd status command is running. */
-    private ExecCommandThread drbdStatusThread = null;
     /** Thread where hb status command is running. */
     private ExecCommandThread clStatusThread = null;
-    /** Thread where server status command is running. */
+    /**
+     * Thread where server status command is running. The hw info, the drbd
+     * status and the ping run in this one session.
+     */
     private ExecCommandThread serverStatusThread = null;
     /** List of positions of the services.
      *  Question is this: the saved positions can be different on different
@@ -293,6 +295,8 @@ public final class Host {
     private volatile AtomicBoolean ping = new AtomicBoolean(true);
     /** Global drbd status lock. */
     private final Lock mDRBDStatusLock = new ReentrantLock();
+    /** States of the drbd 9 connections and peer devices. */
+    private final DrbdPeerStates drbdPeerStates = new DrbdPeerStates();
     /** Update VMS lock. */
     private final Lock mUpdateVMSlock = new ReentrantLock();
     /** Time stamp lock */
@@ -302,7 +306,6 @@ public final class Host {
                                                 new HashMap<String, Double>();
     /** Timeout after which the connection is considered to be dead. */
     private final int PING_TIMEOUT           = 40000;
-    private final int DRBD_EVENTS_TIMEOUT    = 40000;
     private final int CLUSTER_EVENTS_TIMEOUT = 40000;
     private final int HW_INFO_TIMEOUT        = 40000;
 
@@ -1183,33 +1186,7 @@ public final class Host {
                                commandTimeout);
     }
 
-    /**
-     * Executes get status command which runs in the background and updates the
-     * block device object. The command is 'drbdsetup /dev/drbdX events'
-     * The session is stored, so that in can be stopped with 'stop' button.
-     */
-    public void execDrbdStatusCommand(final ExecCallback execCallback,
-                                      final NewOutputCallback outputCallback) {
-        if (drbdStatusThread == null) {
-            drbdStatusThread = ssh.execCommand(
-                                Tools.getDistCommand(
-                                                "DRBD.getDrbdStatus",
-                                                dist,
-                                                distVersionString,
-                                                arch,
-                                                null, /* ConvertCmdCallback */
-                                                false), /* in bash */
-                                    execCallback,
-                                    outputCallback,
-                                    false,
-                                    false,
-                                    DRBD_EVENTS_TIMEOUT);
-        } else {
-            Tools.appWarning("trying to start started drbd status");
-        }
-    }
-
-    /** Stops server (hw) status background process. */
+    /** Stops server (hw, drbd) status background process. */
     public void stopServerStatus() {
         if (serverStatusThread == null) {
             Tools.appWarning("trying to stop stopped server status");
@@ -1219,36 +1196,16 @@ public final class Host {
         serverStatusThread = null;
     }
 
-    /** Stops drbd status background process. */
-    public void stopDrbdStatus() {
-        if (drbdStatusThread == null) {
-            Tools.appWarning("trying to stop stopped drbd status");
-            return;
-        }
-        drbdStatusThread.cancel();
-        drbdStatusThread = null;
-    }
-
-    /** Waits till the drbd status command finishes. */
-    public void waitOnDrbdStatus() {
-        if (drbdStatusThread != null) {
-            try {
-                /* it probably hangs after this timeout, so it will be
-                 * killed. */
-                drbdStatusThread.join();
-            } catch (java.lang.InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            stopDrbdStatus();
-        }
-    }
-
     /** Executes an hb status command. */
     public void execClStatusCommand(final ExecCallback execCallback,
                                     final NewOutputCallback outputCallback) {
         if (clStatusThread == null) {
+            String command = "Heartbeat.getClStatus";
+            if (Tools.getConfigData().isCibDiff()) {
+                command = "Heartbeat.getClStatusDiff";
+            }
             clStatusThread = ssh.execCommand(
-                            Tools.getDistCommand("Heartbeat.getClStatus",
+                            Tools.getDistCommand(command,
                                                  dist,
                                                  distVersionString,
                                                  arch,
@@ -1697,75 +1654,126 @@ public final class Host {
         final int e = buffer.indexOf(infoEnd, s);
         String out = null;
         if (s > -1 && s < s2 && s2 <= e) {
-            Double timestamp = null;
             final String ts = buffer.substring(s + infoStartLength, s2);
-            try {
-                timestamp = Double.parseDouble(ts);
-            }  catch (final NumberFormatException nfe) {
-                Tools.debug(this, "could not parse: " + ts + " " + nfe);
-            }
-            mInfoTimestampLock.lock();
-            if (timestamp != null
-                && (!infoTimestamp.containsKey(type)
-                    || timestamp >= infoTimestamp.get(type))) {
-                infoTimestamp.put(type, timestamp);
-                mInfoTimestampLock.unlock();
+            if (isNewInfo(type, ts)) {
                 out = buffer.substring(s2 + 2, e);
-            } else {
-                mInfoTimestampLock.unlock();
             }
             buffer.delete(0, e + infoEndLength + 2);
         }
         return out;
     }
 
-    public void startPing() {
-        final Thread t = ssh.execCommand(
-                                Tools.getDistCommand(
-                                                "PingCommand",
-                                                dist,
-                                                distVersionString,
-                                                arch,
-                                                null, /* ConvertCmdCallback */
-                                                true), /* in bash */
-                         new ExecCallback() {
-                             @Override
-                             public void done(final String ans) {
-                             }
-
-                             @Override
-                             public void doneError(final String ans,
-                                                   final int exitCode) {
-                             }
-                         },
-                         new NewOutputCallback() {
-                             @Override
-                             public void output(final String output) {
-                                 ping.set(true);
-                             }
-                         },
-                         false,
-                         false,
-                         PING_TIMEOUT);
+    /**
+     * Returns whether the info of this type and with this timestamp is not
+     * older than the last one and remembers the timestamp.
+     */
+    public boolean isNewInfo(final String type, final String ts) {
+        if (ts == null) {
+            return false;
+        }
+        Double timestamp = null;
         try {
-            t.join();
-        } catch (java.lang.InterruptedException e) {
-            Thread.currentThread().interrupt();
+            timestamp = Double.parseDouble(ts);
+        }  catch (final NumberFormatException nfe) {
+            Tools.debug(this, "could not parse: " + ts + " " + nfe);
+        }
+        mInfoTimestampLock.lock();
+        try {
+            if (timestamp != null
+                && (!infoTimestamp.containsKey(type)
+                    || timestamp >= infoTimestamp.get(type))) {
+                infoTimestamp.put(type, timestamp);
+                return true;
+            }
+            return false;
+        } finally {
+            mInfoTimestampLock.unlock();
         }
     }
 
-    /** Gets and stores hardware info about the host. */
-    public void startHWInfoDaemon(final CategoryInfo[] infosToUpdate,
-                                  final ResourceGraph[] graphs) {
+    /**
+     * Gets and stores hardware info about the host. The drbd status and the
+     * ping run in the same session, the drbd output is passed to the drbd
+     * callbacks.
+     */
+    public void startStatusStream(final CategoryInfo[] infosToUpdate,
+                                  final ResourceGraph[] graphs,
+                                  final ExecCallback drbdExecCallback,
+                                  final NewOutputCallback drbdOutputCallback) {
         final Host host = this;
-        serverStatusThread = ssh.execCommand(
-                                Tools.getDistCommand(
-                                                "HostHWInfoDaemon",
-                                                dist,
-                                                distVersionString,
-                                                arch,
-                                                null, /* ConvertCmdCallback */
-                                                false), /* in bash */
+        final NewOutputCallback hwOutputCallback = new NewOutputCallback() {
+            private final FrameDecoder frameDecoder = new FrameDecoder();
+            @Override
+            public void output(final String output) {
+                final ClusterBrowser cb = getBrowser().getClusterBrowser();
+                String hwUpdate = null;
+                final List<String> vmUpdates = new ArrayList<String>();
+                String drbdUpdate = null;
+                for (final FrameDecoder.Frame frame
+                                           : frameDecoder.decode(output)) {
+                    final String type = frame.getType();
+                    if ("hw".equals(type)) {
+                        if (isNewInfo(type, frame.getTimestamp())) {
+                            hwUpdate = frame.getPayload();
+                        }
+                    } else if ("vm".equals(type)) {
+                        vmStatusLock();
+                        if (isNewInfo(type, frame.getTimestamp())) {
+                            vmUpdates.add(frame.getPayload());
+                        }
+                        vmStatusUnlock();
+                    } else if ("drbd".equals(type)) {
+                        drbdStatusLock();
+                        if (isNewInfo(type, frame.getTimestamp())) {
+                            drbdUpdate = frame.getPayload();
+                        }
+                        drbdStatusUnlock();
+                    }
+                }
+                if (hwUpdate != null) {
+                    parseHostInfo(hwUpdate);
+                    for (final ResourceGraph g : graphs) {
+                        if (g != null) {
+                            g.repaint();
+                        }
+                    }
+                }
+                boolean vmUpdated = false;
+                final Set<String> changedDomains = new HashSet<String>();
+                for (final String vmUpdate : vmUpdates) {
+                    /* partial updates are merged */
+                    final VMSXML newVMSXML = new VMSXML(host);
+                    if (newVMSXML.update(vmUpdate, cb.getVMSXML(host))) {
+                        cb.vmsXMLPut(host, newVMSXML);
+                        changedDomains.addAll(newVMSXML.getChangedDomains());
+                        vmUpdated = true;
+                    }
+                }
+                if (vmUpdated) {
+                    cb.updateVMS(changedDomains);
+                }
+                if (drbdUpdate != null) {
+                    final DrbdXML dxml =
+                                    new DrbdXML(cluster.getHostsArray(),
+                                                cb.getDrbdParameters());
+                    dxml.update(drbdUpdate);
+                    cb.setDrbdXML(dxml);
+                    cb.getDrbdGraph().getDrbdInfo().setParameters();
+                    cb.updateDrbdResources();
+                }
+                if (drbdUpdate != null || !vmUpdates.isEmpty()) {
+                    cb.updateHWInfo(host);
+                }
+                if (drbdUpdate != null) {
+                    cb.updateServerStatus(host);
+                }
+                if (isServerStatusLatch()) {
+                    cb.updateServerStatus(host);
+                }
+                setLoadingDone();
+            }
+        };
+        execStatusStream(hwOutputCallback,
                          new ExecCallback() {
                              @Override
                              public void done(final String ans) {
@@ -1785,6 +1793,7 @@ public final class Host {
                                      cb.updateServerStatus(host);
                                  }
                                  setLoadingDone();
+                                 drbdExecCallback.done(ans);
                              }
 
                              @Override
@@ -1796,86 +1805,73 @@ public final class Host {
                                      cb.updateServerStatus(host);
                                  }
                                  setLoadingError();
+                                 drbdExecCallback.doneError(ans, exitCode);
                              }
                          },
-                         new NewOutputCallback() {
-                             private StringBuffer outputBuffer =
-                                                        new StringBuffer(300);
+                         drbdExecCallback,
+                         drbdOutputCallback);
+    }
+
+    /**
+     * Runs the status stream without the cluster browser, the hw and vm
+     * frames are passed to the hw callback and the drbd output to the drbd
+     * callbacks. It is used by the status daemon.
+     */
+    public void startStatusStream(final NewOutputCallback hwOutputCallback,
+                                  final ExecCallback drbdExecCallback,
+                                  final NewOutputCallback drbdOutputCallback) {
+        execStatusStream(hwOutputCallback,
+                         new ExecCallback() {
                              @Override
-                             public void output(final String output) {
-                                 outputBuffer.append(output);
-                                 final ClusterBrowser cb =
-                                              getBrowser().getClusterBrowser();
-                                 int i = 0;
-                                 String hw, vm, drbdConfig;
-                                 String hwUpdate = null;
-                                 String vmUpdate = null;
-                                 String drbdUpdate = null;
-                                 do {
-                                     i++;
-                                     hw = getOutput("hw", outputBuffer); 
-                                     if (hw != null) {
-                                         hwUpdate = hw;
-                                     }
-                                     vmStatusLock();
-                                     vm = getOutput("vm", outputBuffer); 
-                                     if (vm != null) {
-                                         vmUpdate = vm;
-                                     }
-                                     vmStatusUnlock();
-                                     drbdStatusLock();
-                                     drbdConfig = getOutput("drbd",
-                                                            outputBuffer); 
-                                     if (drbdConfig != null) {
-                                         drbdUpdate = drbdConfig;
-                                     }
-                                     drbdStatusUnlock();
-                                 } while (hw != null
-                                          || vm != null
-                                          || drbdConfig != null);
-
-                                 Tools.chomp(outputBuffer);
-                                 if (hwUpdate != null) {
-                                     parseHostInfo(hwUpdate);
-                                     for (final ResourceGraph g : graphs) {
-                                         if (g != null) {
-                                             g.repaint();
-                                         }
-                                     }
-                                 }
-                                 if (vmUpdate != null) {
-                                     final VMSXML newVMSXML =
-                                                        new VMSXML(host);
-                                     if (newVMSXML.update(vmUpdate)) {
-                                         cb.vmsXMLPut(host, newVMSXML);
-                                         cb.updateVMS();
-                                     }
-                                 }
-                                 if (drbdUpdate != null) {
-                                     final DrbdXML dxml =
-                                           new DrbdXML(cluster.getHostsArray(),
-                                                       cb.getDrbdParameters());
-                                     dxml.update(drbdUpdate);
-                                     cb.setDrbdXML(dxml);
-                                     cb.getDrbdGraph().getDrbdInfo().setParameters();
-                                     cb.updateDrbdResources();
-                                 }
-                                 if (drbdUpdate != null
-                                     || vmUpdate != null) {
-                                     cb.updateHWInfo(host);
-                                 }
-                                 if (drbdUpdate != null) {
-                                     cb.updateServerStatus(host);
-                                 }
-                                 if (isServerStatusLatch()) {
-                                     cb.updateServerStatus(host);
-                                 }
+                             public void done(final String ans) {
+                                 parseHostInfo(ans);
                                  setLoadingDone();
+                                 drbdExecCallback.done(ans);
+                             }
+
+                             @Override
+                             public void doneError(final String ans,
+                                                   final int exitCode) {
+                                 setLoadingError();
+                                 drbdExecCallback.doneError(ans, exitCode);
                              }
                          },
-                         false,
-                         false,
-                         HW_INFO_TIMEOUT);
+                         drbdExecCallback,
+                         drbdOutputCallback);
+    }
+
+    /**
+     * Executes the status stream and waits till it ends. The drbd status and
+     * the ping run in the same session.
+     */
+    private void execStatusStream(final NewOutputCallback hwOutputCallback,
+                                  final ExecCallback hwExecCallback,
+                                  final ExecCallback drbdExecCallback,
+                                  final NewOutputCallback drbdOutputCallback) {
+        final MultiplexedOutput statusStream = new MultiplexedOutput();
+        statusStream.addStream("hw", hwOutputCallback, null);
+        statusStream.addStream("drbd", drbdOutputCallback, drbdExecCallback);
+        statusStream.addStream("ping",
+                               new NewOutputCallback() {
+                                   @Override
+                                   public void output(final String output) {
+                                       ping.set(true);
+                                   }
+                               },
+                               null);
+        serverStatusThread = ssh.execCommand(
+                                Tools.getDistCommand(
+                                                "HostStatusStream",
+                                                dist,
+                                                distVersionString,
+                                                arch,
+                                                null, /* ConvertCmdCallback */
+                                                false), /* in bash */
+                                hwExecCallback,
+                                statusStream,
+                                false,
+                                false,
+                                HW_INFO_TIMEOUT);
         try {
             serverStatusThread.join();
         } catch (java.lang.InterruptedException e) {
@@ -1885,7 +1881,8 @@ public final class Host {
 
     /** Starts connection status. */
     public void startConnectionStatus() {
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.startLoop(getName() + "-connection-status",
+                               new Runnable() {
             @Override
             public void run() {
                 while (true) {
@@ -1908,7 +1905,6 @@ public final class Host {
                 }
             }
         });
-        thread.start();
     }
 
     /** Returns whether host ssh connection was established. */
@@ -3059,6 +3055,11 @@ public final class Host {
         mDRBDStatusLock.unlock();
     }
 
+    /** Returns states of the drbd 9 connections and peer devices. */
+    DrbdPeerStates getDrbdPeerStates() {
+        return drbdPeerStates;
+    }
+
     /** vmStatusLock global lock. */
     public void vmStatusLock() {
         mUpdateVMSlock.lock();
@@ -3097,9 +3098,13 @@ public final class Host {
     public void updateDrbdParameters() {
         final ClusterBrowser browser = getBrowser().getClusterBrowser();
         final DrbdXML drbdXML = browser.getDrbdXML();
-        final String output = drbdXML.updateDrbdParameters(this);
-        drbdXML.parseDrbdParameters(this, output, browser.getClusterHosts());
+        final String output = DrbdXML.updateDrbdParameters(this);
+        if (output == null) {
+            return;
+        }
         browser.getDrbdParameters().put(this, output);
+        drbdXML.setDrbdParameters(browser.getClusterHosts(),
+                                  browser.getDrbdParameters());
     }
 }
 
@@ -0,0 +1,222 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.data;
+
+import lcmc.utilities.Tools;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * This class keeps the resource agent meta-data of one host on the disk, so
+ * that after reconnect only the agents, that changed, must be fetched from
+ * the host. The cache is valid for one LCMC release and one pacemaker
+ * version, every agent in it for one checksum of its files on the host.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+final class ResourceAgentCache {
+    /** Checksum of the agents, that cannot be cached. */
+    private static final String NO_CHECKSUM = "-";
+    /** Property with the release and the pacemaker version. */
+    private static final String VERSION_PROP = "version";
+    /** Suffix of the checksum properties. */
+    private static final String CHECKSUM_SUFFIX = ".checksum";
+    /** Suffix of the provider properties. */
+    private static final String PROVIDER_SUFFIX = ".provider";
+    /** Suffix of the service name properties. */
+    private static final String SERVICE_SUFFIX = ".service";
+    /** Suffix of the master/slave properties. */
+    private static final String MASTER_SUFFIX = ".master";
+    /** Suffix of the meta-data properties. */
+    private static final String XML_SUFFIX = ".xml";
+    /** Cache file. */
+    private final File file;
+    /** Release and pacemaker version, for which the cache is valid. */
+    private final String version;
+    /** The cached meta-data. */
+    private final Properties cache = new Properties();
+    /** Current checksums of the agents on the host. */
+    private final Map<String, String> checksums =
+                                         new LinkedHashMap<String, String>();
+    /** Agents, that are not in the cache or were changed on the host. */
+    private final List<String> changedAgents = new ArrayList<String>();
+    /** Whether the cache must be saved. */
+    private boolean modified = false;
+
+    /** Prepares a new <code>ResourceAgentCache</code> object. */
+    ResourceAgentCache(final Host host) {
+        version = Tools.getRelease() + "/" + host.getPacemakerVersion()
+                  + "/" + host.getHeartbeatVersion();
+        file = new File(Tools.getDefault("CRMXML.MetaDataCacheDir"),
+                        host.getName().replaceAll("[^\\w.-]", "_")
+                        + ".properties");
+    }
+
+    /**
+     * Loads the cache from the disk and sets the checksums from the
+     * "class:provider:name checksum" lines, that the helper printed.
+     * The agents, that are not cached anymore are removed.
+     */
+    void load(final String checksumOutput) {
+        if (file.exists()) {
+            InputStream in = null;
+            try {
+                in = new FileInputStream(file);
+                cache.load(in);
+            } catch (IOException e) {
+                Tools.debug(this, "could not load: " + file + ": " + e, 1);
+                cache.clear();
+            } finally {
+                close(in);
+            }
+        }
+        if (!version.equals(cache.getProperty(VERSION_PROP))) {
+            cache.clear();
+            cache.setProperty(VERSION_PROP, version);
+            modified = true;
+        }
+        for (final String line : checksumOutput.split("\\r?\\n")) {
+            final int index = line.lastIndexOf(' ');
+            if (index <= 0) {
+                continue;
+            }
+            final String key = line.substring(0, index);
+            final String checksum = line.substring(index + 1);
+            checksums.put(key, checksum);
+            if (NO_CHECKSUM.equals(checksum)
+                || !checksum.equals(
+                            cache.getProperty(key + CHECKSUM_SUFFIX))) {
+                changedAgents.add(key);
+            }
+        }
+        for (final String name : cache.stringPropertyNames()) {
+            if (name.endsWith(CHECKSUM_SUFFIX)) {
+                final String key = name.substring(
+                                  0,
+                                  name.length() - CHECKSUM_SUFFIX.length());
+                if (!checksums.containsKey(key)
+                    || changedAgents.contains(key)) {
+                    remove(key);
+                }
+            }
+        }
+    }
+
+    /** Parses the meta-data of all agents, that are still valid. */
+    void parseMetaData(final CRMXML crmXML) {
+        for (final String key : checksums.keySet()) {
+            if (changedAgents.contains(key)) {
+                continue;
+            }
+            final String xml = cache.getProperty(key + XML_SUFFIX);
+            if (xml == null) {
+                continue;
+            }
+            crmXML.parseMetaData(
+                     cache.getProperty(key + SERVICE_SUFFIX),
+                     cache.getProperty(key + PROVIDER_SUFFIX),
+                     xml,
+                     Boolean.parseBoolean(
+                                  cache.getProperty(key + MASTER_SUFFIX)));
+        }
+    }
+
+    /** Returns the agents, whose meta-data must be fetched from the host. */
+    List<String> getChangedAgents() {
+        return changedAgents;
+    }
+
+    /** Puts meta-data of the fetched agent into the cache. */
+    void put(final String key,
+             final String serviceName,
+             final String provider,
+             final String xml,
+             final boolean masterSlave) {
+        final String checksum = checksums.get(key);
+        if (checksum == null
+            || NO_CHECKSUM.equals(checksum)
+            || provider == null) {
+            return;
+        }
+        cache.setProperty(key + CHECKSUM_SUFFIX, checksum);
+        cache.setProperty(key + SERVICE_SUFFIX, serviceName);
+        cache.setProperty(key + PROVIDER_SUFFIX, provider);
+        cache.setProperty(key + XML_SUFFIX, xml);
+        cache.setProperty(key + MASTER_SUFFIX, Boolean.toString(masterSlave));
+        modified = true;
+    }
+
+    /** Saves the cache on the disk, if it was modified. */
+    void save() {
+        if (!modified) {
+            return;
+        }
+        final File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Tools.debug(this, "could not create: " + dir, 1);
+            return;
+        }
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            cache.store(out, "resource agent meta-data");
+            modified = false;
+        } catch (IOException e) {
+            Tools.debug(this, "could not save: " + file + ": " + e, 1);
+        } finally {
+            close(out);
+        }
+    }
+
+    /** Removes the agent from the cache. */
+    private void remove(final String key) {
+        cache.remove(key + CHECKSUM_SUFFIX);
+        cache.remove(key + SERVICE_SUFFIX);
+        cache.remove(key + PROVIDER_SUFFIX);
+        cache.remove(key + XML_SUFFIX);
+        cache.remove(key + MASTER_SUFFIX);
+        modified = true;
+    }
+
+    /** Closes the stream. */
+    private void close(final Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                Tools.debug(this, "could not close: " + file + ": " + e, 1);
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@
 package lcmc.data;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.gui.TerminalPanel;
 
 import java.io.IOException;
@@ -206,8 +208,7 @@ public final class UserConfig extends XML {
                         });
                     }
                 };
-                final Thread thread = new Thread(runnable);
-                thread.start();
+                TaskExecutor.execute(Pool.IO, runnable);
             }
         }
     }
@@ -40,9 +40,11 @@ import java.util.TreeSet;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import org.apache.commons.collections15.map.MultiKeyMap;
+import org.apache.commons.collections15.keyvalue.MultiKey;
 import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPath;
@@ -130,6 +132,11 @@ public final class VMSXML extends XML {
                                     new LinkedHashMap<String, NetworkData>();
     /** Directories where are source files. */
     private final Set<String> sourceFileDirs = new TreeSet<String>();
+    /** Map from domain names to the md5 of their info. */
+    private final Map<String, String> domainMD5s =
+                                                new HashMap<String, String>();
+    /** Domains that were parsed or removed in the last update. */
+    private final Set<String> changedDomains = new HashSet<String>();
     /** Pattern that maches display e.g. :4. */
     private static final Pattern DISPLAY_PATTERN =
                                                  Pattern.compile(".*:(\\d+)$");
@@ -1243,11 +1250,19 @@ public final class VMSXML extends XML {
         return update(output);
     }
 
+    /** Updates data from the output of the get-vm-info. */
     public boolean update(final String output) {
+        return update(output, null);
+    }
+
+    /**
+     * Updates data from the output of the get-vm-info or the hw-info-daemon.
+     * The daemon prints only the changed domains, the unchanged ones are
+     * taken from the previous object. If that is not possible, the whole
+     * info is fetched from the host.
+     */
+    public boolean update(final String output, final VMSXML previous) {
         final Document document = getXMLDocument(output);
-        mXMLDocumentWriteLock.lock();
-        xmlDocument = document;
-        mXMLDocumentWriteLock.unlock();
         if (document == null) {
             return false;
         }
@@ -1256,21 +1271,173 @@ public final class VMSXML extends XML {
         if (md5 == null || md5.equals(host.getVMInfoMD5())) {
             return false;
         }
+        if ("true".equals(getAttribute(vmsNode, "partial"))
+            && !mergeUnchanged(document, vmsNode, previous)) {
+            Tools.debug(this, "vm info: cannot merge, full update", 1);
+            host.setVMInfoMD5(null);
+            return update();
+        }
+        mXMLDocumentWriteLock.lock();
+        xmlDocument = document;
+        mXMLDocumentWriteLock.unlock();
         host.setVMInfoMD5(md5);
+        final Set<String> unchangedDomains = new HashSet<String>();
         final NodeList vms = vmsNode.getChildNodes();
         for (int i = 0; i < vms.getLength(); i++) {
             final Node node = vms.item(i);
             if ("net".equals(node.getNodeName())) {
                 updateNetworks(node);
             } else if ("vm".equals(node.getNodeName())) {
-                updateVM(node);
+                final String name = getAttribute(node, VM_PARAM_NAME);
+                final String domainMD5 = getAttribute(node, "md5");
+                if (domainMD5 != null) {
+                    domainMD5s.put(name, domainMD5);
+                }
+                if (previous != null
+                    && domainMD5 != null
+                    && domainMD5.equals(previous.domainMD5s.get(name))) {
+                    /* parsed data are copied from the previous object */
+                    unchangedDomains.add(name);
+                    if (!domainNames.contains(name)) {
+                        domainNames.add(name);
+                    }
+                } else {
+                    updateVM(node);
+                    changedDomains.add(name);
+                }
             } else if ("version".equals(node.getNodeName())) {
                 host.setLibvirtVersion(getText(node));
             }
         }
+        if (!unchangedDomains.isEmpty()) {
+            copyDomains(previous, unchangedDomains);
+        }
+        if (previous != null) {
+            for (final String name : previous.getDomainNames()) {
+                if (!domainNames.contains(name)) {
+                    /* removed */
+                    changedDomains.add(name);
+                }
+            }
+        }
+        Tools.debug(this, "vm info: parsed: " + changedDomains.size()
+                          + ", unchanged: " + unchangedDomains.size(), 2);
+        return true;
+    }
+
+    /** Copies the parsed data of the domains from the previous object. */
+    private void copyDomains(final VMSXML previous, final Set<String> names) {
+        for (final Object o : previous.parameterValues.entrySet()) {
+            @SuppressWarnings("unchecked")
+            final Map.Entry<MultiKey<String>, String> entry =
+                                        (Map.Entry<MultiKey<String>, String>) o;
+            if (names.contains(entry.getKey().getKey(0))) {
+                parameterValues.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (final String name : names) {
+            final String configName = previous.namesConfigsMap.get(name);
+            if (configName != null) {
+                configsMap.put(configName, name);
+                namesConfigsMap.put(name, configName);
+            }
+            copyValue(previous.remotePorts, remotePorts, name);
+            copyValue(previous.autoports, autoports, name);
+            copyValue(previous.runningMap, runningMap, name);
+            copyValue(previous.suspendedMap, suspendedMap, name);
+            copyValue(previous.disksMap, disksMap, name);
+            copyValue(previous.filesystemsMap, filesystemsMap, name);
+            copyValue(previous.interfacesMap, interfacesMap, name);
+            copyValue(previous.inputDevsMap, inputDevsMap, name);
+            copyValue(previous.graphicsDevsMap, graphicsDevsMap, name);
+            copyValue(previous.soundsMap, soundsMap, name);
+            copyValue(previous.serialsMap, serialsMap, name);
+            copyValue(previous.parallelsMap, parallelsMap, name);
+            copyValue(previous.videosMap, videosMap, name);
+            final Map<String, DiskData> disks = disksMap.get(name);
+            if (disks != null) {
+                for (final DiskData diskData : disks.values()) {
+                    final String dir = Tools.getDirectoryPart(
+                                                    diskData.getSourceFile());
+                    if (dir != null) {
+                        sourceFileDirs.add(dir);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Copies the value of the domain from one map to another. */
+    private static <V> void copyValue(final Map<String, V> from,
+                                      final Map<String, V> to,
+                                      final String name) {
+        final V value = from.get(name);
+        if (value != null) {
+            to.put(name, value);
+        }
+    }
+
+    /**
+     * Returns names of the domains, that were parsed or removed in the last
+     * update, the other ones are the same as in the previous object.
+     */
+    public Set<String> getChangedDomains() {
+        return changedDomains;
+    }
+
+    /**
+     * Replaces the <vm unchanged="true"/> nodes with the vm nodes from the
+     * previous document. Returns false if some of them is not there.
+     */
+    private boolean mergeUnchanged(final Document document,
+                                   final Node vmsNode,
+                                   final VMSXML previous) {
+        if (previous == null) {
+            return false;
+        }
+        previous.mXMLDocumentReadLock.lock();
+        final Document prevDocument = previous.xmlDocument;
+        previous.mXMLDocumentReadLock.unlock();
+        if (prevDocument == null) {
+            return false;
+        }
+        final Node prevVmsNode = getChildNode(prevDocument, "vms");
+        if (prevVmsNode == null) {
+            return false;
+        }
+        final Map<String, Node> prevVMs = new HashMap<String, Node>();
+        final NodeList prevNodes = prevVmsNode.getChildNodes();
+        for (int i = 0; i < prevNodes.getLength(); i++) {
+            final Node node = prevNodes.item(i);
+            if ("vm".equals(node.getNodeName())) {
+                prevVMs.put(getVMKey(node), node);
+            }
+        }
+        final NodeList vms = vmsNode.getChildNodes();
+        for (int i = 0; i < vms.getLength(); i++) {
+            final Node node = vms.item(i);
+            if (!"vm".equals(node.getNodeName())
+                || !"true".equals(getAttribute(node, "unchanged"))) {
+                continue;
+            }
+            final Node prevNode = prevVMs.get(getVMKey(node));
+            final String md5 = getAttribute(node, "md5");
+            if (prevNode == null
+                || md5 == null
+                || !md5.equals(getAttribute(prevNode, "md5"))) {
+                return false;
+            }
+            vmsNode.replaceChild(document.importNode(prevNode, true), node);
+        }
         return true;
     }
 
+    /** Returns virsh options and name of the vm node. */
+    private String getVMKey(final Node vmNode) {
+        return getAttribute(vmNode, VM_PARAM_VIRSH_OPTIONS)
+               + " " + getAttribute(vmNode, VM_PARAM_NAME);
+    }
+
     /** Updates one network. */
     private void updateNetworks(final Node netNode) {
         /* one vm */
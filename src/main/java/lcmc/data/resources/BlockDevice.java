@@ -323,6 +323,11 @@ public final class BlockDevice extends Resource {
         return diskState;
     }
 
+    /** Returns drbd flags. */
+    public String getDrbdFlags() {
+        return drbdFlags;
+    }
+
     /** Sets the synced progress in percents. */
     public void setSyncedProgress(final String syncedProgress) {
         this.syncedProgress = syncedProgress;
@@ -22,9 +22,11 @@
 
 package lcmc.gui;
 
+import lcmc.utilities.RefreshScheduler;
 import lcmc.utilities.Tools;
 import lcmc.gui.resources.Info;
 import lcmc.gui.resources.CategoryInfo;
+import lcmc.gui.resources.InfoPanelTracker;
 
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -56,6 +58,8 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  */
 public class Browser {
+    /** Key of the tree node changes in the refresh scheduler. */
+    private static final String NODE_CHANGED_REFRESH = "node-changed";
     /** Tree model of the menu tree. */
     private DefaultTreeModel treeModel;
     /** Top of the menu tree. */
@@ -91,6 +95,8 @@ public class Browser {
                     Tools.getDefaultColor("ViewPanel.Status.Background");
     /** DRBD test lock. */
     private final Lock mDRBDtestLock = new ReentrantLock();
+    /** Built info panels of this browser. */
+    private final InfoPanelTracker infoPanelTracker = new InfoPanelTracker();
 
     /** Sets the top of the menu tree. */
     protected final void setTreeTop() {
@@ -116,11 +122,21 @@ public class Browser {
         return tree;
     }
 
+    /** Returns the tracker of the built info panels. */
+    public final InfoPanelTracker getInfoPanelTracker() {
+        return infoPanelTracker;
+    }
+
     /** Repaints the menu tree. */
     public final void repaintTree() {
         final JTree t = tree;
         if (t != null) {
-            t.repaint();
+            RefreshScheduler.refresh(new Runnable() {
+                @Override
+                public void run() {
+                    t.repaint();
+                }
+            }, t);
         }
     }
 
@@ -157,6 +173,8 @@ public class Browser {
             oldN = (DefaultMutableTreeNode) t.getLastSelectedPathComponent();
         }
         final DefaultMutableTreeNode oldNode = oldN;
+        /* not coalesced, the structure changes must stay in order with
+         * selectPath and addNode */
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -179,19 +197,27 @@ public class Browser {
 
     /** Sets the node change for the node. */
     public final void nodeChanged(final DefaultMutableTreeNode node) {
-        final String stacktrace = Tools.getStackTrace();
-        SwingUtilities.invokeLater(new Runnable() {
+        final String stacktrace;
+        if (Tools.getConfigData().isStackTraces()) {
+            stacktrace = Tools.getStackTrace();
+        } else {
+            stacktrace = null;
+        }
+        final DefaultTreeModel tm = treeModel;
+        RefreshScheduler.refresh(new Runnable() {
             @Override
             public void run() {
                 try {
-                    treeModel.nodeChanged(node);
+                    tm.nodeChanged(node);
                 } catch (Exception e) {
                     Tools.appError(node.getUserObject()
                                    + " node changed error: ", e);
-                    Tools.appWarning("stacktrace: " + stacktrace);
+                    if (stacktrace != null) {
+                        Tools.appWarning("stacktrace: " + stacktrace);
+                    }
                 }
             }
-        });
+        }, tm, NODE_CHANGED_REFRESH, node);
     }
 
     /** Adds the node to the top level. */
@@ -22,6 +22,8 @@
 package lcmc.gui;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.DRBD;
 import lcmc.data.PtestData;
 import lcmc.data.DRBDtestData;
@@ -34,6 +36,7 @@ import lcmc.data.DrbdXML;
 import lcmc.data.VMSXML;
 import lcmc.data.ConfigData;
 import lcmc.utilities.NewOutputCallback;
+import lcmc.utilities.FrameDecoder;
 
 import lcmc.utilities.ExecCallback;
 import lcmc.utilities.Heartbeat;
@@ -181,8 +184,6 @@ public final class ClusterBrowser extends Browser {
     private final Map<Host, VMSXML> vmsXML = new HashMap<Host, VMSXML>();
     /** Object that has drbd test data. */
     private DRBDtestData drbdtestData;
-    /** Whether drbd status was canceled by user. */
-    private boolean drbdStatusCanceled = false;
     /** Whether hb status was canceled by user. */
     private boolean clStatusCanceled = false;
     /** Ptest lock. */
@@ -336,8 +337,7 @@ public final class ClusterBrowser extends Browser {
     public static final String STARTING_PTEST_TOOLTIP =
                                 Tools.getString("ClusterBrowser.StartingPtest");
     /** Cluster status error string. */
-    private static final String CLUSTER_STATUS_ERROR =
-                                  "---start---\r\nerror\r\n\r\n---done---\r\n";
+    private static final String CLUSTER_STATUS_ERROR = "error";
     /** Small cluster icon. */
     static final ImageIcon CLUSTER_ICON_SMALL = Tools.createImageIcon(
                           Tools.getDefault("ClusterBrowser.ClusterIconSmall"));
@@ -349,8 +349,6 @@ public final class ClusterBrowser extends Browser {
                                        new ArrayList<String>(
                                                Arrays.asList(HB_PAR_TIMEOUT,
                                                              HB_PAR_INTERVAL));
-    private static final String RESET_STRING = "---reset---\r\n";
-    private static int RESET_STRING_LEN = RESET_STRING.length();
     /** Match ...by-res/r0 or by-res/r0/0 from DRBD 8.4 */
     private final static Pattern BY_RES_PATTERN =
                     Pattern.compile("^/dev/drbd/by-res/([^/]+)(?:/(\\d+))?$");
@@ -677,7 +675,7 @@ public final class ClusterBrowser extends Browser {
     /** Starts everything. */
     private void updateHeartbeatDrbdThread() {
         Tools.debug(this, "load cluster", 0);
-        final Thread tt = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.STATUS, new Runnable() {
             @Override
             public void run() {
                 final Host[] hosts = cluster.getHostsArray();
@@ -697,7 +695,6 @@ public final class ClusterBrowser extends Browser {
                 });
             }
         });
-        tt.start();
         final Runnable runnable = new Runnable() {
             @Override
             public void run() {
@@ -747,7 +744,11 @@ public final class ClusterBrowser extends Browser {
                 }
 
                 crmXML = new CRMXML(firstHost, getServicesInfo());
-                clusterStatus = new ClusterStatus(firstHost, crmXML);
+                final ClusterStatus newClusterStatus =
+                                       new ClusterStatus(firstHost, crmXML);
+                newClusterStatus.setFullCibQueryListener(
+                            getFullCibQueryListener(newClusterStatus));
+                clusterStatus = newClusterStatus;
                 initOperations();
                 final DrbdXML newDrbdXML = new DrbdXML(cluster.getHostsArray(),
                                                        drbdParameters);
@@ -766,39 +767,27 @@ public final class ClusterBrowser extends Browser {
                     Tools.getString("ClusterBrowser.DrbdUpdate"));
                 cluster.getBrowser().startConnectionStatus();
                 cluster.getBrowser().startServerStatus();
-                cluster.getBrowser().startDrbdStatus();
                 cluster.getBrowser().startClStatus();
             }
         };
-        final Thread thread = new Thread(runnable);
-        thread.start();
+        TaskExecutor.startLoop(cluster.getName() + "-cluster-status", runnable);
     }
 
     /**
      * Starts polling of the server status on all hosts, for all the stuff
      * that can change on the server on the fly, like for example the block
-     * devices.
+     * devices. The drbd status runs in the same session.
      */
     void startServerStatus() {
         final Host[] hosts = cluster.getHostsArray();
         for (final Host host : hosts) {
-            final Thread thread = new Thread(new Runnable() {
+            TaskExecutor.startLoop(host.getName() + "-server-status",
+                                   new Runnable() {
                 @Override
                 public void run() {
                     startServerStatus(host);
                 }
             });
-            thread.start();
-        }
-    }
-
-    private void startPing(final Host host) {
-        while (true) {
-            host.startPing();
-            Tools.sleep(10000);
-            if (serverStatusCanceled) {
-                break;
-            }
         }
     }
 
@@ -807,7 +796,7 @@ public final class ClusterBrowser extends Browser {
         final String hostName = host.getName();
         final CategoryInfo[] infosToUpdate =
                                         new CategoryInfo[]{clusterHostsInfo};
-        long count = 0;
+        final CountDownLatch drbdFirstTime = startDrbdStatusIndicator(host);
         while (true) {
             if (host.isServerStatusLatch()) {
                 Tools.startProgressIndicator(
@@ -816,8 +805,11 @@ public final class ClusterBrowser extends Browser {
             }
 
             host.setIsLoading();
-            host.startHWInfoDaemon(infosToUpdate,
-                                   new ResourceGraph[]{drbdGraph, crmGraph});
+            host.startStatusStream(
+                        infosToUpdate,
+                        new ResourceGraph[]{drbdGraph, crmGraph},
+                        getDrbdStatusExecCallback(host, drbdFirstTime),
+                        getDrbdStatusOutputCallback(host, drbdFirstTime));
             if (serverStatusCanceled) {
                 break;
             }
@@ -901,51 +893,15 @@ public final class ClusterBrowser extends Browser {
     void startConnectionStatus() {
         final Host[] hosts = cluster.getHostsArray();
         for (final Host host : hosts) {
-            final Thread pingThread = new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    startPing(host);
-                }
-            });
-            pingThread.start();
-            final Thread thread = new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    host.startConnectionStatus();
-                }
-            });
-            thread.start();
-        }
-    }
-
-    /** Starts drbd status on all hosts. */
-    void startDrbdStatus() {
-        final Host[] hosts = cluster.getHostsArray();
-        for (final Host host : hosts) {
-            final Thread thread = new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    startDrbdStatus(host);
-                }
-            });
-            thread.start();
+            host.startConnectionStatus();
         }
     }
 
-    /** Starts drbd status. */
-    public void stopDrbdStatus() {
-        drbdStatusCanceled = true;
-        final Host[] hosts = cluster.getHostsArray();
-        for (Host host : hosts) {
-            host.stopDrbdStatus();
-        }
-        for (Host host : hosts) {
-            host.waitOnDrbdStatus();
-        }
-    }
-
-    /** Starts drbd status on host. */
-    void startDrbdStatus(final Host host) {
+    /**
+     * Shows the drbd status progress indicator on the host, till the latch,
+     * that is returned, counts down.
+     */
+    private CountDownLatch startDrbdStatusIndicator(final Host host) {
         final CountDownLatch firstTime = new CountDownLatch(1);
         host.setDrbdStatus(false);
         final String hostName = host.getName();
@@ -953,7 +909,7 @@ public final class ClusterBrowser extends Browser {
         Tools.startProgressIndicator(
                         hostName,
                         Tools.getString("ClusterBrowser.UpdatingDrbdStatus"));
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.STATUS, new Runnable() {
             @Override
             public void run() {
                 try {
@@ -971,157 +927,146 @@ public final class ClusterBrowser extends Browser {
                          Tools.getString("ClusterBrowser.UpdatingDrbdStatus"));
             }
         });
-        thread.start();
+        return firstTime;
+    }
 
-        drbdStatusCanceled = false;
-        while (true) {
-            host.execDrbdStatusCommand(
-                  new ExecCallback() {
-                       @Override
-                       public void done(final String ans) {
-                           firstTime.countDown();
-                           if (!host.isDrbdStatus()) {
-                               host.setDrbdStatus(true);
-                               drbdGraph.repaint();
-                               Tools.debug(this, "drbd status update: "
-                                                     + host.getName(), 1);
-                               clusterHostsInfo.updateTable(
-                                                ClusterHostsInfo.MAIN_TABLE);
-                           }
-                       }
+    /** Returns the callback, that is called, when the drbd status ends. */
+    private ExecCallback getDrbdStatusExecCallback(
+                                           final Host host,
+                                           final CountDownLatch firstTime) {
+        return new ExecCallback() {
+            @Override
+            public void done(final String ans) {
+                firstTime.countDown();
+                if (!host.isDrbdStatus()) {
+                    host.setDrbdStatus(true);
+                    drbdGraph.repaint();
+                    Tools.debug(this, "drbd status update: "
+                                          + host.getName(), 1);
+                    clusterHostsInfo.updateTable(
+                                     ClusterHostsInfo.MAIN_TABLE);
+                }
+            }
 
-                       @Override
-                       public void doneError(final String ans,
-                                             final int exitCode) {
-                           firstTime.countDown();
-                           Tools.debug(this, "drbd status failed: "
-                                             + host.getName()
-                                             + " exit code: "
-                                             + exitCode,
-                                       1);
-                           if (exitCode != 143 && exitCode != 100) {
-                               // TODO: exit code is null -> 100 all of the
-                               // sudden
-                               /* was killed intentionally */
-                               if (host.isDrbdStatus()) {
-                                   host.setDrbdStatus(false);
-                                   Tools.debug(this, "drbd status update: "
-                                                     + host.getName(), 1);
-                                   drbdGraph.repaint();
-                                   clusterHostsInfo.updateTable(
-                                                ClusterHostsInfo.MAIN_TABLE);
-                               }
-                               if (exitCode == 255) {
-                                   /* looks like connection was lost */
-                                   //host.getSSH().forceReconnect();
-                                   //host.setConnected();
-                               }
-                           }
-                           //TODO: repaint ok?
-                           //repaintSplitPane();
-                           //drbdGraph.updatePopupMenus();
-                           //drbdGraph.repaint();
-                       }
-                   },
-
-                   new NewOutputCallback() {
-                       private StringBuffer outputBuffer =
-                                                        new StringBuffer(300);
-                       @Override
-                       public void output(final String output) {
-                           if ("--nm--".equals(output.trim())) {
-                               if (host.isDrbdStatus()) {
-                                   Tools.debug(this, "drbd status update: "
-                                                 + host.getName(), 1);
-                                   host.setDrbdStatus(false);
-                                   drbdGraph.repaint();
-                                   clusterHostsInfo.updateTable(
-                                                ClusterHostsInfo.MAIN_TABLE);
-                               }
-                               firstTime.countDown();
-                               return;
-                           } 
-                           firstTime.countDown();
-                           if (!host.isDrbdStatus()) {
-                               Tools.debug(this, "drbd status update: "
-                                             + host.getName(), 1);
-                               host.setDrbdStatus(true);
-                               drbdGraph.repaint();
-                               clusterHostsInfo.updateTable(
-                                                  ClusterHostsInfo.MAIN_TABLE);
-                           }
-                           outputBuffer.append(output);
-                           String drbdConfig, event;
-                           boolean drbdUpdate = false;
-                           boolean eventUpdate = false;
-                           do {
-                               host.drbdStatusLock();
-                               drbdConfig =
-                                        host.getOutput("drbd", outputBuffer); 
-                               if (drbdConfig != null) {
-                                   final DrbdXML newDrbdXML =
-                                            new DrbdXML(cluster.getHostsArray(),
-                                                        drbdParameters);
-                                   newDrbdXML.update(drbdConfig);
-                                   drbdXML = newDrbdXML;
-                                   drbdUpdate = true;
-                                   firstTime.countDown();
-                               }
-                               host.drbdStatusUnlock();
-                               event = host.getOutput("event", outputBuffer); 
-                               if (event != null) {
-                                   if (drbdXML.parseDrbdEvent(host.getName(),
-                                                              drbdGraph,
-                                                              event)) {
-                                       host.setDrbdStatus(true);
-                                       eventUpdate = true;
-                                   }
-                               }
-                           } while (event != null || drbdConfig != null);
-                           Tools.chomp(outputBuffer);
-                           if (drbdUpdate) {
-                               getDrbdGraph().getDrbdInfo().setParameters();
-                               updateDrbdResources();
-                           }
-                           if (eventUpdate) {
-                               drbdGraph.repaint();
-                               Tools.debug(this, "drbd status update: "
-                                             + host.getName(), 1);
-                               clusterHostsInfo.updateTable(
-                                                ClusterHostsInfo.MAIN_TABLE);
-                               firstTime.countDown();
-                               final Thread thread = new Thread(
-                                   new Runnable() {
-                                       @Override
-                                       public void run() {
-                                           repaintSplitPane();
-                                           drbdGraph.updatePopupMenus();
-                                           SwingUtilities.invokeLater(
-                                               new Runnable() {
-                                                   @Override
-                                                   public void run() {
-                                                       repaintTree();
-                                                   }
-                                               }
-                                           );
-                                       }
-                                   });
-                               thread.start();
-                           }
-                       }
-                   });
-            while (!host.isConnected() || !host.isDrbdLoaded()) {
-                try {
-                    Thread.sleep(10000);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
+            @Override
+            public void doneError(final String ans, final int exitCode) {
+                firstTime.countDown();
+                Tools.debug(this, "drbd status failed: "
+                                  + host.getName()
+                                  + " exit code: "
+                                  + exitCode,
+                            1);
+                if (exitCode != 143 && exitCode != 100) {
+                    // TODO: exit code is null -> 100 all of the
+                    // sudden
+                    /* was killed intentionally */
+                    if (host.isDrbdStatus()) {
+                        host.setDrbdStatus(false);
+                        Tools.debug(this, "drbd status update: "
+                                          + host.getName(), 1);
+                        drbdGraph.repaint();
+                        clusterHostsInfo.updateTable(
+                                     ClusterHostsInfo.MAIN_TABLE);
+                    }
+                    if (exitCode == 255) {
+                        /* looks like connection was lost */
+                        //host.getSSH().forceReconnect();
+                        //host.setConnected();
+                    }
                 }
+                //TODO: repaint ok?
+                //repaintSplitPane();
+                //drbdGraph.updatePopupMenus();
+                //drbdGraph.repaint();
             }
-            host.waitOnDrbdStatus();
-            if (drbdStatusCanceled) {
-                break;
+        };
+    }
+
+    /** Returns the callback, that parses the drbd status output. */
+    private NewOutputCallback getDrbdStatusOutputCallback(
+                                           final Host host,
+                                           final CountDownLatch firstTime) {
+        return new NewOutputCallback() {
+            private final FrameDecoder frameDecoder = new FrameDecoder();
+            @Override
+            public void output(final String output) {
+                if ("--nm--".equals(output.trim())) {
+                    if (host.isDrbdStatus()) {
+                        Tools.debug(this, "drbd status update: "
+                                      + host.getName(), 1);
+                        host.setDrbdStatus(false);
+                        drbdGraph.repaint();
+                        clusterHostsInfo.updateTable(
+                                     ClusterHostsInfo.MAIN_TABLE);
+                    }
+                    firstTime.countDown();
+                    return;
+                } 
+                firstTime.countDown();
+                if (!host.isDrbdStatus()) {
+                    Tools.debug(this, "drbd status update: "
+                                  + host.getName(), 1);
+                    host.setDrbdStatus(true);
+                    drbdGraph.repaint();
+                    clusterHostsInfo.updateTable(
+                                       ClusterHostsInfo.MAIN_TABLE);
+                }
+                boolean drbdUpdate = false;
+                boolean eventUpdate = false;
+                for (final FrameDecoder.Frame frame
+                                           : frameDecoder.decode(output)) {
+                    final String type = frame.getType();
+                    if ("drbd".equals(type)) {
+                        host.drbdStatusLock();
+                        if (host.isNewInfo(type, frame.getTimestamp())) {
+                            final DrbdXML newDrbdXML =
+                                     new DrbdXML(cluster.getHostsArray(),
+                                                 drbdParameters);
+                            newDrbdXML.update(frame.getPayload());
+                            drbdXML = newDrbdXML;
+                            drbdUpdate = true;
+                            firstTime.countDown();
+                        }
+                        host.drbdStatusUnlock();
+                    } else if ("event".equals(type)
+                               && host.isNewInfo(type, frame.getTimestamp())
+                               && drbdXML.parseDrbdEvent(host,
+                                                         drbdGraph,
+                                                         frame.getPayload())) {
+                        host.setDrbdStatus(true);
+                        eventUpdate = true;
+                    }
+                }
+                if (drbdUpdate) {
+                    getDrbdGraph().getDrbdInfo().setParameters();
+                    updateDrbdResources();
+                }
+                if (eventUpdate) {
+                    drbdGraph.repaint();
+                    Tools.debug(this, "drbd status update: "
+                                  + host.getName(), 1);
+                    clusterHostsInfo.updateTable(
+                                     ClusterHostsInfo.MAIN_TABLE);
+                    firstTime.countDown();
+                    TaskExecutor.execute(Pool.UI,
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                repaintSplitPane();
+                                drbdGraph.updatePopupMenus();
+                                SwingUtilities.invokeLater(
+                                    new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            repaintTree();
+                                        }
+                                    }
+                                );
+                            }
+                        });
+                }
             }
-        }
+        };
     }
 
     /** Stops hb status. */
@@ -1193,7 +1138,7 @@ public final class ClusterBrowser extends Browser {
 
     /** Process output from cluster. */
     void processClusterOutput(final String output,
-                              final StringBuffer clusterStatusOutput,
+                              final FrameDecoder clusterStatusOutput,
                               final Host host,
                               final CountDownLatch firstTime,
                               final boolean testOnly) {
@@ -1210,80 +1155,101 @@ public final class ClusterBrowser extends Browser {
             firstTime.countDown();
         } else {
             // TODO: if we get ERROR:... show it somewhere
-            clusterStatusOutput.append(output);
-            /* removes the string from the output. */
-            int s = clusterStatusOutput.indexOf(RESET_STRING);
-            while (s >= 0) {
-                clusterStatusOutput.delete(s, s + RESET_STRING_LEN);
-                s = clusterStatusOutput.indexOf(RESET_STRING);
-            }
-            if (clusterStatusOutput.length() > 12) {
-                final String e = clusterStatusOutput.substring(
-                                           clusterStatusOutput.length() - 12);
-                if (e.trim().equals("---done---")) {
-                    final int i =
-                                clusterStatusOutput.lastIndexOf("---start---");
-                    if (i >= 0) {
-                        if (clusterStatusOutput.indexOf("is stopped") >= 0) {
-                            /* TODO: heartbeat's not running. */
-                        } else {
-                            final String status =
-                                              clusterStatusOutput.substring(i);
-                            clusterStatusOutput.delete(
-                                                 0,
-                                                 clusterStatusOutput.length());
-                            if (CLUSTER_STATUS_ERROR.equals(status)) {
-                                final boolean oldStatus = host.isClStatus();
-                                clStatus.setOnlineNode(host.getName(),
-                                                            "no");
-                                setClStatus(host, false);
-                                if (oldStatus) {
-                                   crmGraph.repaint();
-                                }
-                            } else {
-                                if (clStatus.parseStatus(status)) {
-                                    Tools.debug(this,
-                                                "update cluster status: "
-                                                + host.getName(), 1);
-                                    final ServicesInfo ssi = servicesInfo;
-                                    rscDefaultsInfo.setParameters(
-                                      clStatus.getRscDefaultsValuePairs());
-                                    ssi.setGlobalConfig(clStatus);
-                                    ssi.setAllResources(clStatus, testOnly);
-                                    if (firstTime.getCount() == 1) {
-                                        /* one more time so that id-refs work.*/
-                                        ssi.setAllResources(clStatus, testOnly);
-                                    }
-                                    repaintTree();
-                                    clusterHostsInfo.updateTable(
-                                                ClusterHostsInfo.MAIN_TABLE);
-                                }
-                                final String online =
-                                    clStatus.isOnlineNode(host.getName());
-                                if ("yes".equals(online)) {
-                                    setClStatus(host, true);
-                                    setClStatus();
-                                } else {
-                                    setClStatus(host, false);
-                                }
-                            }
-                        }
-                        firstTime.countDown();
+            for (final FrameDecoder.Frame frame
+                                    : clusterStatusOutput.decode(output)) {
+                if (!FrameDecoder.CLUSTER_TYPE.equals(frame.getType())) {
+                    continue;
+                }
+                final String status = frame.getPayload();
+                if (status.indexOf("is stopped") >= 0) {
+                    /* TODO: heartbeat's not running. */
+                } else if (CLUSTER_STATUS_ERROR.equals(status.trim())) {
+                    final boolean oldStatus = host.isClStatus();
+                    clStatus.setOnlineNode(host.getName(), "no");
+                    setClStatus(host, false);
+                    if (oldStatus) {
+                       crmGraph.repaint();
+                    }
+                } else {
+                    if (clStatus.parseStatus(status)) {
+                        Tools.debug(this,
+                                    "update cluster status: "
+                                    + host.getName(), 1);
+                        updateClusterStatus(clStatus,
+                                            firstTime.getCount() == 1,
+                                            testOnly);
+                    }
+                    final String online =
+                                        clStatus.isOnlineNode(host.getName());
+                    if ("yes".equals(online)) {
+                        setClStatus(host, true);
+                        setClStatus();
+                    } else {
+                        setClStatus(host, false);
                     }
                 }
+                firstTime.countDown();
             }
-            Tools.chomp(clusterStatusOutput);
         }
         clStatusUnlock();
     }
 
+    /**
+     * Updates the resources, after the cluster status was parsed. The
+     * clStatusLock must be held.
+     */
+    private void updateClusterStatus(final ClusterStatus clStatus,
+                                     final boolean firstTime,
+                                     final boolean testOnly) {
+        final ServicesInfo ssi = servicesInfo;
+        rscDefaultsInfo.setParameters(clStatus.getRscDefaultsValuePairs());
+        ssi.setGlobalConfig(clStatus);
+        ssi.setAllResources(clStatus, testOnly);
+        if (firstTime) {
+            /* one more time so that id-refs work.*/
+            ssi.setAllResources(clStatus, testOnly);
+        }
+        repaintTree();
+        clusterHostsInfo.updateTable(ClusterHostsInfo.MAIN_TABLE);
+    }
+
+    /**
+     * Returns the listener that parses the full cib, after a cib diff could
+     * not be applied.
+     */
+    private ClusterStatus.FullCibQueryListener getFullCibQueryListener(
+                                              final ClusterStatus clStatus) {
+        return new ClusterStatus.FullCibQueryListener() {
+            @Override
+            public void fullCibQuery(final String status) {
+                clStatusLock();
+                try {
+                    if (!clStatusCanceled && clStatus == clusterStatus
+                        && clStatus.parseStatus(status)) {
+                        Tools.debug(this, "update full cib", 1);
+                        updateClusterStatus(clStatus, false, false);
+                    }
+                } finally {
+                    clStatusUnlock();
+                }
+            }
+
+            @Override
+            public void fullCibQueryFailed() {
+                Tools.progressIndicatorFailed(
+                        getCluster().getName(),
+                        Tools.getString("ClusterBrowser.FullCibQueryFailed"));
+            }
+        };
+    }
+
     /** Starts hb status. */
     void startClStatus() {
         final CountDownLatch firstTime = new CountDownLatch(1);
         final String clusterName = getCluster().getName();
         startClStatusProgressIndicator(clusterName);
         final boolean testOnly = false;
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.STATUS, new Runnable() {
             @Override
             public void run() {
                 try {
@@ -1306,7 +1272,6 @@ public final class ClusterBrowser extends Browser {
                 stopClStatusProgressIndicator(clusterName);
             }
         });
-        thread.start();
         clStatusCanceled = false;
         while (true) {
             final Host host = getDCHost();
@@ -1355,9 +1320,8 @@ public final class ClusterBrowser extends Browser {
                  },
 
                  new NewOutputCallback() {
-                     //TODO: check this buffer's size
-                     private StringBuffer clusterStatusOutput =
-                                                        new StringBuffer(300);
+                     private final FrameDecoder clusterStatusOutput =
+                                                        new FrameDecoder();
                      @Override
                      public void output(final String output) {
                          processClusterOutput(output,
@@ -1465,6 +1429,14 @@ public final class ClusterBrowser extends Browser {
 
     /** Updates VM nodes. */
     public void updateVMS() {
+        updateVMS(null);
+    }
+
+    /**
+     * Updates VM nodes, but the parameters only of the changed domains, or
+     * of all of them, if changedDomains is null.
+     */
+    public void updateVMS(final Set<String> changedDomains) {
         Tools.debug(this, "VM status update", 1);
         final Set<String> domainNames = new TreeSet<String>();
         for (final Host host : getClusterHosts()) {
@@ -1491,7 +1463,10 @@ public final class ClusterBrowser extends Browser {
                     /* keeping */
                     currentVMSVDIs.add(vmsvdi);
                     domainNames.remove(vmsvdi.toString());
-                    vmsvdi.updateParameters(); /* update old */
+                    if (changedDomains == null
+                        || changedDomains.contains(vmsvdi.toString())) {
+                        vmsvdi.updateParameters(); /* update old */
+                    }
                 } else {
                     if (!vmsvdi.getResource().isNew()) {
                         /* remove not existing vms */
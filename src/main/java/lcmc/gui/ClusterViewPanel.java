@@ -25,6 +25,8 @@ package lcmc.gui;
 import lcmc.data.Cluster;
 import lcmc.data.ConfigData;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.AllHostsUpdatable;
 import lcmc.EditClusterDialog;
@@ -88,7 +90,7 @@ public final class ClusterViewPanel extends ViewPanel implements AllHostsUpdatab
         clusterWizardButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         final EditClusterDialog dialog =
@@ -96,7 +98,6 @@ public final class ClusterViewPanel extends ViewPanel implements AllHostsUpdatab
                         dialog.showDialogs();
                     }
                 });
-                t.start();
             }
         });
 
@@ -129,7 +130,7 @@ public final class ClusterViewPanel extends ViewPanel implements AllHostsUpdatab
             public void itemStateChanged(final ItemEvent e) {
                 final String opMode = (String) e.getItem();
                 if (e.getStateChange() == ItemEvent.SELECTED) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             ConfigData.AccessType type =
@@ -144,7 +145,6 @@ public final class ClusterViewPanel extends ViewPanel implements AllHostsUpdatab
                             cluster.getBrowser().checkAccessOfEverything();
                         }
                     });
-                    thread.start();
                 }
             }
         });
@@ -183,7 +183,7 @@ public final class ClusterViewPanel extends ViewPanel implements AllHostsUpdatab
                 final boolean selected =
                                     e.getStateChange() == ItemEvent.SELECTED;
                 if (selected != Tools.getConfigData().isAdvancedMode()) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             Tools.getConfigData().setAdvancedMode(selected);
@@ -193,7 +193,6 @@ public final class ClusterViewPanel extends ViewPanel implements AllHostsUpdatab
                             cluster.getBrowser().checkAccessOfEverything();
                         }
                     });
-                    thread.start();
                 }
             }
         });
@@ -26,6 +26,8 @@ package lcmc.gui;
 import lcmc.data.Clusters;
 import lcmc.data.Cluster;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.Exceptions;
 
@@ -180,7 +182,7 @@ public final class ClustersPanel extends JPanel {
                          new ActionListener() {
                              @Override
                              public void actionPerformed(final ActionEvent e) {
-                                 final Thread t = new Thread(new Runnable() {
+                                 TaskExecutor.execute(Pool.IO, new Runnable() {
                                      @Override
                                      public void run() {
                                          Tools.stopCluster(cluster);
@@ -188,7 +190,6 @@ public final class ClustersPanel extends JPanel {
                                                 .setDisconnected(cluster);
                                      }
                                  });
-                                 t.start();
                              }
                          };
 
@@ -340,7 +341,7 @@ public final class ClustersPanel extends JPanel {
 
     /** Starts upgrade check. */
     private void startUpgradeCheck() {
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 final String latestVersion = Tools.getLatestVersion();
@@ -376,7 +377,6 @@ public final class ClustersPanel extends JPanel {
                 });
             }
         });
-        thread.start();
     }
 
     /**
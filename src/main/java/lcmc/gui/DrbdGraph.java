@@ -55,6 +55,10 @@ import javax.swing.JPopupMenu;
 import javax.swing.ImageIcon;
 import javax.swing.SwingUtilities;
 
+import org.apache.commons.collections15.map.MultiKeyMap;
+import org.apache.commons.collections15.map.LinkedMap;
+import org.apache.commons.collections15.keyvalue.MultiKey;
+
 /**
  * This class creates graph and provides methods to add new block device
  * vertices and drbd volume edges, remove or modify them.
@@ -79,6 +83,13 @@ public final class DrbdGraph extends ResourceGraph {
     /** Map from host to the list of block devices. */
     private final Map<HostDrbdInfo, List<Vertex>> hostBDVerticesMap =
                                new LinkedHashMap<HostDrbdInfo, List<Vertex>>();
+    /**
+     * Map from host name and the disk name or its readlink to the block
+     * device info object. It is filled, when the block device is looked up.
+     */
+    private final MultiKeyMap<String, BlockDevInfo> blockDevInfoIndex =
+                MultiKeyMap.decorate(
+                           new LinkedMap<MultiKey<String>, BlockDevInfo>());
     /** Map from graph edge to the drbd volume info object. */
     private final Map<Edge, DrbdVolumeInfo> edgeToDrbdVolumeMap =
                                  new LinkedHashMap<Edge, DrbdVolumeInfo>();
@@ -221,6 +232,9 @@ public final class DrbdGraph extends ResourceGraph {
                     getVertexToMenus().remove(bdv);
                     bdiToVertexMap.remove(bdi);
                     blockDeviceToVertexMap.remove(bdi.getBlockDevice());
+                    synchronized (blockDevInfoIndex) {
+                        blockDevInfoIndex.clear();
+                    }
                     vertexToHostMap.remove(bdv);
                     vertexList.remove(bdv);
                     somethingChanged();
@@ -889,6 +903,12 @@ public final class DrbdGraph extends ResourceGraph {
      */
     public BlockDevInfo findBlockDevInfo(final String hostName,
                                          final String disk) {
+        synchronized (blockDevInfoIndex) {
+            final BlockDevInfo bdi = blockDevInfoIndex.get(hostName, disk);
+            if (bdi != null && isBlockDevInfoDisk(bdi, disk)) {
+                return bdi;
+            }
+        }
         HostDrbdInfo hi = null;
         for (final HostDrbdInfo h : hostBDVerticesMap.keySet()) {
             hi = h;
@@ -904,14 +924,23 @@ public final class DrbdGraph extends ResourceGraph {
             if (bdi == null) {
                 continue;
             }
-            if (bdi.getName().equals(disk)
-                || bdi.getBlockDevice().getReadlink().equals(disk)) {
+            if (isBlockDevInfoDisk(bdi, disk)) {
+                synchronized (blockDevInfoIndex) {
+                    blockDevInfoIndex.put(hostName, disk, bdi);
+                }
                 return bdi;
             }
         }
         return null;
     }
 
+    /** Returns whether the block device info has this name or readlink. */
+    private boolean isBlockDevInfoDisk(final BlockDevInfo bdi,
+                                       final String disk) {
+        return bdi.getName().equals(disk)
+               || bdi.getBlockDevice().getReadlink().equals(disk);
+    }
+
     /** Returns tool tip when mouse is over a block device vertex. */
     @Override
     String getVertexToolTip(final Vertex v) {
@@ -25,6 +25,8 @@ package lcmc.gui;
 import lcmc.AddClusterDialog;
 import lcmc.AddHostDialog;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.AllHostsUpdatable;
 import lcmc.utilities.MyButton;
 import lcmc.data.Host;
@@ -112,7 +114,7 @@ final class EmptyViewPanel extends ViewPanel implements AllHostsUpdatable {
         addHostButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(
+                TaskExecutor.execute(Pool.UI,
                     new Runnable() {
                         @Override
                         public void run() {
@@ -121,7 +123,6 @@ final class EmptyViewPanel extends ViewPanel implements AllHostsUpdatable {
                             ahd.showDialogs();
                         }
                     });
-                thread.start();
             }
         });
         Tools.getGUIData().registerAddHostButton(addHostButton);
@@ -141,7 +142,7 @@ final class EmptyViewPanel extends ViewPanel implements AllHostsUpdatable {
         addClusterButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(
+                TaskExecutor.execute(Pool.UI,
                     new Runnable() {
                         @Override
                         public void run() {
@@ -149,7 +150,6 @@ final class EmptyViewPanel extends ViewPanel implements AllHostsUpdatable {
                             acd.showDialogs();
                         }
                     });
-                thread.start();
             }
         });
         Tools.getGUIData().registerAddClusterButton(addClusterButton);
@@ -30,6 +30,8 @@ import lcmc.data.Cluster;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.AllHostsUpdatable;
 
 import javax.swing.JFrame;
@@ -580,12 +582,11 @@ public final class GUIData  {
         if (ssi == null) {
             return;
         }
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.UI, new Runnable() {
             public void run() {
                 ssi.pasteServices(scs);
             }
         });
-        t.start();
     }
 
     /**
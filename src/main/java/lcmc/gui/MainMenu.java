@@ -24,6 +24,8 @@
 package lcmc.gui;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.AddHostDialog;
@@ -224,14 +226,13 @@ public final class MainMenu extends JPanel implements ActionListener {
         return new ActionListener() {
              @Override
              public void actionPerformed(final ActionEvent e) {
-                 final Thread t = new Thread(new Runnable() {
+                 TaskExecutor.execute(Pool.IO, new Runnable() {
                      @Override
                      public void run() {
                          Tools.getConfigData().disconnectAllHosts();
                          System.exit(0);
                      }
                  });
-                 t.start();
              }
         };
     }
@@ -244,14 +245,13 @@ public final class MainMenu extends JPanel implements ActionListener {
                  if (turnOff) {
                      return;
                  }
-                 final Thread t = new Thread(new Runnable() {
+                 TaskExecutor.execute(Pool.UI, new Runnable() {
                      @Override
                      public void run() {
                          final AddHostDialog h = new AddHostDialog(new Host());
                          h.showDialogs();
                      }
                  });
-                 t.start();
              }
         };
     }
@@ -306,7 +306,7 @@ public final class MainMenu extends JPanel implements ActionListener {
         return new ActionListener() {
              @Override
              public void actionPerformed(final ActionEvent e) {
-                 final Thread thread = new Thread(
+                 TaskExecutor.execute(Pool.IO,
                     new Runnable() {
                         @Override
                         public void run() {
@@ -314,7 +314,6 @@ public final class MainMenu extends JPanel implements ActionListener {
                         }
                     }
                  );
-                 thread.start();
              }
         };
     }
@@ -327,7 +326,7 @@ public final class MainMenu extends JPanel implements ActionListener {
                  if (turnOff) {
                      return;
                  }
-                 final Thread thread = new Thread(
+                 TaskExecutor.execute(Pool.IO,
                     new Runnable() {
                         @Override
                         public void run() {
@@ -336,7 +335,6 @@ public final class MainMenu extends JPanel implements ActionListener {
                         }
                     }
                  );
-                 thread.start();
              }
         };
     }
@@ -395,14 +393,13 @@ public final class MainMenu extends JPanel implements ActionListener {
                  if (turnOff) {
                      return;
                  }
-                 final Thread t = new Thread(new Runnable() {
+                 TaskExecutor.execute(Pool.UI, new Runnable() {
                      @Override
                      public void run() {
                          final AddClusterDialog c = new AddClusterDialog();
                          c.showDialogs();
                      }
                  });
-                 t.start();
              }
         };
     }
@@ -445,13 +442,12 @@ public final class MainMenu extends JPanel implements ActionListener {
         return new ActionListener() {
              @Override
              public void actionPerformed(final ActionEvent e) {
-                 final Thread t = new Thread(new Runnable() {
+                 TaskExecutor.execute(Pool.UI, new Runnable() {
                      @Override
                      public void run() {
                          Tools.getGUIData().copy();
                      }
                  });
-                 t.start();
              }
         };
     }
@@ -461,13 +457,12 @@ public final class MainMenu extends JPanel implements ActionListener {
         return new ActionListener() {
              @Override
              public void actionPerformed(final ActionEvent e) {
-                 final Thread t = new Thread(new Runnable() {
+                 TaskExecutor.execute(Pool.UI, new Runnable() {
                      @Override
                      public void run() {
                          Tools.getGUIData().paste();
                      }
                  });
-                 t.start();
              }
         };
     }
@@ -477,14 +472,13 @@ public final class MainMenu extends JPanel implements ActionListener {
         return new ActionListener() {
              @Override
              public void actionPerformed(final ActionEvent e) {
-                 final Thread t = new Thread(new Runnable() {
+                 TaskExecutor.execute(Pool.UI, new Runnable() {
                      @Override
                      public void run() {
                          final About a = new About();
                          a.showDialog();
                      }
                  });
-                 t.start();
              }
         };
     }
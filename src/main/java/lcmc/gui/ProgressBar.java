@@ -36,6 +36,10 @@ import java.awt.Dimension;
 
 import lcmc.utilities.Tools;
 import lcmc.utilities.CancelCallback;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
+
+import java.util.concurrent.Future;
 
 /**
  * This class creates titled pane with progress bar and functions that update
@@ -58,8 +62,8 @@ public final class ProgressBar implements ActionListener {
     private int timeout;
     /** Default timeout. */
     private static final int DEFAULT_TIMEOUT = 50 * 1000;
-    /** Thread with progress bar. */
-    private Thread progressThread = null;
+    /** Task with progress bar. */
+    private Future<?> progressTask = null;
     /** This is threshold to catch threads that are out of the line.
      * TODO: not for production. */
     private static final int DEBUG_THRESHOLD = 120000;
@@ -152,7 +156,7 @@ public final class ProgressBar implements ActionListener {
         if (timeout == 0) {
             timeout = DEFAULT_TIMEOUT;
         }
-        if (progressThread == null) {
+        if (progressTask == null) {
             final Runnable runnable = new Runnable() {
                 @Override
                 public void run() {
@@ -218,11 +222,10 @@ public final class ProgressBar implements ActionListener {
                             progressBar.setValue(MAX_PB_VALUE);
                         }
                     });
-                    progressThread = null;
+                    progressTask = null;
                 };
             };
-            progressThread = new Thread(runnable);
-            progressThread.start();
+            progressTask = TaskExecutor.execute(Pool.UI, runnable);
         } else {
             progress = 0;
             time = 0;
@@ -29,6 +29,8 @@
 package lcmc.gui;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.configs.AppDefaults;
 
@@ -256,8 +258,7 @@ public final class ProgressIndicatorPanel extends JComponent
             setVisible(true);
         }
         animator = new Animator();
-        final Thread t = new Thread(animator);
-        t.start();
+        TaskExecutor.execute(Pool.UI, animator);
         mAnimatorLock.unlock();
     }
 
@@ -22,7 +22,10 @@
 
 package lcmc.gui;
 
+import lcmc.utilities.RefreshScheduler;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.gui.resources.Info;
 import lcmc.utilities.MyMenuItem;
 import lcmc.data.Host;
@@ -100,6 +103,7 @@ import org.apache.commons.collections15.TransformerUtils;
 
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Future;
 
 /**
  * This class creates graph and provides methods for scaling etc.,
@@ -158,8 +162,8 @@ public abstract class ResourceGraph {
                                                    new ArrayList<JComponent>();
     /** This mutex is for protecting the test animation list. */
     private final Lock mTestAnimationListLock = new ReentrantLock();
-    /** Animation thread. */
-    private volatile Thread animationThread = null;
+    /** Animation task. */
+    private volatile Future<?> animationTask = null;
     /** This mutex is for protecting the animation thread. */
     private final Lock mAnimationThreadLock = new ReentrantLock();
     /** Map from vertex to its width. */
@@ -175,8 +179,8 @@ public abstract class ResourceGraph {
     private volatile boolean testOnlyFlag = false;
     /** This mutex is for protecting the testOnlyFlag. */
     private final Lock mTestOnlyFlag = new ReentrantLock();
-    /** Test animation thread. */
-    private volatile Thread testAnimationThread = null;
+    /** Test animation task. */
+    private volatile Future<?> testAnimationTask = null;
     /** This mutex is for protecting the test animation thread. */
     private final Lock mTestAnimationThreadLock = new ReentrantLock();
     /** List of edges that are made only during test. */
@@ -225,8 +229,8 @@ public abstract class ResourceGraph {
         if (animationList.isEmpty()) {
             /* start animation thread */
             mAnimationThreadLock.lock();
-            if (animationThread == null) {
-                animationThread = new Thread(new Runnable() {
+            if (animationTask == null) {
+                animationTask = TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         while (true) {
@@ -241,7 +245,7 @@ public abstract class ResourceGraph {
                                 mAnimationListLock.unlock();
                                 repaint();
                                 mAnimationThreadLock.lock();
-                                animationThread = null;
+                                animationTask = null;
                                 mAnimationThreadLock.unlock();
                                 break;
                             }
@@ -253,7 +257,6 @@ public abstract class ResourceGraph {
                         }
                     }
                 });
-                animationThread.start();
             }
             mAnimationThreadLock.unlock();
         }
@@ -285,9 +288,10 @@ public abstract class ResourceGraph {
         });
         if (testAnimationList.isEmpty()) {
             mTestAnimationThreadLock.lock();
-            if (testAnimationThread == null) {
+            if (testAnimationTask == null) {
                 /* start test animation thread */
-                testAnimationThread = new Thread(new Runnable() {
+                testAnimationTask = TaskExecutor.execute(Pool.UI,
+                                                         new Runnable() {
                     @Override
                     public void run() {
                         FOREVER: while (true) {
@@ -325,7 +329,7 @@ public abstract class ResourceGraph {
                                     mTestOnlyFlag.unlock();
                                     repaint();
                                     mTestAnimationThreadLock.lock();
-                                    testAnimationThread = null;
+                                    testAnimationTask = null;
                                     mTestAnimationThreadLock.unlock();
                                     break FOREVER;
                                 }
@@ -335,7 +339,6 @@ public abstract class ResourceGraph {
                         }
                     }
                 });
-                testAnimationThread.start();
             }
             mTestAnimationThreadLock.unlock();
         }
@@ -485,7 +488,12 @@ public abstract class ResourceGraph {
 
     /** Repaints the graph. */
     public final void repaint() {
-        vv.repaint();
+        RefreshScheduler.refresh(new Runnable() {
+            @Override
+            public void run() {
+                vv.repaint();
+            }
+        }, vv);
     }
 
     /** Returns the graph object. */
@@ -967,7 +975,7 @@ public abstract class ResourceGraph {
 
         /** Creates and displays popup menus for vertices and edges. */
         private void handlePopup0(final MouseEvent me) {
-            final Thread thread = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
                 @Override
                 public void run() {
                     final Point2D popP = me.getPoint();
@@ -1040,7 +1048,6 @@ public abstract class ResourceGraph {
                     }
                 }
             });
-            thread.start();
         }
     }
 
@@ -1166,7 +1173,7 @@ public abstract class ResourceGraph {
         /** Graph was pressed. */
         @Override
         public void graphPressed(final V v, final MouseEvent me) {
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
                 public void run() {
                     final PickedState<Vertex> psVertex =
                                   vv.getRenderContext().getPickedVertexState();
@@ -1179,7 +1186,6 @@ public abstract class ResourceGraph {
                     }
                 }
             });
-            t.start();
         }
     }
 
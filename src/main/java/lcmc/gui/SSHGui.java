@@ -77,6 +77,11 @@ public final class SSHGui {
     /** Displays Confirm Dialog whith Yes, No, Cancel options. */
     public int getConfirmDialogChoice(final String message) {
         Tools.debug(this, "get confirm dialog");
+        if (Tools.getConfigData().isDaemon()) {
+            /* there is nobody to ask */
+            Tools.appWarning(host.getName() + ": " + message);
+            return JOptionPane.CANCEL_OPTION;
+        }
         return JOptionPane.showConfirmDialog(rootPane, message);
     }
 
@@ -96,6 +101,11 @@ public final class SSHGui {
                                        final String underText,
                                        final String defaultValue,
                                        final boolean isPassword) {
+        if (Tools.getConfigData().isDaemon()) {
+            /* there is nobody to ask */
+            Tools.appWarning(host.getName() + ": " + title + " canceled");
+            return null;
+        }
         EnterSomethingDialog esd;
         if (rootPane instanceof JDialog) {
             esd = new EnterSomethingDialog((JDialog) rootPane, title,
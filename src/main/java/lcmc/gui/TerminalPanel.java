@@ -25,6 +25,8 @@ package lcmc.gui;
 
 import lcmc.data.Host;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ExecCallback;
 import lcmc.utilities.RoboTest;
 import lcmc.utilities.SSH;
@@ -703,7 +705,7 @@ public final class TerminalPanel extends JScrollPane {
             System.gc();
             Tools.info("run gc");
         } else if (ALLOCATE_10.equals(cheat)) {
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
                 @Override
                 public void run() {
                     Tools.info("allocate mem");
@@ -716,7 +718,6 @@ public final class TerminalPanel extends JScrollPane {
                     Tools.info("free mem.");
                 }
             });
-            t.start();
         } else if (CLICKTEST_SHORT.equals(cheat)) {
             RoboTest.startClicker(1, false);
         } else if (CLICKTEST_LONG.equals(cheat)) {
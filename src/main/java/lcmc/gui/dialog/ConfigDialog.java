@@ -23,6 +23,8 @@
 package lcmc.gui.dialog;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.gui.widget.Widget;
 import lcmc.utilities.MyButton;
 
@@ -355,35 +357,32 @@ public abstract class ConfigDialog {
                 new DocumentListener() {
                     @Override
                     public void insertUpdate(final DocumentEvent e) {
-                        final Thread t = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 checkFields(field);
                             }
                         });
-                        t.start();
                     }
 
                     @Override
                     public void removeUpdate(final DocumentEvent e) {
-                        final Thread t = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 checkFields(field);
                             }
                         });
-                        t.start();
                     }
 
                     @Override
                     public void changedUpdate(final DocumentEvent e) {
-                        final Thread t = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 checkFields(field);
                             }
                         });
-                        t.start();
                     }
                 });
     }
@@ -670,7 +669,7 @@ public abstract class ConfigDialog {
          */
         @Override
         public void actionPerformed(final ActionEvent event) {
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
                 @Override
                 public void run() {
                     SwingUtilities.invokeLater(new Runnable() {
@@ -682,7 +681,6 @@ public abstract class ConfigDialog {
                     });
                 }
             });
-            t.start();
         }
     }
 
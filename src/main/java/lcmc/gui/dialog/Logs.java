@@ -24,6 +24,8 @@
 package lcmc.gui.dialog;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.data.Host;
 import lcmc.utilities.ExecCallback;
 import lcmc.utilities.MyButton;
@@ -120,7 +122,7 @@ class Logs extends ConfigDialog {
 
     /** Refresh logs in a thread. */
     private void refreshLogsThread() {
-        final Thread thread = new Thread(
+        TaskExecutor.execute(Pool.IO,
             new Runnable() {
                 @Override
                 public void run() {
@@ -134,7 +136,6 @@ class Logs extends ConfigDialog {
                     }
                 }
             });
-        thread.start();
     }
 
     /** Returns all hosts in cluster or a host. */
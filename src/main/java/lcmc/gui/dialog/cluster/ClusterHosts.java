@@ -27,6 +27,8 @@ import lcmc.data.Host;
 import lcmc.data.Hosts;
 import lcmc.data.Cluster;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.gui.dialog.WizardDialog;
 
 import java.awt.event.ItemListener;
@@ -172,14 +174,13 @@ final class ClusterHosts extends DialogCluster {
         super.initDialog();
         enableComponentsLater(new JComponent[]{buttonClass(nextButton())});
 
-        final Thread thread = new Thread(
+        TaskExecutor.execute(Pool.UI,
             new Runnable() {
                 @Override
                 public void run() {
                     checkCheckBoxes();
                 }
             });
-        thread.start();
     }
 
     /** Inits dialog after it becomes visible. */
@@ -26,6 +26,8 @@ package lcmc.gui.dialog.cluster;
 import lcmc.data.Host;
 import lcmc.data.Cluster;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.gui.SpringUtilities;
 import lcmc.gui.dialog.WizardDialog;
 
@@ -129,13 +131,12 @@ final class Connect extends DialogCluster {
     /** Inits dialog after it becomes visible. */
     @Override
     protected void initDialogAfterVisible() {
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 connectHosts();
             }
         });
-        t.start();
     }
 
     /** Returns the connect hosts dialog content. */
@@ -27,6 +27,8 @@ import lcmc.utilities.MyButton;
 import lcmc.utilities.Openais;
 import lcmc.utilities.Corosync;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ExecCallback;
 import lcmc.utilities.SSH.ExecCommandThread;
 import lcmc.utilities.SSH;
@@ -154,7 +156,7 @@ final class CoroConfig extends DialogCluster {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(
+                    TaskExecutor.execute(Pool.IO,
                         new Runnable() {
                             @Override
                             public void run() {
@@ -208,7 +210,6 @@ final class CoroConfig extends DialogCluster {
                             }
                         }
                     );
-                    thread.start();
                 }
             });
     }
@@ -250,7 +251,7 @@ final class CoroConfig extends DialogCluster {
     /** Inits the dialog after it becomes visible. */
     @Override
     protected void initDialogAfterVisible() {
-        final Thread thread = new Thread(
+        TaskExecutor.execute(Pool.IO,
             new Runnable() {
                 @Override
                 public void run() {
@@ -272,7 +273,6 @@ final class CoroConfig extends DialogCluster {
                     }
                 }
             });
-        thread.start();
     }
 
     /**
@@ -698,7 +698,7 @@ final class CoroConfig extends DialogCluster {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             aisCastAddresses.remove(c);
@@ -706,7 +706,6 @@ final class CoroConfig extends DialogCluster {
                             checkInterface();
                         }
                     });
-                    t.start();
                 }
             });
         return removeButton;
@@ -1024,13 +1023,12 @@ final class CoroConfig extends DialogCluster {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
                     final String type = typeW.getStringValue();
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             addInterface(type);
                         }
                     });
-                    thread.start();
                 }
             });
 
@@ -1054,7 +1052,7 @@ final class CoroConfig extends DialogCluster {
             public void itemStateChanged(final ItemEvent e) {
                 final String text = configCheckbox.getText();
                 if (e.getStateChange() == ItemEvent.SELECTED) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             if (EDIT_CONFIG_STRING.equals(text)) {
@@ -1084,7 +1082,6 @@ final class CoroConfig extends DialogCluster {
                             }
                         }
                     });
-                    thread.start();
                 }
             }
         });
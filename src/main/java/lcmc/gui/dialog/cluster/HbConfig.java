@@ -26,6 +26,8 @@ package lcmc.gui.dialog.cluster;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.Heartbeat;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ExecCallback;
 import lcmc.utilities.SSH.ExecCommandThread;
 import lcmc.utilities.SSH;
@@ -290,7 +292,7 @@ final class HbConfig extends DialogCluster {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(
+                    TaskExecutor.execute(Pool.IO,
                         new Runnable() {
                             @Override
                             public void run() {
@@ -347,7 +349,6 @@ final class HbConfig extends DialogCluster {
                             }
                         }
                     );
-                    thread.start();
                 }
             });
     }
@@ -389,7 +390,7 @@ final class HbConfig extends DialogCluster {
     /** Inits the dialog after it becomes visible. */
     @Override
     protected void initDialogAfterVisible() {
-        final Thread thread = new Thread(
+        TaskExecutor.execute(Pool.IO,
             new Runnable() {
                 @Override
                 public void run() {
@@ -411,7 +412,6 @@ final class HbConfig extends DialogCluster {
                     }
                 }
             });
-        thread.start();
     }
 
     /**
@@ -831,7 +831,7 @@ final class HbConfig extends DialogCluster {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             castAddresses.remove(c);
@@ -839,7 +839,6 @@ final class HbConfig extends DialogCluster {
                             checkInterface();
                         }
                     });
-                    t.start();
                 }
             });
         return removeButton;
@@ -1198,13 +1197,12 @@ final class HbConfig extends DialogCluster {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
                     final String type = typeW.getStringValue();
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             addInterface(type);
                         }
                     });
-                    thread.start();
                 }
             });
 
@@ -1229,7 +1227,7 @@ final class HbConfig extends DialogCluster {
             public void itemStateChanged(final ItemEvent e) {
                 final String text = configCheckbox.getText();
                 if (e.getStateChange() == ItemEvent.SELECTED) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             if (EDIT_CONFIG_STRING.equals(text)) {
@@ -1259,7 +1257,6 @@ final class HbConfig extends DialogCluster {
                             }
                         }
                     });
-                    thread.start();
                 }
             }
         });
@@ -1314,13 +1311,12 @@ final class HbConfig extends DialogCluster {
             new ItemListener() {
                 @Override
                 public void itemStateChanged(final ItemEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             updateConfigPanelEditable(true);
                         }
                     });
-                    thread.start();
                 }
             });
 
@@ -1336,13 +1332,12 @@ final class HbConfig extends DialogCluster {
             new ItemListener() {
                 @Override
                 public void itemStateChanged(final ItemEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             updateConfigPanelEditable(true);
                         }
                     });
-                    thread.start();
                 }
             });
         makeConfigButton.setAlignmentX(Component.LEFT_ALIGNMENT);
@@ -28,6 +28,8 @@ import lcmc.data.Cluster;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.DRBD;
 import lcmc.utilities.Heartbeat;
 import lcmc.utilities.Openais;
@@ -46,6 +48,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 import javax.swing.JPanel;
 import javax.swing.SpringLayout;
 import javax.swing.JLabel;
@@ -106,8 +109,8 @@ public class Init extends DialogCluster {
     /** Last value of heartbeat-is-configured check. */
     private Boolean[] lastHbConf;
 
-    /** Cluster check thread. */
-    private Thread checkClusterThread = null;
+    /** Cluster check task. */
+    private Future<?> checkClusterTask = null;
     /** Button that acts as a finish button. This is used by methods that
      * override this one and use different finish/next button.
      */
@@ -213,7 +216,7 @@ public class Init extends DialogCluster {
         lastHbStarted = null;
         lastHbRc = null;
         checkClusterStopped = false;
-        checkClusterThread = new Thread(
+        checkClusterTask = TaskExecutor.execute(Pool.IO,
             new Runnable() {
                 @Override
                 public void run() {
@@ -227,10 +230,9 @@ public class Init extends DialogCluster {
                             }
                         }
                     }
-                    checkClusterThread = null;
+                    checkClusterTask = null;
                 }
             });
-        checkClusterThread.start();
     }
 
     /** Checks drbds and heartbeats on all nodes of the cluster. */
@@ -607,13 +609,9 @@ public class Init extends DialogCluster {
     protected final JComponent getInputPane() {
         /* Waiting for check cluster thread to finish. To avoid all races. This
          * can happen after clicking the back button from the next dialog. */
-        final Thread t = checkClusterThread;
+        final Future<?> t = checkClusterTask;
         if (t != null) {
-            try {
-                t.join();
-            } catch (java.lang.InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+            TaskExecutor.waitFor(t);
         }
         drbdLoadedInfos = new ArrayList<JLabel>();
         drbdLoadButtons = new ArrayList<MyButton>();
@@ -656,7 +654,7 @@ public class Init extends DialogCluster {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(
+                        TaskExecutor.execute(Pool.IO,
                             new Runnable() {
                                 @Override
                                 public void run() {
@@ -679,7 +677,6 @@ public class Init extends DialogCluster {
                                 }
                             }
                         );
-                        thread.start();
                     }
                 });
 
@@ -708,7 +705,7 @@ public class Init extends DialogCluster {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(
+                        TaskExecutor.execute(Pool.IO,
                             new Runnable() {
                                 @Override
                                 public void run() {
@@ -745,7 +742,6 @@ public class Init extends DialogCluster {
                                 }
                             }
                         );
-                        thread.start();
                     }
                 });
 
@@ -767,7 +763,7 @@ public class Init extends DialogCluster {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(
+                        TaskExecutor.execute(Pool.IO,
                             new Runnable() {
                                 @Override
                                 public void run() {
@@ -813,7 +809,6 @@ public class Init extends DialogCluster {
                                 }
                             }
                         );
-                        thread.start();
                     }
                 });
             if (host.isCsRunning() && host.isAisRunning()) {
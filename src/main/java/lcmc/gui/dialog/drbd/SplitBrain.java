@@ -24,6 +24,8 @@
 package lcmc.gui.dialog.drbd;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.DRBD;
 import lcmc.data.Host;
 import lcmc.data.ConfigData;
@@ -111,8 +113,7 @@ public final class SplitBrain extends DrbdConfig {
                 buttonClass(cancelButton()).setEnabled(false);
             }
         };
-        final Thread thread = new Thread(runnable);
-        thread.start();
+        TaskExecutor.execute(Pool.IO, runnable);
     }
 
     /** Returns next dialog which is null. */
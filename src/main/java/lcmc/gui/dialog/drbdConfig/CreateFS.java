@@ -25,6 +25,8 @@ package lcmc.gui.dialog.drbdConfig;
 
 import lcmc.Exceptions;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.data.Host;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
@@ -169,8 +171,7 @@ final class CreateFS extends DrbdConfig {
                 progressBarDone();
             }
         };
-        final Thread thread = new Thread(runnable);
-        thread.start();
+        TaskExecutor.execute(Pool.IO, runnable);
     }
 
     /** Returns the next dialog, null in this dialog. */
@@ -24,6 +24,8 @@
 package lcmc.gui.dialog.drbdConfig;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ExecCallback;
 import lcmc.gui.ClusterBrowser;
 import lcmc.gui.SpringUtilities;
@@ -47,6 +49,7 @@ import javax.swing.SwingUtilities;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
 
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 
 /**
@@ -83,7 +86,7 @@ final class CreateMD extends DrbdConfig {
                 makeMDButton.setEnabled(false);
             }
         });
-        final Thread[] thread = new Thread[2];
+        final Future<?>[] tasks = new Future<?>[2];
         final String[] answer = new String[2];
         final Integer[] returnCode = new Integer[2];
         final BlockDevInfo[] bdis = {
@@ -93,7 +96,7 @@ final class CreateMD extends DrbdConfig {
         for (int i = 0; i < 2; i++) {
             final int index = i;
             returnCode[index] = -1;
-            thread[i] = new Thread(
+            tasks[i] = TaskExecutor.execute(Pool.IO,
             new Runnable() {
                 @Override
                 public void run() {
@@ -146,15 +149,10 @@ final class CreateMD extends DrbdConfig {
                     }
                 }
             });
-            thread[i].start();
         }
         boolean error = false;
         for (int i = 0; i < 2; i++) {
-            try {
-                thread[i].join(0);
-            } catch (java.lang.InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+            TaskExecutor.waitFor(tasks[i]);
             if (returnCode[i] == CREATE_MD_FS_ALREADY_THERE_RC) {
                 answer[i] = Tools.getString(
                                "Dialog.DrbdConfig.CreateMD.CreateMD.Failed.40");
@@ -355,7 +353,7 @@ final class CreateMD extends DrbdConfig {
         makeMDButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         getProgressBar().start(10000);
@@ -368,7 +366,6 @@ final class CreateMD extends DrbdConfig {
                         progressBarDone();
                     }
                 });
-                thread.start();
             }
         });
         inputPane.add(makeMDButton);
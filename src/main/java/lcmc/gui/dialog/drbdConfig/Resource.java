@@ -24,6 +24,8 @@
 package lcmc.gui.dialog.drbdConfig;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.gui.ClusterBrowser;
 import lcmc.gui.resources.DrbdInfo;
@@ -299,7 +301,7 @@ public final class Resource extends DrbdConfig {
         btn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         SwingUtilities.invokeLater(new Runnable() {
@@ -312,7 +314,6 @@ public final class Resource extends DrbdConfig {
                         });
                     }
                 });
-                t.start();
             }
         });
         panel.add(btn);
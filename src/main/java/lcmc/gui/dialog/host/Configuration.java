@@ -27,6 +27,8 @@ import lcmc.data.Host;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.gui.SpringUtilities;
 import lcmc.gui.widget.Widget;
 import lcmc.gui.widget.WidgetFactory;
@@ -279,7 +281,7 @@ public class Configuration extends DialogHost {
             }
 
 
-            final Thread thread = new Thread(
+            TaskExecutor.execute(Pool.IO,
                 new Runnable() {
                     @Override
                     public void run() {
@@ -306,9 +308,8 @@ public class Configuration extends DialogHost {
                         }
                     }
                 });
-            thread.start();
         } else {
-            final Thread thread = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.IO, new Runnable() {
                 @Override
                 public void run() {
                     getHost().setHostname(
@@ -333,7 +334,6 @@ public class Configuration extends DialogHost {
                     }
                 }
             });
-            thread.start();
         }
     }
 
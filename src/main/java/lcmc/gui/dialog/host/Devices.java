@@ -24,6 +24,8 @@ package lcmc.gui.dialog.host;
 
 import lcmc.data.Host;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.gui.SpringUtilities;
 import lcmc.gui.dialog.WizardDialog;
 import lcmc.utilities.ExecCallback;
@@ -81,13 +83,12 @@ public class Devices extends DialogHost {
     /** Inits the dialog after it becomes visible. */
     @Override
     protected final void initDialogAfterVisible() {
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             public void run() {
                 getHost().getSSH().installGuiHelper();
                 getAllInfo();
             }
         });
-        t.start();
     }
 
     /** Returns info for input pane. */
@@ -23,6 +23,8 @@
 package lcmc.gui.dialog.host;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.data.Host;
 import lcmc.AddClusterDialog;
@@ -161,7 +163,7 @@ final class Finish extends DialogHost {
         addAnotherHostButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         final Host newHost = new Host();
@@ -180,7 +182,6 @@ final class Finish extends DialogHost {
                         });
                     }
                 });
-                t.start();
             }
         });
         /* cluster wizard button */
@@ -191,7 +192,7 @@ final class Finish extends DialogHost {
         confClusterButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         SwingUtilities.invokeLater(new Runnable() {
@@ -205,7 +206,6 @@ final class Finish extends DialogHost {
                         c.showDialogs();
                     }
                 });
-                t.start();
             }
         });
         pane.add(addAnotherHostButton);
@@ -24,6 +24,8 @@ package lcmc.gui.dialog.host;
 
 import lcmc.data.Host;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.CancelCallback;
 import lcmc.utilities.ConnectionCallback;
 import lcmc.gui.SSHGui;
@@ -112,14 +114,13 @@ public class SSH extends DialogHost {
     /** Inits the dialog after it becomes visible. */
     @Override
     protected final void initDialogAfterVisible() {
-        final Thread thread = new Thread(
+        TaskExecutor.execute(Pool.IO,
             new Runnable() {
                 @Override
                 public void run() {
                     connectHost();
                 }
             });
-        thread.start();
     }
 
     /**
@@ -30,6 +30,8 @@ import lcmc.gui.SpringUtilities;
 import lcmc.data.resources.BlockDevice;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.LVM;
 import lcmc.utilities.WidgetListener;
 import lcmc.data.Host;
@@ -239,7 +241,7 @@ public final class LVCreate extends LV {
         createButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         Tools.invokeAndWait(new EnableCreateRunnable(false));
@@ -273,7 +275,6 @@ public final class LVCreate extends LV {
                         }
                     }
                 });
-                thread.start();
             }
         });
         inputPane.add(createButton);
@@ -27,6 +27,8 @@ import lcmc.gui.resources.BlockDevInfo;
 import lcmc.gui.resources.DrbdVolumeInfo;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.LVM;
 import lcmc.utilities.WidgetListener;
@@ -260,7 +262,7 @@ public final class LVResize extends LV {
         resizeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (checkDRBD()) {
@@ -283,7 +285,6 @@ public final class LVResize extends LV {
                         }
                     }
                 });
-                thread.start();
             }
         });
 
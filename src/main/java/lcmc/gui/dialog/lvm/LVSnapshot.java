@@ -26,6 +26,8 @@ import lcmc.gui.SpringUtilities;
 import lcmc.gui.resources.BlockDevInfo;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.WidgetListener;
 import lcmc.data.ConfigData;
@@ -213,7 +215,7 @@ public final class LVSnapshot extends LV {
         snapshotButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         Tools.invokeAndWait(new EnableSnapshotRunnable(false));
@@ -235,7 +237,6 @@ public final class LVSnapshot extends LV {
                         enableComponents();
                     }
                 });
-                thread.start();
             }
         });
 
@@ -27,6 +27,8 @@ import lcmc.gui.resources.BlockDevInfo;
 import lcmc.gui.Browser;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.data.Host;
 import lcmc.data.Cluster;
@@ -181,8 +183,7 @@ public final class PVCreate extends WizardDialog {
     private class CreateActionListener implements ActionListener {
         @Override
         public void actionPerformed(final ActionEvent e) {
-            final Thread thread = new Thread(new CreateRunnable());
-            thread.start();
+            TaskExecutor.execute(Pool.IO, new CreateRunnable());
         }
     }
 
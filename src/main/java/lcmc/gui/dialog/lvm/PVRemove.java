@@ -26,6 +26,8 @@ import lcmc.gui.SpringUtilities;
 import lcmc.gui.resources.BlockDevInfo;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.data.Host;
 import lcmc.data.Cluster;
@@ -178,8 +180,7 @@ public final class PVRemove extends LV {
     private class RemoveActionListener implements ActionListener {
         @Override
         public void actionPerformed(final ActionEvent e) {
-            final Thread thread = new Thread(new RemoveRunnable());
-            thread.start();
+            TaskExecutor.execute(Pool.IO, new RemoveRunnable());
         }
     }
 
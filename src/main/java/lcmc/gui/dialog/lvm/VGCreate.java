@@ -34,6 +34,8 @@ import lcmc.gui.resources.BlockDevInfo;
 import lcmc.gui.SpringUtilities;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.LVM;
 
 import java.util.Map;
@@ -343,8 +345,7 @@ public final class VGCreate extends LV {
     private class CreateActionListener implements ActionListener {
         @Override
         public void actionPerformed(final ActionEvent e) {
-            final Thread thread = new Thread(new CreateRunnable());
-            thread.start();
+            TaskExecutor.execute(Pool.IO, new CreateRunnable());
         }
     }
 
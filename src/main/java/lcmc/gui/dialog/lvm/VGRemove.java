@@ -26,6 +26,8 @@ import lcmc.gui.SpringUtilities;
 import lcmc.gui.resources.BlockDevInfo;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.LVM;
 import lcmc.data.Host;
@@ -206,7 +208,7 @@ public final class VGRemove extends LV {
     private class RemoveActionListener implements ActionListener {
         @Override
         public void actionPerformed(final ActionEvent e) {
-            final Thread thread = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.IO, new Runnable() {
                 @Override
                 public void run() {
                     Tools.invokeAndWait(new EnableRemoveRunnable(false));
@@ -244,7 +246,6 @@ public final class VGRemove extends LV {
                     }
                 }
             });
-            thread.start();
         }
     }
 
@@ -24,6 +24,8 @@
 package lcmc.gui.dialog.vm;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.gui.resources.VMSVirtualDomainInfo;
 import lcmc.gui.widget.Widget;
@@ -117,7 +119,7 @@ final class Finish extends VMConfig {
         createConfigBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         Tools.invokeAndWait(new Runnable() {
@@ -135,7 +137,6 @@ final class Finish extends VMConfig {
                         });
                     }
                 });
-                thread.start();
             }
         });
         final JPanel optionsPanel = new JPanel();
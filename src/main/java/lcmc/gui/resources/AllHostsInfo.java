@@ -31,6 +31,8 @@ import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyMenuItem;
 import lcmc.utilities.MyButton;
 
@@ -127,7 +129,7 @@ public final class AllHostsInfo extends Info {
 
     /** Remove marked clusters. */
     private void removeMarkedClusters() {
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 final List<Cluster> selectedRunningClusters =
@@ -195,7 +197,6 @@ public final class AllHostsInfo extends Info {
                 });
             }
         });
-        t.start();
     }
 
     /**
@@ -252,13 +253,12 @@ public final class AllHostsInfo extends Info {
             loadMarkedClustersBtn.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.IO, new Runnable() {
                         @Override
                         public void run() {
                             loadMarkedClusters(clusters);
                         }
                     });
-                    t.start();
                 }
             });
 
@@ -266,13 +266,12 @@ public final class AllHostsInfo extends Info {
             unloadMarkedClustersBtn.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.IO, new Runnable() {
                         @Override
                         public void run() {
                             unloadMarkedClusters(clusters);
                         }
                     });
-                    t.start();
                 }
             });
 
@@ -301,7 +300,7 @@ public final class AllHostsInfo extends Info {
                             JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
 
         infoPanel.add(clustersPane);
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.UI, new Runnable() {
             @Override
             public void run() {
                 Tools.sleep(3000);
@@ -322,7 +321,6 @@ public final class AllHostsInfo extends Info {
                 }
             }
         });
-        t.start();
         return infoPanel;
     }
 
@@ -387,7 +385,7 @@ public final class AllHostsInfo extends Info {
         loadClusterBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         Tools.invokeAndWait(new Runnable() {
@@ -415,7 +413,6 @@ public final class AllHostsInfo extends Info {
                         }
                     }
                 });
-                t.start();
             }
         });
         return loadClusterBtn;
@@ -475,7 +472,7 @@ public final class AllHostsInfo extends Info {
         quickClusterBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         final String clusterName = clusterTF.getText();
@@ -532,7 +529,6 @@ public final class AllHostsInfo extends Info {
                         Tools.startClusters(selectedClusters);
                     }
                 });
-                t.start();
             }
         });
 
@@ -609,7 +605,7 @@ public final class AllHostsInfo extends Info {
         wi.addItemListener(new ItemListener() {
             @Override
             public void itemStateChanged(final ItemEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         final Set<Cluster> clusters =
@@ -618,7 +614,6 @@ public final class AllHostsInfo extends Info {
                         allCheckboxesListener(clusters, wi);
                     }
                 });
-                thread.start();
             }
 
         });
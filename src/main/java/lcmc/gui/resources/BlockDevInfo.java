@@ -43,6 +43,8 @@ import lcmc.utilities.MyMenu;
 import lcmc.utilities.MyMenuItem;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.DRBD;
 import lcmc.utilities.LVM;
 import lcmc.utilities.ButtonCallback;
@@ -1073,7 +1075,7 @@ public final class BlockDevInfo extends EditableInfo {
             getApplyButton().addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.IO, new Runnable() {
                         @Override
                         public void run() {
                             Tools.invokeAndWait(new Runnable() {
@@ -1102,20 +1104,18 @@ public final class BlockDevInfo extends EditableInfo {
                             getBrowser().getClusterBrowser().drbdStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             });
             getRevertButton().addActionListener(
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 revert();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -34,6 +34,8 @@ import lcmc.data.HostLocation;
 import lcmc.utilities.CRM;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyMenu;
 import lcmc.utilities.MyMenuItem;
 
@@ -776,7 +778,7 @@ final class CloneInfo extends ServiceInfo {
             }
 
             public void update() {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         if (mUpdateLock.tryLock()) {
@@ -788,7 +790,6 @@ final class CloneInfo extends ServiceInfo {
                         }
                     }
                 });
-                t.start();
             }
 
             private void updateThread() {
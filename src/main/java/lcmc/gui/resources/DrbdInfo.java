@@ -35,6 +35,8 @@ import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.data.Cluster;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ButtonCallback;
 import lcmc.utilities.DRBD;
 import lcmc.utilities.UpdatableItem;
@@ -514,7 +516,7 @@ public final class DrbdInfo extends DrbdGuiInfo {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.IO, new Runnable() {
                         @Override
                         public void run() {
                             Tools.invokeAndWait(new Runnable() {
@@ -540,7 +542,6 @@ public final class DrbdInfo extends DrbdGuiInfo {
                             getBrowser().drbdStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             }
         );
@@ -548,7 +549,7 @@ public final class DrbdInfo extends DrbdGuiInfo {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             getBrowser().drbdStatusLock();
@@ -556,7 +557,6 @@ public final class DrbdInfo extends DrbdGuiInfo {
                             getBrowser().drbdStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             }
         );
@@ -666,7 +666,7 @@ public final class DrbdInfo extends DrbdGuiInfo {
                 bd2.getBlockDevice().setNew(true);
             }
             final DrbdInfo thisClass = this;
-            final Thread thread = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.IO, new Runnable() {
                 @Override
                 public void run() {
                     //getBrowser().reload(drbdResourceNode, true);
@@ -708,7 +708,6 @@ public final class DrbdInfo extends DrbdGuiInfo {
                     getBrowser().resetFilesystems();
                 }
             });
-            thread.start();
         } else {
             getBrowser().resetFilesystems();
         }
@@ -28,6 +28,8 @@ import lcmc.data.Host;
 import lcmc.data.ClusterStatus;
 import lcmc.data.PtestData;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyMenuItem;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.ButtonCallback;
@@ -1509,7 +1511,7 @@ public final class DrbdMultiSelectionInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.IO, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -1517,7 +1519,6 @@ public final class DrbdMultiSelectionInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -1526,7 +1527,7 @@ public final class DrbdMultiSelectionInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -1534,7 +1535,6 @@ public final class DrbdMultiSelectionInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -38,6 +38,8 @@ import lcmc.data.AccessMode;
 import lcmc.data.ConfigData;
 import lcmc.data.DrbdProxy;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ButtonCallback;
 import lcmc.utilities.DRBD;
 import lcmc.utilities.MyButton;
@@ -600,7 +602,7 @@ public final class DrbdResourceInfo extends DrbdGuiInfo {
         getApplyButton().addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         Tools.invokeAndWait(new Runnable() {
@@ -625,7 +627,6 @@ public final class DrbdResourceInfo extends DrbdGuiInfo {
                         getBrowser().drbdStatusUnlock();
                     }
                 });
-                thread.start();
             }
         });
 
@@ -633,7 +634,7 @@ public final class DrbdResourceInfo extends DrbdGuiInfo {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             getBrowser().drbdStatusLock();
@@ -641,7 +642,6 @@ public final class DrbdResourceInfo extends DrbdGuiInfo {
                             getBrowser().drbdStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             }
         );
@@ -2199,7 +2199,7 @@ public final class DrbdResourceInfo extends DrbdGuiInfo {
 
                 @Override
                 public void update() {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             if (mUpdateLock.tryLock()) {
@@ -2211,7 +2211,6 @@ public final class DrbdResourceInfo extends DrbdGuiInfo {
                             }
                         }
                     });
-                    t.start();
                 }
 
                 public void updateThread() {
@@ -24,6 +24,8 @@ package lcmc.gui.resources;
 import lcmc.gui.Browser;
 import lcmc.gui.ClusterBrowser;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 
 import javax.swing.JComponent;
 import java.util.List;
@@ -266,7 +268,7 @@ public final class DrbdVolumeInfo extends EditableInfo
         getApplyButton().addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         Tools.invokeAndWait(new Runnable() {
@@ -291,7 +293,6 @@ public final class DrbdVolumeInfo extends EditableInfo
                         getBrowser().drbdStatusUnlock();
                     }
                 });
-                thread.start();
             }
         });
 
@@ -299,7 +300,7 @@ public final class DrbdVolumeInfo extends EditableInfo
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             getBrowser().drbdStatusLock();
@@ -307,7 +308,6 @@ public final class DrbdVolumeInfo extends EditableInfo
                             getBrowser().drbdStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             }
         );
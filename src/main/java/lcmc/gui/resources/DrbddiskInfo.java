@@ -24,6 +24,8 @@ package lcmc.gui.resources;
 import lcmc.gui.Browser;
 import lcmc.data.ResourceAgent;
 import lcmc.data.Host;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 
 import java.util.Map;
 
@@ -99,13 +101,12 @@ final class DrbddiskInfo extends ServiceInfo {
             } else {
                 dri.setUsedByCRM(null);
             }
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
                 @Override
                 public void run() {
                     dri.updateMenus(null);
                 }
             });
-            t.start();
         }
     }
 }
@@ -28,6 +28,8 @@ import lcmc.gui.widget.Label;
 import lcmc.utilities.ButtonCallback;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.Unit;
 import lcmc.utilities.WidgetListener;
 import lcmc.data.CRMXML;
@@ -60,6 +62,8 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import org.apache.commons.collections15.map.MultiKeyMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class provides textfields, combo boxes etc. for editable info
@@ -131,8 +135,12 @@ public abstract class EditableInfo extends Info {
     /** List of messages if advanced panels are hidden. */
     private final List<String> advancedOnlySectionList =
                                                       new ArrayList<String>();
-    /** More options panel. */
-    private final JPanel moreOptionsPanel = new JPanel();
+    /** More options panel, it is created with the info panel. */
+    private volatile JPanel moreOptionsPanel = null;
+    /** How many times the info panel is pinned, it is not released then. */
+    private int infoPanelPins = 0;
+    /** Info panel pins lock, the panel is released under this lock. */
+    private final Lock mInfoPanelPinLock = new ReentrantLock();
     /** Whether dialog was started. It disables the apply button. */
     private boolean dialogStarted = false;
     /** Disabled section, their not visible. */
@@ -538,8 +546,11 @@ public abstract class EditableInfo extends Info {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                moreOptionsPanel.setVisible(
+                final JPanel mop = moreOptionsPanel;
+                if (mop != null) {
+                    mop.setVisible(
                                 a && !Tools.getConfigData().isAdvancedMode());
+                }
             }
         });
     }
@@ -554,12 +565,14 @@ public abstract class EditableInfo extends Info {
         final int size = font.getSize();
         l.setFont(new Font(name, style, size - 3));
 
-        moreOptionsPanel.setBackground(Browser.PANEL_BACKGROUND);
-        moreOptionsPanel.add(l);
-        final Dimension d = moreOptionsPanel.getPreferredSize();
+        final JPanel mop = new JPanel();
+        mop.setBackground(Browser.PANEL_BACKGROUND);
+        mop.add(l);
+        final Dimension d = mop.getPreferredSize();
         d.width = width;
-        moreOptionsPanel.setMaximumSize(d);
-        return moreOptionsPanel;
+        mop.setMaximumSize(d);
+        moreOptionsPanel = mop;
+        return mop;
     }
 
     /** Checks ands sets paramter fields. */
@@ -569,7 +582,7 @@ public abstract class EditableInfo extends Info {
                                      final String[] params,
                                      final MyButton thisApplyButton) {
         final EditableInfo thisClass = this;
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.UI, new Runnable() {
             @Override
             public void run() {
                 //SwingUtilities.invokeLater(new Runnable() {
@@ -626,7 +639,6 @@ public abstract class EditableInfo extends Info {
                 });
             }
         });
-        thread.start();
     }
 
     /** Get stored value in the combo box. */
@@ -1091,7 +1103,10 @@ public abstract class EditableInfo extends Info {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                moreOptionsPanel.setVisible(a && !advancedMode);
+                final JPanel mop = moreOptionsPanel;
+                if (mop != null) {
+                    mop.setVisible(a && !advancedMode);
+                }
             }
         });
     }
@@ -1160,6 +1175,92 @@ public abstract class EditableInfo extends Info {
     final void cleanup() {
         super.cleanup();
         clearPanelLists();
+        final Browser browser = getBrowser();
+        if (browser != null) {
+            browser.getInfoPanelTracker().remove(this);
+        }
+    }
+
+    /** Returns the built info panel or null. */
+    protected JComponent getCachedInfoPanel() {
+        return null;
+    }
+
+    /** Drops the built info panel, it will be created again. */
+    protected void clearCachedInfoPanel() {
+        /* no cached panel */
+    }
+
+    /**
+     * Marks the info panel as recently used, the least recently used panels
+     * of the browser are released, if there are too many of them.
+     */
+    protected final void infoPanelUsed() {
+        final Browser browser = getBrowser();
+        if (browser != null) {
+            browser.getInfoPanelTracker().used(this);
+        }
+    }
+
+    /**
+     * Pins the info panel, so that it is not released, while its widgets are
+     * read, e.g. in apply. It must be pinned before the info panel is
+     * created and unpinned in a finally block.
+     */
+    protected final void pinInfoPanel() {
+        mInfoPanelPinLock.lock();
+        try {
+            infoPanelPins++;
+        } finally {
+            mInfoPanelPinLock.unlock();
+        }
+    }
+
+    /** Unpins the info panel, it can be released again. */
+    protected final void unpinInfoPanel() {
+        mInfoPanelPinLock.lock();
+        try {
+            infoPanelPins--;
+        } finally {
+            mInfoPanelPinLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the info panel and the widgets, if the panel is not shown,
+     * not pinned, the resource is not new and there are no changes to apply.
+     * Only the resource data stay, the panel is created again, when it is
+     * selected. Returns whether the panel was released. Must be called in
+     * the swing thread.
+     *
+     * Infos, that don't return their panel from getCachedInfoPanel, are never
+     * released. The DRBD infos and the block devices are such, because
+     * drbd.conf is created from their widgets.
+     */
+    boolean releaseInfoPanel() {
+        mInfoPanelPinLock.lock();
+        try {
+            final JComponent panel = getCachedInfoPanel();
+            if (panel == null) {
+                return true;
+            }
+            final Resource resource = getResource();
+            final MyButton ab = getApplyButton();
+            if (infoPanelPins > 0
+                || panel.isShowing()
+                || (resource != null && resource.isNew())
+                || (ab != null && ab.isEnabled())) {
+                return false;
+            }
+            Tools.debug(this, "release info panel: " + toString(), 2);
+            clearCachedInfoPanel();
+            widgetClear();
+            clearPanelLists();
+            moreOptionsPanel = null;
+            return true;
+        } finally {
+            mInfoPanelPinLock.unlock();
+        }
     }
 
     /** Reload combo boxes. */
@@ -24,6 +24,8 @@ package lcmc.gui.resources;
 import lcmc.gui.Browser;
 import lcmc.gui.HostBrowser;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.SSH;
 
 import javax.swing.ImageIcon;
@@ -86,8 +88,6 @@ public final class FSInfo extends Info {
                 ep.setText("<html><pre>" + modinfo + "</html></pre>");
             }
         };
-        final Thread thread = new Thread(runnable);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
+        TaskExecutor.execute(Pool.IO, runnable);
     }
 }
@@ -26,6 +26,8 @@ import lcmc.data.Host;
 import lcmc.data.AccessMode;
 import lcmc.configs.DistResource;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.SSH;
 import lcmc.utilities.WidgetListener;
 import lcmc.gui.widget.Widget;
@@ -121,9 +123,22 @@ final class FilesystemInfo extends ServiceInfo {
         return true;
     }
 
-    /** Applies changes to the Filesystem service parameters. */
+    /**
+     * Applies changes to the Filesystem service parameters. The info panel
+     * is pinned, while the directory is checked.
+     */
     @Override
     void apply(final Host dcHost, final boolean testOnly) {
+        pinInfoPanel();
+        try {
+            applyPinned(dcHost, testOnly);
+        } finally {
+            unpinInfoPanel();
+        }
+    }
+
+    /** Applies the changes, the info panel must be pinned. */
+    private void applyPinned(final Host dcHost, final boolean testOnly) {
         if (!testOnly) {
             Tools.invokeAndWait(new Runnable() {
                 @Override
@@ -361,13 +376,12 @@ final class FilesystemInfo extends ServiceInfo {
                                             getParamSaved(FS_RES_PARAM_DEV));
         super.removeMyselfNoConfirm(dcHost, testOnly);
         if (oldDvi != null && !testOnly) {
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
                 @Override
                 public void run() {
                     oldDvi.updateMenus(null);
                 }
             });
-            t.start();
         }
     }
 
@@ -404,13 +418,12 @@ final class FilesystemInfo extends ServiceInfo {
             } else {
                 oldDvi.removeLinbitDrbd(this, dcHost, testOnly);
             }
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
                 @Override
                 public void run() {
                     oldDvi.updateMenus(null);
                 }
             });
-            t.start();
             oldDvi.getDrbdResourceInfo().setUsedByCRM(null);
             //final Thread t = new Thread(new Runnable() {
             //    @Override
@@ -35,6 +35,8 @@ import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.CRM;
 import lcmc.utilities.MyMenu;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyList;
 import lcmc.utilities.MyMenuItem;
 import lcmc.utilities.MyListModel;
@@ -70,11 +72,42 @@ public final class GroupInfo extends ServiceInfo {
         super(ConfigData.PM_GROUP_NAME, ra, browser);
     }
 
-    /** Applies the the whole group if for example an order has changed. */
+    /**
+     * Applies the the whole group if for example an order has changed. The
+     * info panels of the group and of its services are pinned, while their
+     * widgets are read.
+     */
     void applyWhole(final Host dcHost,
                     final boolean createGroup,
                     final List<String> newOrder,
                     final boolean testOnly) {
+        final List<ServiceInfo> pinned = new ArrayList<ServiceInfo>();
+        pinInfoPanel();
+        try {
+            for (final String resId : newOrder) {
+                final ServiceInfo gsi =
+                                   getBrowser().getServiceInfoFromCRMId(resId);
+                if (gsi != null) {
+                    gsi.pinInfoPanel();
+                    pinned.add(gsi);
+                }
+            }
+            getInfoPanel();
+            waitForInfoPanel();
+            applyWholePinned(dcHost, createGroup, newOrder, testOnly);
+        } finally {
+            for (final ServiceInfo gsi : pinned) {
+                gsi.unpinInfoPanel();
+            }
+            unpinInfoPanel();
+        }
+    }
+
+    /** Applies the whole group, the info panels must be pinned. */
+    private void applyWholePinned(final Host dcHost,
+                                  final boolean createGroup,
+                                  final List<String> newOrder,
+                                  final boolean testOnly) {
         final String[] params = getParametersFromXML();
         if (!testOnly) {
             Tools.invokeAndWait(new Runnable() {
@@ -201,9 +234,22 @@ public final class GroupInfo extends ServiceInfo {
         getBrowser().getCRMGraph().repaint();
     }
 
-    /** Applies the changes to the group parameters. */
+    /**
+     * Applies the changes to the group parameters. The info panel is pinned,
+     * while its widgets are read.
+     */
     @Override
     void apply(final Host dcHost, final boolean testOnly) {
+        pinInfoPanel();
+        try {
+            applyPinned(dcHost, testOnly);
+        } finally {
+            unpinInfoPanel();
+        }
+    }
+
+    /** Applies the changes, the info panel must be pinned. */
+    private void applyPinned(final Host dcHost, final boolean testOnly) {
         if (!testOnly) {
             Tools.invokeAndWait(new Runnable() {
                 @Override
@@ -598,7 +644,7 @@ public final class GroupInfo extends ServiceInfo {
 
             @Override
             public void update() {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         if (mUpdateLock.tryLock()) {
@@ -610,7 +656,6 @@ public final class GroupInfo extends ServiceInfo {
                         }
                     }
                 });
-                t.start();
             }
 
             private void updateThread() {
@@ -722,7 +767,7 @@ public final class GroupInfo extends ServiceInfo {
 
                     @Override
                     public void update() {
-                        final Thread t = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 if (mUpdateLock.tryLock()) {
@@ -734,7 +779,6 @@ public final class GroupInfo extends ServiceInfo {
                                 }
                             }
                         });
-                        t.start();
                     }
 
                     public void updateThread() {
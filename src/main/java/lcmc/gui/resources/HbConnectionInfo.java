@@ -32,6 +32,8 @@ import lcmc.data.AccessMode;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.ButtonCallback;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.CRM;
 import lcmc.utilities.MyMenuItem;
 
@@ -349,6 +351,18 @@ public class HbConnectionInfo extends EditableInfo {
         return panel;
     }
 
+    /** Returns the built info panel or null. */
+    @Override
+    protected JComponent getCachedInfoPanel() {
+        return infoPanel;
+    }
+
+    /** Drops the info panel, it will be created again. */
+    @Override
+    protected void clearCachedInfoPanel() {
+        infoPanel = null;
+    }
+
     /**
      * Returns info panel for hb connection (order and/or colocation
      * constraint.
@@ -356,6 +370,7 @@ public class HbConnectionInfo extends EditableInfo {
     @Override
     public final JComponent getInfoPanel() {
         if (infoPanel != null) {
+            infoPanelUsed();
             return infoPanel;
         }
         final HbConnectionInfo thisClass = this;
@@ -469,7 +484,7 @@ public class HbConnectionInfo extends EditableInfo {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.IO, new Runnable() {
                         @Override
                         public void run() {
                             getBrowser().clStatusLock();
@@ -477,7 +492,6 @@ public class HbConnectionInfo extends EditableInfo {
                             getBrowser().clStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             }
         );
@@ -485,7 +499,7 @@ public class HbConnectionInfo extends EditableInfo {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             getBrowser().clStatusLock();
@@ -493,7 +507,6 @@ public class HbConnectionInfo extends EditableInfo {
                             getBrowser().clStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             }
         );
@@ -527,6 +540,7 @@ public class HbConnectionInfo extends EditableInfo {
                 Tools.getDefaultSize("HostBrowser.ResourceInfoArea.Height")));
         infoPanel = newPanel;
         infoPanelDone();
+        infoPanelUsed();
         return infoPanel;
     }
 
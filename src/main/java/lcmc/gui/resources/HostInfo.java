@@ -37,6 +37,8 @@ import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.data.PtestData;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.ExecCallback;
 import lcmc.utilities.MyMenu;
@@ -352,7 +354,7 @@ public final class HostInfo extends Info {
             @Override
             public void actionPerformed(final ActionEvent e) {
                 crmConfigureCommitButton.setEnabled(false);
-                final Thread thread = new Thread(
+                TaskExecutor.execute(Pool.IO,
                     new Runnable() {
                         @Override
                         public void run() {
@@ -363,7 +365,6 @@ public final class HostInfo extends Info {
                         }
                     }
                 );
-                thread.start();
             }
         });
 
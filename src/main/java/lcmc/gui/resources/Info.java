@@ -27,8 +27,12 @@ import lcmc.gui.widget.Widget;
 import lcmc.data.resources.Resource;
 import lcmc.data.AccessMode;
 import lcmc.utilities.ButtonCallback;
+import lcmc.utilities.DiffTableModel;
 import lcmc.utilities.Unit;
+import lcmc.utilities.RefreshScheduler;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.MyCellRenderer;
 import lcmc.utilities.MyButtonCellRenderer;
@@ -45,7 +49,6 @@ import javax.swing.JMenu;
 import javax.swing.SwingUtilities;
 import javax.swing.JScrollPane;
 import javax.swing.JMenuItem;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.SwingConstants;
@@ -73,6 +76,8 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
 import java.util.Collections;
 import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.locks.ReentrantLock;
@@ -125,8 +130,11 @@ public class Info implements Comparable<Info> {
     /** Table. */
     private final Map<String, JTable> tables = new HashMap<String, JTable>();
     /** Table models. */
-    private final Map<String, DefaultTableModel> tableModels =
-                                    new HashMap<String, DefaultTableModel>();
+    private final Map<String, DiffTableModel> tableModels =
+                                    new HashMap<String, DiffTableModel>();
+    /** Tables, whose data are being computed for the update. */
+    private final Set<String> tablesToUpdate =
+                            Collections.synchronizedSet(new HashSet<String>());
     /** Log file icon. */
     public static final ImageIcon LOGFILE_ICON = Tools.createImageIcon(
                                   Tools.getDefault("Info.LogIcon"));
@@ -476,7 +484,7 @@ public class Info implements Comparable<Info> {
     public final void showPopup(final JComponent c,
                                 final int x,
                                 final int y) {
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.UI, new Runnable() {
             @Override
             public void run() {
                 final JPopupMenu pm = getPopup();
@@ -490,7 +498,6 @@ public class Info implements Comparable<Info> {
                 }
             }
         });
-        thread.start();
     }
 
     /** Returns tooltip for the object in the graph. */
@@ -657,7 +664,7 @@ public class Info implements Comparable<Info> {
                             }
                         });
                     } else {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 final JPopupMenu pm = getPopup();
@@ -670,7 +677,6 @@ public class Info implements Comparable<Info> {
                                 }
                             }
                         });
-                        thread.start();
                     }
                 }
             }
@@ -752,25 +758,23 @@ public class Info implements Comparable<Info> {
             @Override
             public void mouseEntered(final MouseEvent e) {
                 if (c.isShowing() && c.isEnabled()) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             bc.mouseOver();
                         }
                     });
-                    thread.start();
                 }
             }
 
             @Override
             public void mouseExited(final MouseEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         bc.mouseOut();
                     }
                 });
-                t.start();
             }
 
             @Override
@@ -827,14 +831,20 @@ public class Info implements Comparable<Info> {
         final String[] colNames = getColumnNames(tableName);
         if (colNames != null && colNames.length > 0) {
             final Object[][] data = getTableData(tableName);
-            final DefaultTableModel tableModel =
-                new DefaultTableModel(data, colNames) {
+            final DiffTableModel tableModel =
+                new DiffTableModel(data, colNames) {
                     /** Serial version uid. */
                     private static final long serialVersionUID = 1L;
                     public final boolean isCellEditable(final int r,
                                                         final int c) {
                         return false;
                     }
+
+                    /** Row color changes must update the row. */
+                    @Override
+                    protected Object getRowState(final String key) {
+                        return getTableRowColor(tableName, key);
+                    }
                 };
             tableModels.put(tableName, tableModel);
             final MyButtonCellRenderer bcr = new MyButtonCellRenderer() {
@@ -887,8 +897,8 @@ public class Info implements Comparable<Info> {
 
             };
             tables.put(tableName, table);
-            final TableRowSorter<DefaultTableModel> sorter =
-                        new TableRowSorter<DefaultTableModel>(tableModel);
+            final TableRowSorter<DiffTableModel> sorter =
+                        new TableRowSorter<DiffTableModel>(tableModel);
             for (int i = 0; i < colNames.length; i++) {
                 final Comparator<Object> c =
                                                getColComparator(tableName, i);
@@ -1078,26 +1088,35 @@ public class Info implements Comparable<Info> {
         return new Object[][]{};
     }
 
-    /** Updates data in the table. */
+    /**
+     * Updates data in the table. The data are computed in the background and
+     * only the changed rows are updated in the swing thread. If the data are
+     * already being computed, the update is done after that.
+     */
     public final void updateTable(final String tableName) {
         Tools.debug(this, "update table: " + tableName, 2);
         final JTable table = tables.get(tableName);
-        final DefaultTableModel tableModel = tableModels.get(tableName);
-        if (tableModel != null) {
-            final String[] colNames = getColumnNames(tableName);
-            if (colNames != null && colNames.length > 0) {
-                SwingUtilities.invokeLater(new Runnable() {
+        final DiffTableModel tableModel = tableModels.get(tableName);
+        if (tableModel == null || !tablesToUpdate.add(tableName)) {
+            return;
+        }
+        TaskExecutor.execute(Pool.UI, new Runnable() {
+            @Override
+            public void run() {
+                tablesToUpdate.remove(tableName);
+                final Object[][] data = getTableData(tableName);
+                RefreshScheduler.refresh(new Runnable() {
                     @Override
                     public void run() {
-                        final Object[][] data = getTableData(tableName);
                         Tools.debug(this, "update table in: " + getName(), 1);
-                        tableModel.setDataVector(data, colNames);
-                        tableModel.fireTableDataChanged();
-                        Tools.resizeTable(table, getDefaultWidths(tableName));
+                        if (tableModel.update(data)) {
+                            Tools.resizeTable(table,
+                                              getDefaultWidths(tableName));
+                        }
                     }
-                });
+                }, tableModel);
             }
-        }
+        });
     }
 
     /** Execute when row in the table was clicked. */
@@ -0,0 +1,109 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.gui.resources;
+
+import lcmc.utilities.Tools;
+
+import javax.swing.SwingUtilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the built info panels of one browser and releases the
+ * least recently used ones, if there are more of them than
+ * Browser.MaxInfoPanels. Panels, that cannot be released now, because they
+ * are shown or have changes, stay tracked and are tried again later.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class InfoPanelTracker {
+    /** Infos with built panels, the least recently used first. */
+    private final Map<EditableInfo, Boolean> infos =
+                     new LinkedHashMap<EditableInfo, Boolean>(16, 0.75f, true);
+    /** Whether the release is already scheduled. */
+    private boolean releaseScheduled = false;
+
+    /**
+     * Marks the info panel as recently used and schedules the release, if
+     * there are too many panels.
+     */
+    void used(final EditableInfo info) {
+        synchronized (infos) {
+            infos.put(info, true);
+            if (releaseScheduled
+                || infos.size() <= Tools.getDefaultInt(
+                                                "Browser.MaxInfoPanels")) {
+                return;
+            }
+            releaseScheduled = true;
+        }
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                release();
+            }
+        });
+    }
+
+    /** Stops tracking the info, e.g. after it was removed. */
+    void remove(final EditableInfo info) {
+        synchronized (infos) {
+            infos.remove(info);
+        }
+    }
+
+    /** Returns the number of the tracked panels. */
+    public int size() {
+        synchronized (infos) {
+            return infos.size();
+        }
+    }
+
+    /**
+     * Releases the least recently used panels, till there are not too many
+     * of them. Must be called in the swing thread.
+     */
+    void release() {
+        final List<EditableInfo> candidates;
+        final int max = Tools.getDefaultInt("Browser.MaxInfoPanels");
+        synchronized (infos) {
+            releaseScheduled = false;
+            candidates = new ArrayList<EditableInfo>(infos.keySet());
+        }
+        int count = candidates.size();
+        for (final EditableInfo info : candidates) {
+            if (count <= max) {
+                break;
+            }
+            if (info.releaseInfoPanel()) {
+                synchronized (infos) {
+                    infos.remove(info);
+                }
+                count--;
+            }
+        }
+    }
+}
@@ -26,6 +26,8 @@ import lcmc.gui.Browser;
 import lcmc.gui.HostBrowser;
 import lcmc.data.resources.NetInterface;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.SSH;
 import javax.swing.ImageIcon;
 import javax.swing.JEditorPane;
@@ -72,9 +74,7 @@ public class NetInfo extends Info {
                 ep.setText(ret.getOutput());
             }
         };
-        final Thread thread = new Thread(runnable);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
+        TaskExecutor.execute(Pool.IO, runnable);
     }
 
     /** Returns string representation of the net interface. */
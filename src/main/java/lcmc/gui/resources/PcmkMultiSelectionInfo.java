@@ -28,6 +28,8 @@ import lcmc.data.Host;
 import lcmc.data.ClusterStatus;
 import lcmc.data.PtestData;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyMenuItem;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.ButtonCallback;
@@ -95,6 +97,19 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
         return s.toString();
     }
 
+    /**
+     * Executes the cib changes gathered for the selected items and reports
+     * to the user, if it failed.
+     */
+    private static void commitBatch(final Host dcHost,
+                                    final boolean testOnly) {
+        if (!CRM.commitBatch() && !testOnly) {
+            Tools.progressIndicatorFailed(
+                      dcHost.getName(),
+                      Tools.getString("PcmkMultiSelectionInfo.BatchFailed"));
+        }
+    }
+
     /** Create menu items for selected hosts. */
     private void createSelectedHostsPopup(
                                         final List<HostInfo> selectedHostInfos,
@@ -136,12 +151,17 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 @Override
                 public void action() {
                     final Host dcHost = getBrowser().getDCHost();
-                    for (final HostInfo hi : selectedHostInfos) {
-                        if (!hi.isStandby(CRM.LIVE)) {
-                            CRM.standByOn(dcHost,
-                                          hi.getHost(),
-                                          CRM.LIVE);
+                    CRM.startBatch();
+                    try {
+                        for (final HostInfo hi : selectedHostInfos) {
+                            if (!hi.isStandby(CRM.LIVE)) {
+                                CRM.standByOn(dcHost,
+                                              hi.getHost(),
+                                              CRM.LIVE);
+                            }
                         }
+                    } finally {
+                        commitBatch(dcHost, CRM.LIVE);
                     }
                 }
             };
@@ -150,10 +170,15 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                                        standbyItem, getBrowser().getDCHost()) {
             @Override
             public void action(final Host dcHost) {
-                for (final HostInfo hi : selectedHostInfos) {
-                    if (!hi.isStandby(CRM.LIVE)) {
-                        CRM.standByOn(dcHost, hi.getHost(), CRM.TESTONLY);
+                CRM.startBatch();
+                try {
+                    for (final HostInfo hi : selectedHostInfos) {
+                        if (!hi.isStandby(CRM.LIVE)) {
+                            CRM.standByOn(dcHost, hi.getHost(), CRM.TESTONLY);
+                        }
                     }
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -196,12 +221,17 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 @Override
                 public void action() {
                     final Host dcHost = getBrowser().getDCHost();
-                    for (final HostInfo hi : selectedHostInfos) {
-                        if (hi.isStandby(CRM.LIVE)) {
-                            CRM.standByOff(dcHost,
-                                           hi.getHost(),
-                                           CRM.LIVE);
+                    CRM.startBatch();
+                    try {
+                        for (final HostInfo hi : selectedHostInfos) {
+                            if (hi.isStandby(CRM.LIVE)) {
+                                CRM.standByOff(dcHost,
+                                               hi.getHost(),
+                                               CRM.LIVE);
+                            }
                         }
+                    } finally {
+                        commitBatch(dcHost, CRM.LIVE);
                     }
                 }
             };
@@ -210,10 +240,15 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                                        onlineItem, getBrowser().getDCHost()) {
             @Override
             public void action(final Host dcHost) {
-                for (final HostInfo hi : selectedHostInfos) {
-                    if (hi.isStandby(CRM.LIVE)) {
-                        CRM.standByOff(dcHost, hi.getHost(), CRM.TESTONLY);
+                CRM.startBatch();
+                try {
+                    for (final HostInfo hi : selectedHostInfos) {
+                        if (hi.isStandby(CRM.LIVE)) {
+                            CRM.standByOff(dcHost, hi.getHost(), CRM.TESTONLY);
+                        }
                     }
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -286,10 +321,15 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                                                     getBrowser().getDCHost()) {
             @Override
             public void action(final Host dchost) {
-                for (final HostInfo hi : selectedHostInfos) {
-                    if (!hi.isStandby(CRM.LIVE)) {
-                        CRM.standByOn(dchost, hi.getHost(), CRM.TESTONLY);
+                CRM.startBatch();
+                try {
+                    for (final HostInfo hi : selectedHostInfos) {
+                        if (!hi.isStandby(CRM.LIVE)) {
+                            CRM.standByOn(dchost, hi.getHost(), CRM.TESTONLY);
+                        }
                     }
+                } finally {
+                    commitBatch(dchost, CRM.TESTONLY);
                 }
             }
         };
@@ -341,10 +381,15 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                                                     getBrowser().getDCHost()) {
             @Override
             public void action(final Host dcHost) {
-                for (final HostInfo hi : selectedHostInfos) {
-                    if (!hi.isStandby(CRM.LIVE)) {
-                        CRM.standByOn(dcHost, hi.getHost(), CRM.TESTONLY);
+                CRM.startBatch();
+                try {
+                    for (final HostInfo hi : selectedHostInfos) {
+                        if (!hi.isStandby(CRM.LIVE)) {
+                            CRM.standByOn(dcHost, hi.getHost(), CRM.TESTONLY);
+                        }
                     }
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -664,13 +709,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 public void action() {
                     hidePopup();
                     final Host dcHost = getBrowser().getDCHost();
-                    for (final ServiceInfo si : selectedServiceInfos) {
-                        if (si.isConstraintPH()
-                            || si.getService().isNew()
-                            || si.getService().isOrphaned()) {
-                            continue;
+                    CRM.startBatch();
+                    try {
+                        for (final ServiceInfo si : selectedServiceInfos) {
+                            if (si.isConstraintPH()
+                                || si.getService().isNew()
+                                || si.getService().isOrphaned()) {
+                                continue;
+                            }
+                            si.startResource(dcHost, CRM.LIVE);
                         }
-                        si.startResource(dcHost, CRM.LIVE);
+                    } finally {
+                        commitBatch(dcHost, CRM.LIVE);
                     }
                 }
             };
@@ -678,13 +728,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                     getBrowser().new ClMenuItemCallback(startMenuItem, null) {
             @Override
             public void action(final Host dcHost) {
-                for (final ServiceInfo si : selectedServiceInfos) {
-                    if (si.isConstraintPH()
-                        || si.getService().isNew()
-                        || si.getService().isOrphaned()) {
-                        continue;
+                CRM.startBatch();
+                try {
+                    for (final ServiceInfo si : selectedServiceInfos) {
+                        if (si.isConstraintPH()
+                            || si.getService().isNew()
+                            || si.getService().isOrphaned()) {
+                            continue;
+                        }
+                        si.startResource(dcHost, CRM.TESTONLY);
                     }
-                    si.startResource(dcHost, CRM.TESTONLY);
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -736,13 +791,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 public void action() {
                     hidePopup();
                     final Host dcHost = getBrowser().getDCHost();
-                    for (final ServiceInfo si : selectedServiceInfos) {
-                        if (si.isConstraintPH()
-                            || si.getService().isNew()
-                            || si.getService().isOrphaned()) {
-                            continue;
+                    CRM.startBatch();
+                    try {
+                        for (final ServiceInfo si : selectedServiceInfos) {
+                            if (si.isConstraintPH()
+                                || si.getService().isNew()
+                                || si.getService().isOrphaned()) {
+                                continue;
+                            }
+                            si.stopResource(dcHost, CRM.LIVE);
                         }
-                        si.stopResource(dcHost, CRM.LIVE);
+                    } finally {
+                        commitBatch(dcHost, CRM.LIVE);
                     }
                 }
             };
@@ -750,13 +810,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                     getBrowser().new ClMenuItemCallback(stopMenuItem, null) {
             @Override
             public void action(final Host dcHost) {
-                for (final ServiceInfo si : selectedServiceInfos) {
-                    if (si.isConstraintPH()
-                        || si.getService().isNew()
-                        || si.getService().isOrphaned()) {
-                        continue;
+                CRM.startBatch();
+                try {
+                    for (final ServiceInfo si : selectedServiceInfos) {
+                        if (si.isConstraintPH()
+                            || si.getService().isNew()
+                            || si.getService().isOrphaned()) {
+                            continue;
+                        }
+                        si.stopResource(dcHost, CRM.TESTONLY);
                     }
-                    si.stopResource(dcHost, CRM.TESTONLY);
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -888,13 +953,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 public void action() {
                     hidePopup();
                     final Host dcHost = getBrowser().getDCHost();
-                    for (final ServiceInfo si : selectedServiceInfos) {
-                        if (si.isConstraintPH()
-                            || si.getService().isNew()
-                            || si.getService().isOrphaned()) {
-                            continue;
+                    CRM.startBatch();
+                    try {
+                        for (final ServiceInfo si : selectedServiceInfos) {
+                            if (si.isConstraintPH()
+                                || si.getService().isNew()
+                                || si.getService().isOrphaned()) {
+                                continue;
+                            }
+                            si.setManaged(true, dcHost, CRM.LIVE);
                         }
-                        si.setManaged(true, dcHost, CRM.LIVE);
+                    } finally {
+                        commitBatch(dcHost, CRM.LIVE);
                     }
                 }
             };
@@ -902,13 +972,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                   getBrowser().new ClMenuItemCallback(manageMenuItem, null) {
             @Override
             public void action(final Host dcHost) {
-                for (final ServiceInfo si : selectedServiceInfos) {
-                    if (si.isConstraintPH()
-                        || si.getService().isNew()
-                        || si.getService().isOrphaned()) {
-                        continue;
+                CRM.startBatch();
+                try {
+                    for (final ServiceInfo si : selectedServiceInfos) {
+                        if (si.isConstraintPH()
+                            || si.getService().isNew()
+                            || si.getService().isOrphaned()) {
+                            continue;
+                        }
+                        si.setManaged(true, dcHost, CRM.TESTONLY);
                     }
-                    si.setManaged(true, dcHost, CRM.TESTONLY);
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -963,13 +1038,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 public void action() {
                     hidePopup();
                     final Host dcHost = getBrowser().getDCHost();
-                    for (final ServiceInfo si : selectedServiceInfos) {
-                        if (si.isConstraintPH()
-                            || si.getService().isNew()
-                            || si.getService().isOrphaned()) {
-                            continue;
+                    CRM.startBatch();
+                    try {
+                        for (final ServiceInfo si : selectedServiceInfos) {
+                            if (si.isConstraintPH()
+                                || si.getService().isNew()
+                                || si.getService().isOrphaned()) {
+                                continue;
+                            }
+                            si.setManaged(false, dcHost, CRM.LIVE);
                         }
-                        si.setManaged(false, dcHost, CRM.LIVE);
+                    } finally {
+                        commitBatch(dcHost, CRM.LIVE);
                     }
                 }
             };
@@ -977,13 +1057,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                   getBrowser().new ClMenuItemCallback(unmanageMenuItem, null) {
             @Override
             public void action(final Host dcHost) {
-                for (final ServiceInfo si : selectedServiceInfos) {
-                    if (si.isConstraintPH()
-                        || si.getService().isNew()
-                        || si.getService().isOrphaned()) {
-                        continue;
+                CRM.startBatch();
+                try {
+                    for (final ServiceInfo si : selectedServiceInfos) {
+                        if (si.isConstraintPH()
+                            || si.getService().isNew()
+                            || si.getService().isOrphaned()) {
+                            continue;
+                        }
+                        si.setManaged(false, dcHost, CRM.TESTONLY);
                     }
-                    si.setManaged(false, dcHost, CRM.TESTONLY);
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -1059,13 +1144,20 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                     public void action() {
                         hidePopup();
                         final Host dcHost = getBrowser().getDCHost();
-                        for (final ServiceInfo si : selectedServiceInfos) {
-                            if (si.isConstraintPH()
-                                || si.getService().isNew()
-                                || si.getService().isOrphaned()) {
-                                continue;
+                        CRM.startBatch();
+                        try {
+                            for (final ServiceInfo si : selectedServiceInfos) {
+                                if (si.isConstraintPH()
+                                    || si.getService().isNew()
+                                    || si.getService().isOrphaned()) {
+                                    continue;
+                                }
+                                si.migrateFromResource(dcHost,
+                                                       hostName,
+                                                       CRM.LIVE);
                             }
-                            si.migrateFromResource(dcHost, hostName, CRM.LIVE);
+                        } finally {
+                            commitBatch(dcHost, CRM.LIVE);
                         }
                     }
                 };
@@ -1073,13 +1165,20 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                getBrowser().new ClMenuItemCallback(migrateFromMenuItem, null) {
                 @Override
                 public void action(final Host dcHost) {
-                    for (final ServiceInfo si : selectedServiceInfos) {
-                        if (si.isConstraintPH()
-                            || si.getService().isNew()
-                            || si.getService().isOrphaned()) {
-                            continue;
+                    CRM.startBatch();
+                    try {
+                        for (final ServiceInfo si : selectedServiceInfos) {
+                            if (si.isConstraintPH()
+                                || si.getService().isNew()
+                                || si.getService().isOrphaned()) {
+                                continue;
+                            }
+                            si.migrateFromResource(dcHost,
+                                                   hostName,
+                                                   CRM.TESTONLY);
                         }
-                        si.migrateFromResource(dcHost, hostName, CRM.TESTONLY);
+                    } finally {
+                        commitBatch(dcHost, CRM.TESTONLY);
                     }
                 }
             };
@@ -1127,13 +1226,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 public void action() {
                     hidePopup();
                     final Host dcHost = getBrowser().getDCHost();
-                    for (final ServiceInfo si : selectedServiceInfos) {
-                        if (si.isConstraintPH()
-                            || si.getService().isNew()
-                            || si.getService().isOrphaned()) {
-                            continue;
+                    CRM.startBatch();
+                    try {
+                        for (final ServiceInfo si : selectedServiceInfos) {
+                            if (si.isConstraintPH()
+                                || si.getService().isNew()
+                                || si.getService().isOrphaned()) {
+                                continue;
+                            }
+                            si.unmigrateResource(dcHost, CRM.LIVE);
                         }
-                        si.unmigrateResource(dcHost, CRM.LIVE);
+                    } finally {
+                        commitBatch(dcHost, CRM.LIVE);
                     }
                 }
             };
@@ -1141,13 +1245,18 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                getBrowser().new ClMenuItemCallback(unmigrateMenuItem, null) {
             @Override
             public void action(final Host dcHost) {
-                for (final ServiceInfo si : selectedServiceInfos) {
-                    if (si.isConstraintPH()
-                        || si.getService().isNew()
-                        || si.getService().isOrphaned()) {
-                        continue;
+                CRM.startBatch();
+                try {
+                    for (final ServiceInfo si : selectedServiceInfos) {
+                        if (si.isConstraintPH()
+                            || si.getService().isNew()
+                            || si.getService().isOrphaned()) {
+                            continue;
+                        }
+                        si.unmigrateResource(dcHost, CRM.TESTONLY);
                     }
-                    si.unmigrateResource(dcHost, CRM.TESTONLY);
+                } finally {
+                    commitBatch(dcHost, CRM.TESTONLY);
                 }
             }
         };
@@ -1469,7 +1578,7 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.IO, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -1477,7 +1586,6 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -1486,7 +1594,7 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -1494,7 +1602,6 @@ public final class PcmkMultiSelectionInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -38,10 +38,13 @@ import lcmc.data.ClusterStatus;
 import lcmc.data.ConfigData;
 import lcmc.data.PtestData;
 import lcmc.data.AccessMode;
+import lcmc.utilities.MyButton;
 import lcmc.utilities.MyMenu;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.Unit;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.CRM;
 import lcmc.utilities.ButtonCallback;
 import lcmc.utilities.MyMenuItem;
@@ -2663,6 +2666,7 @@ public class ServiceInfo extends EditableInfo {
             getBrowser().getCRMGraph().pickInfo(ci);
         }
         if (infoPanel != null) {
+            infoPanelUsed();
             return infoPanel;
         }
         /* init save button */
@@ -2742,7 +2746,7 @@ public class ServiceInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.IO, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -2750,7 +2754,6 @@ public class ServiceInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -2759,7 +2762,7 @@ public class ServiceInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -2767,7 +2770,6 @@ public class ServiceInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -2912,9 +2914,26 @@ public class ServiceInfo extends EditableInfo {
          * enable apply button */
         infoPanel = newPanel;
         infoPanelDone();
+        infoPanelUsed();
         return infoPanel;
     }
 
+    /** Returns the built info panel or null. */
+    @Override
+    protected JComponent getCachedInfoPanel() {
+        return infoPanel;
+    }
+
+    /** Drops the info panel and the widgets of the clone. */
+    @Override
+    protected void clearCachedInfoPanel() {
+        infoPanel = null;
+        final CloneInfo ci = getCloneInfo();
+        if (ci != null) {
+            ci.widgetClear();
+        }
+    }
+
     /** Clears the info panel cache, forcing it to reload. */
     @Override
     boolean selectAutomaticallyInTreeMenu() {
@@ -3367,8 +3386,32 @@ public class ServiceInfo extends EditableInfo {
         mSavedOperationsLock.unlock();
     }
 
-    /** Applies the changes to the service parameters. */
+    /**
+     * Applies the changes to the service parameters. The info panels of the
+     * service and of its group are pinned, while their widgets are read.
+     */
     void apply(final Host dcHost, final boolean testOnly) {
+        final GroupInfo gInfo = groupInfo;
+        pinInfoPanel();
+        if (gInfo != null) {
+            gInfo.pinInfoPanel();
+        }
+        try {
+            if (gInfo != null) {
+                gInfo.getInfoPanel();
+                gInfo.waitForInfoPanel();
+            }
+            applyPinned(dcHost, testOnly);
+        } finally {
+            if (gInfo != null) {
+                gInfo.unpinInfoPanel();
+            }
+            unpinInfoPanel();
+        }
+    }
+
+    /** Applies the changes, the info panel must be pinned. */
+    private void applyPinned(final Host dcHost, final boolean testOnly) {
         if (!testOnly) {
             Tools.invokeAndWait(new Runnable() {
                 @Override
@@ -4509,6 +4552,7 @@ public class ServiceInfo extends EditableInfo {
         if (!testOnly) {
             getBrowser().removeFromServiceInfoHash(this);
             infoPanel = null;
+            getBrowser().getInfoPanelTracker().remove(this);
             getService().doneRemoving();
         }
     }
@@ -4620,7 +4664,7 @@ public class ServiceInfo extends EditableInfo {
             private static final long serialVersionUID = 1L;
             @Override
             public void action() {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         hidePopup();
@@ -4642,7 +4686,6 @@ public class ServiceInfo extends EditableInfo {
                         });
                     }
                 });
-                thread.start();
             }
         };
         dlm.addElement(mmi);
@@ -4693,7 +4736,7 @@ public class ServiceInfo extends EditableInfo {
 
             @Override
             public void update() {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         if (mUpdateLock.tryLock()) {
@@ -4705,7 +4748,6 @@ public class ServiceInfo extends EditableInfo {
                         }
                     }
                 });
-                t.start();
             }
 
             private void updateThread() {
@@ -5004,7 +5046,7 @@ public class ServiceInfo extends EditableInfo {
 
             @Override
             public void update() {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         if (mUpdateLock.tryLock()) {
@@ -5016,7 +5058,6 @@ public class ServiceInfo extends EditableInfo {
                         }
                     }
                 });
-                t.start();
             }
 
             private void updateThread() {
@@ -39,6 +39,8 @@ import lcmc.utilities.Unit;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.CRM;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.ButtonCallback;
 import lcmc.utilities.MyMenu;
 import lcmc.utilities.MyMenuItem;
@@ -1067,7 +1069,7 @@ public final class ServicesInfo extends EditableInfo {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(
+                    TaskExecutor.execute(Pool.IO,
                         new Runnable() {
                             @Override
                             public void run() {
@@ -1077,7 +1079,6 @@ public final class ServicesInfo extends EditableInfo {
                             }
                         }
                     );
-                    thread.start();
                 }
             }
         );
@@ -1085,7 +1086,7 @@ public final class ServicesInfo extends EditableInfo {
             new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread thread = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             getBrowser().clStatusLock();
@@ -1093,7 +1094,6 @@ public final class ServicesInfo extends EditableInfo {
                             getBrowser().clStatusUnlock();
                         }
                     });
-                    thread.start();
                 }
             }
         );
@@ -1300,7 +1300,7 @@ public final class ServicesInfo extends EditableInfo {
 
             @Override
             public void update() {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         if (mUpdateLock.tryLock()) {
@@ -1312,7 +1312,6 @@ public final class ServicesInfo extends EditableInfo {
                         }
                     }
                 });
-                t.start();
             }
             private void updateThread() {
                 SwingUtilities.invokeLater(new Runnable() {
@@ -1806,7 +1805,8 @@ public final class ServicesInfo extends EditableInfo {
                          "ClusterBrowser.confirmRemoveAllServices.Yes"),
                      Tools.getString(
                          "ClusterBrowser.confirmRemoveAllServices.No"))) {
-                    final Thread t = new Thread() {
+                    TaskExecutor.execute(Pool.IO, new Runnable() {
+                        @Override
                         public void run() {
                             final Host dcHost = getBrowser().getDCHost();
                             List<ServiceInfo> services =
@@ -1834,8 +1834,7 @@ public final class ServicesInfo extends EditableInfo {
                             }
                             getBrowser().getCRMGraph().repaint();
                         }
-                    };
-                    t.start();
+                    });
                 }
             }
         };
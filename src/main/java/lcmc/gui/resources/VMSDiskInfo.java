@@ -30,6 +30,8 @@ import lcmc.data.Host;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 
 import javax.swing.JPanel;
@@ -709,7 +711,7 @@ public final class VMSDiskInfo extends VMSHardwareInfo {
             fileChooserBtn.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             String file;
@@ -724,7 +726,6 @@ public final class VMSDiskInfo extends VMSHardwareInfo {
                                              FILECHOOSER_FILE_ONLY);
                         }
                     });
-                    t.start();
                 }
             });
             widgetAdd(param, prefix, paramWi);
@@ -833,13 +834,12 @@ public final class VMSDiskInfo extends VMSHardwareInfo {
         newBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         vdi.addDiskPanel();
                     }
                 });
-                t.start();
             }
         });
         return newBtn;
@@ -28,6 +28,8 @@ import lcmc.data.Host;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 
 import javax.swing.JPanel;
@@ -525,13 +527,12 @@ public final class VMSFilesystemInfo extends VMSHardwareInfo {
         newBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         vdi.addFilesystemPanel();
                     }
                 });
-                t.start();
             }
         });
         return newBtn;
@@ -569,7 +570,7 @@ public final class VMSFilesystemInfo extends VMSHardwareInfo {
             fileChooserBtn.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             String file;
@@ -584,7 +585,6 @@ public final class VMSFilesystemInfo extends VMSHardwareInfo {
                                              FILECHOOSER_DIR_ONLY);
                         }
                     });
-                    t.start();
                 }
             });
             widgetAdd(param, prefix, paramWi);
@@ -32,6 +32,8 @@ import lcmc.data.AccessMode;
 import lcmc.data.LinuxFile;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.Unit;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.MyMenuItem;
@@ -107,10 +109,23 @@ public abstract class VMSHardwareInfo extends EditableInfo {
         return (ClusterBrowser) super.getBrowser();
     }
 
+    /** Returns the built info panel or null. */
+    @Override
+    protected JComponent getCachedInfoPanel() {
+        return infoPanel;
+    }
+
+    /** Drops the info panel, it will be created again. */
+    @Override
+    protected void clearCachedInfoPanel() {
+        infoPanel = null;
+    }
+
     /** Returns info panel. */
     @Override
     public final JComponent getInfoPanel() {
         if (infoPanel != null) {
+            infoPanelUsed();
             return infoPanel;
         }
         final boolean abExisted = getApplyButton() != null;
@@ -143,15 +158,19 @@ public abstract class VMSHardwareInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.IO, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
-                                apply(false);
+                                pinInfoPanel();
+                                try {
+                                    apply(false);
+                                } finally {
+                                    unpinInfoPanel();
+                                }
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -159,7 +178,7 @@ public abstract class VMSHardwareInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -167,7 +186,6 @@ public abstract class VMSHardwareInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -217,6 +235,7 @@ public abstract class VMSHardwareInfo extends EditableInfo {
         });
         infoPanel = newPanel;
         infoPanelDone();
+        infoPanelUsed();
         return infoPanel;
     }
 
@@ -254,7 +273,7 @@ public abstract class VMSHardwareInfo extends EditableInfo {
     protected final void rowClicked(final String tableName,
                                     final String key,
                                     final int column) {
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.UI, new Runnable() {
             @Override
             public void run() {
                 if (isControlButton(tableName, column)) {
@@ -264,7 +283,6 @@ public abstract class VMSHardwareInfo extends EditableInfo {
                 }
             }
         });
-        thread.start();
     }
 
     /** Retrurns color for some rows. */
@@ -30,6 +30,8 @@ import lcmc.data.Host;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.MyMenuItem;
 import lcmc.utilities.UpdatableItem;
@@ -152,7 +154,7 @@ public final class VMSInfo extends CategoryInfo {
                               final int column) {
         final VMSVirtualDomainInfo vmsvdi = domainToInfo.get(key);
         if (vmsvdi != null) {
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.IO, new Runnable() {
                 @Override
                 public void run() {
                     if (DEFAULT_WIDTHS.containsKey(column)) {
@@ -163,7 +165,6 @@ public final class VMSInfo extends CategoryInfo {
                     }
                 }
             });
-            t.start();
         }
     }
 
@@ -236,13 +237,12 @@ public final class VMSInfo extends CategoryInfo {
         newButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         addDomainPanel();
                     }
                 });
-                t.start();
             }
         });
         final JPanel bp = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
@@ -268,14 +268,13 @@ public final class VMSInfo extends CategoryInfo {
             public void run() {
                 vmsdi.getInfoPanel();
                 vmsdi.selectMyself();
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         AddVMConfigDialog avmcd = new AddVMConfigDialog(vmsdi);
                         avmcd.showDialogs();
                     }
                 });
-                t.start();
             }
         });
     }
@@ -28,6 +28,8 @@ import lcmc.data.VMSXML.InterfaceData;
 import lcmc.data.Host;
 import lcmc.data.ConfigData;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 
 import javax.swing.JPanel;
@@ -569,13 +571,12 @@ public final class VMSInterfaceInfo extends VMSHardwareInfo {
         newBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         vdi.addInterfacePanel();
                     }
                 });
-                t.start();
             }
         });
         return newBtn;
@@ -27,6 +27,8 @@ import lcmc.data.VMSXML;
 import lcmc.data.VMSXML.ParallelData;
 import lcmc.data.Host;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 
 import java.util.Map;
@@ -151,13 +153,12 @@ final class VMSParallelInfo extends VMSParallelSerialInfo {
         newBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.UI, new Runnable() {
                     @Override
                     public void run() {
                         vdi.addParallelsPanel();
                     }
                 });
-                t.start();
             }
         });
         return newBtn;
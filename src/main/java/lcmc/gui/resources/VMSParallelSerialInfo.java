@@ -30,6 +30,8 @@ import lcmc.data.Host;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyButton;
 
 import javax.swing.JPanel;
@@ -478,7 +480,7 @@ public abstract class VMSParallelSerialInfo extends VMSHardwareInfo {
             fileChooserBtn.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(final ActionEvent e) {
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             final String oldDir = paramWi.getStringValue();
@@ -499,7 +501,6 @@ public abstract class VMSParallelSerialInfo extends VMSHardwareInfo {
                                              FILECHOOSER_FILE_ONLY);
                         }
                     });
-                    t.start();
                 }
             });
             widgetAdd(param, prefix, paramWi);
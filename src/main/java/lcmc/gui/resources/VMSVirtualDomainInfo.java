@@ -43,6 +43,8 @@ import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.utilities.UpdatableItem;
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.utilities.MyMenu;
 import lcmc.utilities.MyMenuItem;
 import lcmc.utilities.VIRSH;
@@ -1723,7 +1725,7 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
         hostBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent e) {
-                final Thread t = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         final VMSXML vxml = getBrowser().getVMSXML(host);
@@ -1746,7 +1748,6 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                t.start();
             }
         });
         hostBtn.setPreferredSize(new Dimension(80, 20));
@@ -2046,10 +2047,23 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
         return doPanel;
     }
 
+    /** Returns the built info panel or null. */
+    @Override
+    protected JComponent getCachedInfoPanel() {
+        return infoPanel;
+    }
+
+    /** Drops the info panel, it will be created again. */
+    @Override
+    protected void clearCachedInfoPanel() {
+        infoPanel = null;
+    }
+
     /** Returns info panel. */
     @Override
     public JComponent getInfoPanel() {
         if (infoPanel != null) {
+            infoPanelUsed();
             return infoPanel;
         }
         final boolean abExisted = getApplyButton() != null;
@@ -2084,7 +2098,7 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.IO, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -2092,7 +2106,6 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -2100,7 +2113,7 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                 new ActionListener() {
                     @Override
                     public void actionPerformed(final ActionEvent e) {
-                        final Thread thread = new Thread(new Runnable() {
+                        TaskExecutor.execute(Pool.UI, new Runnable() {
                             @Override
                             public void run() {
                                 getBrowser().clStatusLock();
@@ -2108,7 +2121,6 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                                 getBrowser().clStatusUnlock();
                             }
                         });
-                        thread.start();
                     }
                 }
             );
@@ -2202,6 +2214,7 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
         });
         infoPanel = newPanel;
         infoPanelDone();
+        infoPanelUsed();
         return infoPanel;
     }
 
@@ -3710,11 +3723,40 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
         return FIELD_TYPES.get(param);
     }
 
-    /** Applies the changes. */
+    /**
+     * Applies the changes. The info panels of the domain and of its devices
+     * are pinned, while their widgets are read.
+     */
     public void apply(final boolean testOnly) {
         if (testOnly) {
             return;
         }
+        final List<VMSHardwareInfo> pinned = new ArrayList<VMSHardwareInfo>();
+        pinInfoPanel();
+        try {
+            final DefaultMutableTreeNode thisNode = getNode();
+            if (thisNode != null) {
+                @SuppressWarnings("unchecked")
+                final Enumeration<DefaultMutableTreeNode> e =
+                                                        thisNode.children();
+                while (e.hasMoreElements()) {
+                    final VMSHardwareInfo hi =
+                           (VMSHardwareInfo) e.nextElement().getUserObject();
+                    hi.pinInfoPanel();
+                    pinned.add(hi);
+                }
+            }
+            applyPinned(testOnly);
+        } finally {
+            for (final VMSHardwareInfo hi : pinned) {
+                hi.unpinInfoPanel();
+            }
+            unpinInfoPanel();
+        }
+    }
+
+    /** Applies the changes, the info panels must be pinned. */
+    private void applyPinned(final boolean testOnly) {
         Tools.invokeAndWait(new Runnable() {
             @Override
             public void run() {
@@ -4677,7 +4719,7 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                               final String key,
                               final int column) {
         if (HEADER_TABLE.equals(tableName)) {
-            final Thread thread = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.IO, new Runnable() {
                 @Override
                 public void run() {
                     if (HEADER_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4687,13 +4729,12 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                     }
                 }
             });
-            thread.start();
         } else if (DISK_TABLE.equals(tableName)) {
             mDiskToInfoLock.lock();
             final VMSDiskInfo vdi = diskKeyToInfo.get(key);
             mDiskToInfoLock.unlock();
             if (vdi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (DISK_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4703,14 +4744,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (FILESYSTEM_TABLE.equals(tableName)) {
             mFilesystemToInfoLock.lock();
             final VMSFilesystemInfo vfi = filesystemKeyToInfo.get(key);
             mFilesystemToInfoLock.unlock();
             if (vfi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (FILESYSTEM_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4720,14 +4760,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (INTERFACES_TABLE.equals(tableName)) {
             mInterfaceToInfoLock.lock();
             final VMSInterfaceInfo vii = interfaceKeyToInfo.get(key);
             mInterfaceToInfoLock.unlock();
             if (vii != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (INTERFACES_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4737,14 +4776,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (INPUTDEVS_TABLE.equals(tableName)) {
             mInputDevToInfoLock.lock();
             final VMSInputDevInfo vidi = inputDevKeyToInfo.get(key);
             mInputDevToInfoLock.unlock();
             if (vidi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (INPUTDEVS_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4754,14 +4792,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (GRAPHICS_TABLE.equals(tableName)) {
             mGraphicsToInfoLock.lock();
             final VMSGraphicsInfo vgi = graphicsKeyToInfo.get(key);
             mGraphicsToInfoLock.unlock();
             if (vgi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (GRAPHICS_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4771,14 +4808,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (SOUND_TABLE.equals(tableName)) {
             mSoundToInfoLock.lock();
             final VMSSoundInfo vsi = soundKeyToInfo.get(key);
             mSoundToInfoLock.unlock();
             if (vsi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (SOUND_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4788,14 +4824,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (SERIAL_TABLE.equals(tableName)) {
             mSerialToInfoLock.lock();
             final VMSSerialInfo vsi = serialKeyToInfo.get(key);
             mSerialToInfoLock.unlock();
             if (vsi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (SERIAL_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4805,14 +4840,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (PARALLEL_TABLE.equals(tableName)) {
             mParallelToInfoLock.lock();
             final VMSParallelInfo vpi = parallelKeyToInfo.get(key);
             mParallelToInfoLock.unlock();
             if (vpi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (PARALLEL_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4822,14 +4856,13 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         } else if (VIDEO_TABLE.equals(tableName)) {
             mVideoToInfoLock.lock();
             final VMSVideoInfo vvi = videoKeyToInfo.get(key);
             mVideoToInfoLock.unlock();
             if (vvi != null) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         if (VIDEO_DEFAULT_WIDTHS.containsKey(column)) {
@@ -4839,7 +4872,6 @@ public final class VMSVirtualDomainInfo extends EditableInfo {
                         }
                     }
                 });
-                thread.start();
             }
         }
     }
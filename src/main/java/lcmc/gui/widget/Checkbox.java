@@ -21,6 +21,8 @@
 package lcmc.gui.widget;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.data.AccessMode;
 import lcmc.utilities.MyButton;
 import lcmc.utilities.WidgetListener;
@@ -181,13 +183,12 @@ public class Checkbox extends Widget {
             public void itemStateChanged(final ItemEvent e) {
                 if (wl.isEnabled()) {
                     final Object value = e.getItem();
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             wl.check(value);
                         }
                     });
-                    t.start();
                 }
             }
         };
@@ -21,6 +21,8 @@
 package lcmc.gui.widget;
 
 import lcmc.utilities.Tools;
+import lcmc.utilities.TaskExecutor;
+import lcmc.utilities.TaskExecutor.Pool;
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
 import lcmc.gui.SpringUtilities;
@@ -453,13 +455,12 @@ public abstract class Widget extends JPanel {
                                 final String text =
                                    e.getDocument().getText(0, doc.getLength());
 
-                                final Thread t = new Thread(new Runnable() {
+                                TaskExecutor.execute(Pool.UI, new Runnable() {
                                     @Override
                                     public void run() {
                                         wl.check(text);
                                     }
                                 });
-                                t.start();
                             } catch (BadLocationException ble) {
                                 Tools.appWarning("document listener error");
                             }
@@ -492,13 +493,12 @@ public abstract class Widget extends JPanel {
                 if (wl.isEnabled()
                     && e.getStateChange() == ItemEvent.SELECTED) {
                     final Object value = e.getItem();
-                    final Thread t = new Thread(new Runnable() {
+                    TaskExecutor.execute(Pool.UI, new Runnable() {
                         @Override
                         public void run() {
                             wl.check(value);
                         }
                     });
-                    t.start();
                 }
             }
         };
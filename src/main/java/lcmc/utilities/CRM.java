@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -65,6 +66,8 @@ public final class CRM {
     public static final boolean TESTONLY = true;
     /** Live boolean variable. */
     public static final boolean LIVE = false;
+    /** Cib changes, that are gathered in this thread till commitBatch. */
+    private static final ThreadLocal<Batch> BATCH = new ThreadLocal<Batch>();
 
     /**
      * No instantiation.
@@ -87,11 +90,148 @@ public final class CRM {
         return cmd.toString();
     }
 
-    /** Executes specified command on the host. */
+    /**
+     * Starts gathering of the cib changes in this thread. The start, stop,
+     * manage, unmanage, migrate from, unmigrate and stand by commands are
+     * not executed one by one, but all together in commitBatch, in one
+     * command and one cib update. They return true, when they were added
+     * to the batch, the result is returned by commitBatch. Any other
+     * command executes the gathered commands first, so that the order is
+     * kept. Every startBatch must be followed by commitBatch, best in a
+     * finally block, batches can be nested.
+     */
+    public static void startBatch() {
+        final Batch batch = BATCH.get();
+        if (batch == null) {
+            BATCH.set(new Batch());
+        } else {
+            batch.depth++;
+        }
+    }
+
+    /**
+     * Executes the cib changes gathered since startBatch. Returns whether
+     * all of them were successful. The nested commitBatch only returns
+     * true.
+     */
+    public static boolean commitBatch() {
+        final Batch batch = BATCH.get();
+        if (batch == null) {
+            Tools.appWarning("no batch was started");
+            return false;
+        }
+        if (batch.depth > 0) {
+            batch.depth--;
+            return true;
+        }
+        BATCH.remove();
+        flushBatch(batch);
+        return !batch.failed;
+    }
+
+    /**
+     * Adds the command to the batch of this thread. The commands, that were
+     * gathered for another host or the other mode, are executed first.
+     * Returns false, if there is no batch, or if the command cannot be
+     * batched and must be executed now.
+     */
+    private static boolean addToBatch(final Host host,
+                                      final String command,
+                                      final boolean testOnly) {
+        final Batch batch = BATCH.get();
+        if (batch == null) {
+            return false;
+        }
+        if (batch.host != host || batch.testOnly != testOnly) {
+            flushBatch(batch);
+        }
+        if (!testOnly && Tools.versionBeforePacemaker(host)) {
+            /* there is no crm_diff */
+            return false;
+        }
+        batch.host = host;
+        batch.testOnly = testOnly;
+        batch.commands.add(command);
+        return true;
+    }
+
+    /**
+     * Executes the gathered commands. In the live mode the changes are made
+     * in a copy of the cib and the difference is applied as a patch with
+     * cibadmin. The patch has no version, so that the updates of the
+     * status section, that the cluster makes in the meantime, don't make it
+     * fail, only the changed elements are replaced. Old crm_diff without
+     * --no-version makes a versioned patch.
+     */
+    private static void flushBatch(final Batch batch) {
+        if (batch.commands.isEmpty()) {
+            return;
+        }
+        Tools.debug(null, "CRM.java: batch of " + batch.commands.size()
+                          + " commands", 1);
+        final StringBuilder commands = new StringBuilder(300);
+        for (final String command : batch.commands) {
+            if (commands.length() > 0) {
+                commands.append(" && ");
+            }
+            commands.append("{ ");
+            commands.append(command);
+            commands.append(";}");
+        }
+        batch.commands.clear();
+        final String command;
+        if (batch.testOnly) {
+            command = commands.toString();
+        } else {
+            final String cibadmin = DistResource.SUDO + "/usr/sbin/cibadmin";
+            final String file = "/tmp/lcmc-batch-" + UUID.randomUUID();
+            command = cibadmin + " -Ql > " + file + ".xml"
+                      + " && cp " + file + ".xml " + file + ".orig"
+                      + " && export CIB_file=" + file + ".xml"
+                      + " && " + commands
+                      + " && unset CIB_file"
+                      + " && NV=--no-version"
+                      + " && { /usr/sbin/crm_diff --help 2>&1"
+                      + " | grep -q -e --no-version || NV=;}"
+                      /* crm_diff exits with 1, if there are differences */
+                      + " && { /usr/sbin/crm_diff $NV -o " + file + ".orig"
+                      + " -n " + file + ".xml > " + file + ".diff;"
+                      + " [ $? -le 1 ];}"
+                      + " && if [ -s " + file + ".diff ];"
+                      + " then " + cibadmin + " --patch -x " + file + ".diff;"
+                      + " fi;"
+                      + "RC=$?;unset CIB_file;"
+                      + "rm -f " + file + ".xml " + file + ".orig "
+                      + file + ".diff;[ $RC = 0 ]";
+        }
+        if (execCommandNow(batch.host,
+                           command,
+                           true,
+                           batch.testOnly).getExitCode() != 0) {
+            batch.failed = true;
+        }
+    }
+
+    /**
+     * Executes specified command on the host. The commands gathered in the
+     * batch of this thread are executed first.
+     */
     private static SSH.SSHOutput execCommand(final Host host,
                                              final String command,
                                              final boolean outputVisible,
                                              final boolean testOnly) {
+        final Batch batch = BATCH.get();
+        if (batch != null) {
+            flushBatch(batch);
+        }
+        return execCommandNow(host, command, outputVisible, testOnly);
+    }
+
+    /** Executes specified command on the host. */
+    private static SSH.SSHOutput execCommandNow(final Host host,
+                                                final String command,
+                                                final boolean outputVisible,
+                                                final boolean testOnly) {
         M_PTEST_WRITELOCK.lock();
         ptestOutput = null;
         M_PTEST_WRITELOCK.unlock();
@@ -934,6 +1074,9 @@ public final class CRM {
         final Map<String, String> replaceHash = new HashMap<String, String>();
         replaceHash.put("@ID@", resId);
         final String command = host.getDistCommand(cmd, replaceHash);
+        if (addToBatch(host, command, testOnly)) {
+            return true;
+        }
         final SSH.SSHOutput ret = execCommand(host, command, true, testOnly);
         return ret.getExitCode() == 0;
     }
@@ -1003,6 +1146,9 @@ public final class CRM {
         replaceHash.put("@ID@", resId);
 
         final String command = host.getDistCommand(cmd, replaceHash);
+        if (addToBatch(host, command, testOnly)) {
+            return true;
+        }
         final SSH.SSHOutput ret = execCommand(host, command, true, testOnly);
         return ret.getExitCode() == 0;
     }
@@ -1022,6 +1168,9 @@ public final class CRM {
         replaceHash.put("@ID@", resId);
 
         final String command = host.getDistCommand(cmd, replaceHash);
+        if (addToBatch(host, command, testOnly)) {
+            return true;
+        }
         final SSH.SSHOutput ret = execCommand(host, command, true, testOnly);
         return ret.getExitCode() == 0;
     }
@@ -1050,6 +1199,9 @@ public final class CRM {
         final String command = host.getDistCommand("CRM.migrateFromResource",
                                                    replaceHash);
 
+        if (addToBatch(host, command, testOnly)) {
+            return true;
+        }
         final SSH.SSHOutput ret = execCommand(host, command, true, testOnly);
         return ret.getExitCode() == 0;
     }
@@ -1078,6 +1230,9 @@ public final class CRM {
         final String command = host.getDistCommand(
                                              "CRM.unmigrateResource",
                                              replaceHash);
+        if (addToBatch(host, command, testOnly)) {
+            return true;
+        }
         final SSH.SSHOutput ret = execCommand(host, command, true, testOnly);
         return ret.getExitCode() == 0;
     }
@@ -1298,6 +1453,9 @@ public final class CRM {
         final Map<String, String> replaceHash = new HashMap<String, String>();
         replaceHash.put("@HOST@", standByHost.getName());
         final String command = host.getDistCommand(cmd, replaceHash);
+        if (addToBatch(host, command, testOnly)) {
+            return true;
+        }
         final SSH.SSHOutput ret = execCommand(host, command, true, testOnly);
         return ret.getExitCode() == 0;
     }
@@ -1313,6 +1471,9 @@ public final class CRM {
         }
         replaceHash.put("@HOST@", standByHost.getName());
         final String command = host.getDistCommand(cmd, replaceHash);
+        if (addToBatch(host, command, testOnly)) {
+            return true;
+        }
         final SSH.SSHOutput ret = execCommand(host, command, true, testOnly);
         return ret.getExitCode() == 0;
     }
@@ -1341,4 +1502,18 @@ public final class CRM {
         }
         return "error";
     }
+
+    /** Cib changes, that are gathered in one thread. */
+    private static final class Batch {
+        /** Commands that change the cib. */
+        private final List<String> commands = new ArrayList<String>();
+        /** Number of nested startBatch calls. */
+        private int depth = 0;
+        /** Host, where the commands are executed. */
+        private Host host = null;
+        /** Whether it is a test batch. */
+        private boolean testOnly;
+        /** Whether some of the executed commands failed. */
+        private boolean failed = false;
+    }
 }
@@ -0,0 +1,333 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import ch.ethz.ssh2.ChannelCondition;
+import ch.ethz.ssh2.Connection;
+import ch.ethz.ssh2.Session;
+
+/**
+ * This class keeps one remote bash running in a ssh session and executes
+ * commands in it, so that a new session does not have to be opened for
+ * every command. The end of the output of every command is marked with a
+ * line, with a random marker and the exit code. More commands can be sent
+ * before the output of the previous is read, the outputs are read in the
+ * same order. There is no pty, so the stdin of the commands is /dev/null,
+ * stderr is mixed into stdout and new lines are converted to "\r\n", as if
+ * they came from a pty.
+ *
+ * Every command runs in its own process group. A command with a timeout
+ * has a watchdog on the host, that kills the group after the timeout, so
+ * that it fails alone and the commands after it run in the same shell.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+final class CommandShell {
+    /** Encoding of the commands and output. */
+    private static final String ENCODING = "UTF-8";
+    /** Size of the read buffer. */
+    private static final int READ_BUFFER_SIZE = 8192;
+    /** Exit code if the shell was closed or the command timed out. */
+    private static final int ERROR_EXIT_CODE = 255;
+    /** Exit code after the marker, if the watchdog killed the command. */
+    private static final String TIMEOUT_EXIT_CODE = "timeout";
+    /**
+     * How much longer than the command timeout it is waited for the output,
+     * before the shell is considered broken, in milliseconds.
+     */
+    private static final int TIMEOUT_GRACE = 10000;
+    /** Random generator for the markers. */
+    private static final Random RANDOM = new Random();
+    /** Connection, where the session was opened. */
+    private final Connection connection;
+    /** Session, where the bash runs. */
+    private final Session session;
+    /** Stdout of the bash. */
+    private final InputStream stdout;
+    /** Stdin of the bash. */
+    private final OutputStream stdin;
+    /** Marker that starts the line after the output, with the new line. */
+    private final byte[] marker;
+    /** Read, but not yet returned output. Only the reading thread uses it. */
+    private byte[] buffer = new byte[READ_BUFFER_SIZE];
+    /** Length of the data in the buffer. */
+    private int bufferLength = 0;
+    /** Number of the commands sent to the bash. */
+    private long sent = 0;
+    /** Number of the commands whose output was read. */
+    private long received = 0;
+    /** Whether the shell was closed. */
+    private boolean closed = false;
+
+    /**
+     * Starts the bash in the session. The session must be freshly opened
+     * from the connection.
+     */
+    CommandShell(final Connection connection, final Session session)
+    throws IOException {
+        this(connection, session, startBash(session), session.getStdin());
+    }
+
+    /**
+     * Uses the streams of a running bash. Without the session the output
+     * is read without a timeout.
+     */
+    CommandShell(final Connection connection,
+                 final Session session,
+                 final InputStream stdout,
+                 final OutputStream stdin) throws IOException {
+        this.connection = connection;
+        this.session = session;
+        this.stdout = stdout;
+        this.stdin = stdin;
+        marker = ("\nLCMC-" + Long.toHexString(RANDOM.nextLong()) + ' ')
+                                                       .getBytes(ENCODING);
+        stdin.write("exec 2>&1\n".getBytes(ENCODING));
+        stdin.flush();
+    }
+
+    /** Starts the bash in the session and returns its stdout. */
+    private static InputStream startBash(final Session session)
+    throws IOException {
+        session.execCommand("bash");
+        return session.getStdout();
+    }
+
+    /** Returns the connection, where the shell runs. */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /** Returns number of the commands, that wait for their output. */
+    synchronized int getPendingCount() {
+        return (int) (sent - received);
+    }
+
+    /** Returns whether the shell was closed. */
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the line, that is sent to the bash: the command runs in its
+     * own process group and the watchdog kills the group after the timeout
+     * in milliseconds, if it is not 0. The exit code after the marker is
+     * "timeout" then. Bash does not report the killed jobs, because stderr
+     * of the line is /dev/null, the command has its own 2>&1.
+     */
+    String getShellLine(final String commandLine, final int timeout)
+    throws IOException {
+        final int seconds = (timeout + 999) / 1000;
+        final StringBuilder line = new StringBuilder(300);
+        line.append("{ setsid ");
+        line.append(commandLine);
+        line.append(" </dev/null 2>&1 & p=$!; ");
+        if (seconds > 0) {
+            line.append("s=$SECONDS; setsid sh -c \"sleep ");
+            line.append(seconds);
+            line.append("; kill -9 -$p\" >/dev/null & w=$!; ");
+        }
+        line.append("wait $p; e=$?; ");
+        if (seconds > 0) {
+            /* before setsid the watchdog is not a group leader yet */
+            line.append("kill -9 -$w $w; ");
+            line.append("if [ $e = 137 ] && [ $((SECONDS - s)) -ge ");
+            line.append(seconds);
+            line.append(" ]; then e=");
+            line.append(TIMEOUT_EXIT_CODE);
+            line.append("; fi; ");
+        }
+        line.append("} 2>/dev/null; printf '\\n%s %s\\n' ");
+        line.append(new String(marker, 1, marker.length - 2, ENCODING));
+        line.append(" $e\n");
+        return line.toString();
+    }
+
+    /**
+     * Executes the command line and waits for its output. The timeout in
+     * milliseconds is the longest time the command can run, 0 is no
+     * timeout. After the timeout the command is killed on the host and
+     * IOException is thrown, the shell stays usable. Returns null if the
+     * shell was closed before the command was sent, so that it can be
+     * executed elsewhere. If no output comes even after the timeout, or if
+     * the shell is closed, while the command is running, the shell is not
+     * usable anymore and IOException is thrown.
+     */
+    SSH.SSHOutput exec(final String commandLine, final int timeout)
+    throws IOException {
+        final long ticket;
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            final String line = getShellLine(commandLine, timeout);
+            try {
+                stdin.write(line.getBytes(ENCODING));
+                stdin.flush();
+            } catch (final IOException e) {
+                close();
+                return null;
+            }
+            ticket = sent;
+            sent++;
+            while (ticket != received && !closed) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (closed) {
+                throw new IOException("shell closed");
+            }
+        }
+        /* only one thread, whose output is next, reads at a time */
+        final SSH.SSHOutput output;
+        try {
+            output = readOutput(timeout == 0 ? 0 : timeout + TIMEOUT_GRACE);
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+        synchronized (this) {
+            received++;
+            notifyAll();
+        }
+        if (output == null) {
+            throw new IOException("Timeout while waiting for data from peer.");
+        }
+        return output;
+    }
+
+    /** Closes the shell, the waiting commands fail. */
+    void close() {
+        if (abandon() && session != null) {
+            session.close();
+        }
+    }
+
+    /**
+     * Marks the shell as closed without closing the session, that could
+     * hang, if the connection was lost. Returns false if it was already
+     * closed.
+     */
+    synchronized boolean abandon() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Reads the output till the marker line and returns it or null, if the
+     * command was killed after its timeout.
+     */
+    private SSH.SSHOutput readOutput(final int timeout) throws IOException {
+        int searchFrom = 0;
+        while (true) {
+            final int markerPos = indexOf(marker, searchFrom);
+            if (markerPos >= 0) {
+                final int eol = indexOf(new byte[]{'\n'},
+                                        markerPos + marker.length);
+                if (eol >= 0) {
+                    return takeOutput(markerPos, eol);
+                }
+            } else if (bufferLength >= marker.length) {
+                searchFrom = bufferLength - marker.length + 1;
+            }
+            if (stdout.available() == 0 && session != null) {
+                final int conditions = session.waitForCondition(
+                                                 ChannelCondition.STDOUT_DATA
+                                                 | ChannelCondition.EOF,
+                                                 timeout);
+                if ((conditions & ChannelCondition.TIMEOUT) != 0) {
+                    throw new IOException(
+                                  "Timeout while waiting for data from peer.");
+                }
+                if ((conditions & ChannelCondition.EOF) != 0
+                    && (conditions & ChannelCondition.STDOUT_DATA) == 0) {
+                    throw new IOException("shell exited");
+                }
+            }
+            if (bufferLength == buffer.length) {
+                final byte[] newBuffer = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, newBuffer, 0, bufferLength);
+                buffer = newBuffer;
+            }
+            final int len = stdout.read(buffer,
+                                        bufferLength,
+                                        buffer.length - bufferLength);
+            if (len < 0) {
+                throw new IOException("shell exited");
+            }
+            bufferLength += len;
+        }
+    }
+
+    /**
+     * Returns the output before the marker with the exit code after it and
+     * removes them from the buffer. Returns null, if the command timed out.
+     */
+    private SSH.SSHOutput takeOutput(final int markerPos, final int eol)
+    throws IOException {
+        final String out = new String(buffer, 0, markerPos, ENCODING);
+        final String ec = new String(buffer,
+                                     markerPos + marker.length,
+                                     eol - markerPos - marker.length,
+                                     ENCODING);
+        bufferLength -= eol + 1;
+        System.arraycopy(buffer, eol + 1, buffer, 0, bufferLength);
+        if (TIMEOUT_EXIT_CODE.equals(ec.trim())) {
+            return null;
+        }
+        int exitCode = ERROR_EXIT_CODE;
+        try {
+            exitCode = Integer.parseInt(ec.trim());
+        } catch (final NumberFormatException e) {
+            Tools.appWarning("could not parse exit code: " + ec);
+        }
+        return new SSH.SSHOutput(out.replace("\n", "\r\n"), exitCode);
+    }
+
+    /** Returns position of the bytes in the buffer or -1. */
+    private int indexOf(final byte[] bytes, final int from) {
+        final int last = bufferLength - bytes.length;
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < bytes.length && buffer[i + j] == bytes[j]) {
+                j++;
+            }
+            if (j == bytes.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import javax.swing.AbstractButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Table model, that updates only the rows, that changed. The rows are
+ * identified by the text in the first column, that is the key, that the
+ * tables use everywhere. The displayed values of the cells are remembered,
+ * so that the rows, whose values did not change, are not fired at all and
+ * the selection in them stays as it was. The cells are always replaced with
+ * the new ones, so that the tool tips and the info of the buttons are never
+ * stale.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public class DiffTableModel extends DefaultTableModel {
+    /** Serial version uid. */
+    private static final long serialVersionUID = 1L;
+    /** Number of the displayed values of one cell. */
+    private static final int CELL_VALUES = 3;
+    /** Separates the key and the occurrence of the same key. */
+    private static final String DUPLICATE_KEY_SEPARATOR = "\0";
+    /** Keys of the rows in the model order. */
+    private final List<String> rowKeys = new ArrayList<String>();
+    /** Displayed values and the row state of the rows in the model order. */
+    private final List<Object[]> rowValues = new ArrayList<Object[]>();
+    /** Longest text in every column. */
+    private int[] contentWidths = new int[0];
+
+    /** Prepares a new <code>DiffTableModel</code> object. */
+    public DiffTableModel(final Object[][] data, final Object[] columnNames) {
+        super(data, columnNames);
+        for (final Object[] row : data) {
+            rowValues.add(getRowValues(row));
+        }
+        rowKeys.addAll(Arrays.asList(getKeys(data)));
+        contentWidths = getContentWidths(rowValues);
+    }
+
+    /**
+     * Updates the model with the new data. Only the rows, that were deleted,
+     * inserted or whose displayed values changed are fired. Must be called in
+     * the swing thread. Returns whether the longest text in some column
+     * changed, so that the columns should be resized.
+     */
+    public final boolean update(final Object[][] data) {
+        final String[] keys = getKeys(data);
+        final Map<String, Integer> newIndexes = new HashMap<String, Integer>();
+        for (int i = 0; i < keys.length; i++) {
+            newIndexes.put(keys[i], i);
+        }
+        /* deleted rows, from the end, so that the indexes stay */
+        int last = -1;
+        for (int i = rowKeys.size() - 1; i >= -1; i--) {
+            final boolean deleted =
+                           i >= 0 && !newIndexes.containsKey(rowKeys.get(i));
+            if (deleted && last < 0) {
+                last = i;
+            } else if (!deleted && last >= 0) {
+                for (int j = last; j > i; j--) {
+                    removeRowData(j);
+                }
+                fireTableRowsDeleted(i + 1, last);
+                last = -1;
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            final Object[] values = getRowValues(data[i]);
+            final int oldIndex = rowKeys.indexOf(keys[i]);
+            if (oldIndex < 0) {
+                insertRowData(i, keys[i], data[i], values);
+                fireTableRowsInserted(i, i);
+            } else if (oldIndex != i) {
+                removeRowData(oldIndex);
+                insertRowData(i, keys[i], data[i], values);
+                fireTableRowsUpdated(i, oldIndex);
+            } else if (!Arrays.equals(values, rowValues.get(i))) {
+                removeRowData(i);
+                insertRowData(i, keys[i], data[i], values);
+                fireTableRowsUpdated(i, i);
+            } else {
+                /* looks the same, but e.g. the tool tip can differ */
+                setRowData(i, data[i]);
+            }
+        }
+        final int[] widths = getContentWidths(rowValues);
+        if (Arrays.equals(widths, contentWidths)) {
+            return false;
+        }
+        contentWidths = widths;
+        return true;
+    }
+
+    /**
+     * Returns state of the row, that is not in the cells, but changes how the
+     * row looks, e.g. its color. The row is updated, if the state changes.
+     */
+    protected Object getRowState(final String key) {
+        return null;
+    }
+
+    /** Returns text, that is displayed in the cell. */
+    private static String getText(final Object o) {
+        if (o instanceof AbstractButton) {
+            return ((AbstractButton) o).getText();
+        } else if (o instanceof JLabel) {
+            return ((JLabel) o).getText();
+        } else if (o == null) {
+            return "";
+        }
+        return o.toString();
+    }
+
+    /**
+     * Returns keys of the rows. If the same key is there more than once,
+     * its occurrence is appended to it.
+     */
+    private static String[] getKeys(final Object[][] data) {
+        final String[] keys = new String[data.length];
+        final Map<String, Integer> occurrences =
+                                               new HashMap<String, Integer>();
+        for (int i = 0; i < data.length; i++) {
+            String key = "";
+            if (data[i].length > 0) {
+                key = getText(data[i][0]);
+            }
+            final Integer o = occurrences.get(key);
+            if (o == null) {
+                occurrences.put(key, 1);
+                keys[i] = key;
+            } else {
+                occurrences.put(key, o + 1);
+                keys[i] = key + DUPLICATE_KEY_SEPARATOR + o;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns displayed values of the row: the text, the icon and whether
+     * it is enabled for every cell and the row state at the end.
+     */
+    private Object[] getRowValues(final Object[] row) {
+        final Object[] values = new Object[row.length * CELL_VALUES + 1];
+        for (int c = 0; c < row.length; c++) {
+            final Object o = row[c];
+            final int v = c * CELL_VALUES;
+            values[v] = getText(o);
+            if (o instanceof AbstractButton) {
+                values[v + 1] = ((AbstractButton) o).getIcon();
+            } else if (o instanceof JLabel) {
+                values[v + 1] = ((JLabel) o).getIcon();
+            }
+            if (o instanceof JComponent) {
+                values[v + 2] = ((JComponent) o).isEnabled();
+            }
+        }
+        if (row.length > 0) {
+            values[row.length * CELL_VALUES] = getRowState(getText(row[0]));
+        }
+        return values;
+    }
+
+    /** Returns the longest text in every column. */
+    private int[] getContentWidths(final List<Object[]> values) {
+        final int[] widths = new int[getColumnCount()];
+        for (final Object[] v : values) {
+            for (int c = 0;
+                 c < widths.length && c * CELL_VALUES < v.length - 1;
+                 c++) {
+                final int w = ((String) v[c * CELL_VALUES]).length();
+                if (w > widths[c]) {
+                    widths[c] = w;
+                }
+            }
+        }
+        return widths;
+    }
+
+    /** Replaces the cells of the row without firing. */
+    @SuppressWarnings("unchecked")
+    private void setRowData(final int index, final Object[] row) {
+        final Vector<Object> rowVector =
+                                  (Vector<Object>) dataVector.get(index);
+        for (int c = 0; c < rowVector.size(); c++) {
+            if (c < row.length) {
+                rowVector.set(c, row[c]);
+            } else {
+                rowVector.set(c, null);
+            }
+        }
+    }
+
+    /** Removes the row without firing. */
+    private void removeRowData(final int index) {
+        dataVector.removeElementAt(index);
+        rowKeys.remove(index);
+        rowValues.remove(index);
+    }
+
+    /** Inserts the row without firing. */
+    @SuppressWarnings("unchecked")
+    private void insertRowData(final int index,
+                               final String key,
+                               final Object[] row,
+                               final Object[] values) {
+        final Vector<Object> rowVector = new Vector<Object>(getColumnCount());
+        for (int c = 0; c < getColumnCount(); c++) {
+            if (c < row.length) {
+                rowVector.add(row[c]);
+            } else {
+                rowVector.add(null);
+            }
+        }
+        dataVector.insertElementAt(rowVector, index);
+        rowKeys.add(index, key);
+        rowValues.add(index, values);
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class decodes the output of the gui helper into frames. The helper
+ * prints with the "framed" argument "@frame type timestamp length" lines,
+ * each followed by the payload with the length in bytes and a new line.
+ * Older helpers print the info between "--type-info-start--timestamp" and
+ * "--type-info-end--" lines or between "---start---" and "---done---" lines
+ * for the cluster type; these are decoded as well.
+ *
+ * Every character is looked at only once, no matter in how many pieces the
+ * output arrives. The length counts the bytes as they are received,
+ * including the carriage returns, that the terminal adds; they are removed
+ * from the payload. If a frame doesn't end, where its length says, the
+ * output is skipped till the next header.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class FrameDecoder {
+    /** Type of the cluster info frames. */
+    public static final String CLUSTER_TYPE = "cluster";
+    /** Start of the frame header. */
+    private static final String FRAME_HEADER = "@frame ";
+    /** Start of the info start marker. */
+    private static final String MARKER_PREFIX = "--";
+    /** End of the info start marker. */
+    private static final String INFO_START = "-info-start--";
+    /** End of the info end marker. */
+    private static final String INFO_END = "-info-end--";
+    /** Start marker of the cluster info. */
+    private static final String CLUSTER_START = "---start---";
+    /** End marker of the cluster info. */
+    private static final String CLUSTER_DONE = "---done---";
+    /** Current line, if it can be a header or a marker. */
+    private final StringBuilder line = new StringBuilder(80);
+    /** Whether the current line is a text line. */
+    private boolean textLine = false;
+    /** Text outside of the frames. */
+    private final StringBuilder text = new StringBuilder();
+    /** Payload of the current frame. */
+    private final StringBuilder payload = new StringBuilder(300);
+    /** Type of the current frame, null if there is none. */
+    private String type = null;
+    /** Timestamp of the current frame. */
+    private String timestamp = null;
+    /** Bytes of the payload, that did not arrive yet. */
+    private int remaining = 0;
+    /** Whether the new line after the payload is expected. */
+    private boolean trailer = false;
+    /** End marker of the current frame, null if it has a length. */
+    private String endMarker = null;
+    /** Whether the lines are skipped till the next header. */
+    private boolean resync = false;
+
+    /**
+     * Decodes the output and returns the frames, that were completed. Text
+     * outside of the frames is returned in frames without type.
+     */
+    public List<Frame> decode(final String output) {
+        final List<Frame> frames = new ArrayList<Frame>();
+        final int length = output.length();
+        int i = 0;
+        while (i < length) {
+            final char c = output.charAt(i);
+            if (type != null && endMarker == null) {
+                /* length-prefixed frame */
+                if (trailer) {
+                    if (c == '\r') {
+                        i++;
+                        continue;
+                    }
+                    if (c == '\n') {
+                        i++;
+                        addFrame(frames,
+                                 new Frame(type, timestamp,
+                                           payload.toString()));
+                    } else {
+                        /* payload had other length, c is somewhere in the
+                         * next line */
+                        Tools.appWarning("wrong frame length: " + type
+                                         + ", skipping till the next frame");
+                        resync = true;
+                    }
+                    type = null;
+                    trailer = false;
+                } else {
+                    while (i < length && remaining > 0) {
+                        final char p = output.charAt(i);
+                        if (p != '\r') {
+                            payload.append(p);
+                        }
+                        remaining -= utf8Length(p);
+                        i++;
+                    }
+                    if (remaining <= 0) {
+                        trailer = true;
+                    }
+                }
+            } else if (textLine) {
+                final int end = output.indexOf('\n', i);
+                if (end < 0) {
+                    text.append(output, i, length);
+                    i = length;
+                } else {
+                    text.append(output, i, end + 1);
+                    i = end + 1;
+                    textLine = false;
+                }
+            } else if (type == null
+                       && !resync
+                       && line.length() == 0
+                       && c != '@'
+                       && c != '-') {
+                /* cannot be a header or a marker */
+                textLine = true;
+            } else {
+                /* header, marker or a line of a frame with end marker */
+                final int end = output.indexOf('\n', i);
+                final int stop = end < 0 ? length : end;
+                for (int j = i; j < stop; j++) {
+                    final char l = output.charAt(j);
+                    if (l != '\r') {
+                        line.append(l);
+                    }
+                }
+                i = stop;
+                if (end >= 0) {
+                    i++;
+                    endOfLine(frames);
+                    line.setLength(0);
+                }
+            }
+        }
+        if (text.length() > 0) {
+            frames.add(new Frame(null, null, text.toString()));
+            text.setLength(0);
+        }
+        return frames;
+    }
+
+    /** Handles the complete line, that can be a header or a marker. */
+    private void endOfLine(final List<Frame> frames) {
+        if (type != null) {
+            /* in a frame with the end marker */
+            if (endMarker.contentEquals(line)) {
+                addFrame(frames, new Frame(type, timestamp,
+                                           payload.toString()));
+                type = null;
+            } else {
+                payload.append(line).append('\n');
+            }
+            return;
+        }
+        final String l = line.toString();
+        if (l.startsWith(FRAME_HEADER)) {
+            final String[] header =
+                            l.substring(FRAME_HEADER.length()).split(" ");
+            if (header.length == 3) {
+                try {
+                    remaining = Integer.parseInt(header[2]);
+                    startFrame(header[0], header[1], null);
+                    trailer = remaining == 0;
+                    return;
+                } catch (final NumberFormatException nfe) {
+                    Tools.debug(this, "could not parse: " + l, 1);
+                }
+            }
+        } else if (CLUSTER_START.equals(l)) {
+            startFrame(CLUSTER_TYPE, null, CLUSTER_DONE);
+            return;
+        } else if (l.startsWith(MARKER_PREFIX)) {
+            final int index = l.indexOf(INFO_START);
+            if (index > MARKER_PREFIX.length()) {
+                final String t = l.substring(MARKER_PREFIX.length(), index);
+                startFrame(t,
+                           l.substring(index + INFO_START.length()),
+                           MARKER_PREFIX + t + INFO_END);
+                return;
+            }
+        }
+        if (!resync) {
+            text.append(line).append("\r\n");
+        }
+    }
+
+    /** Starts a new frame. */
+    private void startFrame(final String t,
+                            final String ts,
+                            final String end) {
+        type = t;
+        timestamp = ts;
+        endMarker = end;
+        payload.setLength(0);
+        resync = false;
+    }
+
+    /** Adds the frame after the text, that came before it. */
+    private void addFrame(final List<Frame> frames, final Frame frame) {
+        if (text.length() > 0) {
+            frames.add(new Frame(null, null, text.toString()));
+            text.setLength(0);
+        }
+        frames.add(frame);
+    }
+
+    /** Returns the number of bytes of the character in UTF-8. */
+    private static int utf8Length(final char c) {
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800
+                   || (c >= Character.MIN_SURROGATE
+                       && c <= Character.MAX_SURROGATE)) {
+            /* surrogate pair has 4 bytes */
+            return 2;
+        }
+        return 3;
+    }
+
+    /** One frame. */
+    public static final class Frame {
+        /** Type of the frame, null if it is text outside of frames. */
+        private final String type;
+        /** Timestamp, can be null. */
+        private final String timestamp;
+        /** Payload. */
+        private final String payload;
+
+        /** Prepares a new <code>Frame</code> object. */
+        Frame(final String type, final String timestamp, final String payload) {
+            this.type = type;
+            this.timestamp = timestamp;
+            this.payload = payload;
+        }
+
+        /** Returns the type, null if it is text outside of frames. */
+        public String getType() {
+            return type;
+        }
+
+        /** Returns whether this is text outside of frames. */
+        public boolean isText() {
+            return type == null;
+        }
+
+        /** Returns the timestamp, can be null. */
+        public String getTimestamp() {
+            return timestamp;
+        }
+
+        /** Returns the payload. */
+        public String getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class splits the output of the "status-stream" command of the gui
+ * helper, where the output of every stream comes in frames with the stream
+ * as type, or where every line is prefixed with the name of its stream, and
+ * passes the output to the callbacks of the streams.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class MultiplexedOutput implements NewOutputCallback {
+    /** Stream of the control lines. */
+    private static final String MUX_STREAM = "mux";
+    /** Control line, that is printed, when a stream ends. */
+    private static final String EXIT_PREFIX = "exit ";
+    /** Output callbacks of the streams. */
+    private final Map<String, NewOutputCallback> outputCallbacks =
+                                new LinkedHashMap<String, NewOutputCallback>();
+    /** Exec callbacks of the streams, that are called, when they end. */
+    private final Map<String, ExecCallback> execCallbacks =
+                                     new LinkedHashMap<String, ExecCallback>();
+    /** Incomplete last line. */
+    private final StringBuilder buffer = new StringBuilder(300);
+    /** Decoder of the frames. */
+    private final FrameDecoder frameDecoder = new FrameDecoder();
+
+    /** Adds the stream. */
+    public void addStream(final String stream,
+                          final NewOutputCallback outputCallback,
+                          final ExecCallback execCallback) {
+        outputCallbacks.put(stream, outputCallback);
+        if (execCallback != null) {
+            execCallbacks.put(stream, execCallback);
+        }
+    }
+
+    /** Splits the output into the streams. */
+    @Override
+    public void output(final String output) {
+        for (final FrameDecoder.Frame frame : frameDecoder.decode(output)) {
+            if (frame.isText()) {
+                lines(frame.getPayload());
+            } else {
+                final NewOutputCallback outputCallback =
+                                       outputCallbacks.get(frame.getType());
+                if (outputCallback == null) {
+                    Tools.debug(this, "unknown stream: " + frame.getType(), 1);
+                } else {
+                    outputCallback.output(frame.getPayload());
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the lines with the stream prefix into the streams. Consecutive
+     * lines of one stream are passed to its callback at once.
+     */
+    private void lines(final String output) {
+        buffer.append(output);
+        final int end = buffer.lastIndexOf("\n") + 1;
+        if (end == 0) {
+            return;
+        }
+        final String lines = buffer.substring(0, end);
+        buffer.delete(0, end);
+        String currentStream = null;
+        final StringBuilder chunk = new StringBuilder(lines.length());
+        int start = 0;
+        while (start < lines.length()) {
+            final int next = lines.indexOf('\n', start) + 1;
+            final int colon = lines.indexOf(':', start);
+            String stream = null;
+            if (colon > start && colon < next) {
+                stream = lines.substring(start, colon);
+            }
+            if (stream == null
+                || (!outputCallbacks.containsKey(stream)
+                    && !MUX_STREAM.equals(stream))) {
+                /* stderr output, that was not in any stream */
+                Tools.debug(this, "unknown stream: "
+                                  + lines.substring(start, next), 1);
+                start = next;
+                continue;
+            }
+            if (!stream.equals(currentStream)) {
+                flush(currentStream, chunk);
+                currentStream = stream;
+            }
+            if (MUX_STREAM.equals(stream)) {
+                control(lines.substring(colon + 1, next).trim());
+            } else {
+                chunk.append(lines, colon + 1, next);
+            }
+            start = next;
+        }
+        flush(currentStream, chunk);
+    }
+
+    /** Passes the collected output to the callback of the stream. */
+    private void flush(final String stream, final StringBuilder chunk) {
+        if (chunk.length() == 0) {
+            return;
+        }
+        outputCallbacks.get(stream).output(chunk.toString());
+        chunk.setLength(0);
+    }
+
+    /** Handles a control line. */
+    private void control(final String line) {
+        if (!line.startsWith(EXIT_PREFIX)) {
+            return;
+        }
+        final String[] parts = line.substring(EXIT_PREFIX.length()).split(" ");
+        final ExecCallback execCallback = execCallbacks.get(parts[0]);
+        if (execCallback == null) {
+            return;
+        }
+        int exitCode = 0;
+        if (parts.length > 1) {
+            try {
+                exitCode = Integer.parseInt(parts[1]);
+            } catch (final NumberFormatException nfe) {
+                Tools.debug(this, "could not parse: " + line + " " + nfe, 1);
+            }
+        }
+        if (exitCode == 0) {
+            execCallback.done("");
+        } else {
+            execCallback.doneError("", exitCode);
+        }
+    }
+}
@@ -24,6 +24,7 @@ package lcmc.utilities;
 
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
+import lcmc.utilities.TaskExecutor.Pool;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.SwingUtilities;
@@ -94,7 +95,7 @@ public class MyMenu extends JMenu implements UpdatableItem {
     @Override
     public void update() {
         processAccessMode();
-        final Thread t = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 final List<Component> copy = new ArrayList<Component>();
@@ -113,7 +114,6 @@ public class MyMenu extends JMenu implements UpdatableItem {
                 }
             }
         });
-        t.start();
     }
 
     /** Sets this item enabled and visible according to its access type. */
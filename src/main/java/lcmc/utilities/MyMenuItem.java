@@ -24,6 +24,7 @@ package lcmc.utilities;
 
 import lcmc.data.ConfigData;
 import lcmc.data.AccessMode;
+import lcmc.utilities.TaskExecutor.Pool;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
@@ -357,7 +358,7 @@ implements ActionListener, UpdatableItem, ComponentWithTest {
      */
     @Override
     public void actionPerformed(final ActionEvent e) {
-        final Thread thread = new Thread(
+        TaskExecutor.execute(Pool.IO,
             new Runnable() {
                 @Override
                 public void run() {
@@ -365,7 +366,6 @@ implements ActionListener, UpdatableItem, ComponentWithTest {
                 }
             }
         );
-        thread.start();
     }
 
     /** Returns the text of the menu item. */
@@ -459,7 +459,7 @@ implements ActionListener, UpdatableItem, ComponentWithTest {
         toolTip.setTipText(toolTipText);
         super.setToolTipText(toolTipText);
         if (toolTip != null && robot != null && toolTip.isShowing()) {
-            final Thread t = new Thread(new Runnable() {
+            TaskExecutor.execute(Pool.IO, new Runnable() {
                 @Override
                 public void run() {
                     Tools.sleep(1000); /* well, doesn't work all the time */
@@ -468,7 +468,6 @@ implements ActionListener, UpdatableItem, ComponentWithTest {
                     moveMouse();
                 }
             });
-            t.start();
         }
     }
 
@@ -0,0 +1,145 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+
+/**
+ * This class collects the refreshes of the trees, tables and graphs and runs
+ * them in the swing thread at most "GUI.RefreshRate" times per second.
+ * Every refresh has a key, e.g. the component and the node, and if the same
+ * key is requested again before the refreshes run, only the last refresh
+ * with this key runs, at the position of the last one.
+ *
+ * The refreshes run later than the other swing work, so only the ones, that
+ * just show the current state, like repaints, node changes and table
+ * updates, can go through here. Changes of the tree structure must not.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class RefreshScheduler {
+    /** Pending refreshes by their keys, in the order they came. */
+    private static final Map<Key, Runnable> PENDING =
+                                          new LinkedHashMap<Key, Runnable>();
+    /** Runs the pending refreshes in the swing thread. */
+    private static final Runnable FLUSH = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    /** Posts the flush to the swing thread. */
+    private static final Runnable POST_FLUSH = new Runnable() {
+        @Override
+        public void run() {
+            SwingUtilities.invokeLater(FLUSH);
+        }
+    };
+    /** Whether the flush is already scheduled. */
+    private static boolean scheduled = false;
+    /** When the last flush started in milliseconds. */
+    private static long lastFlush = 0;
+    /** Minimum time between flushes in milliseconds, 0 if not read yet. */
+    private static long interval = 0;
+
+    /** Private constructor, cannot be instantiated. */
+    private RefreshScheduler() {
+        /* Cannot be instantiated. */
+    }
+
+    /**
+     * Schedules the refresh, that will run in the swing thread. The key
+     * parts are compared with equals.
+     */
+    public static void refresh(final Runnable refresh,
+                               final Object... keyParts) {
+        final Key key = new Key(keyParts);
+        synchronized (PENDING) {
+            /* the newest request decides the position */
+            PENDING.remove(key);
+            PENDING.put(key, refresh);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+            if (interval == 0) {
+                interval = Math.max(
+                           1,
+                           1000 / Tools.getDefaultInt("GUI.RefreshRate"));
+            }
+            final long delay = lastFlush + interval
+                               - System.currentTimeMillis();
+            if (delay <= 0) {
+                SwingUtilities.invokeLater(FLUSH);
+            } else {
+                TaskExecutor.schedule(POST_FLUSH, delay);
+            }
+        }
+    }
+
+    /** Runs all pending refreshes. */
+    private static void flush() {
+        final List<Runnable> refreshes;
+        synchronized (PENDING) {
+            refreshes = new ArrayList<Runnable>(PENDING.values());
+            PENDING.clear();
+            scheduled = false;
+            lastFlush = System.currentTimeMillis();
+        }
+        for (final Runnable refresh : refreshes) {
+            try {
+                refresh.run();
+            } catch (final RuntimeException e) {
+                Tools.appError("refresh failed", e);
+            }
+        }
+    }
+
+    /** Key of a refresh. */
+    private static final class Key {
+        /** Parts of the key. */
+        private final Object[] parts;
+
+        /** Prepares a new <code>Key</code> object. */
+        Key(final Object[] parts) {
+            this.parts = parts;
+        }
+
+        /** Returns whether the keys have equal parts. */
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Key && Arrays.equals(parts, ((Key) o).parts);
+        }
+
+        /** Returns hash code of the parts. */
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(parts);
+        }
+    }
+}
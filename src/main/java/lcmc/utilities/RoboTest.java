@@ -30,6 +30,7 @@ import lcmc.gui.widget.Widget;
 import lcmc.gui.DrbdGraph;
 import lcmc.gui.CRMGraph;
 import lcmc.gui.resources.Info;
+import lcmc.utilities.TaskExecutor.Pool;
 import java.awt.Robot;
 import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
@@ -166,7 +167,7 @@ public final class RoboTest {
                                       final int timeAfterRelaseLazy) {
         info("start click test in 10 seconds");
         prevP = null;
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 sleepNoFactor(10000);
@@ -209,7 +210,6 @@ public final class RoboTest {
                 info("click test done");
             }
         });
-        thread.start();
     }
 
     /** Starts automatic mouse mover in 10 seconds. */
@@ -219,7 +219,7 @@ public final class RoboTest {
         slowFactor = 0.3f;
         info("start mouse move test in 10 seconds");
         prevP = null;
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 sleepNoFactor(10000);
@@ -271,7 +271,6 @@ public final class RoboTest {
                 info("mouse move test done");
             }
         });
-        thread.start();
     }
 
     /** workaround for dual monitors that are flipped. */
@@ -304,7 +303,7 @@ public final class RoboTest {
                 host.getSSH().installTestFiles();
             }
         }
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 sleepNoFactor(3000);
@@ -818,7 +817,6 @@ public final class RoboTest {
                 info(selected + " test " + index + " done");
             }
         });
-        thread.start();
     }
 
     /** Check test. */
@@ -3478,7 +3476,7 @@ public final class RoboTest {
         final Robot robot = rbt;
         info("start register movement in 3 seconds");
         sleepNoFactor(3000);
-        final Thread thread = new Thread(new Runnable() {
+        TaskExecutor.execute(Pool.IO, new Runnable() {
             @Override
             public void run() {
                 Point2D prevP = new Point2D.Double(0, 0);
@@ -3502,7 +3500,6 @@ public final class RoboTest {
                 info("stopped movement registering");
             }
         });
-        thread.start();
     }
 
     /** Return vertical position of the blockdevices. */
@@ -26,9 +26,11 @@ import lcmc.data.Host;
 import lcmc.gui.SSHGui;
 import lcmc.gui.ProgressBar;
 import lcmc.configs.DistResource;
+import lcmc.utilities.TaskExecutor.Pool;
 
 import javax.swing.SwingUtilities;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,11 +40,22 @@ import ch.ethz.ssh2.ServerHostKeyVerifier;
 import ch.ethz.ssh2.InteractiveCallback;
 import ch.ethz.ssh2.Session;
 import ch.ethz.ssh2.ChannelCondition;
+import ch.ethz.ssh2.ChannelConditionListener;
 import ch.ethz.ssh2.KnownHosts;
-import ch.ethz.ssh2.LocalPortForwarder;
+import ch.ethz.ssh2.LocalStreamForwarder;
 import ch.ethz.ssh2.SCPClient;
+import ch.ethz.ssh2.SFTPv3Client;
+import ch.ethz.ssh2.SFTPv3FileAttributes;
+import ch.ethz.ssh2.SFTPv3FileHandle;
 import ch.ethz.ssh2.channel.ChannelManager;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -84,8 +97,26 @@ public final class SSH {
     private final Lock mConnectionLock = new ReentrantLock();
     /** Connection thread mutex. */
     private final Lock mConnectionThreadLock = new ReentrantLock();
-    /** Local port forwarder. */
-    private LocalPortForwarder localPortForwarder = null;
+    /** Command shells, where the commands without output are executed. */
+    private final List<CommandShell> commandShells =
+                                                new ArrayList<CommandShell>();
+    /** Number of the command shells, that are being started. */
+    private int commandShellsStarting = 0;
+    /** Command shells mutex. */
+    private final Lock mCommandShellsLock = new ReentrantLock();
+    /** Maximum number of the command shells, 0 to not use them. */
+    private static final int MAX_COMMAND_SHELLS =
+                                      Tools.getDefaultInt("SSH.CommandShells");
+    /** Files from this size are copied with sftp, 0 not to use sftp. */
+    private static final int SFTP_MIN_SIZE =
+                                      Tools.getDefaultInt("SSH.Sftp.MinSize");
+    /** Number of the sftp requests in flight. */
+    private static final int SFTP_REQUESTS =
+                                     Tools.getDefaultInt("SSH.Sftp.Requests");
+    /** Whether the connections are received by the shared selector threads
+     * instead of a thread per connection. */
+    private static final boolean NON_BLOCKING =
+                                Tools.getDefaultInt("SSH.NonBlocking") > 0;
     /** Default timeout for SSH commands. */
     public static final int DEFAULT_COMMAND_TIMEOUT =
                                     Tools.getDefaultInt("SSH.Command.Timeout");
@@ -261,6 +292,7 @@ public final class SSH {
             connection.close();
             connection = null;
             mConnectionLock.unlock();
+            closeCommandShells(true);
             Tools.debug(this, "disconnecting: " + host.getName(), 0);
             host.getTerminalPanel().addCommand("logout");
             host.getTerminalPanel().nextCommand();
@@ -284,6 +316,7 @@ public final class SSH {
         } else {
             connection = null;
             mConnectionLock.unlock();
+            closeCommandShells(false);
             Tools.debug(this, "force reconnecting: " + host.getName(), 0);
             host.getTerminalPanel().addCommand("logout");
             host.getTerminalPanel().nextCommand();
@@ -299,12 +332,124 @@ public final class SSH {
             disconnectForGood = true;
             connection = null;
             mConnectionLock.unlock();
+            closeCommandShells(false);
             Tools.debug(this, "force disconnecting: " + host.getName(), 0);
             host.getTerminalPanel().addCommand("logout");
             host.getTerminalPanel().nextCommand();
         }
     }
 
+    /**
+     * Closes the command shells. If the connection was lost, the sessions
+     * are not closed, because it could hang.
+     */
+    private void closeCommandShells(final boolean closeSessions) {
+        mCommandShellsLock.lock();
+        final List<CommandShell> shells =
+                                    new ArrayList<CommandShell>(commandShells);
+        commandShells.clear();
+        mCommandShellsLock.unlock();
+        for (final CommandShell shell : shells) {
+            if (closeSessions) {
+                shell.close();
+            } else {
+                shell.abandon();
+            }
+        }
+    }
+
+    /**
+     * Returns a command shell on this connection. An idle one is preferred,
+     * then a new one is started, if there are not too many already, or the
+     * one with the fewest waiting commands is returned, so that the command
+     * waits in its pipeline. Returns null if no shell could be started.
+     */
+    private CommandShell getCommandShell(final MyConnection conn) {
+        CommandShell best = null;
+        mCommandShellsLock.lock();
+        try {
+            final Iterator<CommandShell> it = commandShells.iterator();
+            while (it.hasNext()) {
+                final CommandShell shell = it.next();
+                if (shell.isClosed() || shell.getConnection() != conn) {
+                    it.remove();
+                    continue;
+                }
+                if (best == null
+                    || shell.getPendingCount() < best.getPendingCount()) {
+                    best = shell;
+                }
+            }
+            if (best != null
+                && (best.getPendingCount() == 0
+                    || commandShells.size() + commandShellsStarting
+                       >= MAX_COMMAND_SHELLS)) {
+                return best;
+            }
+            commandShellsStarting++;
+        } finally {
+            mCommandShellsLock.unlock();
+        }
+        CommandShell shell = null;
+        try {
+            final Session newSession = openSession(conn);
+            try {
+                shell = new CommandShell(conn, newSession);
+            } catch (final IOException e) {
+                newSession.close();
+                throw e;
+            }
+            Tools.debug(this, host.getName() + ": command shell started", 1);
+        } catch (final IOException e) {
+            Tools.debug(this, host.getName() + ": could not start shell: "
+                              + e.getMessage(), 1);
+        }
+        mCommandShellsLock.lock();
+        commandShellsStarting--;
+        if (shell == null) {
+            mCommandShellsLock.unlock();
+            return best;
+        }
+        commandShells.add(shell);
+        mCommandShellsLock.unlock();
+        return shell;
+    }
+
+    /**
+     * Opens a new session. It may hang if we lost connection, so the
+     * connection is cancelled after a timeout.
+     */
+    private Session openSession(final MyConnection conn) throws IOException {
+        final Boolean[] cancelTimeout = new Boolean[1];
+        cancelTimeout[0] = false;
+        final ScheduledFuture<?> timeout = TaskExecutor.schedule(
+            new Runnable() {
+                @Override
+                public void run() {
+                    if (!cancelTimeout[0]) {
+                        Tools.debug(this,
+                                    host.getName()
+                                    + ": open ssh session: timeout.",
+                                    1);
+                        cancelTimeout[0] = true;
+                        conn.dmcCancel();
+                    }
+                }
+            },
+            Tools.getDefaultInt("SSH.ConnectTimeout"));
+        try {
+            final Session newSession = conn.openSession();
+            if (cancelTimeout[0]) {
+                newSession.close();
+                throw new IOException("open session failed");
+            }
+            cancelTimeout[0] = true;
+            return newSession;
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
     /** Returns true if connection is established. */
     public boolean isConnected() {
         mConnectionLock.lock();
@@ -389,12 +534,7 @@ public final class SSH {
                                                host.getHoppedCommand(command),
                                                true),
                                   2);
-                thisSession.execCommand("bash -c '"
-                                        + Tools.escapeSingleQuotes(
-                                                            "export LC_ALL=C;"
-                                        + host.getSudoCommand(
-                                               host.getHoppedCommand(command),
-                                               false), 1) + "'");
+                thisSession.execCommand(getCommandLine(command));
                 final InputStream stdout = thisSession.getStdout();
                 final java.io.OutputStream stdin = thisSession.getStdin();
                 final InputStream stderr = thisSession.getStderr();
@@ -402,60 +542,50 @@ public final class SSH {
                 final byte[] buff = new byte[EXEC_OUTPUT_BUFFER_SIZE];
                 boolean skipNextLine = false;
                 boolean cancelSudo = false;
+                final SessionConditions sessionConditions =
+                                                    new SessionConditions();
+                thisSession.setConditionListener(sessionConditions);
                 while (true) {
                     final String sudoPwd = host.getSudoPassword();
-                    if ((stdout.available() == 0)
-                        && (stderr.available() == 0)) {
-                        /* Even though currently there is no data available,
-                         * it may be that new data arrives and the session's
-                         * underlying channel is closed before we call
-                         * waitForCondition(). This means that EOF and
-                         * STDOUT_DATA (or STDERR_DATA, or both) may be set
-                         * together.
-                         */
-                        int conditions = 0;
-                        if (!cancelIt) {
-                            conditions = thisSession.waitForCondition(
+                    /* The connection wakes us up, when there is new data. */
+                    sessionConditions.refresh(thisSession);
+                    final int conditions = sessionConditions.await(
                                             ChannelCondition.STDOUT_DATA
                                             | ChannelCondition.STDERR_DATA
                                             | ChannelCondition.EOF,
                                             sshCommandTimeout);
-                        }
-                        if (cancelIt) {
-                            Tools.info("SSH cancel");
-                            throw new IOException(
-                                "Canceled while waiting for data from peer.");
-                        }
-
-                        if ((conditions & ChannelCondition.TIMEOUT) != 0) {
-                                /* A timeout occured. */
-                                Tools.appWarning("SSH timeout: " + command);
-                                Tools.progressIndicatorFailed(
-                                   host.getName(),
-                                   "SSH timeout: "
-                                   + command.replaceAll(DistResource.SUDO, ""));
-                                throw new IOException(
-                                  "Timeout while waiting for data from peer.");
-                        }
-
-
-                        /* Here we do not need to check separately for CLOSED,
-                         * since CLOSED implies EOF */
-                        if ((conditions & ChannelCondition.EOF) != 0
-                            && (conditions
-                                & (ChannelCondition.STDOUT_DATA
-                                   | ChannelCondition.STDERR_DATA)) == 0) {
-                            /* The remote side won't send us further data... */
-                            /* ... and we have consumed all data in the
-                             * ... local arrival window. */
-                            break;
-                        }
+                    if (cancelIt) {
+                        Tools.info("SSH cancel");
+                        throw new IOException(
+                            "Canceled while waiting for data from peer.");
+                    }
 
-                        /* OK, either STDOUT_DATA or STDERR_DATA (or both) */
-                        /* ... is set. */
+                    if ((conditions & ChannelCondition.TIMEOUT) != 0) {
+                            /* A timeout occured. */
+                            Tools.appWarning("SSH timeout: " + command);
+                            Tools.progressIndicatorFailed(
+                               host.getName(),
+                               "SSH timeout: "
+                               + command.replaceAll(DistResource.SUDO, ""));
+                            throw new IOException(
+                              "Timeout while waiting for data from peer.");
+                    }
 
+                    /* Here we do not need to check separately for CLOSED,
+                     * since CLOSED implies EOF */
+                    if ((conditions & ChannelCondition.EOF) != 0
+                        && (conditions
+                            & (ChannelCondition.STDOUT_DATA
+                               | ChannelCondition.STDERR_DATA)) == 0) {
+                        /* The remote side won't send us further data... */
+                        /* ... and we have consumed all data in the
+                         * ... local arrival window. */
+                        break;
                     }
 
+                    /* OK, either STDOUT_DATA or STDERR_DATA (or both) */
+                    /* ... is set. */
+
                     /* If you below replace "while" with "if", then the way
                      * the output appears on the local stdout and stder streams
                      * is more "balanced". Addtionally reducing the buffer size
@@ -544,8 +674,7 @@ public final class SSH {
                 if (outputVisible) {
                     host.getTerminalPanel().nextCommand();
                 }
-                thisSession.waitForCondition(ChannelCondition.EXIT_STATUS,
-                                             10000);
+                sessionConditions.await(ChannelCondition.EXIT_STATUS, 10000);
                 final Integer ec = thisSession.getExitStatus();
                 if (ec != null) {
                     exitCode = ec;
@@ -568,6 +697,69 @@ public final class SSH {
             return new SSHOutput(outputString, exitCode);
         }
 
+        /** Returns the command as it is executed on the host. */
+        private String getCommandLine(final String command) {
+            return "bash -c '"
+                   + Tools.escapeSingleQuotes(
+                                    "export LC_ALL=C;"
+                                    + host.getSudoCommand(
+                                               host.getHoppedCommand(command),
+                                               false), 1) + "'";
+        }
+
+        /**
+         * Returns whether the command can be executed in a command shell.
+         * Without pty sudo could not ask for the password and the hopped
+         * ssh would not get terminal, the output is not shown while the
+         * command is running, and the command cannot be cancelled.
+         */
+        private boolean isCommandShellCommand(final String command) {
+            return MAX_COMMAND_SHELLS > 0
+                   && newOutputCallback == null
+                   && !outputVisible
+                   && !cancelIt
+                   && !"installGuiHelper".equals(command)
+                   && !Boolean.TRUE.equals(host.isUseSudo())
+                   && host.getIp() != null
+                   && host.getIp().indexOf(',') < 0;
+        }
+
+        /**
+         * Executes the command in a command shell. Returns null if it should
+         * be executed in a new session.
+         */
+        private SSHOutput execInCommandShell(final MyConnection conn,
+                                             final String command) {
+            final CommandShell shell = getCommandShell(conn);
+            if (shell == null) {
+                return null;
+            }
+            Tools.debug(this, "exec command in shell: "
+                              + host.getName()
+                              + ": "
+                              + host.getSudoCommand(
+                                               host.getHoppedCommand(command),
+                                               true),
+                              2);
+            SSHOutput ret;
+            try {
+                ret = shell.exec(getCommandLine(command), sshCommandTimeout);
+                if (ret == null) {
+                    return null;
+                }
+            } catch (final IOException e) {
+                Tools.appWarning(host.getName() + ":" + e.getMessage()
+                               + ":"  + command);
+                ret = new SSHOutput("", ERROR_EXIT_CODE);
+            }
+            Tools.debug(this, "output" + ret.getExitCode() + ": "
+                              + host.getName()
+                              + ": "
+                              + ret.getOutput(),
+                              2);
+            return ret;
+        }
+
         /** Cancel the session. */
         public void cancel() {
             cancelIt = true;
@@ -638,53 +830,35 @@ public final class SSH {
             final String[] commands = command.split(";;;");
             final StringBuilder ans = new StringBuilder("");
             for (int i = 0; i < commands.length; i++) {
-                final Boolean[] cancelTimeout = new Boolean[1];
-                cancelTimeout[0] = false;
-                final Thread tt = new Thread(new Runnable() {
-                    @Override
-                    public void run() {
-                        Tools.sleep(Tools.getDefaultInt("SSH.ConnectTimeout"));
-                        if (!cancelTimeout[0]) {
-                            Tools.debug(this,
-                                        host.getName()
-                                        + ": open ssh session: timeout.",
-                                        1);
-                            cancelTimeout[0] = true;
-                            conn.dmcCancel();
+                SSHOutput ret = null;
+                if (isCommandShellCommand(commands[i])) {
+                    ret = execInCommandShell(conn, commands[i]);
+                }
+                if (ret == null) {
+                    try {
+                        final Session newSession = openSession(conn);
+                        mSessionLock.lock();
+                        sess = newSession;
+                        mSessionLock.unlock();
+                    } catch (java.io.IOException e) {
+                        mConnectionLock.lock();
+                        connection = null;
+                        mConnectionLock.unlock();
+                        if (execCallback != null) {
+                            execCallback.doneError("could not open session",
+                                                   45);
                         }
+                        break;
                     }
-                });
-                tt.start();
-                try {
-                    /* it may hang here if we lost connection, so it will be
-                     * interrupted after a timeout. */
-                    final Session newSession = conn.openSession();
-                    mSessionLock.lock();
-                    sess = newSession;
-                    mSessionLock.unlock();
-                    if (cancelTimeout[0]) {
-                        throw new java.io.IOException("open session failed");
-                    }
-                    cancelTimeout[0] = true;
-                } catch (java.io.IOException e) {
-                    mConnectionLock.lock();
-                    connection = null;
-                    mConnectionLock.unlock();
-                    if (execCallback != null) {
-                        execCallback.doneError("could not open session", 45);
-                    }
-                    break;
-                }
-                commands[i].trim();
-                //Tools.commandLock();
-                if (commandVisible && outputVisible) {
-                    final String consoleCommand = host.replaceVars(commands[i],
-                                                                   true);
-                    host.getTerminalPanel().addCommand(
+                    //Tools.commandLock();
+                    if (commandVisible && outputVisible) {
+                        final String consoleCommand =
+                                          host.replaceVars(commands[i], true);
+                        host.getTerminalPanel().addCommand(
                             consoleCommand.replaceAll(DistResource.SUDO, " "));
+                    }
+                    ret = execOneCommand(commands[i], outputVisible);
                 }
-                final SSHOutput ret = execOneCommand(commands[i],
-                                                     outputVisible);
                 ans.append(ret.getOutput());
 
                 final int exitCode = ret.getExitCode();
@@ -745,12 +919,8 @@ public final class SSH {
             Tools.appError("Can not execute command: " + command, "", e);
             return new SSHOutput("", 102);
         }
-        execCommandThread.start();
-        try {
-            execCommandThread.join();
-        } catch (java.lang.InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        /* the caller waits anyway, so no new thread is started */
+        execCommandThread.run();
         return new SSHOutput(answer[0], exitCode[0]);
     }
 
@@ -1055,6 +1225,70 @@ public final class SSH {
         }
     }
 
+    /**
+     * Conditions of a session, that the connection reports, when they change.
+     * The command waits here instead of waiting in the session.
+     */
+    private static final class SessionConditions
+                                        implements ChannelConditionListener {
+        /** Conditions lock. */
+        private final Lock mConditionsLock = new ReentrantLock();
+        /** Signalled, when the conditions changed. */
+        private final Condition conditionsChanged =
+                                              mConditionsLock.newCondition();
+        /** Current conditions of the session. */
+        private int conditions = 0;
+
+        /** Called by the connection, it must not block. */
+        @Override
+        public void conditionsChanged(final int newConditions) {
+            mConditionsLock.lock();
+            try {
+                conditions = newConditions;
+                conditionsChanged.signalAll();
+            } finally {
+                mConditionsLock.unlock();
+            }
+        }
+
+        /** Gets the conditions again, after the output was read. */
+        void refresh(final Session session) {
+            mConditionsLock.lock();
+            try {
+                conditions = session.getConditions();
+            } finally {
+                mConditionsLock.unlock();
+            }
+        }
+
+        /**
+         * Waits till one of the conditions or closed. Returns all current
+         * conditions, with TIMEOUT, if the timeout in milliseconds expired,
+         * 0 is no timeout.
+         */
+        int await(final int mask, final int timeout) {
+            mConditionsLock.lock();
+            try {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+                while ((conditions & (mask | ChannelCondition.CLOSED)) == 0) {
+                    if (timeout <= 0) {
+                        conditionsChanged.await();
+                    } else if (nanos <= 0) {
+                        return conditions | ChannelCondition.TIMEOUT;
+                    } else {
+                        nanos = conditionsChanged.awaitNanos(nanos);
+                    }
+                }
+                return conditions;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return conditions | ChannelCondition.TIMEOUT;
+            } finally {
+                mConditionsLock.unlock();
+            }
+        }
+    }
+
     /** Connection class that can cancel it's connection during openSession. */
     static class MyConnection extends Connection {
         /** Creates new MyConnection object. */
@@ -1113,7 +1347,10 @@ public final class SSH {
         }
 
         private void authenticate(final MyConnection conn) throws IOException {
-            boolean enableKeyboardInteractive = true;
+            /* the status daemon cannot answer the keyboard-interactive
+               prompts */
+            boolean enableKeyboardInteractive =
+                                        !Tools.getConfigData().isDaemon();
             boolean enablePublicKey = true;
             String lastError = null;
             int publicKeyTry = 3; /* how many times to try the public key
@@ -1429,6 +1666,12 @@ public final class SSH {
             host.setSudoPassword("");
             final MyConnection conn = new MyConnection(hostname,
                                                        host.getSSHPortInt());
+            conn.setChannelWindowSizes(
+                          Tools.getDefaultInt("SSH.SessionWindowSize"),
+                          Tools.getDefaultInt("SSH.ForwardedWindowSize"));
+            conn.setChannelMaxPacketSize(
+                          Tools.getDefaultInt("SSH.MaxPacketSize"));
+            conn.setNonBlocking(NON_BLOCKING);
             disconnectForGood = false;
 
             try {
@@ -1641,7 +1884,23 @@ public final class SSH {
         if (installCommand == null) {
             installCommand = "mv " + remoteFilename + ".new " + remoteFilename;
         }
-        final String commandTail = "\">" + remoteFilename + ".new"
+        /* bigger files are copied with sftp to a temporary file first, the
+           small ones are in the command. */
+        String tmpFile = null;
+        if (SFTP_MIN_SIZE > 0
+            && fileContent.length() >= SFTP_MIN_SIZE
+            && host.getIp() != null
+            && host.getIp().indexOf(',') < 0) {
+            tmpFile = sftpUpload(fileContent + "\n");
+        }
+        String content;
+        if (tmpFile == null) {
+            content = "echo \"" + Tools.escapeQuotes(fileContent, 1) + "\"";
+        } else {
+            content = "(cat " + tmpFile + ";RC=$?;rm -f " + tmpFile
+                      + ";exit $RC)";
+        }
+        final String commandTail = ">" + remoteFilename + ".new"
                                    + modeString
 
                                    + "&& "
@@ -1649,16 +1908,19 @@ public final class SSH {
 
                                    + postCommandString
                                    + backupString.toString();
-        Tools.debug(this, commands.toString()
-                          + "echo \""
-                          + "..."
-                          + commandTail, 1);
+        if (tmpFile == null) {
+            Tools.debug(this, commands.toString()
+                              + "echo \""
+                              + "...\""
+                              + commandTail, 1);
+        } else {
+            Tools.debug(this, commands.toString() + content + commandTail, 1);
+        }
         final Thread t = execCommand(
                             DistResource.SUDO + "bash -c \""
                             + Tools.escapeQuotes(
                                 commands.toString()
-                                + "echo \""
-                                + Tools.escapeQuotes(fileContent, 1)
+                                + content
                                 + commandTail, 1)
                             + "\"",
                             new ExecCallback() {
@@ -1679,7 +1941,7 @@ public final class SSH {
                                                     "error:") != 0) {
                                             continue;
                                         }
-                                        final Thread t = new Thread(
+                                        TaskExecutor.execute(Pool.IO,
                                         new Runnable() {
                                             @Override
                                             public void run() {
@@ -1689,7 +1951,6 @@ public final class SSH {
                                                                 3000);
                                             }
                                         });
-                                        t.start();
                                     }
                                 }
                             },
@@ -1703,32 +1964,72 @@ public final class SSH {
         }
     }
 
-    /** Starts port forwarding for vnc. */
-    void startVncPortForwarding(final String remoteHost,
-                                final int remotePort)
-        throws java.io.IOException {
-        final int localPort =
-                        remotePort + Tools.getConfigData().getVncPortOffset();
+    /**
+     * Copies the content to a new temporary file on the host with sftp.
+     * Returns the file name or null if it failed, e.g. if the sftp is not
+     * available.
+     */
+    private String sftpUpload(final String content) {
+        mConnectionLock.lock();
+        final MyConnection conn = connection;
+        mConnectionLock.unlock();
+        if (conn == null) {
+            return null;
+        }
+        final String tmpFile = "/tmp/lcmc-scp-" + UUID.randomUUID();
+        SFTPv3Client sftp = null;
         try {
-            localPortForwarder =
-                connection.createLocalPortForwarder(localPort,
-                                                    "127.0.0.1",
-                                                    remotePort);
-        } catch (final java.io.IOException e) {
-            throw e;
+            sftp = new SFTPv3Client(conn);
+            final SFTPv3FileAttributes attrs = new SFTPv3FileAttributes();
+            attrs.permissions = 0600;
+            final SFTPv3FileHandle handle = sftp.createFile(tmpFile, attrs);
+            try {
+                sftp.upload(handle,
+                            0,
+                            new ByteArrayInputStream(
+                                                content.getBytes("UTF-8")),
+                            SFTP_REQUESTS);
+            } finally {
+                sftp.closeFile(handle);
+            }
+            return tmpFile;
+        } catch (final IOException e) {
+            Tools.debug(this, host.getName() + ": sftp failed: "
+                              + e.getMessage(), 1);
+            if (sftp != null) {
+                try {
+                    sftp.rm(tmpFile);
+                } catch (final IOException e2) {
+                    Tools.debug(this, "could not remove: " + tmpFile, 1);
+                }
+            }
+            return null;
+        } finally {
+            if (sftp != null) {
+                sftp.close();
+            }
         }
     }
 
-    /** Stops port forwarding for vnc. */
-    void stopVncPortForwarding(final int remotePort)
-        throws java.io.IOException {
-        final int localPort =
-                        remotePort + Tools.getConfigData().getVncPortOffset();
-        try {
-            localPortForwarder.close();
-        } catch (final java.io.IOException e) {
-            throw e;
-        }
+    /**
+     * Returns the connector of the vnc viewers, every connect opens a new
+     * direct-tcpip channel to the vnc port, so that there can be many
+     * consoles to this host.
+     */
+    VncConnector getVncConnector(final int remotePort) {
+        return new VncConnector() {
+            @Override
+            public LocalStreamForwarder connect() throws IOException {
+                mConnectionLock.lock();
+                final Connection conn = connection;
+                mConnectionLock.unlock();
+                if (conn == null) {
+                    throw new IOException("not connected: " + host.getName());
+                }
+                return conn.createLocalStreamForwarder("127.0.0.1",
+                                                       remotePort);
+            }
+        };
     }
 
     /** Class that holds output of ssh command. */
@@ -0,0 +1,358 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class runs the background tasks in shared thread pools, instead of
+ * starting a new thread for every one of them. There is a pool for the
+ * remote commands, a pool for the status threads and the status parsing, a
+ * pool for preparing of the GUI components and a scheduled pool for the
+ * timeouts. The task latency and the queue depth are measured in every
+ * pool. Every pool has a fixed number of threads and a bounded queue, if
+ * the queue is full, the task runs in the submitting thread. The status
+ * loops, that run as long as the host is connected, don't use the pools at
+ * all, they get a dedicated thread with startLoop.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public final class TaskExecutor {
+    /** The named thread pools. */
+    public enum Pool {
+        /** Remote commands and file transfers. */
+        IO("io", 64),
+        /** Status threads and status parsing. */
+        STATUS("status", 128),
+        /** Preparing of menus, panels and dialogs. */
+        UI("ui", 32);
+
+        /** Name of the pool. */
+        private final String poolName;
+        /** Number of pooled threads. */
+        private final int maxThreads;
+
+        /** Creates new Pool object. */
+        Pool(final String poolName, final int maxThreads) {
+            this.poolName = poolName;
+            this.maxThreads = maxThreads;
+        }
+    }
+    /** How long idle threads are kept in the pools in seconds. */
+    private static final long KEEP_ALIVE = 60;
+    /** Maximum number of the waiting tasks in a pool. */
+    private static final int QUEUE_CAPACITY = 1000;
+    /** Number of threads for the timeouts. */
+    private static final int SCHEDULED_THREADS = 2;
+    /** Interval in which the statistics are logged in seconds. */
+    private static final long STATS_INTERVAL = 300;
+    /** The pools. */
+    private static final Map<Pool, InstrumentedPool> POOLS =
+                              new EnumMap<Pool, InstrumentedPool>(Pool.class);
+    static {
+        for (final Pool pool : Pool.values()) {
+            POOLS.put(pool, new InstrumentedPool(pool));
+        }
+    }
+    /** Creates the threads for the permanent loops. */
+    private static final NamedThreadFactory LOOPS =
+                                          new NamedThreadFactory("lcmc-loop");
+    /** Number of the running loops. */
+    private static final AtomicInteger RUNNING_LOOPS = new AtomicInteger(0);
+    /** The scheduled pool for the timeouts. */
+    private static final ScheduledThreadPoolExecutor SCHEDULED =
+                  new ScheduledThreadPoolExecutor(
+                                    SCHEDULED_THREADS,
+                                    new NamedThreadFactory("lcmc-scheduled"));
+    static {
+        SCHEDULED.scheduleWithFixedDelay(new Runnable() {
+                                             @Override
+                                             public void run() {
+                                                 /* cancelled timeouts */
+                                                 SCHEDULED.purge();
+                                                 Tools.debug(null,
+                                                             getStats(),
+                                                             2);
+                                             }
+                                         },
+                                         STATS_INTERVAL,
+                                         STATS_INTERVAL,
+                                         TimeUnit.SECONDS);
+    }
+
+    /** Private constructor, cannot be instantiated. */
+    private TaskExecutor() {
+        /* Cannot be instantiated. */
+    }
+
+    /** Runs the task in the pool. */
+    public static Future<?> execute(final Pool pool, final Runnable task) {
+        return POOLS.get(pool).submit(task);
+    }
+
+    /**
+     * Runs the task, that doesn't end till the host or the cluster is
+     * disconnected, e.g. the status loops, in its own thread. It would
+     * occupy a pool thread forever.
+     */
+    public static Thread startLoop(final String name, final Runnable loop) {
+        final Thread thread = LOOPS.newThread(new Runnable() {
+            @Override
+            public void run() {
+                RUNNING_LOOPS.incrementAndGet();
+                try {
+                    loop.run();
+                } finally {
+                    RUNNING_LOOPS.decrementAndGet();
+                }
+            }
+        });
+        thread.setName(thread.getName() + "-" + name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Runs the task in the scheduled pool after the delay in milliseconds.
+     * It should be short, e.g. cancelling of a command after a timeout.
+     */
+    public static ScheduledFuture<?> schedule(final Runnable task,
+                                              final long delay) {
+        return SCHEDULED.schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /** Waits till the task from one of the pools is finished. */
+    public static void waitFor(final Future<?> future) {
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            /* was already reported by the uncaught exception handler */
+            Tools.debug(null, "task failed: " + e.getCause(), 1);
+        }
+    }
+
+    /**
+     * Returns number of the tasks that didn't fit in the full queue and ran
+     * in the submitting thread.
+     */
+    public static long getRejectedCount(final Pool pool) {
+        return POOLS.get(pool).rejected.get();
+    }
+
+    /** Returns number of the tasks that are waiting in the pool's queue. */
+    public static int getQueueSize(final Pool pool) {
+        return POOLS.get(pool).executor.getQueue().size();
+    }
+
+    /** Returns number of the running permanent loops. */
+    public static int getLoopCount() {
+        return RUNNING_LOOPS.get();
+    }
+
+    /** Returns number of the tasks that are running in the pool. */
+    public static int getActiveCount(final Pool pool) {
+        return POOLS.get(pool).executor.getActiveCount();
+    }
+
+    /** Returns number of the tasks that were finished in the pool. */
+    public static long getCompletedCount(final Pool pool) {
+        return POOLS.get(pool).completed.get();
+    }
+
+    /** Returns average time in ms the tasks waited in the pool's queue. */
+    public static long getAverageLatency(final Pool pool) {
+        final InstrumentedPool p = POOLS.get(pool);
+        final long started = p.started.get();
+        if (started == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(p.waitTime.get() / started);
+    }
+
+    /** Returns the longest time in ms a task waited in the pool's queue. */
+    public static long getMaxLatency(final Pool pool) {
+        return TimeUnit.NANOSECONDS.toMillis(POOLS.get(pool).maxWaitTime.get());
+    }
+
+    /** Returns average time in ms the finished tasks were running. */
+    public static long getAverageRunTime(final Pool pool) {
+        final InstrumentedPool p = POOLS.get(pool);
+        final long completed = p.completed.get();
+        if (completed == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(p.runTime.get() / completed);
+    }
+
+    /** Returns statistics of all pools as a string. */
+    public static String getStats() {
+        final StringBuilder stats = new StringBuilder(200);
+        stats.append("task executor:");
+        for (final Pool pool : Pool.values()) {
+            stats.append(' ');
+            stats.append(pool.poolName);
+            stats.append(": threads: ");
+            stats.append(POOLS.get(pool).executor.getPoolSize());
+            stats.append(", active: ");
+            stats.append(getActiveCount(pool));
+            stats.append(", queued: ");
+            stats.append(getQueueSize(pool));
+            stats.append(", rejected: ");
+            stats.append(getRejectedCount(pool));
+            stats.append(", completed: ");
+            stats.append(getCompletedCount(pool));
+            stats.append(", latency avg/max: ");
+            stats.append(getAverageLatency(pool));
+            stats.append('/');
+            stats.append(getMaxLatency(pool));
+            stats.append(" ms, run time avg: ");
+            stats.append(getAverageRunTime(pool));
+            stats.append(" ms;");
+        }
+        stats.append(" loops: ");
+        stats.append(getLoopCount());
+        stats.append(", scheduled: ");
+        stats.append(SCHEDULED.getQueue().size());
+        return stats.toString();
+    }
+
+    /** Thread pool, that measures the latency and the run time. */
+    private static final class InstrumentedPool {
+        /** The executor. */
+        private final ThreadPoolExecutor executor;
+        /** Number of tasks, that ran in the submitting thread. */
+        private final AtomicLong rejected = new AtomicLong(0);
+        /** Number of started tasks. */
+        private final AtomicLong started = new AtomicLong(0);
+        /** Number of completed tasks. */
+        private final AtomicLong completed = new AtomicLong(0);
+        /** Sum of the waiting times in ns. */
+        private final AtomicLong waitTime = new AtomicLong(0);
+        /** Maximum waiting time in ns. */
+        private final AtomicLong maxWaitTime = new AtomicLong(0);
+        /** Sum of the run times in ns. */
+        private final AtomicLong runTime = new AtomicLong(0);
+
+        /** Creates new InstrumentedPool object. */
+        InstrumentedPool(final Pool pool) {
+            /* a new thread is started for the task up to the maximum, then
+             * the tasks wait in the queue. The idle threads time out. */
+            executor = new ThreadPoolExecutor(
+                      pool.maxThreads,
+                      pool.maxThreads,
+                      KEEP_ALIVE,
+                      TimeUnit.SECONDS,
+                      new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                      new NamedThreadFactory("lcmc-" + pool.poolName),
+                      new RejectedExecutionHandler() {
+                          @Override
+                          public void rejectedExecution(
+                                                final Runnable task,
+                                                final ThreadPoolExecutor e) {
+                              rejected.incrementAndGet();
+                              if (!e.isShutdown()) {
+                                  task.run();
+                              }
+                          }
+                      });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        /** Submits the task. */
+        Future<?> submit(final Runnable task) {
+            final long submitted = System.nanoTime();
+            return executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    final long start = System.nanoTime();
+                    final long wait = start - submitted;
+                    started.incrementAndGet();
+                    waitTime.addAndGet(wait);
+                    long max = maxWaitTime.get();
+                    while (wait > max
+                           && !maxWaitTime.compareAndSet(max, wait)) {
+                        max = maxWaitTime.get();
+                    }
+                    try {
+                        task.run();
+                    } catch (final RuntimeException e) {
+                        reportException(e);
+                        throw e;
+                    } catch (final Error e) {
+                        reportException(e);
+                        throw e;
+                    } finally {
+                        runTime.addAndGet(System.nanoTime() - start);
+                        completed.incrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Reports the exception of a task like it would be in its own thread.
+     * The future of the task gets it too.
+     */
+    private static void reportException(final Throwable t) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+    }
+
+    /** Creates named daemon threads. */
+    private static final class NamedThreadFactory implements ThreadFactory {
+        /** Prefix of the thread names. */
+        private final String prefix;
+        /** Number of the next thread. */
+        private final AtomicInteger number = new AtomicInteger(1);
+
+        /** Creates new NamedThreadFactory object. */
+        NamedThreadFactory(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        /** Returns new thread. */
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable,
+                                             prefix + "-"
+                                             + number.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -34,8 +34,10 @@ import lcmc.gui.resources.Info;
 import lcmc.gui.resources.ServiceInfo;
 import lcmc.gui.ClusterBrowser;
 import lcmc.gui.GUIData;
+import lcmc.gui.ProgressIndicatorPanel;
 import lcmc.gui.dialog.ConfirmDialog;
 import lcmc.Exceptions;
+import lcmc.utilities.TaskExecutor.Pool;
 
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
@@ -668,7 +670,7 @@ public final class Tools {
 
 
         System.out.println(APPERROR_STRING + errorString);
-        if (!appError) {
+        if (!appError || configData.isDaemon()) {
             return;
         }
 
@@ -1486,7 +1488,11 @@ public final class Tools {
 
     /** Starts progress indicator with specified text. */
     public static void startProgressIndicator(final String text) {
-        getGUIData().getMainGlassPane().start(text, null);
+        final ProgressIndicatorPanel glassPane =
+                                           getGUIData().getMainGlassPane();
+        if (glassPane != null) {
+            glassPane.start(text, null);
+        }
     }
 
     /** Starts progress indicator for host or cluster command. */
@@ -1497,7 +1503,11 @@ public final class Tools {
 
     /** Stops progress indicator with specified text. */
     public static void stopProgressIndicator(final String text) {
-        getGUIData().getMainGlassPane().stop(text);
+        final ProgressIndicatorPanel glassPane =
+                                           getGUIData().getMainGlassPane();
+        if (glassPane != null) {
+            glassPane.stop(text);
+        }
     }
 
     /** Stops progress indicator for host or cluster command. */
@@ -1508,7 +1518,11 @@ public final class Tools {
 
     /** Progress indicator with failure message. */
     public static void progressIndicatorFailed(final String text) {
-        getGUIData().getMainGlassPane().failure(text);
+        final ProgressIndicatorPanel glassPane =
+                                           getGUIData().getMainGlassPane();
+        if (glassPane != null) {
+            glassPane.failure(text);
+        }
     }
 
     /** Progress indicator with failure message for host or cluster command. */
@@ -1519,7 +1533,11 @@ public final class Tools {
 
     /** Progress indicator with failure message that shows for n seconds. */
     public static void progressIndicatorFailed(final String text, final int n) {
-        getGUIData().getMainGlassPane().failure(text, n);
+        final ProgressIndicatorPanel glassPane =
+                                           getGUIData().getMainGlassPane();
+        if (glassPane != null) {
+            glassPane.failure(text, n);
+        }
     }
 
     /**
@@ -1761,7 +1779,7 @@ public final class Tools {
                         callbackHash.get(item).mouseOut();
                     }
                 }
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         final int index = list.locationToIndex(evt.getPoint());
@@ -1779,14 +1797,13 @@ public final class Tools {
                         item.action();
                     }
                 });
-                thread.start();
             }
         });
 
         list.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseMoved(final MouseEvent evt) {
-                final Thread thread = new Thread(new Runnable() {
+                TaskExecutor.execute(Pool.IO, new Runnable() {
                     @Override
                     public void run() {
                         int pIndex = list.locationToIndex(evt.getPoint());
@@ -1830,7 +1847,6 @@ public final class Tools {
                         }
                     }
                 });
-                thread.start();
             }
         });
         list.addKeyListener(new KeyListener() {
@@ -2136,98 +2152,70 @@ public final class Tools {
     }
 
     /**
-     * Prepares vnc viewer, gets the port and creates ssh tunnel. Returns true
-     * if ssh tunnel was created.
+     * Returns the connector, that opens the ssh channels to the vnc port, or
+     * null if the vnc viewer connects directly to the local port.
      */
-    private static int prepareVncViewer(final Host host,
-                                        final int remotePort) {
-        if (remotePort < 0 || host == null) {
-            return -1;
-        }
+    private static VncConnector getVncConnector(final Host host,
+                                                final int remotePort) {
         if (Tools.isLocalIp(host.getIp())) {
-            return remotePort;
-        }
-        final int localPort = remotePort + getConfigData().getVncPortOffset();
-        debug("start port forwarding " + remotePort + " -> " + localPort);
-        try {
-            host.getSSH().startVncPortForwarding(host.getIp(), remotePort);
-        } catch (final java.io.IOException e) {
-            Tools.appError("unable to create tunnel", e);
-            return -1;
-        }
-        return localPort;
-    }
-
-    /** Cleans up after vnc viewer. It stops ssh tunnel. */
-    private static void cleanupVncViewer(final Host host,
-                                         final int localPort) {
-        if (Tools.isLocalIp(host.getIp())) {
-            return;
-        }
-        final int remotePort = localPort - getConfigData().getVncPortOffset();
-        debug("stop port forwarding " + remotePort);
-        try {
-            host.getSSH().stopVncPortForwarding(remotePort);
-        } catch (final java.io.IOException e) {
-            Tools.appError("unable to close tunnel", e);
+            return null;
         }
+        debug("vnc over ssh channels to port " + remotePort);
+        return host.getSSH().getVncConnector(remotePort);
     }
 
     /** Starts Tight VNC viewer. */
     public static void startTightVncViewer(final Host host,
                                            final int remotePort) {
-        final int localPort = prepareVncViewer(host, remotePort);
-        if (localPort < 0) {
+        if (remotePort < 0 || host == null) {
             return;
         }
         final tightvnc.VncViewer v = new tightvnc.VncViewer(
-                                     new String[]{"HOST",
-                                                  "127.0.0.1",
-                                                  "PORT",
-                                                  Integer.toString(localPort)},
-                                     false,
-                                     true);
+                                    new String[]{"HOST",
+                                                 "127.0.0.1",
+                                                 "PORT",
+                                                 Integer.toString(remotePort)},
+                                    false,
+                                    true,
+                                    getVncConnector(host, remotePort));
         v.init();
         v.start();
         v.join();
-        cleanupVncViewer(host, localPort);
     }
 
     /** Starts Ultra VNC viewer. */
     public static void startUltraVncViewer(final Host host,
                                            final int remotePort) {
-        final int localPort = prepareVncViewer(host, remotePort);
-        if (localPort < 0) {
+        if (remotePort < 0 || host == null) {
             return;
         }
         final JavaViewer.VncViewer v = new JavaViewer.VncViewer(
-                                     new String[]{"HOST",
-                                                  "127.0.0.1",
-                                                  "PORT",
-                                                  Integer.toString(localPort)},
-                                     false,
-                                     true);
+                                    new String[]{"HOST",
+                                                 "127.0.0.1",
+                                                 "PORT",
+                                                 Integer.toString(remotePort)},
+                                    false,
+                                    true,
+                                    getVncConnector(host, remotePort));
 
         v.init();
         v.start();
         v.join();
-        cleanupVncViewer(host, localPort);
     }
 
     /** Starts Real VNC viewer. */
     public static void startRealVncViewer(final Host host,
                                           final int remotePort) {
-        final int localPort = prepareVncViewer(host, remotePort);
-        if (localPort < 0) {
+        if (remotePort < 0 || host == null) {
             return;
         }
         final vncviewer.VNCViewer v = new vncviewer.VNCViewer(
                               new String[]{"127.0.0.1:"
-                                  + (Integer.toString(localPort - 5900))});
+                                  + (Integer.toString(remotePort - 5900))},
+                              getVncConnector(host, remotePort));
 
         v.start();
         v.join();
-        cleanupVncViewer(host, localPort);
     }
 
     /** Hides mouse pointer. */
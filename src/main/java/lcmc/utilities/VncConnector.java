@@ -0,0 +1,37 @@
+/*
+ * This file is part of LCMC written by Rasto Levrinc.
+ *
+ * Copyright (C) 2012, Rastislav Levrinc.
+ *
+ * LCMC is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as published
+ * by the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ *
+ * LCMC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with drbd; see the file COPYING.  If not, write to
+ * the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package lcmc.utilities;
+
+import ch.ethz.ssh2.LocalStreamForwarder;
+import java.io.IOException;
+
+/**
+ * The vnc viewers connect with this instead of a socket. Every connect
+ * opens a new direct-tcpip channel of the ssh connection to the vnc server.
+ *
+ * @author Rasto Levrinc
+ * @version $Id$
+ *
+ */
+public interface VncConnector {
+    /** Opens a new channel to the vnc server. */
+    LocalStreamForwarder connect() throws IOException;
+}
@@ -55,7 +55,7 @@ package rfb;
   public void serverCutText(String str) {}
 
   public void fillRect(int x, int y, int w, int h, int pix) {}
-  public void imageRect(int x, int y, int w, int h, byte[] pix, int offset) {}
+  public void imageRect(int x, int y, int w, int h, int[] pix, int offset) {}
   public void copyRect(int x, int y, int w, int h, int srcX, int srcY) {}
 
   public ConnParams cp;
@@ -31,24 +31,25 @@ package rfb;
 
   public rdr.InStream getInStream() { return is; }
 
-  public byte[] getImageBuf(int required, int requested) {
-    int requiredBytes = required * (handler.cp.pf().bpp / 8);
-    int requestedBytes = requested * (handler.cp.pf().bpp / 8);
-    int size = requestedBytes;
+  // getImageBuf() returns a buffer of at least "required" pixels, it is
+  // reused by all the decoders.
+  public int[] getImageBuf(int required, int requested) {
+    int size = requested;
     if (size > imageBufIdealSize) size = imageBufIdealSize;
 
-    if (size < requiredBytes)
-      size = requiredBytes;
+    if (size < required)
+      size = required;
 
     if (imageBufSize < size) {
       imageBufSize = size;
-      imageBuf = new byte[imageBufSize];
+      imageBuf = new int[imageBufSize];
     }
 
     return imageBuf;
   }
 
   public final int bpp() { return handler.cp.pf().bpp; }
+  public final PixelFormat pf() { return handler.cp.pf(); }
 
   protected CMsgReader(CMsgHandler handler_, rdr.InStream is_) {
     handler = handler_;
@@ -149,7 +150,7 @@ package rfb;
   CMsgHandler handler;
   rdr.InStream is;
   Decoder[] decoders;
-  byte[] imageBuf;
+  int[] imageBuf;
   int imageBufSize;
   int imageBufIdealSize;
 
@@ -22,12 +22,11 @@ package rfb;
 
   public HextileDecoder(CMsgReader reader_) { reader = reader_; }
 
-  static final int BPP=8;
-  static final int readPixel(rdr.InStream is) { return is.readU8(); }
-
   public void readRect(int x, int y, int w, int h, CMsgHandler handler) {
     rdr.InStream is = reader.getInStream();
-    byte[] buf = reader.getImageBuf(16 * 16 * 4, 0);
+    PixelFormat pf = reader.pf();
+    int size = pf.bpp / 8;
+    int[] buf = reader.getImageBuf(16 * 16, 0);
 
     int bg = 0;
     int fg = 0;
@@ -43,20 +42,19 @@ package rfb;
         int tileType = is.readU8();
 
         if ((tileType & Hextile.raw) != 0) {
-          is.readBytes(buf, 0, tw * th * (BPP/8));
+          pf.readPixels(is, buf, 0, tw * th, size, 0);
           handler.imageRect(tx,ty,tw,th, buf, 0);
           continue;
         }
 
         if ((tileType & Hextile.bgSpecified) != 0)
-          bg = readPixel(is);
+          bg = pf.readPixel(is, size, 0);
 
         int len = tw * th;
-        int ptr = 0;
-        while (len-- > 0) buf[ptr++] = (byte)bg;
+        java.util.Arrays.fill(buf, 0, len, bg);
 
         if ((tileType & Hextile.fgSpecified) != 0)
-          fg = readPixel(is);
+          fg = pf.readPixel(is, size, 0);
 
         if ((tileType & Hextile.anySubrects) != 0) {
           int nSubrects = is.readU8();
@@ -64,7 +62,7 @@ package rfb;
           for (int i = 0; i < nSubrects; i++) {
 
             if ((tileType & Hextile.subrectsColoured) != 0)
-              fg = readPixel(is);
+              fg = pf.readPixel(is, size, 0);
 
             int xy = is.readU8();
             int wh = is.readU8();
@@ -72,11 +70,11 @@ package rfb;
             int sy = (xy & 15);
             int sw = ((wh >> 4) & 15) + 1;
             int sh = (wh & 15) + 1;
-            ptr = sy * tw + sx;
+            int ptr = sy * tw + sx;
             int rowAdd = tw - sw;
             while (sh-- > 0) {
               len = sw;
-              while (len-- > 0) buf[ptr++] = (byte)fg;
+              while (len-- > 0) buf[ptr++] = fg;
               ptr += rowAdd;
             }
           }
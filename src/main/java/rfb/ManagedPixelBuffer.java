@@ -28,10 +28,10 @@ package rfb;
     checkDataSize();
   }
 
-  public int dataLen() { return area() * (getPF().bpp/8); }
+  public int dataLen() { return area(); }
 
   final void checkDataSize() {
     if (data == null || data.length < dataLen())
-      data = new byte[dataLen()];
+      data = new int[dataLen()];
   }
 }
@@ -16,8 +16,8 @@
  * USA.
  */
 //
-// PixelBuffer - note that this code is only written for the 8bpp case at the
-// moment.
+// PixelBuffer - the pixels are kept in an int array in the pixel format of the
+// buffer, whatever its bpp is.
 //
 
 package rfb;
@@ -29,8 +29,9 @@ package rfb;
   }
 
   public void setPF(PixelFormat pf) {
-    if (pf.bpp != 8)
-      throw new rfb.Exception("Internal error: bpp must be 8 in PixelBuffer");
+    if (pf.bpp != 8 && pf.bpp != 16 && pf.bpp != 32)
+      throw new rfb.Exception("Internal error: bpp must be 8, 16 or 32 in "+
+                              "PixelBuffer");
     format = pf;
   }
   public PixelFormat getPF() { return format; }
@@ -42,21 +43,29 @@ package rfb;
   public int getStride() { return width_; }
 
   public void fillRect(int x, int y, int w, int h, int pix) {
-    int bytesPerPixel = getPF().bpp/8;
-    int bytesPerRow = bytesPerPixel * getStride();
+    int stride = getStride();
     for (int ry = y; ry < y+h; ry++) {
-      for (int rx = x; rx < x+w; rx++)
-        data[ry * bytesPerRow + rx] = (byte)pix;
+      int ptr = ry * stride + x;
+      java.util.Arrays.fill(data, ptr, ptr + w, pix);
     }
   }
 
+  public void imageRect(int x, int y, int w, int h, int[] pix, int offset) {
+    int stride = getStride();
+    for (int j = 0; j < h; j++)
+      System.arraycopy(pix, offset+j*w, data, (y+j) * stride + x, w);
+  }
+
+  // imageRect() with a byte array reads the pixels as they came from the
+  // server, e.g. the data of a cursor.
+
   public void imageRect(int x, int y, int w, int h, byte[] pix, int offset) {
     int bytesPerPixel = getPF().bpp/8;
-    int bytesPerDestRow = bytesPerPixel * getStride();
+    rdr.InStream is = new rdr.MemInStream(pix, offset, w * h * bytesPerPixel);
+    int stride = getStride();
     for (int j = 0; j < h; j++)
-      System.arraycopy(pix, offset+j*w, data, (y+j) * bytesPerDestRow + x, w);
+      getPF().readPixels(is, data, (y+j) * stride + x, w, bytesPerPixel, 0);
   }
-
   public void copyRect(int x, int y, int w, int h, int srcX, int srcY) {
     int dest = x + y * getStride();
     int src = srcX + srcY * getStride();
@@ -75,7 +84,7 @@ package rfb;
     }
   }
 
-  public void maskRect(int x, int y, int w, int h, byte[] pix, byte[] mask) {
+  public void maskRect(int x, int y, int w, int h, int[] pix, byte[] mask) {
     int maskBytesPerRow = (w + 7) / 8;
     int stride = getStride();
     for (int j = 0; j < h; j++) {
@@ -95,7 +104,7 @@ package rfb;
     }
   }
 
-  public byte[] data;
+  public int[] data;
 
   protected PixelFormat format;
   protected int width_, height_;
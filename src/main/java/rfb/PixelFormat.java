@@ -82,6 +82,114 @@ package rfb;
     os.pad(3);
   }
 
+  // readPixel() reads a pixel of "size" bytes in the byte order of this
+  // format and shifts it left by "shift" bits.  The size is bpp/8, except for
+  // the 3-byte "compact" pixels of ZRLE, see cpixelSize() and cpixelShift().
+
+  public final int readPixel(rdr.InStream is, int size, int shift) {
+    is.check(size);
+    byte[] b = is.getbuf();
+    int ptr = is.getptr();
+    int pix = 0;
+    if (bigEndian) {
+      for (int i = 0; i < size; i++)
+        pix = (pix << 8) | (b[ptr++] & 0xff);
+    } else {
+      for (int i = 0; i < size; i++)
+        pix |= (b[ptr++] & 0xff) << (i * 8);
+    }
+    is.setptr(ptr);
+    return pix << shift;
+  }
+
+  // readPixels() reads nPixels pixels into an int array, straight from the
+  // buffer of the stream.
+
+  public final void readPixels(rdr.InStream is, int[] buf, int offset,
+                               int nPixels, int size, int shift) {
+    while (nPixels > 0) {
+      int n = is.check(size, nPixels);
+      byte[] b = is.getbuf();
+      int ptr = is.getptr();
+      int end = offset + n;
+      switch (size) {
+      case 1:
+        while (offset < end)
+          buf[offset++] = b[ptr++] & 0xff;
+        break;
+      case 2:
+        if (bigEndian) {
+          while (offset < end) {
+            buf[offset++] = (b[ptr] & 0xff) << 8 | (b[ptr+1] & 0xff);
+            ptr += 2;
+          }
+        } else {
+          while (offset < end) {
+            buf[offset++] = (b[ptr] & 0xff) | (b[ptr+1] & 0xff) << 8;
+            ptr += 2;
+          }
+        }
+        break;
+      case 3:
+        if (bigEndian) {
+          while (offset < end) {
+            buf[offset++] = ((b[ptr] & 0xff) << 16 | (b[ptr+1] & 0xff) << 8 |
+                             (b[ptr+2] & 0xff)) << shift;
+            ptr += 3;
+          }
+        } else {
+          while (offset < end) {
+            buf[offset++] = ((b[ptr] & 0xff) | (b[ptr+1] & 0xff) << 8 |
+                             (b[ptr+2] & 0xff) << 16) << shift;
+            ptr += 3;
+          }
+        }
+        break;
+      default:
+        if (bigEndian) {
+          while (offset < end) {
+            buf[offset++] = (b[ptr] << 24 | (b[ptr+1] & 0xff) << 16 |
+                             (b[ptr+2] & 0xff) << 8 | (b[ptr+3] & 0xff));
+            ptr += 4;
+          }
+        } else {
+          while (offset < end) {
+            buf[offset++] = ((b[ptr] & 0xff) | (b[ptr+1] & 0xff) << 8 |
+                             (b[ptr+2] & 0xff) << 16 | b[ptr+3] << 24);
+            ptr += 4;
+          }
+        }
+        break;
+      }
+      is.setptr(ptr);
+      nPixels -= n;
+    }
+  }
+
+  // A ZRLE "compact pixel" is 3 bytes for 32bpp formats whose colours fit into
+  // either the least or the most significant 3 bytes.
+
+  public final int cpixelSize() {
+    if (bpp == 32 && trueColour && depth <= 24 &&
+        (fitsInLS3Bytes() || fitsInMS3Bytes()))
+      return 3;
+    return bpp / 8;
+  }
+
+  public final int cpixelShift() {
+    return (cpixelSize() == 3 && !fitsInLS3Bytes()) ? 8 : 0;
+  }
+
+  final boolean fitsInLS3Bytes() {
+    return (((long)redMax << redShift) < (1 << 24) &&
+            ((long)greenMax << greenShift) < (1 << 24) &&
+            ((long)blueMax << blueShift) < (1 << 24));
+  }
+
+  final boolean fitsInMS3Bytes() {
+    return (redShift > 7 && greenShift > 7 && blueShift > 7);
+  }
+
   public String print() {
     StringBuffer s = new StringBuffer();
     s.append("depth "+depth+" ("+bpp+"bpp)");
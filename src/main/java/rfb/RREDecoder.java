@@ -22,17 +22,16 @@ package rfb;
 
   public RREDecoder(CMsgReader reader_) { reader = reader_; }
 
-  static final int BPP=8;
-  static final int readPixel(rdr.InStream is) { return is.readU8(); }
-
   public void readRect(int x, int y, int w, int h, CMsgHandler handler) {
     rdr.InStream is = reader.getInStream();
+    PixelFormat pf = reader.pf();
+    int size = pf.bpp / 8;
     int nSubrects = is.readU32();
-    int bg = readPixel(is);
+    int bg = pf.readPixel(is, size, 0);
     handler.fillRect(x,y,w,h, bg);
 
     for (int i = 0; i < nSubrects; i++) {
-      int pix = readPixel(is);
+      int pix = pf.readPixel(is, size, 0);
       int sx = is.readU16();
       int sy = is.readU16();
       int sw = is.readU16();
@@ -23,13 +23,13 @@ package rfb;
   public RawDecoder(CMsgReader reader_) { reader = reader_; }
 
   public void readRect(int x, int y, int w, int h, CMsgHandler handler) {
-    byte[] imageBuf = reader.getImageBuf(w, w*h);
-    int nPixels = imageBuf.length / (reader.bpp() / 8);
-    int nRows = nPixels / w;
-    int bytesPerRow = w * (reader.bpp() / 8);
+    PixelFormat pf = reader.pf();
+    int[] imageBuf = reader.getImageBuf(w, w*h);
+    int nRows = imageBuf.length / w;
     while (h > 0) {
       if (nRows > h) nRows = h;
-      reader.getInStream().readBytes(imageBuf, 0, nRows * bytesPerRow);
+      pf.readPixels(reader.getInStream(), imageBuf, 0, nRows * w, pf.bpp / 8,
+                    0);
       handler.imageRect(x, y, w, nRows, imageBuf, 0);
       h -= nRows;
       y += nRows;
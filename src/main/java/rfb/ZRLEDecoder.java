@@ -25,12 +25,12 @@ package rfb;
     zis = new rdr.ZlibInStream();
   }
 
-  static final int BPP=8;
-  static final int readPixel(rdr.InStream is) { return is.readU8(); }
-
   public void readRect(int x, int y, int w, int h, CMsgHandler handler) {
     rdr.InStream is = reader.getInStream();
-    byte[] buf = reader.getImageBuf(64 * 64 * 4, 0);
+    PixelFormat pf = reader.pf();
+    int size = pf.cpixelSize();
+    int shift = pf.cpixelShift();
+    int[] buf = reader.getImageBuf(64 * 64, 0);
 
     int length = is.readU32();
     zis.setUnderlying(is, length);
@@ -46,11 +46,8 @@ package rfb;
         int mode = zis.readU8();
         boolean rle = (mode & 128) != 0;
         int palSize = mode & 127;
-        int[] palette = new int[128];
 
-        for (int i = 0; i < palSize; i++) {
-          palette[i] = readPixel(zis);
-        }
+        pf.readPixels(zis, palette, 0, palSize, size, shift);
 
         if (palSize == 1) {
           int pix = palette[0];
@@ -63,7 +60,7 @@ package rfb;
 
             // raw
 
-            zis.readBytes(buf, 0, tw * th * (BPP / 8));
+            pf.readPixels(zis, buf, 0, tw * th, size, shift);
 
           } else {
 
@@ -85,7 +82,7 @@ package rfb;
                 }
                 nbits -= bppp;
                 int index = (b >> nbits) & ((1 << bppp) - 1) & 127;
-                buf[ptr++] = (byte)palette[index];
+                buf[ptr++] = palette[index];
               }
             }
           }
@@ -99,7 +96,7 @@ package rfb;
             int ptr = 0;
             int end = ptr + tw * th;
             while (ptr < end) {
-              int pix = readPixel(zis);
+              int pix = pf.readPixel(zis, size, shift);
               int len = 1;
               int b;
               do {
@@ -111,7 +108,8 @@ package rfb;
                 throw new Exception("ZRLEDecoder: assertion (len <= end - ptr)"
                                     +" failed");
 
-              while (len-- > 0) buf[ptr++] = (byte)pix;
+              java.util.Arrays.fill(buf, ptr, ptr + len, pix);
+              ptr += len;
             }
           } else {
 
@@ -138,7 +136,8 @@ package rfb;
 
               int pix = palette[index];
 
-              while (len-- > 0) buf[ptr++] = (byte)pix;
+              java.util.Arrays.fill(buf, ptr, ptr + len, pix);
+              ptr += len;
             }
           }
         }
@@ -152,4 +151,6 @@ package rfb;
 
   CMsgReader reader;
   rdr.ZlibInStream zis;
+  // the palette of the current tile
+  int[] palette = new int[128];
 }
@@ -161,6 +161,8 @@ import java.util.zip.*;
   String host;
   int port;
   Socket sock;
+  // The ssh channel instead of the socket.
+  ch.ethz.ssh2.LocalStreamForwarder channel;
   OutputStream os;
   SessionRecorder rec;
   boolean inNormalProtocol = false;
@@ -226,7 +228,12 @@ import java.util.zip.*;
     host = h;
     port = p;
 
-    if (viewer.socketFactory == null) {
+    if (viewer.connector != null) {
+      channel = viewer.connector.connect();
+      is = new DataInputStream(new BufferedInputStream(
+                                              channel.getInputStream(), 16384));
+      os = channel.getOutputStream();
+    } else if (viewer.socketFactory == null) {
       sock = new Socket(host, port);
     } else {
       try {
@@ -241,9 +248,11 @@ import java.util.zip.*;
 	throw new IOException(e.getMessage());
       }
     }
-    is = new DataInputStream(new BufferedInputStream(sock.getInputStream(),
-						     16384));
-    os = sock.getOutputStream();
+    if (sock != null) {
+      is = new DataInputStream(new BufferedInputStream(sock.getInputStream(),
+						       16384));
+      os = sock.getOutputStream();
+    }
 
     timing = false;
     timeWaitedIn100us = 5;
@@ -253,7 +262,10 @@ import java.util.zip.*;
 
   synchronized void close() {
     try {
-      sock.close();
+      if (channel != null)
+	channel.close();
+      else
+	sock.close();
       closed = true;
       System.out.println("RFB socket closed");
       if (rec != null) {
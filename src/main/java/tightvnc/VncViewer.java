@@ -41,9 +41,21 @@ import java.net.*;
   public VncViewer(final String[] mainArgs,
                    boolean inAnApplet,
                    boolean inSeparateFrame) {
+      this(mainArgs, inAnApplet, inSeparateFrame, null);
+  }
+
+  //
+  // With a connector, the RFB streams are ssh channels instead of a socket.
+  //
+
+  public VncViewer(final String[] mainArgs,
+                   boolean inAnApplet,
+                   boolean inSeparateFrame,
+                   final lcmc.utilities.VncConnector connector) {
       this.mainArgs = mainArgs;
       this.inAnApplet = inAnApplet;
       this.inSeparateFrame = inSeparateFrame;
+      this.connector = connector;
   }
 
   //
@@ -62,6 +74,7 @@ import java.net.*;
   //}
 
   String[] mainArgs;
+  lcmc.utilities.VncConnector connector;
 
   RfbProto rfb;
   Thread rfbThread;
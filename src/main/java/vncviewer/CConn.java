@@ -113,6 +113,17 @@ import rfb.SecTypes;
   {
     sock = sock_;
 
+    if (viewer.connector != null) {
+      channel = viewer.connector.connect();
+      setServerName(vncServerName);
+      vlog.info("connected to "+vncServerName+" through the ssh channel");
+      jis = new rdr.JavaInStream(channel.getInputStream());
+      jos = new rdr.JavaOutStream(channel.getOutputStream());
+      setStreams(jis, jos);
+      initialiseProtocol();
+      return true;
+    }
+
     if (sock != null) {
       String name = sock.getInetAddress().getHostAddress()+"::"+sock.getPort();
       vlog.info("Accepted connection from "+name);
@@ -185,9 +196,14 @@ import rfb.SecTypes;
     serverPF = cp.pf();
     desktop = new DesktopWindow(serverPF, this);
     desktop.add(menu);
-    fullColourPF = desktop.getPF();
-    if (!serverPF.trueColour)
+    // Full colour uses the format of the server, so that the server doesn't
+    // have to translate the pixels.
+    fullColourPF = serverPF;
+    if (!serverPF.trueColour) {
+      fullColourPF = desktop.getPF();
       fullColour = true;
+    }
+    lowColourPF = desktop.getPF();
     recreateViewport();
     formatChange = encodingChange = true;
     requestNewUpdate();
@@ -213,6 +229,8 @@ import rfb.SecTypes;
     if (autoSelect)
       autoSelectFormatAndEncoding();
     requestNewUpdate();
+    // the server can already work on the next update while we draw this one
+    desktop.framebufferUpdateEnd();
   }
 
   // The rest of the callbacks are fairly self-explanatory...
@@ -243,7 +261,7 @@ import rfb.SecTypes;
   public void fillRect(int x, int y, int w, int h, int p) {
     desktop.fillRect(x, y, w, h, p);
   }
-  public void imageRect(int x, int y, int w, int h, byte[] p, int offset) {
+  public void imageRect(int x, int y, int w, int h, int[] p, int offset) {
     desktop.imageRect(x, y, w, h, p, offset);
   }
   public void copyRect(int x, int y, int w, int h, int sx, int sy) {
@@ -311,14 +329,14 @@ import rfb.SecTypes;
       encodingChange = true;
     }
 
-//      if (kbitsPerSecond > 1000) {
-//        if (!fullColour) {
-//          vlog.info("Throughput "+kbitsPerSecond+
-//                    " kbit/s - changing to full colour");
-//          fullColour = true;
-//          formatChange = true;
-//        }
-//      }
+    if (kbitsPerSecond > 1000) {
+      if (!fullColour) {
+        vlog.info("Throughput "+kbitsPerSecond+
+                  " kbit/s - changing to full colour");
+        fullColour = true;
+        formatChange = true;
+      }
+    }
   }
 
   // requestNewUpdate() requests an update from the server, having set the
@@ -327,9 +345,9 @@ import rfb.SecTypes;
   {
     if (formatChange) {
       if (fullColour) {
-        //desktop.setPF(fullColourPF);
+        desktop.setPF(fullColourPF);
       } else {
-        //desktop.setPF(rfb.PixelFormat(8,6,0,1,3,3,3,4,2,0));
+        desktop.setPF(lowColourPF);
       }
       String str = desktop.getPF().print();
       vlog.info("Using pixel format "+str);
@@ -354,7 +372,10 @@ import rfb.SecTypes;
   public void close() {
     try {
       shuttingDown = true;
-      sock.close();
+      if (channel != null)
+        channel.close();
+      else
+        sock.close();
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -392,11 +413,10 @@ import rfb.SecTypes;
 
   public void setOptions() {
     options.autoSelect.setState(autoSelect);
-    options.fullColour.setState(false/*fullColour*/);
+    options.fullColour.setState(fullColour);
     options.veryLowColour.setState(false/*!fullColour && lowColourLevel==0*/);
     options.lowColour.setState(false/*!fullColour && lowColourLevel == 1*/);
-    options.mediumColour.setState(true/*!fullColour && lowColourLevel == 2*/);
-    options.fullColour.setEnabled(false);
+    options.mediumColour.setState(!fullColour);
     options.veryLowColour.setEnabled(false);
     options.lowColour.setEnabled(false);
 
@@ -416,8 +436,8 @@ import rfb.SecTypes;
 
   public void getOptions() {
     autoSelect = options.autoSelect.getState();
-//      if (fullColour != options.fullColour.getState())
-//        formatChange = true;
+    if (fullColour != options.fullColour.getState())
+      formatChange = true;
     fullColour = options.fullColour.getState();
     int newEncoding = (options.zrle.getState() ? rfb.Encodings.ZRLE :
                        options.hextile.getState() ? rfb.Encodings.hextile :
@@ -584,6 +604,8 @@ import rfb.SecTypes;
   String serverHost;
   int serverPort;
   java.net.Socket sock;
+  // The ssh channel instead of the socket.
+  ch.ethz.ssh2.LocalStreamForwarder channel;
   rdr.JavaInStream jis;
   rdr.JavaOutStream jos;
 
@@ -601,6 +623,7 @@ import rfb.SecTypes;
   rfb.PixelFormat serverPF;
   ViewportFrame viewport;
   rfb.PixelFormat fullColourPF;
+  rfb.PixelFormat lowColourPF;
 
   // shuttingDown is set by the GUI thread and only ever tested by the RFB
   // thread after the window has been destroyed.
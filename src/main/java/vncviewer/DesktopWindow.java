@@ -51,6 +51,14 @@ import java.awt.datatransfer.Transferable;
 
   final public rfb.PixelFormat getPF() { return im.getPF(); }
 
+  // setPF() changes the pixel format of the image.  The cursor is in the old
+  // format, it is not drawn until the server sends it again.
+  synchronized public void setPF(rfb.PixelFormat pf) {
+    hideLocalCursor();
+    im.setPF(pf);
+    im.put(0, 0, im.width(), im.height(), graphics);
+  }
+
   // Methods called from the RFB thread - these need to be synchronized
   // wherever they access data shared with the GUI thread.
 
@@ -72,7 +80,7 @@ import java.awt.datatransfer.Transferable;
 
     cursor.setSize(w, h);
     cursor.setPF(getPF());
-    System.arraycopy(data, 0, cursor.data, 0, cursor.dataLen());
+    cursor.imageRect(0, 0, w, h, data, 0);
     System.arraycopy(mask, 0, cursor.mask, 0, cursor.maskLen());
 
     cursorBacking.setSize(w, h);
@@ -111,58 +119,94 @@ import java.awt.datatransfer.Transferable;
     im.resize(w, h, this);
   }
 
-  final void drawInvalidRect() {
-    if (!invalidRect) return;
-    int x = invalidLeft;
-    int w = invalidRight - x;
-    int y = invalidTop;
-    int h = invalidBottom - y;
-    invalidRect = false;
+  // The damaged rectangles are collected during an update and drawn together
+  // at its end, see framebufferUpdateEnd().  A rectangle which overlaps or
+  // touches another one is merged with it, if the union isn't much bigger
+  // than both of them.  If the update takes longer than maxDamageDelay, the
+  // damage is drawn already, so that a slow update still shows progress.
+
+  final void drawDamage() {
+    if (nDamageRects == 0) return;
 
     synchronized (this) {
-      im.put(x, y, w, h, graphics);
+      for (int i = 0; i < nDamageRects * 4; i += 4)
+        im.put(damageRects[i], damageRects[i+1],
+               damageRects[i+2] - damageRects[i],
+               damageRects[i+3] - damageRects[i+1], graphics);
     }
+    nDamageRects = 0;
   }
 
-  final void invalidate(int x, int y, int w, int h) {
-    if (invalidRect) {
-      if (x < invalidLeft) invalidLeft = x;
-      if (x + w > invalidRight) invalidRight = x + w;
-      if (y < invalidTop) invalidTop = y;
-      if (y + h > invalidBottom) invalidBottom = y + h;
-    } else {
-      invalidLeft = x;
-      invalidRight = x + w;
-      invalidTop = y;
-      invalidBottom = y + h;
-      invalidRect = true;
+  final void damage(int x, int y, int w, int h) {
+    if (nDamageRects == 0)
+      damageStart = System.currentTimeMillis();
+
+    int left = x;
+    int top = y;
+    int right = x + w;
+    int bottom = y + h;
+    int best = -1;
+    int bestGrowth = Integer.MAX_VALUE;
+    for (int i = 0; i < nDamageRects * 4; i += 4) {
+      int l = Math.min(left, damageRects[i]);
+      int t = Math.min(top, damageRects[i+1]);
+      int r = Math.max(right, damageRects[i+2]);
+      int b = Math.max(bottom, damageRects[i+3]);
+      int growth = ((r - l) * (b - t)
+                    - (damageRects[i+2] - damageRects[i])
+                      * (damageRects[i+3] - damageRects[i+1])
+                    - w * h);
+      boolean touches = (left <= damageRects[i+2] && damageRects[i] <= right &&
+                         top <= damageRects[i+3] && damageRects[i+1] <= bottom);
+      if ((touches && growth <= w * h) || nDamageRects == maxDamageRects) {
+        if (growth < bestGrowth) {
+          best = i;
+          bestGrowth = growth;
+        }
+      }
     }
 
-    if ((invalidRight - invalidLeft) * (invalidBottom - invalidTop) > 100000)
-      drawInvalidRect();
+    if (best < 0) {
+      best = nDamageRects * 4;
+      nDamageRects++;
+    } else {
+      left = Math.min(left, damageRects[best]);
+      top = Math.min(top, damageRects[best+1]);
+      right = Math.max(right, damageRects[best+2]);
+      bottom = Math.max(bottom, damageRects[best+3]);
+    }
+    damageRects[best] = left;
+    damageRects[best+1] = top;
+    damageRects[best+2] = right;
+    damageRects[best+3] = bottom;
   }
 
   public void beginRect(int x, int y, int w, int h, int encoding) {
-    invalidRect = false;
   }
 
   public void endRect(int x, int y, int w, int h, int encoding) {
-    drawInvalidRect();
+    if (nDamageRects > 0 &&
+        System.currentTimeMillis() - damageStart > maxDamageDelay)
+      drawDamage();
+  }
+
+  public void framebufferUpdateEnd() {
+    drawDamage();
   }
 
   synchronized final public void fillRect(int x, int y, int w, int h, int pix)
   {
     if (overlapsCursor(x, y, w, h)) hideLocalCursor();
     im.fillRect(x, y, w, h, pix);
-    invalidate(x, y, w, h);
+    damage(x, y, w, h);
     showLocalCursor();
   }
 
   synchronized final public void imageRect(int x, int y, int w, int h,
-                                           byte[] pix, int offset) {
+                                           int[] pix, int offset) {
     if (overlapsCursor(x, y, w, h)) hideLocalCursor();
     im.imageRect(x, y, w, h, pix, offset);
-    invalidate(x, y, w, h);
+    damage(x, y, w, h);
     showLocalCursor();
   }
 
@@ -172,10 +216,12 @@ import java.awt.datatransfer.Transferable;
       hideLocalCursor();
     im.copyRect(x, y, w, h, srcX, srcY);
     if (cc.viewer.fastCopyRect.getValue()) {
+      // the source must be on the screen already
+      drawDamage();
       graphics.setClip(0, 0, im.width(), im.height());
       graphics.copyArea(srcX, srcY, w, h, x-srcX, y-srcY);
     } else {
-      invalidate(x, y, w, h);
+      damage(x, y, w, h);
     }
   }
 
@@ -379,8 +425,12 @@ import java.awt.datatransfer.Transferable;
   int cursorBackingX, cursorBackingY;
 
   // the following are only ever accessed by the RFB thread:
-  boolean invalidRect;
-  int invalidLeft, invalidRight, invalidTop, invalidBottom;
+  static final int maxDamageRects = 16;
+  static final long maxDamageDelay = 100;
+  // left, top, right, bottom of each damaged rectangle
+  int[] damageRects = new int[maxDamageRects * 4];
+  int nDamageRects;
+  long damageStart;
 
   // the following are only ever accessed by the GUI thread:
   int lastX, lastY;
@@ -16,80 +16,137 @@
  * USA.
  */
 //
-// PixelBufferImage is an rfb.PixelBuffer which also acts as an ImageProducer.
-// Currently it only supports 8-bit colourmapped pixel format.
+// PixelBufferImage is an rfb.PixelBuffer which is drawn as a BufferedImage.
+// In true colour formats the image shares the int array of the pixel buffer,
+// so the decoders write straight into its raster, a DirectColorModel reads
+// the format.  The 8-bit colourmapped pixels are translated into a separate
+// rgb image when they are put.
 //
 
 package vncviewer;
 
 import java.awt.*;
+import java.awt.color.ColorSpace;
 import java.awt.image.*;
 
-public @SuppressWarnings({"unchecked", "deprecation", "serial"}) class PixelBufferImage extends rfb.PixelBuffer implements ImageProducer
+public @SuppressWarnings({"unchecked", "deprecation", "serial"}) class PixelBufferImage extends rfb.PixelBuffer
 {
   public PixelBufferImage(int w, int h, java.awt.Component win) {
-    setPF(new rfb.PixelFormat(8, 8, false, false, 0, 0, 0, 0, 0, 0));
-
-    resize(w, h, win);
-
-    reds = new byte[256];
-    greens = new byte[256];
-    blues = new byte[256];
+    colourMap = new int[256];
     // Fill the colour map with bgr233.  This is only so that if the server
     // doesn't set the colour map properly, at least we're likely to see
     // something instead of a completely black screen.
     for (int i = 0; i < 256; i++) {
-      reds[i] = (byte)(((i & 7) * 255 + 3) / 7);
-      greens[i] = (byte)((((i >> 3) & 7) * 255 + 3) / 7);
-      blues[i] = (byte)((((i >> 6) & 3) * 255 + 1) / 3);
+      colourMap[i] = ((((i & 7) * 255 + 3) / 7) << 16 |
+                      ((((i >> 3) & 7) * 255 + 3) / 7) << 8 |
+                      (((i >> 6) & 3) * 255 + 1) / 3);
     }
-    cm = new IndexColorModel(8, 256, reds, greens, blues);
+
+    setPF(new rfb.PixelFormat(8, 8, false, false, 0, 0, 0, 0, 0, 0));
+
+    resize(w, h, win);
+  }
+
+  // setPF() changes the pixel format.  The pixels are converted if the new
+  // format is true colour, a colourmapped image is redrawn by the server
+  // anyway.
+  public void setPF(rfb.PixelFormat pf) {
+    DirectColorModel oldCm = cm;
+    super.setPF(pf);
+    if (pf.trueColour) {
+      cm = new DirectColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+                                pf.bpp,
+                                pf.redMax << pf.redShift,
+                                pf.greenMax << pf.greenShift,
+                                pf.blueMax << pf.blueShift,
+                                0, false, DataBuffer.TYPE_INT);
+    } else {
+      cm = null;
+    }
+    if (data == null) return;
+    if (pf.trueColour) {
+      for (int i = 0; i < data.length; i++) {
+        int c = (oldCm != null ? oldCm.getRGB(data[i])
+                 : colourMap[data[i] & 0xff]);
+        data[i] = ((((c >> 16) & 0xff) * pf.redMax + 127) / 255
+                   << pf.redShift |
+                   (((c >> 8) & 0xff) * pf.greenMax + 127) / 255
+                   << pf.greenShift |
+                   ((c & 0xff) * pf.blueMax + 127) / 255
+                   << pf.blueShift);
+      }
+    }
+    createImage();
   }
 
   // resize() resizes the image, preserving the image data where possible.
   public void resize(int w, int h, java.awt.Component win) {
     if (w == width() && h == height()) return;
 
-    // Clear the ImageConsumer so that we don't attempt to do any drawing until
-    // the AWT has noticed that the resize has happened.
-    ic = null;
-
-    int oldStrideBytes = getStride() * (format.bpp/8);
+    int oldStride = getStride();
     int rowsToCopy = h < height() ? h : height();
-    int bytesPerRow = (w < width() ? w : width()) * (format.bpp/8);
-    byte[] oldData = data;
+    int pixelsPerRow = w < width() ? w : width();
+    int[] oldData = data;
 
     width_ = w;
     height_ = h;
-    image = win.createImage(this);
 
-    data = new byte[width() * height() * (format.bpp/8)];
+    data = new int[width() * height()];
 
-    int newStrideBytes = getStride() * (format.bpp/8);
+    int newStride = getStride();
     for (int i = 0; i < rowsToCopy; i++)
-      System.arraycopy(oldData, oldStrideBytes * i,
-                       data, newStrideBytes * i, bytesPerRow);
+      System.arraycopy(oldData, oldStride * i,
+                       data, newStride * i, pixelsPerRow);
+
+    createImage();
+  }
+
+  // createImage() wraps the pixel data in a new image.  The DataBufferInt is
+  // created from our own array, so that java doesn't cache a copy of the
+  // image which wouldn't notice our changes.
+  void createImage() {
+    if (cm == null) {
+      rgb = new int[data.length];
+      translate(0, 0, width(), height());
+      image = createImage(rgb, rgbModel);
+    } else {
+      rgb = null;
+      image = createImage(data, cm);
+    }
+  }
+
+  BufferedImage createImage(int[] pixels, DirectColorModel dcm) {
+    WritableRaster raster
+      = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length),
+                                  width(), height(), getStride(),
+                                  dcm.getMasks(), null);
+    return new BufferedImage(dcm, raster, false, null);
+  }
+
+  // translate() looks up the colourmapped pixels of the rectangle.
+  void translate(int x, int y, int w, int h) {
+    int stride = getStride();
+    for (int j = y; j < y + h; j++) {
+      int end = j * stride + x + w;
+      for (int i = j * stride + x; i < end; i++)
+        rgb[i] = colourMap[data[i] & 0xff];
+    }
   }
 
   // put() causes the given rectangle to be drawn using the given graphics
   // context.
   public void put(int x, int y, int w, int h, Graphics g) {
-    if (ic == null) return;
-    ic.setPixels(x, y, w, h, cm, data, width() * y + x, width());
-    ic.imageComplete(ImageConsumer.SINGLEFRAMEDONE);
-    g.setClip(x, y, w, h);
-    g.drawImage(image, 0, 0, null);
+    if (rgb != null) translate(x, y, w, h);
+    g.drawImage(image, x, y, x + w, y + h, x, y, x + w, y + h, null);
   }
 
   // fillRect(), imageRect(), maskRect() are inherited from PixelBuffer.  For
-  // copyRect() we also need to tell the ImageConsumer that the pixels have
-  // changed (this is done in the put() call for the others).
+  // copyRect() the colourmapped pixels must also be translated, since the
+  // destination may only be copied on the screen.
 
   public void copyRect(int x, int y, int w, int h, int srcX, int srcY) {
     super.copyRect(x, y, w, h, srcX, srcY);
-    if (ic == null) return;
-    ic.setPixels(x, y, w, h, cm, data, width() * y + x, width());
-    ic.imageComplete(ImageConsumer.SINGLEFRAMEDONE);
+    if (rgb != null) translate(x, y, w, h);
   }
 
   // setColourMapEntries() changes some of the entries in the colourmap.
@@ -100,47 +157,24 @@ public @SuppressWarnings({"unchecked", "deprecation", "serial"}) class PixelBuff
   public void setColourMapEntries(int firstColour, int nColours,
                                                int[] rgbs) {
     for (int i = 0; i < nColours; i++) {
-      reds  [firstColour+i] = (byte)(rgbs[i*3]   >> 8);
-      greens[firstColour+i] = (byte)(rgbs[i*3+1] >> 8);
-      blues [firstColour+i] = (byte)(rgbs[i*3+2] >> 8);
+      colourMap[firstColour+i] = ((rgbs[i*3]   >> 8) << 16 |
+                                  (rgbs[i*3+1] >> 8) << 8 |
+                                  (rgbs[i*3+2] >> 8));
     }
   }
 
-  // ImageProducer methods
-
   public void updateColourMap() {
-    cm = new IndexColorModel(8, 256, reds, greens, blues);
-  }
-
-  public void addConsumer(ImageConsumer c) {
-    vlog.debug("adding consumer "+c);
-    ic = c;
-    ic.setDimensions(width(), height());
-    ic.setHints(ImageConsumer.RANDOMPIXELORDER);
-    // Calling ic.setColorModel(cm) seemed to help in some earlier versions of
-    // the JDK, but it shouldn't be necessary because we pass the ColorModel
-    // with each setPixels() call.
-    ic.setPixels(0, 0, width(), height(), cm, data, 0, width());
-    ic.imageComplete(ImageConsumer.SINGLEFRAMEDONE);
+    if (rgb != null) translate(0, 0, width(), height());
   }
 
-  public void removeConsumer(ImageConsumer c) {
-    System.err.println("removeConsumer "+c);
-    if (ic == c) ic = null;
-  }
-
-  public boolean isConsumer(ImageConsumer c) { return ic == c; }
-  public void requestTopDownLeftRightResend(ImageConsumer c) {}
-  public void startProduction(ImageConsumer c) { addConsumer(c); }
-
-  Image image;
-  Graphics graphics;
-  ImageConsumer ic;
-  ColorModel cm;
-
-  byte[] reds;
-  byte[] greens;
-  byte[] blues;
+  BufferedImage image;
+  // the colour model of a true colour format, otherwise null
+  DirectColorModel cm;
+  // the translated pixels of a colourmapped format, otherwise null
+  int[] rgb;
+  static final DirectColorModel rgbModel
+    = new DirectColorModel(24, 0xff0000, 0xff00, 0xff);
 
-  static rfb.LogWriter vlog = new rfb.LogWriter("PixelBufferImage");
+  // the colourmap as 0xRRGGBB values
+  int[] colourMap;
 }
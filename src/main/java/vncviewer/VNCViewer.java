@@ -46,7 +46,14 @@ public @SuppressWarnings({"unchecked", "deprecation", "serial"}) class VNCViewer
   }
   
   public VNCViewer(String[] argv) {
+    this(argv, null);
+  }
+
+  // With a connector, the RFB streams are ssh channels instead of a socket.
+
+  public VNCViewer(String[] argv, lcmc.utilities.VncConnector connector_) {
     applet = false;
+    connector = connector_;
     
     // Override defaults with command-line options
     for (int i = 0; i < argv.length; i++) {
@@ -227,6 +234,7 @@ public @SuppressWarnings({"unchecked", "deprecation", "serial"}) class VNCViewer
                          "the host from which the applet was downloaded", 0);
 
   Thread thread;
+  lcmc.utilities.VncConnector connector;
   boolean applet, firstApplet;
   Image logo;
   Label versionLabel;
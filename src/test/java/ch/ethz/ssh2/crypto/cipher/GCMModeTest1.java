@@ -0,0 +1,167 @@
+package ch.ethz.ssh2.crypto.cipher;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Known answer tests of AES-GCM from the GCM specification (test cases 4
+ * and 16, the same vectors are in the NIST GCM validation) and the
+ * invocation counter of RFC 5647.
+ */
+public final class GCMModeTest1 extends TestCase {
+    /** Plain text of the test cases 4 and 16. */
+    private static final String PLAIN =
+                       "d9313225f88406e5a55909c5aff5269a"
+                       + "86a7a9531534f7da2e4c303d8a318a72"
+                       + "1c3c0c95956809532fcf0e2449a6b525"
+                       + "b16aedf5aa0de657ba637b39";
+    /** Additional authenticated data of the test cases 4 and 16. */
+    private static final String AAD =
+                                "feedfacedeadbeeffeedfacedeadbeefabaddad2";
+    /** IV of the test cases 4 and 16. */
+    private static final String IV = "cafebabefacedbaddecaf888";
+
+    /** Returns bytes of the hex string. */
+    private static byte[] hex(final String hex) {
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(
+                                        hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /** Returns the encrypted or decrypted packet. */
+    private static byte[] transform(final GCMMode gcm,
+                                    final byte[] aad,
+                                    final byte[] src,
+                                    final int outLen) throws IOException {
+        final byte[] dst = new byte[outLen];
+        final int n = gcm.transformPacket(aad, 0, aad.length,
+                                          src, 0, src.length,
+                                          dst, 0);
+        assertEquals(outLen, n);
+        return dst;
+    }
+
+    /** Encrypts and decrypts the test case. */
+    private static void knownAnswer(final String key,
+                                    final String cipherText,
+                                    final String tag) throws IOException {
+        final byte[] plain = hex(PLAIN);
+        final byte[] expected = hex(cipherText + tag);
+        final GCMMode enc = new GCMMode(hex(key), hex(IV), true);
+        assertTrue(Arrays.equals(expected,
+                                 transform(enc,
+                                           hex(AAD),
+                                           plain,
+                                           plain.length
+                                           + GCMMode.TAG_LENGTH)));
+        final GCMMode dec = new GCMMode(hex(key), hex(IV), false);
+        assertTrue(Arrays.equals(plain,
+                                 transform(dec,
+                                           hex(AAD),
+                                           expected,
+                                           plain.length)));
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testAes128() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        knownAnswer("feffe9928665731c6d6a8f9467308308",
+                    "42831ec2217774244b7221b784d0d49c"
+                    + "e3aa212f2c02a4e035c17e2329aca12e"
+                    + "21d514b25466931c7d8f6a5aac84aa05"
+                    + "1ba30b396a0aac973d58e091",
+                    "5bc94fbc3221a5db94fae95ae7121a47");
+    }
+
+    @Test
+    public void testAes256() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        knownAnswer("feffe9928665731c6d6a8f9467308308"
+                    + "feffe9928665731c6d6a8f9467308308",
+                    "522dc1f099567d07f47f37a32a84427d"
+                    + "643a8cdcbfe5c0c97598a2bd2555d1aa"
+                    + "8cb08e48590dbb3da7b08b1056828838"
+                    + "c5f61e6393ba7a0abcc9f662",
+                    "76fc6ece0f4e1768cddf8853bb2d551b");
+    }
+
+    @Test
+    public void testWrongTag() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        final byte[] key = hex("feffe9928665731c6d6a8f9467308308");
+        final byte[] plain = hex(PLAIN);
+        final byte[] packet = transform(new GCMMode(key, hex(IV), true),
+                                        hex(AAD),
+                                        plain,
+                                        plain.length + GCMMode.TAG_LENGTH);
+        final byte[] aad = hex(AAD);
+        aad[0] ^= 1;
+        try {
+            transform(new GCMMode(key, hex(IV), false),
+                      aad,
+                      packet,
+                      plain.length);
+            fail("changed aad was accepted");
+        } catch (final IOException e) {
+            assertEquals("Remote sent corrupt MAC.", e.getMessage());
+        }
+    }
+
+    /**
+     * The invocation counter, the last 8 bytes of the nonce, is incremented
+     * after every packet, with carry, the fixed field stays (RFC 5647 7.1).
+     */
+    @Test
+    public void testInvocationCounter() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        final byte[] key = hex("feffe9928665731c6d6a8f9467308308");
+        final byte[] aad = hex("0000001c");
+        final byte[] plain = hex(PLAIN);
+        final int len = plain.length + GCMMode.TAG_LENGTH;
+        final GCMMode gcm = new GCMMode(key,
+                                        hex("00000001fffffffffffffffe"),
+                                        true);
+        final String[] nonces = {"00000001fffffffffffffffe",
+                                 "00000001ffffffffffffffff",
+                                 "000000010000000000000000",
+                                 "000000010000000000000001"};
+        for (final String nonce : nonces) {
+            final byte[] expected = transform(new GCMMode(key,
+                                                          hex(nonce),
+                                                          true),
+                                              aad,
+                                              plain,
+                                              len);
+            assertTrue(nonce, Arrays.equals(expected,
+                                            transform(gcm, aad, plain, len)));
+        }
+    }
+
+    @Test
+    public void testWrongIvLength() {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        try {
+            new GCMMode(new byte[16], new byte[16], true);
+            fail("16 bytes iv was accepted");
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("IV must be 12"));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ch.ethz.ssh2.crypto.dh;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPrivateKeySpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Known answer tests of X25519 (RFC 7748 6.1) and nistp256 (RFC 5903 8.1)
+ * and the validation of the server public keys.
+ */
+public final class EcdhExchangeTest1 extends TestCase {
+    /** PKCS#8 encoding of a X25519 private key without the key. */
+    private static final String X25519_PKCS8_PREFIX =
+                                        "302e020100300506032b656e04220420";
+    /** X.509 encoding of a X25519 public key without the key. */
+    private static final String X25519_X509_PREFIX =
+                                                "302a300506032b656e032100";
+
+    /** Returns bytes of the hex string. */
+    private static byte[] hex(final String hex) {
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(
+                                        hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /** Returns X25519 exchange with the private and public key. */
+    private static EcdhExchange x25519(final String privateKey,
+                                       final String publicKey)
+                                              throws GeneralSecurityException {
+        final EcdhExchange ecdh = new EcdhExchange();
+        ecdh.init(EcdhExchange.CURVE25519, new SecureRandom());
+        final KeyFactory kf = KeyFactory.getInstance("X25519");
+        ecdh.keyPair = new KeyPair(
+                kf.generatePublic(new X509EncodedKeySpec(
+                                     hex(X25519_X509_PREFIX + publicKey))),
+                kf.generatePrivate(new PKCS8EncodedKeySpec(
+                                     hex(X25519_PKCS8_PREFIX + privateKey))));
+        ecdh.q_c = hex(publicKey);
+        return ecdh;
+    }
+
+    /** Returns nistp256 exchange with the private key. */
+    private static EcdhExchange nistp256(final String privateKey)
+                                              throws GeneralSecurityException {
+        final EcdhExchange ecdh = new EcdhExchange();
+        ecdh.init(EcdhExchange.NISTP256, new SecureRandom());
+        final ECParameterSpec params =
+                    ((ECPublicKey) ecdh.keyPair.getPublic()).getParams();
+        ecdh.keyPair = new KeyPair(
+                ecdh.keyPair.getPublic(),
+                KeyFactory.getInstance("EC").generatePrivate(
+                     new ECPrivateKeySpec(new BigInteger(privateKey, 16),
+                                          params)));
+        return ecdh;
+    }
+
+    /** Checks that the server key is refused. */
+    private static void assertInvalid(final EcdhExchange ecdh,
+                                      final byte[] qs) {
+        try {
+            ecdh.setQ_S(qs);
+            fail("invalid key was accepted");
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Invalid q_s"));
+        }
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testX25519() throws GeneralSecurityException {
+        if (!EcdhExchange.isAvailable(EcdhExchange.CURVE25519)) {
+            return;
+        }
+        final String alicePrivate =
+            "77076d0a7318a57d3c16c17251b26645df4c2f87ebc0992ab177fba51db92c2a";
+        final String alicePublic =
+            "8520f0098930a754748b7ddcb43ef75a0dbf3a0d26381af4eba4a98eaa9b4e6a";
+        final String bobPrivate =
+            "5dab087e624a8a4b79e17f8b83800ee66f3bb1292618b6fd1c2f8b27ff88e0eb";
+        final String bobPublic =
+            "de9edb7d7b7dc1b4d35b61c2ece435373f8343c85b78674dadfc7e146f882b4f";
+        final BigInteger shared = new BigInteger(
+            "4a5d9d5ba4ce2de1728e3bf480350f25e07e21c947d19e3376f09b3c1e161742",
+            16);
+        final EcdhExchange alice = x25519(alicePrivate, alicePublic);
+        alice.setQ_S(hex(bobPublic));
+        assertEquals(shared, alice.getK());
+        final EcdhExchange bob = x25519(bobPrivate, bobPublic);
+        bob.setQ_S(hex(alicePublic));
+        assertEquals(shared, bob.getK());
+    }
+
+    /** Points of small order give all zero secret (RFC 7748 6.1). */
+    @Test
+    public void testX25519Invalid() throws GeneralSecurityException {
+        if (!EcdhExchange.isAvailable(EcdhExchange.CURVE25519)) {
+            return;
+        }
+        final EcdhExchange ecdh = new EcdhExchange();
+        ecdh.init(EcdhExchange.CURVE25519, new SecureRandom());
+        assertInvalid(ecdh, new byte[32]);
+        final byte[] one = new byte[32];
+        one[0] = 1;
+        assertInvalid(ecdh, one);
+        assertInvalid(ecdh, hex("e0eb7a7c3b41b8ae1656e3faf19fc46a"
+                                + "da098deb9c32b1fd866205165f49b800"));
+        assertInvalid(ecdh, new byte[31]);
+        assertInvalid(ecdh, new byte[33]);
+    }
+
+    @Test
+    public void testNistp256() throws GeneralSecurityException {
+        if (!EcdhExchange.isAvailable(EcdhExchange.NISTP256)) {
+            return;
+        }
+        final EcdhExchange ecdh = nistp256(
+            "c88f01f510d9ac3f70a292daa2316de544e9aab8afe84049c62a9c57862d1433");
+        ecdh.setQ_S(hex(
+            "04"
+            + "d12dfb5289c8d4f81208b70270398c342296970a0bccb74c736fc7554494bf63"
+            + "56fbf3ca366cc23e8157854c13c58d6aac23f046ada30f8353e74f33039872ab"
+            ));
+        assertEquals(new BigInteger(
+            "d6840f6b42f6edafd13116e0e12565202fef8e9ece7dce03812464d04b9442de",
+            16), ecdh.getK());
+    }
+
+    @Test
+    public void testNistp256Invalid() throws GeneralSecurityException {
+        if (!EcdhExchange.isAvailable(EcdhExchange.NISTP256)) {
+            return;
+        }
+        final EcdhExchange ecdh = new EcdhExchange();
+        ecdh.init(EcdhExchange.NISTP256, new SecureRandom());
+        final String x =
+            "d12dfb5289c8d4f81208b70270398c342296970a0bccb74c736fc7554494bf63";
+        final String y =
+            "56fbf3ca366cc23e8157854c13c58d6aac23f046ada30f8353e74f33039872ab";
+        /* not on the curve */
+        assertInvalid(ecdh, hex("04" + x + y.substring(0, 63) + "a"));
+        /* compressed and infinity are not used */
+        assertInvalid(ecdh, hex("02" + x));
+        assertInvalid(ecdh, hex("00"));
+        assertInvalid(ecdh, hex("05" + x + y));
+        /* coordinate not smaller than p */
+        final String p =
+            "ffffffff00000001000000000000000000000000ffffffffffffffffffffffff";
+        assertInvalid(ecdh, hex("04" + p + y));
+        assertInvalid(ecdh, hex("04" + x + p));
+        assertNull(ecdh.q_s);
+        ecdh.setQ_S(hex("04" + x + y));
+        assertNotNull(ecdh.getK());
+    }
+
+    @Test
+    public void testNotInitialized() {
+        try {
+            new EcdhExchange().setQ_S(new byte[32]);
+            fail("not initialized exchange accepted the key");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage().contains("not initialized"));
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package ch.ethz.ssh2.transport;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.After;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import ch.ethz.ssh2.crypto.cipher.BlockCipherFactory;
+import ch.ethz.ssh2.crypto.cipher.GCMMode;
+import ch.ethz.ssh2.crypto.digest.MAC;
+
+/**
+ * Tests of the packet framing in the non-blocking receiver, the received
+ * data is split at every byte boundary.
+ */
+public final class NonBlockingReceiverTest1 extends TestCase {
+    /** Type of the test messages, SSH_MSG_CHANNEL_DATA. */
+    private static final int TYPE = 94;
+    /** Lengths of the short messages. */
+    private static final int[] SHORT_MESSAGES = {1, 17, 100};
+    /** Length of the big messages, that make the receiver pause. */
+    private static final int BIG_MESSAGE = 200000;
+    /** The MAC of the block cipher modes. */
+    private static final String MAC_TYPE = "hmac-sha1";
+    /** How long the data may take to arrive in ms. */
+    private static final long TIMEOUT = 10000;
+    /** The selector with the manual workers. */
+    private ManualSelector transportSelector;
+    /** Selector of the test keys, it never selects. */
+    private Selector selector;
+    /** The listening socket. */
+    private ServerSocketChannel server;
+
+    /** Selector, that runs the workers only when the test says so. */
+    private static final class ManualSelector extends TransportSelector {
+        /** The scheduled workers. */
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        /** Creates new ManualSelector object. */
+        ManualSelector() throws IOException {
+            super(1);
+        }
+
+        @Override
+        void execute(final Runnable task) {
+            synchronized (tasks) {
+                tasks.add(task);
+            }
+        }
+
+        /** Runs the scheduled workers. */
+        void runWorkers() {
+            while (true) {
+                final Runnable task;
+                synchronized (tasks) {
+                    if (tasks.isEmpty()) {
+                        return;
+                    }
+                    task = tasks.remove(0);
+                }
+                task.run();
+            }
+        }
+    }
+
+    /** One connection with the receiver on the one end. */
+    private final class Connection implements MessageHandler {
+        /** The sending end. */
+        private final SocketChannel peer;
+        /** The receiving end. */
+        private final SocketChannel channel;
+        /** The key of the receiving end. */
+        private final SelectionKey key;
+        /** The transport manager of the receiver. */
+        private final TransportManager tm;
+        /** The tested receiver. */
+        private final NonBlockingReceiver receiver;
+        /** Read buffer of the "selector thread". */
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(32 * 1024);
+        /** Lengths and hashes of the received messages. */
+        private final List<String> received = new ArrayList<String>();
+        /** How many times the handlers were told about the end. */
+        private int eofs = 0;
+
+        /** Creates new Connection object. */
+        Connection(final String cipher) throws IOException {
+            channel = SocketChannel.open(server.socket()
+                                              .getLocalSocketAddress());
+            peer = server.accept();
+            channel.configureBlocking(false);
+            key = channel.register(selector, SelectionKey.OP_READ);
+            tm = new TransportManager("127.0.0.1", 22, true);
+            receiver = new NonBlockingReceiver(tm,
+                                               channel,
+                                               transportSelector);
+            receiver.key = key;
+            receiver.selectorThread = transportSelector.selectorThreads[0];
+            tm.receiver = receiver;
+            tm.tc = new TransportConnection(receiver.getInputStream(),
+                                            null,
+                                            new SecureRandom());
+            tm.tc.changeRecvCipher(
+                        BlockCipherFactory.createCipher(cipher,
+                                                        false,
+                                                        key(cipher),
+                                                        iv(cipher)),
+                        mac(cipher));
+            tm.registerMessageHandler(this, 50, 127);
+        }
+
+        @Override
+        public void handleMessage(final byte[] msg, final int msglen) {
+            if (msg == null) {
+                eofs++;
+            } else {
+                received.add(describe(msg, msglen));
+            }
+        }
+
+        /** Sends the bytes from the peer. */
+        void send(final byte[] data, final int off, final int len)
+                                                        throws IOException {
+            final ByteBuffer b = ByteBuffer.wrap(data, off, len);
+            while (b.hasRemaining()) {
+                peer.write(b);
+            }
+        }
+
+        /** Closes the sending end. */
+        void sendEOF() throws IOException {
+            peer.socket().shutdownOutput();
+        }
+
+        /**
+         * Reads like the selector thread, till the receiver got "count"
+         * bytes or the EOF. It doesn't read, while the reading is paused.
+         */
+        void pump(final long count) throws IOException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (true) {
+                if (key.isValid()
+                    && (key.interestOps() & SelectionKey.OP_READ) != 0) {
+                    receiver.readFrom(key, readBuffer);
+                }
+                synchronized (receiver) {
+                    if (receiver.receivedCount >= count || receiver.eof) {
+                        return;
+                    }
+                    if (receiver.paused) {
+                        return;
+                    }
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    fail("received only " + receiver.receivedCount
+                         + " of " + count + " bytes");
+                }
+                Thread.yield();
+            }
+        }
+
+        /** Reads till the EOF. */
+        void pumpEOF() throws IOException {
+            pump(Long.MAX_VALUE);
+            synchronized (receiver) {
+                assertTrue(receiver.eof);
+            }
+        }
+
+        /** Waits, till the selector thread resumed the reading. */
+        void waitForResume() {
+            final long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (key.interestOps() != SelectionKey.OP_READ) {
+                assertTrue("reading was not resumed",
+                           System.currentTimeMillis() < deadline);
+                Thread.yield();
+            }
+        }
+
+        /** Closes the sockets. */
+        void close() throws IOException {
+            peer.close();
+            channel.close();
+        }
+    }
+
+    @Before
+    protected void setUp() throws Exception {
+        transportSelector = new ManualSelector();
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @After
+    protected void tearDown() throws Exception {
+        server.close();
+        selector.close();
+    }
+
+    /** Returns the ciphers, that are tested. */
+    private static List<String> getCiphers() {
+        final List<String> ciphers = new ArrayList<String>();
+        ciphers.add("aes128-cbc");
+        ciphers.add("aes128-ctr");
+        if (GCMMode.isAvailable()) {
+            ciphers.add("aes128-gcm@openssh.com");
+        }
+        return ciphers;
+    }
+
+    /** Returns the key of the cipher. */
+    private static byte[] key(final String cipher) {
+        final byte[] key = new byte[BlockCipherFactory.getKeySize(cipher)];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+        return key;
+    }
+
+    /** Returns the iv of the cipher. */
+    private static byte[] iv(final String cipher) {
+        final byte[] iv = new byte[BlockCipherFactory.getIVSize(cipher)];
+        for (int i = 0; i < iv.length; i++) {
+            iv[i] = (byte) (0xf0 + i);
+        }
+        return iv;
+    }
+
+    /** Returns the MAC of the cipher, GCM has none. */
+    private static MAC mac(final String cipher) {
+        if (BlockCipherFactory.isAEAD(cipher)) {
+            return null;
+        }
+        final byte[] key = new byte[MAC.getKeyLen(MAC_TYPE)];
+        Arrays.fill(key, (byte) 0x55);
+        return new MAC(MAC_TYPE, key);
+    }
+
+    /** Returns the message of the length. */
+    private static byte[] message(final int length) {
+        final byte[] msg = new byte[length];
+        msg[0] = (byte) TYPE;
+        for (int i = 1; i < length; i++) {
+            msg[i] = (byte) (i * 7);
+        }
+        return msg;
+    }
+
+    /** Returns the length and the hash of the message. */
+    private static String describe(final byte[] msg, final int len) {
+        return len + ":" + Arrays.hashCode(Arrays.copyOf(msg, len));
+    }
+
+    /** Returns the description of the messages. */
+    private static List<String> describe(final int[] lengths) {
+        final List<String> messages = new ArrayList<String>();
+        for (final int length : lengths) {
+            messages.add(describe(message(length), length));
+        }
+        return messages;
+    }
+
+    /** Returns the packets of the messages, as they are on the wire. */
+    private static byte[] packets(final String cipher, final int[] lengths)
+                                                        throws IOException {
+        final ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        final TransportConnection sender =
+                     new TransportConnection(null, wire, new SecureRandom());
+        sender.changeSendCipher(BlockCipherFactory.createCipher(cipher,
+                                                                true,
+                                                                key(cipher),
+                                                                iv(cipher)),
+                                mac(cipher));
+        for (final int length : lengths) {
+            sender.sendMessage(message(length));
+        }
+        return wire.toByteArray();
+    }
+
+    /* ---- tests ----- */
+
+    /** The data arrive in two parts, split at every byte. */
+    @Test
+    public void testSplitAtEveryByte() throws Exception {
+        for (final String cipher : getCiphers()) {
+            final byte[] wire = packets(cipher, SHORT_MESSAGES);
+            for (int split = 1; split < wire.length; split++) {
+                final Connection c = new Connection(cipher);
+                c.send(wire, 0, split);
+                c.pump(split);
+                transportSelector.runWorkers();
+                c.send(wire, split, wire.length - split);
+                c.pump(wire.length);
+                transportSelector.runWorkers();
+                assertEquals(cipher + ", split " + split,
+                             describe(SHORT_MESSAGES),
+                             c.received);
+                assertEquals(0, c.eofs);
+                c.sendEOF();
+                c.pumpEOF();
+                transportSelector.runWorkers();
+                assertEquals(cipher + ", split " + split,
+                             describe(SHORT_MESSAGES),
+                             c.received);
+                assertEquals(1, c.eofs);
+                assertTrue(c.tm.connectionClosed);
+                c.close();
+            }
+        }
+    }
+
+    /** The data arrive byte by byte, the worker runs after every byte. */
+    @Test
+    public void testByteByByte() throws Exception {
+        for (final String cipher : getCiphers()) {
+            final byte[] wire = packets(cipher, SHORT_MESSAGES);
+            final Connection c = new Connection(cipher);
+            for (int i = 0; i < wire.length; i++) {
+                c.send(wire, i, 1);
+                c.pump(i + 1);
+                transportSelector.runWorkers();
+            }
+            c.sendEOF();
+            c.pumpEOF();
+            transportSelector.runWorkers();
+            assertEquals(cipher, describe(SHORT_MESSAGES), c.received);
+            assertEquals(1, c.eofs);
+            c.close();
+        }
+    }
+
+    /**
+     * The EOF arrives, before the worker processed the packets, they are
+     * still delivered.
+     */
+    @Test
+    public void testEOFWithBufferedPackets() throws Exception {
+        for (final String cipher : getCiphers()) {
+            final byte[] wire = packets(cipher, SHORT_MESSAGES);
+            final Connection c = new Connection(cipher);
+            c.send(wire, 0, wire.length);
+            c.sendEOF();
+            c.pumpEOF();
+            transportSelector.runWorkers();
+            assertEquals(cipher, describe(SHORT_MESSAGES), c.received);
+            assertEquals(1, c.eofs);
+            assertEquals("The connection was closed by the remote side.",
+                         c.tm.reasonClosedCause.getMessage());
+            c.close();
+        }
+    }
+
+    /** The EOF in the middle of a packet. */
+    @Test
+    public void testTruncatedPacket() throws Exception {
+        for (final String cipher : getCiphers()) {
+            final byte[] wire = packets(cipher, SHORT_MESSAGES);
+            final Connection c = new Connection(cipher);
+            c.send(wire, 0, wire.length - 1);
+            c.sendEOF();
+            c.pumpEOF();
+            transportSelector.runWorkers();
+            assertEquals(cipher,
+                         describe(Arrays.copyOf(SHORT_MESSAGES,
+                                                SHORT_MESSAGES.length - 1)),
+                         c.received);
+            assertEquals(1, c.eofs);
+            assertNotNull(c.tm.reasonClosedCause);
+            c.close();
+        }
+    }
+
+    /**
+     * The reading pauses, if the packets are not processed, and resumes,
+     * when they were processed.
+     */
+    @Test
+    public void testPauseAndResume() throws Exception {
+        final String cipher = "aes128-ctr";
+        final int[] lengths = {BIG_MESSAGE, BIG_MESSAGE, BIG_MESSAGE,
+                               BIG_MESSAGE, BIG_MESSAGE, 1};
+        final byte[] wire = packets(cipher, lengths);
+        assertTrue(wire.length > NonBlockingReceiver.MAX_BUFFERED);
+        final Connection c = new Connection(cipher);
+        final IOException[] writeError = new IOException[1];
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    c.send(wire, 0, wire.length);
+                    c.sendEOF();
+                } catch (final IOException e) {
+                    writeError[0] = e;
+                }
+            }
+        });
+        writer.start();
+        c.pump(wire.length);
+        synchronized (c.receiver) {
+            assertTrue(c.receiver.paused);
+            assertTrue(c.receiver.receivedCount
+                       > NonBlockingReceiver.MAX_BUFFERED);
+        }
+        assertEquals(0, c.key.interestOps());
+        assertTrue(c.received.isEmpty());
+
+        transportSelector.runWorkers();
+        assertFalse(c.received.isEmpty());
+        c.waitForResume();
+
+        while (true) {
+            c.pump(Long.MAX_VALUE);
+            transportSelector.runWorkers();
+            synchronized (c.receiver) {
+                if (c.receiver.eof) {
+                    break;
+                }
+            }
+            c.waitForResume();
+        }
+        writer.join(TIMEOUT);
+        assertNull(writeError[0]);
+        assertEquals(describe(lengths), c.received);
+        assertEquals(1, c.eofs);
+        c.close();
+    }
+}
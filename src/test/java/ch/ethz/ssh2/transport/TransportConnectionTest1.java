@@ -0,0 +1,215 @@
+package ch.ethz.ssh2.transport;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import ch.ethz.ssh2.crypto.cipher.GCMMode;
+
+/** Tests of the AES-GCM packets (aes128-gcm@openssh.com, RFC 5647). */
+public final class TransportConnectionTest1 extends TestCase {
+    /** Key of both sides. */
+    private static final byte[] KEY = new byte[16];
+    /** Nonce of both sides. */
+    private static final byte[] IV = new byte[GCMMode.IV_LENGTH];
+    /** What the sender wrote. */
+    private ByteArrayOutputStream wire;
+    /** The sending side. */
+    private TransportConnection sender;
+
+    /**
+     * Input, that returns only the bytes, that were already "received", so
+     * that the non-blocking reading can be tested.
+     */
+    private static final class ReceivedInput extends InputStream {
+        /** All bytes. */
+        private final byte[] data;
+        /** Number of the received bytes. */
+        private int received = 0;
+        /** Read position. */
+        private int pos = 0;
+
+        /** Creates new ReceivedInput object. */
+        ReceivedInput(final byte[] data) {
+            this.data = data;
+        }
+
+        /** Receives more bytes. */
+        void receive(final int n) {
+            received = (int) Math.min(data.length, (long) received + n);
+        }
+
+        @Override
+        public int available() {
+            return received - pos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+                                                        throws IOException {
+            if (pos == data.length) {
+                return -1;
+            }
+            if (pos == received) {
+                throw new IOException("read would block");
+            }
+            final int n = Math.min(len, received - pos);
+            System.arraycopy(data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    @Before
+    protected void setUp() {
+        for (int i = 0; i < KEY.length; i++) {
+            KEY[i] = (byte) i;
+        }
+        for (int i = 0; i < IV.length; i++) {
+            IV[i] = (byte) (0xf0 + i);
+        }
+        wire = new ByteArrayOutputStream();
+        sender = new TransportConnection(null, wire, new SecureRandom());
+        sender.changeSendCipher(new GCMMode(KEY, IV, true), null);
+    }
+
+    /** Returns a receiver of the wire. */
+    private TransportConnection receiver(final InputStream in) {
+        final TransportConnection receiver =
+                       new TransportConnection(in, null, new SecureRandom());
+        receiver.changeRecvCipher(new GCMMode(KEY, IV, false), null);
+        return receiver;
+    }
+
+    /** Returns a message of the length. */
+    private static byte[] message(final int length) {
+        final byte[] msg = new byte[length];
+        for (int i = 0; i < length; i++) {
+            msg[i] = (byte) (i * 7);
+        }
+        return msg;
+    }
+
+    /** Receives the message and checks it. */
+    private static void receive(final TransportConnection receiver,
+                                final byte[] expected) throws IOException {
+        final byte[] buffer = new byte[TransportConnection.MAX_PACKET_LENGTH];
+        final int len = receiver.receiveMessage(buffer, 0, buffer.length);
+        assertEquals(expected.length, len);
+        assertTrue(Arrays.equals(expected, Arrays.copyOf(buffer, len)));
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testPacketFormat() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        sender.sendMessage(message(20));
+        final byte[] packet = wire.toByteArray();
+        final int packetLength = ((packet[0] & 0xff) << 24)
+                                 | ((packet[1] & 0xff) << 16)
+                                 | ((packet[2] & 0xff) << 8)
+                                 | (packet[3] & 0xff);
+        /* the length is not encrypted and not padded, the rest is */
+        assertEquals(0, packetLength % 16);
+        assertTrue(packetLength >= 1 + 20 + 4);
+        assertEquals(4 + packetLength + GCMMode.TAG_LENGTH, packet.length);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        final int[] lengths = {1, 11, 12, 15, 16, 17, 100, 32768, 1};
+        for (final int length : lengths) {
+            sender.sendMessage(message(length));
+        }
+        final ReceivedInput in = new ReceivedInput(wire.toByteArray());
+        in.receive(Integer.MAX_VALUE);
+        final TransportConnection receiver = receiver(in);
+        for (final int length : lengths) {
+            receive(receiver, message(length));
+        }
+    }
+
+    @Test
+    public void testNonBlockingReceive() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        sender.sendMessage(message(50));
+        sender.sendMessage(message(3));
+        final ReceivedInput in = new ReceivedInput(wire.toByteArray());
+        final TransportConnection receiver = receiver(in);
+        assertEquals(4, receiver.getBytesNeededForNextMessage());
+        in.receive(2);
+        assertEquals(2, receiver.getBytesNeededForNextMessage());
+        in.receive(2);
+        final int need = receiver.getBytesNeededForNextMessage();
+        /* the length, the padding, the payload and the tag */
+        assertTrue(need > 50 + GCMMode.TAG_LENGTH);
+        in.receive(need - 1);
+        assertEquals(1, receiver.getBytesNeededForNextMessage());
+        in.receive(1);
+        assertEquals(0, receiver.getBytesNeededForNextMessage());
+        assertEquals(50, receiver.peekNextMessageLength());
+        receive(receiver, message(50));
+        in.receive(Integer.MAX_VALUE);
+        assertEquals(0, receiver.getBytesNeededForNextMessage());
+        receive(receiver, message(3));
+    }
+
+    @Test
+    public void testCorruptPacket() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        sender.sendMessage(message(30));
+        final byte[] packet = wire.toByteArray();
+        packet[10] ^= 1;
+        final ReceivedInput in = new ReceivedInput(packet);
+        in.receive(Integer.MAX_VALUE);
+        try {
+            receive(receiver(in), message(30));
+            fail("corrupt packet was accepted");
+        } catch (final IOException e) {
+            assertEquals("Remote sent corrupt MAC.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReplayedPacket() throws IOException {
+        if (!GCMMode.isAvailable()) {
+            return;
+        }
+        sender.sendMessage(message(30));
+        final byte[] packet = wire.toByteArray();
+        final byte[] twice = new byte[packet.length * 2];
+        System.arraycopy(packet, 0, twice, 0, packet.length);
+        System.arraycopy(packet, 0, twice, packet.length, packet.length);
+        final ReceivedInput in = new ReceivedInput(twice);
+        in.receive(Integer.MAX_VALUE);
+        final TransportConnection receiver = receiver(in);
+        receive(receiver, message(30));
+        /* the invocation counter was incremented */
+        try {
+            receive(receiver, message(30));
+            fail("replayed packet was accepted");
+        } catch (final IOException e) {
+            assertEquals("Remote sent corrupt MAC.", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package lcmc.data;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public final class CibDiffTest1 extends TestCase {
+    /** Cib, that the diffs are applied to. */
+    private static final String CIB =
+          "<pcmk><cib admin_epoch=\"0\" epoch=\"5\" num_updates=\"1\">"
+        + "<configuration><crm_config/><nodes><node id=\"n1\" uname=\"n1\"/>"
+        + "</nodes><resources>"
+        + "<primitive id=\"r1\" class=\"ocf\" provider=\"heartbeat\""
+        + " type=\"Dummy\"><instance_attributes id=\"r1-ia\">"
+        + "<nvpair id=\"r1-a\" name=\"a\" value=\"1\"/>"
+        + "</instance_attributes></primitive>"
+        + "<primitive id=\"r2\" class=\"ocf\" provider=\"heartbeat\""
+        + " type=\"Dummy\"/>"
+        + "</resources><constraints/></configuration><status/></cib></pcmk>";
+    /** Modification of the version in the format 2 patchsets. */
+    private static final String V2_VERSION =
+          "<change operation=\"modify\" path=\"/cib\"><change-list>"
+        + "<change-attr name=\"epoch\" operation=\"set\" value=\"6\"/>"
+        + "<change-attr name=\"num_updates\" operation=\"set\" value=\"0\"/>"
+        + "</change-list></change>";
+    /** Old version in the old patchsets. */
+    private static final String V1_REMOVED_CIB =
+                "<cib admin_epoch=\"0\" epoch=\"5\" num_updates=\"1\">";
+    /** New version in the old patchsets. */
+    private static final String V1_ADDED_CIB =
+                "<cib admin_epoch=\"0\" epoch=\"6\" num_updates=\"0\">";
+    /** The tested object. */
+    private CibDiff cibDiff;
+    /** The kept cib document. */
+    private Document document;
+
+    @Before
+    protected void setUp() {
+        cibDiff = new CibDiff();
+        document = cibDiff.getXMLDocument(CIB);
+    }
+
+    /** Returns the cibdiff from the helper with the crm_diff output. */
+    private Document diff(final String source, final String diff) {
+        return cibDiff.getXMLDocument(
+                           "<pcmk><cibdiff source=\"" + source
+                           + "\" target=\"0.6.0\">" + diff
+                           + "</cibdiff></pcmk>");
+    }
+
+    /** Returns the format 2 patchset with the changes. */
+    private Document diffV2(final String changes) {
+        return diff("0.5.1", "<diff format=\"2\">" + V2_VERSION + changes
+                             + "</diff>");
+    }
+
+    /** Returns the old patchset with the removed and added resources. */
+    private Document diffV1(final String removed, final String added) {
+        return diff("0.5.1",
+                    "<diff><diff-removed>" + V1_REMOVED_CIB
+                    + "<configuration><resources>" + removed
+                    + "</resources></configuration></cib></diff-removed>"
+                    + "<diff-added>" + V1_ADDED_CIB
+                    + "<configuration><resources>" + added
+                    + "</resources></configuration></cib></diff-added>"
+                    + "</diff>");
+    }
+
+    /** Returns ids of the primitives in the document order. */
+    private List<String> getPrimitives() {
+        final List<String> ids = new ArrayList<String>();
+        final NodeList nodes = document.getElementsByTagName("primitive");
+        for (int i = 0; i < nodes.getLength(); i++) {
+            ids.add(((Element) nodes.item(i)).getAttribute("id"));
+        }
+        return ids;
+    }
+
+    /** Returns the value of the r1-a nvpair. */
+    private String getValue() throws Exception {
+        return (String) XPathFactory.newInstance().newXPath().evaluate(
+                                   "//nvpair[@id='r1-a']/@value",
+                                   document,
+                                   XPathConstants.STRING);
+    }
+
+    /** Returns the epoch of the cib. */
+    private String getEpoch() {
+        return ((Element) document.getElementsByTagName("cib").item(0))
+                                                      .getAttribute("epoch");
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testV2Create() {
+        assertTrue(cibDiff.apply(document, diffV2(
+           "<change operation=\"create\" path=\"/cib/configuration/resources\""
+           + " position=\"1\"><primitive id=\"r3\" class=\"ocf\""
+           + " provider=\"heartbeat\" type=\"Dummy\"/></change>")));
+        assertEquals("[r1, r3, r2]", getPrimitives().toString());
+        assertEquals("6", getEpoch());
+    }
+
+    @Test
+    public void testV2Modify() throws Exception {
+        assertTrue(cibDiff.apply(document, diffV2(
+           "<change operation=\"modify\" path=\"/cib/configuration/resources"
+           + "/primitive[@id='r1']/instance_attributes[@id='r1-ia']"
+           + "/nvpair[@id='r1-a']\"><change-list>"
+           + "<change-attr name=\"value\" operation=\"set\" value=\"2\"/>"
+           + "</change-list></change>")));
+        assertEquals("2", getValue());
+    }
+
+    @Test
+    public void testV2Delete() {
+        assertTrue(cibDiff.apply(document, diffV2(
+           "<change operation=\"delete\" path=\"/cib/configuration/resources"
+           + "/primitive[@id='r2']\"/>")));
+        assertEquals("[r1]", getPrimitives().toString());
+    }
+
+    @Test
+    public void testV2Move() {
+        assertTrue(cibDiff.apply(document, diffV2(
+           "<change operation=\"move\" path=\"/cib/configuration/resources"
+           + "/primitive[@id='r2']\" position=\"0\"/>")));
+        assertEquals("[r2, r1]", getPrimitives().toString());
+    }
+
+    @Test
+    public void testV1Add() {
+        assertTrue(cibDiff.apply(document, diffV1(
+           "",
+           "<primitive id=\"r3\" class=\"ocf\" provider=\"heartbeat\""
+           + " type=\"Dummy\" __crm_diff_marker__=\"added:top\"/>")));
+        assertEquals("[r1, r2, r3]", getPrimitives().toString());
+        assertEquals("6", getEpoch());
+    }
+
+    @Test
+    public void testV1Modify() throws Exception {
+        assertTrue(cibDiff.apply(document, diffV1(
+           "<primitive id=\"r1\"><instance_attributes id=\"r1-ia\">"
+           + "<nvpair id=\"r1-a\" value=\"1\"/></instance_attributes>"
+           + "</primitive>",
+           "<primitive id=\"r1\"><instance_attributes id=\"r1-ia\">"
+           + "<nvpair id=\"r1-a\" value=\"2\"/></instance_attributes>"
+           + "</primitive>")));
+        assertEquals("2", getValue());
+        assertEquals("[r1, r2]", getPrimitives().toString());
+    }
+
+    @Test
+    public void testV1Delete() {
+        assertTrue(cibDiff.apply(document, diffV1(
+           "<primitive id=\"r1\" __crm_diff_marker__=\"removed:top\"/>",
+           "")));
+        assertEquals("[r2]", getPrimitives().toString());
+    }
+
+    /** The old patchsets move the resource as a removed and added one. */
+    @Test
+    public void testV1Move() throws Exception {
+        assertTrue(cibDiff.apply(document, diffV1(
+           "<primitive id=\"r1\" __crm_diff_marker__=\"removed:top\"/>",
+           "<primitive id=\"r1\" class=\"ocf\" provider=\"heartbeat\""
+           + " type=\"Dummy\" __crm_diff_marker__=\"added:top\"/>")));
+        assertEquals("[r2, r1]", getPrimitives().toString());
+        assertEquals("", getValue());
+    }
+
+    @Test
+    public void testWrongSource() {
+        assertFalse(cibDiff.apply(document, diff(
+                                "0.4.0",
+                                "<diff format=\"2\">" + V2_VERSION
+                                + "</diff>")));
+    }
+
+    @Test
+    public void testWrongTarget() {
+        assertFalse(cibDiff.apply(document, diff(
+                                "0.5.1",
+                                "<diff format=\"2\"></diff>")));
+    }
+
+    @Test
+    public void testFenced() {
+        final Document diffDocument = diffV2("");
+        final Element fenced = diffDocument.createElement("fenced");
+        fenced.appendChild(diffDocument.createElement("node"))
+              .setTextContent("n2");
+        diffDocument.getDocumentElement().appendChild(fenced);
+        assertTrue(cibDiff.apply(document, diffDocument));
+        assertEquals("n2", document.getElementsByTagName("fenced").item(0)
+                                   .getTextContent());
+    }
+}
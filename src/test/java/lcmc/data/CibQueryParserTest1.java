@@ -0,0 +1,421 @@
+package lcmc.data;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lcmc.utilities.Tools;
+
+/**
+ * Runs the streaming and the DOM cib parser over the same cibs and checks,
+ * that they return the same CibQuery.
+ */
+public final class CibQueryParserTest1 extends TestCase {
+    /** Names of the cluster nodes. */
+    private static final String[] NODES = {"node1", "node2"};
+    /** Crm config, nodes and the start of the resources. */
+    private static final String HEAD =
+          "<pcmk><fenced><node>node3</node></fenced>"
+        + "<cib epoch=\"10\" num_updates=\"3\" admin_epoch=\"0\""
+        + " validate-with=\"pacemaker-1.2\" dc-uuid=\"node1\">"
+        + "<configuration><crm_config>"
+        + "<cluster_property_set id=\"cib-bootstrap-options\">"
+        + nvpair("cib-bootstrap-options", "stonith-enabled", "false")
+        + nvpair("cib-bootstrap-options", "no-quorum-policy", "ignore")
+        + "</cluster_property_set></crm_config><nodes>"
+        + "<node id=\"node1\" uname=\"node1\" type=\"normal\">"
+        + "<instance_attributes id=\"nodes-node1\">"
+        + nvpair("nodes-node1", "standby", "off")
+        + "</instance_attributes></node>"
+        + "<node id=\"node2\" uname=\"node2\" type=\"normal\"/>"
+        + "<node id=\"node3\" uname=\"node3\" type=\"normal\"/>"
+        + "</nodes><resources>";
+    /** Defaults after the resources. */
+    private static final String DEFAULTS =
+          "</resources>"
+        + "<rsc_defaults><meta_attributes id=\"rsc-options\">"
+        + nvpair("rsc-options", "resource-stickiness", "100")
+        + "</meta_attributes></rsc_defaults>"
+        + "<op_defaults><meta_attributes id=\"op-options\">"
+        + nvpair("op-options", "timeout", "30s")
+        + "</meta_attributes></op_defaults>";
+    /** The tested parsers. */
+    private CRMXML crmXML;
+    /** Host of the parsers. */
+    private Host host;
+
+    @Before
+    protected void setUp() {
+        Tools.init();
+        Tools.setDebugLevel(-1);
+        host = new Host();
+        host.setHostname(NODES[0]);
+        final Cluster cluster = new Cluster();
+        cluster.setName("test");
+        cluster.addHost(host);
+        host.setCluster(cluster);
+        crmXML = new CRMXML(host, null);
+    }
+
+    /** Returns the nvpair element. */
+    private static String nvpair(final String parentId,
+                                 final String name,
+                                 final String value) {
+        return "<nvpair id=\"" + parentId + "-" + name + "\" name=\"" + name
+               + "\" value=\"" + value + "\"/>";
+    }
+
+    /** Returns the primitive element. */
+    private static String primitive(final String id,
+                                    final String type,
+                                    final String params,
+                                    final boolean operations) {
+        final StringBuilder p = new StringBuilder(300);
+        p.append("<primitive class=\"ocf\" id=\"" + id
+                 + "\" provider=\"heartbeat\" type=\"" + type + "\">"
+                 + "<instance_attributes id=\"" + id + "-ia\">" + params
+                 + "</instance_attributes>");
+        if (operations) {
+            p.append("<operations>"
+                     + "<op id=\"" + id + "-monitor-10s\" interval=\"10s\""
+                     + " name=\"monitor\" timeout=\"20s\"/>"
+                     + "<op id=\"" + id + "-start-0\" interval=\"0\""
+                     + " name=\"start\" timeout=\"20s\"/>"
+                     + "</operations>");
+        }
+        p.append("<meta_attributes id=\"" + id + "-ma\">"
+                 + nvpair(id + "-ma", "target-role", "started")
+                 + "</meta_attributes></primitive>");
+        return p.toString();
+    }
+
+    /** Returns the lrm_resource element with the start and the monitor. */
+    private static String lrmResource(final String id,
+                                      final String type,
+                                      final int rc) {
+        final StringBuilder r = new StringBuilder(500);
+        r.append("<lrm_resource id=\"" + id + "\" type=\"" + type
+                 + "\" class=\"ocf\" provider=\"heartbeat\">");
+        final String[][] ops = {{"start", "0", "0"},
+                                {"monitor", "10000", Integer.toString(rc)}};
+        for (final String[] op : ops) {
+            r.append("<lrm_rsc_op id=\"" + id + "_" + op[0] + "_" + op[1]
+                     + "\" operation=\"" + op[0] + "\" call-id=\"1\""
+                     + " rc-code=\"" + op[2] + "\" op-status=\"0\""
+                     + " interval=\"" + op[1] + "\"/>");
+        }
+        r.append("</lrm_resource>");
+        return r.toString();
+    }
+
+    /** Returns the node_state element. */
+    private static String nodeState(final String node,
+                                    final String crmd,
+                                    final String join,
+                                    final String lrmResources,
+                                    final String attributes) {
+        return "<node_state id=\"" + node + "\" uname=\"" + node
+               + "\" ha=\"active\" in_ccm=\"true\" crmd=\"" + crmd
+               + "\" join=\"" + join + "\" expected=\"member\">"
+               + "<lrm id=\"" + node + "\"><lrm_resources>" + lrmResources
+               + "</lrm_resources></lrm>"
+               + "<transient_attributes id=\"" + node + "\">"
+               + "<instance_attributes id=\"status-" + node + "\">"
+               + attributes
+               + "</instance_attributes></transient_attributes>"
+               + "</node_state>";
+    }
+
+    /** Returns cib with groups and simple constraints. */
+    private static String groupsCib() {
+        final StringBuilder cib = new StringBuilder(HEAD);
+        for (int g = 0; g < 3; g++) {
+            cib.append("<group id=\"grp_" + g + "\">");
+            for (int i = 0; i < 3; i++) {
+                final String id = "res_IPaddr2_" + g + "_" + i;
+                cib.append(primitive(id,
+                                     "IPaddr2",
+                                     nvpair(id + "-ia", "ip",
+                                            "10.0." + g + "." + (i + 1))
+                                     + nvpair(id + "-ia",
+                                              "cidr_netmask",
+                                              "16"),
+                                     true));
+            }
+            cib.append("</group>");
+        }
+        cib.append(DEFAULTS);
+        cib.append("<constraints>");
+        for (int g = 0; g < 3; g++) {
+            cib.append("<rsc_location id=\"loc_grp_" + g + "\" rsc=\"grp_"
+                       + g + "\" node=\"" + NODES[g % NODES.length]
+                       + "\" score=\"100\"/>");
+            if (g > 0) {
+                cib.append("<rsc_order id=\"ord_grp_" + g + "\" first=\"grp_"
+                           + (g - 1) + "\" then=\"grp_" + g
+                           + "\" score=\"INFINITY\"/>"
+                           + "<rsc_colocation id=\"col_grp_" + g
+                           + "\" rsc=\"grp_" + g + "\" with-rsc=\"grp_"
+                           + (g - 1) + "\" score=\"INFINITY\"/>");
+            }
+        }
+        cib.append("</constraints></configuration><status>");
+        for (final String node : NODES) {
+            final StringBuilder lrm = new StringBuilder();
+            for (int g = 0; g < 3; g++) {
+                for (int i = 0; i < 3; i++) {
+                    lrm.append(lrmResource("res_IPaddr2_" + g + "_" + i,
+                                           "IPaddr2",
+                                           0));
+                }
+            }
+            cib.append(nodeState(node,
+                                 "online",
+                                 "member",
+                                 lrm.toString(),
+                                 nvpair("status-" + node,
+                                        "probe_complete",
+                                        "true")));
+        }
+        cib.append("</status></cib></pcmk>");
+        return cib.toString();
+    }
+
+    /**
+     * Returns cib with clones, master/slave, resource sets, rules, fail
+     * counts, ping attributes, pending and orphaned resources.
+     */
+    private static String clonesCib() {
+        final StringBuilder cib = new StringBuilder(HEAD);
+        cib.append("<clone id=\"cl_ping\"><meta_attributes id=\"cl_ping-ma\">"
+                   + nvpair("cl_ping-ma", "clone-max", "2")
+                   + "</meta_attributes>"
+                   + primitive("res_ping",
+                               "ping",
+                               nvpair("res_ping-ia", "host_list", "10.0.0.1"),
+                               true)
+                   + "</clone>"
+                   + "<master_slave id=\"ms_stateful\">"
+                   + "<meta_attributes id=\"ms_stateful-ma\">"
+                   + nvpair("ms_stateful-ma", "master-max", "1")
+                   + "</meta_attributes>"
+                   + primitive("res_Stateful", "Stateful", "", false)
+                   + "</master_slave>"
+                   + "<clone id=\"cl_grp\"><group id=\"grp_cl\">"
+                   + primitive("res_Dummy_1", "Dummy", "", true)
+                   + primitive("res_Dummy_2", "Dummy", "", false)
+                   + "</group></clone>"
+                   + primitive("res_Dummy_3", "Dummy", "", true));
+        cib.append(DEFAULTS);
+        cib.append("<constraints>"
+                   + "<rsc_location id=\"loc_ping\" rsc=\"res_Dummy_3\">"
+                   + "<rule id=\"loc_ping-rule\" score=\"-INFINITY\""
+                   + " boolean-op=\"or\">"
+                   + "<expression id=\"loc_ping-expr\" attribute=\"pingd\""
+                   + " operation=\"not_defined\"/>"
+                   + "<expression id=\"loc_ping-expr-0\" attribute=\"pingd\""
+                   + " operation=\"lte\" value=\"0\"/>"
+                   + "</rule></rsc_location>"
+                   + "<rsc_location id=\"loc_node\" rsc=\"ms_stateful\">"
+                   + "<rule id=\"loc_node-rule\" score=\"50\""
+                   + " role=\"Master\">"
+                   + "<expression id=\"loc_node-expr\" attribute=\"#uname\""
+                   + " operation=\"eq\" value=\"node2\"/>"
+                   + "</rule></rsc_location>"
+                   + "<rsc_colocation id=\"col_ms\" rsc=\"res_Dummy_3\""
+                   + " rsc-role=\"Started\" with-rsc=\"ms_stateful\""
+                   + " with-rsc-role=\"Master\" score=\"INFINITY\"/>"
+                   + "<rsc_order id=\"ord_ms\" first=\"ms_stateful\""
+                   + " first-action=\"promote\" then=\"res_Dummy_3\""
+                   + " then-action=\"start\" score=\"INFINITY\""
+                   + " symmetrical=\"false\"/>"
+                   + "<rsc_order id=\"ord_set\" score=\"INFINITY\">"
+                   + "<resource_set id=\"ord_set-0\" sequential=\"false\">"
+                   + "<resource_ref id=\"cl_ping\"/>"
+                   + "<resource_ref id=\"cl_grp\"/>"
+                   + "</resource_set>"
+                   + "<resource_set id=\"ord_set-1\" action=\"start\">"
+                   + "<resource_ref id=\"res_Dummy_3\"/>"
+                   + "</resource_set></rsc_order>"
+                   + "<rsc_colocation id=\"col_set\" score=\"INFINITY\">"
+                   + "<resource_set id=\"col_set-0\" role=\"Master\">"
+                   + "<resource_ref id=\"ms_stateful\"/>"
+                   + "</resource_set></rsc_colocation>"
+                   + "</constraints></configuration><status>");
+        final String[] ids = {"res_ping", "res_Stateful", "res_Dummy_1",
+                              "res_Dummy_2", "res_Dummy_3"};
+        final String[] types = {"ping", "Stateful", "Dummy", "Dummy",
+                                "Dummy"};
+        for (int n = 0; n < NODES.length; n++) {
+            final String node = NODES[n];
+            final StringBuilder lrm = new StringBuilder();
+            for (int i = 0; i < ids.length; i++) {
+                lrm.append(lrmResource(ids[i] + (i < 4 ? ":" + n : ""),
+                                       types[i],
+                                       i == 4 && n == 1 ? 7 : 0));
+            }
+            lrm.append(lrmResource("res_orphan", "Dummy", 0));
+            cib.append(nodeState(
+                         node,
+                         "online",
+                         "member",
+                         lrm.toString(),
+                         nvpair("status-" + node, "probe_complete", "true")
+                         + nvpair("status-" + node, "pingd", "100")
+                         + nvpair("status-" + node,
+                                  CRMXML.FAIL_COUNT_PREFIX + "res_Dummy_3",
+                                  Integer.toString(n))
+                         + nvpair("status-" + node,
+                                  "master-res_Stateful:" + n,
+                                  "5")));
+        }
+        cib.append(nodeState("node3", "offline", "pending", "", ""));
+        cib.append("</status></cib></pcmk>");
+        return cib.toString();
+    }
+
+    /**
+     * Parses the cib with both parsers and compares all the values of the
+     * CibQuery, the streamed one is returned.
+     */
+    private CibQuery assertSameQuery(final String cib) throws Exception {
+        final CibQuery streamed = new CibQueryParser(crmXML, host).parse(cib);
+        assertNotNull(streamed);
+        final CibQuery dom =
+                         crmXML.parseCibQuery(crmXML.getXMLDocument(cib));
+        int getters = 0;
+        for (final Method m : CibQuery.class.getDeclaredMethods()) {
+            if (!m.getName().startsWith("get")
+                || m.getParameterTypes().length > 0) {
+                continue;
+            }
+            m.setAccessible(true);
+            getters++;
+            final List<String> differences = new ArrayList<String>();
+            compare(m.getName(), m.invoke(streamed), m.invoke(dom),
+                    differences);
+            assertTrue(differences.toString(), differences.isEmpty());
+        }
+        assertTrue(getters > 20);
+        return streamed;
+    }
+
+    /**
+     * Compares the values recursively, objects without their own equals
+     * are compared field by field, the locks are skipped.
+     */
+    private static void compare(final String path,
+                                final Object a,
+                                final Object b,
+                                final List<String> differences)
+                                                      throws Exception {
+        if (a == b) {
+            return;
+        }
+        if (a == null || b == null) {
+            differences.add(path + ": " + a + " != " + b);
+        } else if (a instanceof Map && b instanceof Map) {
+            final Map<?, ?> mapA = (Map<?, ?>) a;
+            final Map<?, ?> mapB = (Map<?, ?>) b;
+            if (!mapA.keySet().equals(mapB.keySet())) {
+                differences.add(path + ": keys " + mapA.keySet() + " != "
+                                + mapB.keySet());
+                return;
+            }
+            for (final Object key : mapA.keySet()) {
+                compare(path + "[" + key + "]", mapA.get(key), mapB.get(key),
+                        differences);
+            }
+        } else if (a instanceof Set && b instanceof Set) {
+            if (!a.equals(b)) {
+                differences.add(path + ": " + a + " != " + b);
+            }
+        } else if (a instanceof Collection && b instanceof Collection) {
+            final Collection<?> colA = (Collection<?>) a;
+            final Collection<?> colB = (Collection<?>) b;
+            if (colA.size() != colB.size()) {
+                differences.add(path + ": " + a + " != " + b);
+                return;
+            }
+            final Iterator<?> itB = colB.iterator();
+            int i = 0;
+            for (final Object elA : colA) {
+                compare(path + "[" + i + "]", elA, itB.next(), differences);
+                i++;
+            }
+        } else if (a.getClass() != b.getClass()) {
+            differences.add(path + ": " + a.getClass() + " != "
+                            + b.getClass());
+        } else if (ownEquals(a.getClass())
+                   || !a.getClass().getName().startsWith("lcmc.")) {
+            if (!a.equals(b)) {
+                differences.add(path + ": " + a + " != " + b);
+            }
+        } else {
+            for (final Field f : a.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers())
+                    || f.getType().getName().startsWith(
+                                            "java.util.concurrent.locks.")) {
+                    continue;
+                }
+                f.setAccessible(true);
+                compare(path + "." + f.getName(), f.get(a), f.get(b),
+                        differences);
+            }
+        }
+    }
+
+    /** Returns whether the class or its super class overrides equals. */
+    private static boolean ownEquals(final Class<?> c) throws Exception {
+        return c.getMethod("equals", Object.class).getDeclaringClass()
+               != Object.class;
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testGroups() throws Exception {
+        assertSameQuery(groupsCib());
+    }
+
+    @Test
+    public void testClones() throws Exception {
+        final CibQuery cibQuery = assertSameQuery(clonesCib());
+        assertEquals(2, cibQuery.getRscSetConnections().size());
+        assertEquals("1", cibQuery.getFailCount("node2", "res_Dummy_3"));
+        assertEquals("100", cibQuery.getPingCount("node1"));
+        assertTrue(cibQuery.getOrphaned().contains("res_orphan"));
+        assertEquals("[ms_stateful]", cibQuery.getMasterList().toString());
+    }
+
+    @Test
+    public void testNoConstraints() throws Exception {
+        assertSameQuery(HEAD + primitive("res_Dummy", "Dummy", "", true)
+                        + DEFAULTS + "<constraints/></configuration>"
+                        + "<status/></cib></pcmk>");
+    }
+
+    @Test
+    public void testEmptyCib() throws Exception {
+        assertSameQuery(HEAD + "</resources><constraints/></configuration>"
+                        + "<status/></cib></pcmk>");
+    }
+
+    @Test
+    public void testNodesInStatus() throws Exception {
+        assertSameQuery(HEAD + "</resources><constraints/></configuration>"
+                        + "<status>"
+                        + nodeState("node1", "online", "member", "", "")
+                        + nodeState("node2", "offline", "down", "", "")
+                        + "</status></cib></pcmk>");
+    }
+
+}
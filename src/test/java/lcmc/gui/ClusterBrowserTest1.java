@@ -13,6 +13,7 @@ import java.util.concurrent.CountDownLatch;
 import lcmc.utilities.TestSuite1;
 import lcmc.utilities.Tools;
 import lcmc.utilities.CRM;
+import lcmc.utilities.FrameDecoder;
 import lcmc.data.Host;
 
 public final class ClusterBrowserTest1 extends TestCase {
@@ -34,37 +35,34 @@ public final class ClusterBrowserTest1 extends TestCase {
         for (final Host host : TestSuite1.getHosts()) {
             final ClusterBrowser cb = host.getBrowser().getClusterBrowser();
 
-            StringBuffer buffer = new StringBuffer("cd");
-            cb.processClusterOutput("a---reset---\r\nb",
-                                    buffer,
-                                    host,
-                                    nolatch,
-                                    CRM.LIVE);
-            assertEquals("cdab", buffer.toString());
+            /* reset lines are text outside of the frames */
+            final FrameDecoder decoder = new FrameDecoder();
+            List<FrameDecoder.Frame> frames =
+                                    decoder.decode("---reset---\r\n---sta");
+            assertEquals(1, frames.size());
+            assertTrue(frames.get(0).isText());
 
-            buffer = new StringBuffer("");
-            cb.processClusterOutput("a---reset---\r\nb",
-                                    buffer,
-                                    host,
-                                    nolatch,
-                                    CRM.LIVE);
-            assertEquals("ab", buffer.toString());
+            /* old helpers print markers */
+            frames = decoder.decode("rt---\r\nerror\r\n---reset---\r\n"
+                                    + "---done---\r\n");
+            assertEquals(1, frames.size());
+            assertEquals(FrameDecoder.CLUSTER_TYPE, frames.get(0).getType());
+            assertEquals("error\n---reset---\n", frames.get(0).getPayload());
 
-            buffer = new StringBuffer("cd");
-            cb.processClusterOutput("a---reset---\r\nb",
-                                    buffer,
-                                    host,
-                                    nolatch,
-                                    CRM.LIVE);
-            assertEquals("cdab", buffer.toString());
+            frames = decoder.decode("@frame cluster 1 7\r\nerr");
+            assertEquals(0, frames.size());
+            frames = decoder.decode("or\r\n\r\n---reset---\r\n");
+            assertEquals(2, frames.size());
+            assertEquals(FrameDecoder.CLUSTER_TYPE, frames.get(0).getType());
+            assertEquals("error\n", frames.get(0).getPayload());
+            assertTrue(frames.get(1).isText());
 
-            buffer = new StringBuffer("cd");
-            cb.processClusterOutput("a---reset---\r\nb---reset---\r\nc",
-                                    buffer,
+            cb.processClusterOutput("@frame cluster 1 7\r\nerror\r\n\r\n",
+                                    new FrameDecoder(),
                                     host,
                                     nolatch,
                                     CRM.LIVE);
-            assertEquals("cdabc", buffer.toString());
+            assertFalse(host.isClStatus());
         }
                     
         
@@ -153,7 +151,7 @@ public final class ClusterBrowserTest1 extends TestCase {
                 final ClusterBrowser cb = host.getBrowser().getClusterBrowser();
                 cb.getClusterViewPanel().setDisabledDuringLoad(true);
                 cb.processClusterOutput(cib,
-                                        new StringBuffer(""),
+                                        new FrameDecoder(),
                                         host,
                                         firstTime,
                                         testOnly);
@@ -166,7 +164,7 @@ public final class ClusterBrowserTest1 extends TestCase {
                 final ClusterBrowser cb = host.getBrowser().getClusterBrowser();
                 Tools.waitForSwing();
                 cb.processClusterOutput(emptyCib,
-                                        new StringBuffer(""),
+                                        new FrameDecoder(),
                                         host,
                                         firstTime,
                                         testOnly);
@@ -0,0 +1,81 @@
+package lcmc.gui.resources;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.After;
+import org.junit.Before;
+import java.util.ArrayList;
+import java.util.List;
+
+import lcmc.utilities.TestSuite1;
+import lcmc.utilities.Tools;
+import lcmc.data.Host;
+import lcmc.gui.ClusterBrowser;
+
+public final class DrbdInfoTest1 extends TestCase {
+    @Before
+    protected void setUp() {
+        TestSuite1.initTest();
+    }
+
+    @After
+    protected void tearDown() {
+        assertEquals("", TestSuite1.getStdout());
+    }
+
+    /** Returns the drbd infos, that createDrbdConfig reads. */
+    private static List<EditableInfo> getDrbdInfos(final ClusterBrowser cb) {
+        final List<EditableInfo> infos = new ArrayList<EditableInfo>();
+        infos.add(cb.getDrbdGraph().getDrbdInfo());
+        for (final DrbdResourceInfo dri : cb.getDrbdResHashValues()) {
+            infos.add(dri);
+            for (final DrbdVolumeInfo dvi : dri.getDrbdVolumes()) {
+                infos.add(dvi);
+                infos.addAll(dvi.getBlockDevInfos());
+            }
+        }
+        return infos;
+    }
+
+    /**
+     * Returns the common section and the resources, as they are written
+     * by createDrbdConfig.
+     */
+    private static String getDrbdConfig(final ClusterBrowser cb,
+                                        final Host host) throws Exception {
+        final StringBuilder config = new StringBuilder(
+                     cb.getDrbdGraph().getDrbdInfo().drbdSectionsConfig(host));
+        for (final DrbdResourceInfo dri : cb.getDrbdResHashValues()) {
+            config.append(dri.drbdResourceConfig(host));
+        }
+        return config.toString();
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testReleaseInfoPanel() throws Exception {
+        for (final Host host : TestSuite1.getHosts()) {
+            final ClusterBrowser cb = host.getBrowser().getClusterBrowser();
+            final List<EditableInfo> infos = getDrbdInfos(cb);
+            Tools.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    for (final EditableInfo info : infos) {
+                        info.getInfoPanel();
+                    }
+                }
+            });
+            final String config = getDrbdConfig(cb, host);
+            Tools.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    for (final EditableInfo info : infos) {
+                        info.releaseInfoPanel();
+                    }
+                }
+            });
+            assertEquals(config, getDrbdConfig(cb, host));
+        }
+    }
+}
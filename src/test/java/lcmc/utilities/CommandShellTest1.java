@@ -0,0 +1,194 @@
+package lcmc.utilities;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class CommandShellTest1 extends TestCase {
+    /** Marker in the lines, that were sent to the shell. */
+    private static final Pattern MARKER_PATTERN =
+                                        Pattern.compile("(LCMC-[0-9a-f]+)");
+    /** What was sent to the shell. */
+    private ByteArrayOutputStream stdin;
+    /** Fake output of the shell. */
+    private FakeOutput stdout;
+    /** The tested shell. */
+    private CommandShell shell;
+
+    @Before
+    protected void setUp() throws IOException {
+        Tools.setDebugLevel(-1);
+        stdin = new ByteArrayOutputStream();
+        stdout = new FakeOutput();
+        shell = new CommandShell(null, null, stdout, stdin);
+    }
+
+    /**
+     * Output of the shell, that answers every sent command with the next
+     * output. "%m" in the output is replaced with the new line and the
+     * marker, as printf of the shell line prints them.
+     * The output is read in chunks of the given size.
+     */
+    private final class FakeOutput extends InputStream {
+        /** Outputs of the next commands. */
+        private final List<String> outputs = new ArrayList<String>();
+        /** Bytes, that were not read yet. */
+        private byte[] data = new byte[0];
+        /** Read position in the data. */
+        private int pos = 0;
+        /** Size of the chunks, that are returned by one read. */
+        private int chunkSize = Integer.MAX_VALUE;
+
+        /** Adds the output of the next command. */
+        void add(final String output) {
+            outputs.add(output);
+        }
+
+        @Override
+        public int available() {
+            return data.length - pos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+                                                        throws IOException {
+            if (pos == data.length) {
+                if (outputs.isEmpty()) {
+                    return -1;
+                }
+                final Matcher m = MARKER_PATTERN.matcher(
+                                                stdin.toString("UTF-8"));
+                assertTrue(m.find());
+                data = outputs.remove(0).replace("%m", "\n" + m.group(1))
+                                        .getBytes("UTF-8");
+                pos = 0;
+            }
+            final int n = Math.min(Math.min(len, chunkSize),
+                                   data.length - pos);
+            System.arraycopy(data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testOutput() throws IOException {
+        stdout.add("line 1\nline 2\n%m 0\n");
+        final SSH.SSHOutput out = shell.exec("true", 0);
+        assertEquals("line 1\r\nline 2\r\n", out.getOutput());
+        assertEquals(0, out.getExitCode());
+    }
+
+    @Test
+    public void testExitCode() throws IOException {
+        stdout.add("no new line%m 3\n");
+        final SSH.SSHOutput out = shell.exec("false", 0);
+        assertEquals("no new line", out.getOutput());
+        assertEquals(3, out.getExitCode());
+    }
+
+    @Test
+    public void testSplitMarker() throws IOException {
+        for (int size = 1; size < 40; size++) {
+            stdout.chunkSize = size;
+            stdout.add("a\nb\n%m 0\nc\n%m 1\n");
+            final SSH.SSHOutput out1 = shell.exec("ab", 0);
+            final SSH.SSHOutput out2 = shell.exec("c", 0);
+            assertEquals("chunk size " + size, "a\r\nb\r\n", out1.getOutput());
+            assertEquals(0, out1.getExitCode());
+            assertEquals("chunk size " + size, "c\r\n", out2.getOutput());
+            assertEquals(1, out2.getExitCode());
+        }
+    }
+
+    @Test
+    public void testLargeOutput() throws IOException {
+        final StringBuilder large = new StringBuilder();
+        while (large.length() < 1024 * 1024) {
+            large.append("0123456789 LCMC- abcdef\n");
+        }
+        stdout.chunkSize = 1000;
+        stdout.add(large + "%m 0\n");
+        final SSH.SSHOutput out = shell.exec("cat", 0);
+        assertEquals(large.toString().replace("\n", "\r\n"),
+                     out.getOutput());
+    }
+
+    @Test
+    public void testTimeout() throws IOException {
+        stdout.add("partial\n%m timeout\n");
+        try {
+            shell.exec("sleep 100", 1000);
+            fail("no timeout");
+        } catch (final IOException e) {
+            assertTrue(e.getMessage().startsWith("Timeout"));
+        }
+        assertFalse(shell.isClosed());
+        assertEquals(0, shell.getPendingCount());
+        stdout.add("next\n%m 0\n");
+        assertEquals("next\r\n", shell.exec("echo next", 1000).getOutput());
+    }
+
+    @Test
+    public void testShellExited() throws IOException {
+        stdout.add("cut");
+        try {
+            shell.exec("exit", 0);
+            fail("no exception");
+        } catch (final IOException e) {
+            assertTrue(shell.isClosed());
+        }
+        assertNull(shell.exec("true", 0));
+    }
+
+    @Test
+    public void testShellLine() throws IOException {
+        final String line = shell.getShellLine("bash -c 'true'", 1500);
+        assertTrue(line.contains("setsid bash -c 'true' </dev/null"));
+        assertTrue(line.contains("sleep 2; kill -9 -$p"));
+        assertFalse(shell.getShellLine("true", 0).contains("sleep"));
+    }
+
+    /** The command is killed on the host and the shell can be used. */
+    @Test
+    public void testTimeoutInBash() throws IOException, InterruptedException {
+        final Process bash = new ProcessBuilder("bash").start();
+        try {
+            final CommandShell bashShell =
+                        new CommandShell(null,
+                                         null,
+                                         bash.getInputStream(),
+                                         bash.getOutputStream());
+            final SSH.SSHOutput out = bashShell.exec(
+                                              "bash -c 'echo x; echo y >&2'",
+                                              5000);
+            assertEquals("x\r\ny\r\n", out.getOutput());
+            final long start = System.currentTimeMillis();
+            try {
+                bashShell.exec("bash -c 'sleep 100 & sleep 100'", 1000);
+                fail("no timeout");
+            } catch (final IOException e) {
+                assertTrue(System.currentTimeMillis() - start < 10000);
+            }
+            assertEquals(7, bashShell.exec("bash -c 'exit 7'", 5000).getExitCode());
+        } finally {
+            bash.getOutputStream().close();
+            bash.waitFor();
+        }
+    }
+}
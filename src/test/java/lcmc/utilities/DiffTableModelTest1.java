@@ -0,0 +1,134 @@
+package lcmc.utilities;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JButton;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+public final class DiffTableModelTest1 extends TestCase {
+    /** The tested model. */
+    private DiffTableModel model;
+    /** Events, that the model fired, e.g. "update 1-2". */
+    private final List<String> events = new ArrayList<String>();
+
+    @Before
+    protected void setUp() {
+        model = new DiffTableModel(rows("a", "b", "c"),
+                                   new Object[]{"name", "value"});
+        model.addTableModelListener(new TableModelListener() {
+            @Override
+            public void tableChanged(final TableModelEvent e) {
+                final String type;
+                switch (e.getType()) {
+                    case TableModelEvent.INSERT:
+                        type = "insert";
+                        break;
+                    case TableModelEvent.DELETE:
+                        type = "delete";
+                        break;
+                    default:
+                        type = "update";
+                        break;
+                }
+                events.add(type + " " + e.getFirstRow() + "-"
+                           + e.getLastRow());
+            }
+        });
+    }
+
+    /** Returns rows with the keys and the values "v" + key. */
+    private static Object[][] rows(final String... keys) {
+        final Object[][] data = new Object[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            data[i] = new Object[]{keys[i], "v" + keys[i]};
+        }
+        return data;
+    }
+
+    /** Returns keys of the model rows. */
+    private String getKeys() {
+        final StringBuilder keys = new StringBuilder();
+        for (int i = 0; i < model.getRowCount(); i++) {
+            keys.append(model.getValueAt(i, 0));
+            keys.append(model.getValueAt(i, 1));
+            keys.append(' ');
+        }
+        return keys.toString().trim();
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testNoChange() {
+        assertFalse(model.update(rows("a", "b", "c")));
+        assertEquals("[]", events.toString());
+        assertEquals("ava bvb cvc", getKeys());
+    }
+
+    @Test
+    public void testInsert() {
+        model.update(rows("a", "x", "b", "c", "y"));
+        assertEquals("[insert 1-1, insert 4-4]", events.toString());
+        assertEquals("ava xvx bvb cvc yvy", getKeys());
+    }
+
+    @Test
+    public void testDelete() {
+        model.update(rows("b"));
+        assertEquals("[delete 2-2, delete 0-0]", events.toString());
+        assertEquals("bvb", getKeys());
+    }
+
+    @Test
+    public void testChange() {
+        final Object[][] data = rows("a", "b", "c");
+        data[1][1] = "changed";
+        model.update(data);
+        assertEquals("[update 1-1]", events.toString());
+        assertEquals("ava bchanged cvc", getKeys());
+    }
+
+    @Test
+    public void testReorder() {
+        model.update(rows("c", "a", "b"));
+        assertEquals("[update 0-2]", events.toString());
+        assertEquals("cvc ava bvb", getKeys());
+    }
+
+    @Test
+    public void testLongerText() {
+        final Object[][] data = rows("a", "b", "c");
+        data[2][1] = "longer value";
+        assertTrue(model.update(data));
+    }
+
+    @Test
+    public void testButtons() {
+        final Object[][] data = rows("a", "b", "c");
+        final JButton button = new JButton("vb");
+        button.setToolTipText("old");
+        data[1][1] = button;
+        model.update(data);
+        events.clear();
+
+        /* same look, the new button is there without an event */
+        final JButton newButton = new JButton("vb");
+        newButton.setToolTipText("new");
+        data[1][1] = newButton;
+        model.update(data);
+        assertEquals("[]", events.toString());
+        assertSame(newButton, model.getValueAt(1, 1));
+
+        /* disabled button looks different */
+        final JButton disabled = new JButton("vb");
+        disabled.setEnabled(false);
+        data[1][1] = disabled;
+        model.update(data);
+        assertEquals("[update 1-1]", events.toString());
+        assertSame(disabled, model.getValueAt(1, 1));
+    }
+}
@@ -0,0 +1,132 @@
+package lcmc.utilities;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class FrameDecoderTest1 extends TestCase {
+    /** The tested decoder. */
+    private FrameDecoder decoder;
+
+    @Before
+    protected void setUp() {
+        Tools.setDebugLevel(-1);
+        decoder = new FrameDecoder();
+    }
+
+    /**
+     * Returns the frame, as the helper prints it with a terminal: the
+     * length counts the carriage returns, that the terminal adds.
+     */
+    private static String frame(final String type, final String payload)
+                                                        throws Exception {
+        final String wire = payload.replace("\n", "\r\n");
+        return "@frame " + type + " 1 " + wire.getBytes("UTF-8").length
+               + "\r\n" + wire + "\r\n";
+    }
+
+    /** Returns the types and payloads of the frames. */
+    private static List<String> toList(final List<FrameDecoder.Frame> frames) {
+        final List<String> list = new ArrayList<String>();
+        for (final FrameDecoder.Frame f : frames) {
+            list.add(f.getType() + ":" + f.getPayload());
+        }
+        return list;
+    }
+
+    /** Decodes the output in chunks of the size. */
+    private List<String> decodeInChunks(final String output, final int size) {
+        final List<String> list = new ArrayList<String>();
+        for (int i = 0; i < output.length(); i += size) {
+            list.addAll(toList(decoder.decode(
+                   output.substring(i, Math.min(output.length(), i + size)))));
+        }
+        return list;
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testSeveralFramesInOneChunk() throws Exception {
+        final List<String> frames = toList(decoder.decode(
+                                            frame("hw", "a\nb\n")
+                                            + frame("drbd", "")
+                                            + frame("vm", "c")));
+        assertEquals("[hw:a\nb\n, drbd:, vm:c]", frames.toString());
+    }
+
+    @Test
+    public void testSplitFrames() throws Exception {
+        final String output = frame("hw", "line 1\nline 2\n")
+                              + frame("drbd", "--nm--\n");
+        for (int size = 1; size < output.length(); size++) {
+            decoder = new FrameDecoder();
+            assertEquals("chunk size " + size,
+                         "[hw:line 1\nline 2\n, drbd:--nm--\n]",
+                         decodeInChunks(output, size).toString());
+        }
+    }
+
+    @Test
+    public void testMultibyte() throws Exception {
+        final String payload = "áč\n€ 😀\n";
+        final String output = frame("hw", payload) + frame("drbd", "x\n");
+        for (int size = 1; size < output.length(); size++) {
+            decoder = new FrameDecoder();
+            assertEquals("chunk size " + size,
+                         "[hw:" + payload + ", drbd:x\n]",
+                         decodeInChunks(output, size).toString());
+        }
+    }
+
+    @Test
+    public void testWithoutTerminal() throws Exception {
+        final List<String> frames = toList(decoder.decode(
+                                 "@frame hw 1 4\na\nb\n\n@frame vm 1 1\nc\n"));
+        assertEquals("[hw:a\nb\n, vm:c]", frames.toString());
+    }
+
+    @Test
+    public void testCarriageReturns() throws Exception {
+        final List<String> frames = toList(decoder.decode(
+                                      "@frame hw 1 5\r\na\r\rb\r\n"
+                                      + "@frame vm 1 2\r\n\r\n\r\n"));
+        assertEquals("[hw:ab, vm:\n]", frames.toString());
+    }
+
+    @Test
+    public void testTextOutsideOfFrames() throws Exception {
+        final List<String> frames = toList(decoder.decode(
+                                    "text\r\n" + frame("hw", "a\n") + "x\n"));
+        assertEquals("[null:text\r\n, hw:a\n, null:x\n]", frames.toString());
+    }
+
+    @Test
+    public void testMarkers() throws Exception {
+        final List<String> frames = decodeInChunks(
+                                "--hw-info-start--5\r\na\r\n--hw-info-end--\r\n"
+                                + "---start---\r\nb\r\n---done---\r\n",
+                                3);
+        assertEquals("[hw:a\n, cluster:b\n]", frames.toString());
+    }
+
+    @Test
+    public void testResyncShortLength() throws Exception {
+        final List<String> frames = toList(decoder.decode(
+                                    "@frame hw 1 2\r\nabcdef\r\nmore\r\n"
+                                    + frame("drbd", "x\n")));
+        assertEquals("[drbd:x\n]", frames.toString());
+    }
+
+    @Test
+    public void testResyncLongLength() throws Exception {
+        final List<String> frames = decodeInChunks(
+                                    "@frame hw 1 12\r\nab\r\n"
+                                    + frame("drbd", "x\n")
+                                    + frame("vm", "y\n"),
+                                    5);
+        assertEquals("[vm:y\n]", frames.toString());
+    }
+}
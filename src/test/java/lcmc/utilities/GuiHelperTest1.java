@@ -0,0 +1,131 @@
+package lcmc.utilities;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.After;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class GuiHelperTest1 extends TestCase {
+    /** Directory with the helper and the fake programs. */
+    private File dir;
+    /** The helper, that uses the fake programs. */
+    private File helper;
+
+    @Before
+    protected void setUp() throws Exception {
+        Tools.setDebugLevel(-1);
+        dir = File.createTempFile("lcmc-helper", "");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdir());
+        final File ocfDir = new File(dir, "ocf/resource.d/heartbeat");
+        assertTrue(ocfDir.mkdirs());
+        write(new File(ocfDir, "Dummy"), "#!/bin/sh\n");
+        final File stonithAdmin = new File(dir, "stonith_admin");
+        write(stonithAdmin,
+              "#!/bin/sh\n"
+              + "echo \"<resource-agent name=\\\"$3\\\">\"\n"
+              + "echo '</resource-agent>'\n");
+        assertTrue(stonithAdmin.setExecutable(true));
+        helper = new File(dir, "lcmc-gui-helper");
+        write(helper,
+              Tools.getFile("/help-progs/lcmc-gui-helper")
+                   .replace("our $OCF_DIR = \"/usr/lib/ocf\";",
+                            "our $OCF_DIR = \"" + dir + "/ocf\";")
+                   .replace("our $STONITH_ADMIN_PROG = "
+                            + "\"/usr/sbin/stonith_admin\";",
+                            "our $STONITH_ADMIN_PROG = \""
+                            + stonithAdmin + "\";"));
+    }
+
+    @After
+    protected void tearDown() {
+        delete(dir);
+    }
+
+    /** Writes the file. */
+    private static void write(final File file, final String content)
+                                                        throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Deletes the file or the directory. */
+    private static void delete(final File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (final File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+
+    /** Runs the helper with the arguments and returns its output. */
+    private String helper(final String... args) throws Exception {
+        final List<String> command = new ArrayList<String>();
+        command.add("perl");
+        command.add(helper.getPath());
+        command.addAll(Arrays.asList(args));
+        final Process process = new ProcessBuilder(command).start();
+        process.getOutputStream().close();
+        final InputStream in = process.getInputStream();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int len;
+        while ((len = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, len);
+        }
+        process.waitFor();
+        return out.toString("UTF-8");
+    }
+
+    /** Returns the "key:" lines of the output. */
+    private static List<String> getKeys(final String output) {
+        final List<String> keys = new ArrayList<String>();
+        for (final String line : output.split("\n")) {
+            if (line.startsWith("key:")) {
+                keys.add(line.substring(4));
+            }
+        }
+        return keys;
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void testStonithAgentsList() throws Exception {
+        final String output = helper("get-resource-agents",
+                                     "list",
+                                     "stonith:external/ipmi",
+                                     "stonith:fence_xvm",
+                                     "stonith:x'; echo injected; '");
+        assertEquals("[stonith:external/ipmi, stonith:fence_xvm]",
+                     getKeys(output).toString());
+        assertTrue(output.contains(
+                  "<resource-agent name=\"external/ipmi\" class=\"stonith\">"));
+        assertFalse(output.contains("injected"));
+    }
+
+    @Test
+    public void testOcfAgentsList() throws Exception {
+        final String output = helper("get-resource-agents",
+                                     "list",
+                                     "ocf:heartbeat:Dummy",
+                                     "ocf:heartbeat:Missing",
+                                     "ocf:heartbeat/../heartbeat:Dummy",
+                                     "ocf:..:heartbeat/Dummy");
+        assertEquals("[ocf:heartbeat:Dummy]", getKeys(output).toString());
+    }
+}
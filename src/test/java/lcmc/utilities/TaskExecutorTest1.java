@@ -0,0 +1,81 @@
+package lcmc.utilities;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lcmc.utilities.TaskExecutor.Pool;
+
+public final class TaskExecutorTest1 extends TestCase {
+    /** More tasks, than there are threads in any pool. */
+    private static final int TASKS = 200;
+
+    /** Tasks, that don't find a free thread, wait in the queue. */
+    @Test
+    public void testBlockedPool() throws Exception {
+        final CountDownLatch finished = new CountDownLatch(TASKS);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < TASKS; i++) {
+            TaskExecutor.execute(Pool.UI, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    finished.countDown();
+                }
+            });
+        }
+        final int queued = TaskExecutor.getQueueSize(Pool.UI);
+        release.countDown();
+        assertTrue(queued > 0);
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(0, TaskExecutor.getQueueSize(Pool.UI));
+        assertEquals(0, TaskExecutor.getRejectedCount(Pool.UI));
+    }
+
+    /** The future reports the exception of the task. */
+    @Test
+    public void testException() throws Exception {
+        final Future<?> future = TaskExecutor.execute(Pool.IO, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("test");
+            }
+        });
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("no exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testLoop() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch stop = new CountDownLatch(1);
+        final Thread thread = TaskExecutor.startLoop("test", new Runnable() {
+            @Override
+            public void run() {
+                running.countDown();
+                try {
+                    stop.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        assertTrue(thread.isDaemon());
+        assertTrue(thread.getName().endsWith("-test"));
+        assertEquals(1, TaskExecutor.getLoopCount());
+        stop.countDown();
+        thread.join(10000);
+        assertEquals(0, TaskExecutor.getLoopCount());
+    }
+}
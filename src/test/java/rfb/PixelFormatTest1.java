@@ -0,0 +1,147 @@
+package rfb;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import java.util.Arrays;
+import rdr.MemInStream;
+
+public final class PixelFormatTest1 extends TestCase {
+    /** Returns the stream with the bytes. */
+    private static MemInStream stream(final int... bytes) {
+        final byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+        return new MemInStream(data, 0, data.length);
+    }
+
+    /** Returns the true colour format. */
+    private static PixelFormat format(final int bpp,
+                                      final int depth,
+                                      final boolean bigEndian,
+                                      final int redShift,
+                                      final int greenShift,
+                                      final int blueShift) {
+        final int max = depth == 16 ? 31 : 255;
+        return new PixelFormat(bpp, depth, bigEndian, true,
+                               max, depth == 16 ? 63 : 255, max,
+                               redShift, greenShift, blueShift);
+    }
+
+    /**
+     * Reads the pixels from the bytes one by one with readPixel and at once
+     * with readPixels, checks that both give the same result and returns
+     * it.
+     */
+    private static String read(final PixelFormat pf,
+                               final int pixels,
+                               final int... bytes) {
+        final int size = pf.cpixelSize();
+        final int shift = pf.cpixelShift();
+        final int[] single = new int[pixels];
+        final MemInStream is = stream(bytes);
+        for (int i = 0; i < pixels; i++) {
+            single[i] = pf.readPixel(is, size, shift);
+        }
+        assertEquals(bytes.length, is.pos());
+        final int[] all = new int[pixels + 1];
+        pf.readPixels(stream(bytes), all, 1, pixels, size, shift);
+        assertEquals(0, all[0]);
+        final StringBuilder s = new StringBuilder();
+        for (int i = 0; i < pixels; i++) {
+            assertEquals("pixel " + i, single[i], all[i + 1]);
+            if (s.length() > 0) {
+                s.append(' ');
+            }
+            s.append(Integer.toHexString(single[i]));
+        }
+        return s.toString();
+    }
+
+    /* ---- tests ----- */
+
+    @Test
+    public void test8bpp() {
+        final PixelFormat pf = new PixelFormat();
+        assertEquals(1, pf.cpixelSize());
+        assertEquals(0, pf.cpixelShift());
+        assertEquals("12 fe", read(pf, 2, 0x12, 0xfe));
+        pf.bigEndian = true;
+        assertEquals("12 fe", read(pf, 2, 0x12, 0xfe));
+    }
+
+    @Test
+    public void test16bpp() {
+        final PixelFormat little = format(16, 16, false, 11, 5, 0);
+        assertEquals(2, little.cpixelSize());
+        assertEquals(0, little.cpixelShift());
+        assertEquals("1234 feff",
+                     read(little, 2, 0x34, 0x12, 0xff, 0xfe));
+        final PixelFormat big = format(16, 16, true, 11, 5, 0);
+        assertEquals("1234 feff",
+                     read(big, 2, 0x12, 0x34, 0xfe, 0xff));
+    }
+
+    @Test
+    public void test32bpp() {
+        /* depth 32 doesn't have compact pixels */
+        final PixelFormat little = format(32, 32, false, 16, 8, 0);
+        assertEquals(4, little.cpixelSize());
+        assertEquals(0, little.cpixelShift());
+        assertEquals("12345678 80000001",
+                     read(little, 2, 0x78, 0x56, 0x34, 0x12,
+                                     0x01, 0x00, 0x00, 0x80));
+        final PixelFormat big = format(32, 32, true, 16, 8, 0);
+        assertEquals("12345678 80000001",
+                     read(big, 2, 0x12, 0x34, 0x56, 0x78,
+                                  0x80, 0x00, 0x00, 0x01));
+        assertEquals("ffffffff",
+                     read(big, 1, 0xff, 0xff, 0xff, 0xff));
+    }
+
+    @Test
+    public void testCompactLowBytes() {
+        final PixelFormat little = format(32, 24, false, 16, 8, 0);
+        assertEquals(3, little.cpixelSize());
+        assertEquals(0, little.cpixelShift());
+        assertEquals("112233 fffefd",
+                     read(little, 2, 0x33, 0x22, 0x11, 0xfd, 0xfe, 0xff));
+        final PixelFormat big = format(32, 24, true, 16, 8, 0);
+        assertEquals(3, big.cpixelSize());
+        assertEquals("112233 fffefd",
+                     read(big, 2, 0x11, 0x22, 0x33, 0xff, 0xfe, 0xfd));
+    }
+
+    @Test
+    public void testCompactHighBytes() {
+        final PixelFormat little = format(32, 24, false, 24, 16, 8);
+        assertEquals(3, little.cpixelSize());
+        assertEquals(8, little.cpixelShift());
+        assertEquals("11223300 fffefd00",
+                     read(little, 2, 0x33, 0x22, 0x11, 0xfd, 0xfe, 0xff));
+        final PixelFormat big = format(32, 24, true, 24, 16, 8);
+        assertEquals(8, big.cpixelShift());
+        assertEquals("11223300 fffefd00",
+                     read(big, 2, 0x11, 0x22, 0x33, 0xff, 0xfe, 0xfd));
+    }
+
+    @Test
+    public void testNoCompactPixels() {
+        /* the colours are in the low and in the high byte */
+        assertEquals(4, format(32, 24, false, 0, 8, 24).cpixelSize());
+        final PixelFormat colourMap = format(32, 24, false, 16, 8, 0);
+        colourMap.trueColour = false;
+        assertEquals(4, colourMap.cpixelSize());
+        assertEquals(0, colourMap.cpixelShift());
+    }
+
+    @Test
+    public void testReadPixelsInChunks() {
+        final PixelFormat pf = format(16, 16, false, 11, 5, 0);
+        final int[] buf = new int[3];
+        final MemInStream is = stream(0x01, 0x00, 0x02, 0x00, 0x03, 0x00);
+        pf.readPixels(is, buf, 0, 2, 2, 0);
+        pf.readPixels(is, buf, 2, 1, 2, 0);
+        assertEquals("[1, 2, 3]", Arrays.toString(buf));
+    }
+}